@@ -105,6 +105,26 @@ public class SslConnection<T extends Connector> extends Connection<T> {
         initSslEngine();
     }
 
+    /**
+     * Returns false as the bytes written must be encrypted by the SSL engine.
+     * 
+     * @return False.
+     */
+    @Override
+    public boolean canGatherWrites() {
+        return false;
+    }
+
+    /**
+     * Returns false as the bytes written must be encrypted by the SSL engine.
+     * 
+     * @return False.
+     */
+    @Override
+    public boolean canTransferFiles() {
+        return false;
+    }
+
     @Override
     protected ReadableSelectionChannel createReadableSelectionChannel() {
         return new ReadableSslChannel(super.createReadableSelectionChannel(),
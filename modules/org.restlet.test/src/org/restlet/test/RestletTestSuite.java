@@ -86,6 +86,7 @@ import org.restlet.test.security.HttpDigestTestCase;
 import org.restlet.test.security.RoleTestCase;
 import org.restlet.test.security.SecurityTestCase;
 import org.restlet.test.service.ServiceTestSuite;
+import org.restlet.test.util.SeriesTestCase;
 import org.restlet.test.util.TemplateTestCase;
 
 /**
@@ -136,6 +137,7 @@ public class RestletTestSuite extends TestSuite {
         addTestSuite(RecipientInfoTestCase.class);
         addTestSuite(RoleTestCase.class);
         addTestSuite(StatusTestCase.class);
+        addTestSuite(SeriesTestCase.class);
         addTestSuite(TemplateTestCase.class);
         addTestSuite(TransformerTestCase.class);
         addTestSuite(ValidatorTestCase.class);
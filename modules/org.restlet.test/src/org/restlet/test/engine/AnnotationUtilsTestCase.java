@@ -65,6 +65,27 @@ public class AnnotationUtilsTestCase extends RestletTestCase {
 
     }
 
+    public void testCachedJavaTypes() {
+        List<AnnotationInfo> infos = AnnotationUtils.getInstance()
+                .getAnnotations(IChild.class);
+
+        for (AnnotationInfo ai : infos) {
+            if (!ai.getResourceClass().equals(IChild.class)) {
+                // Generic types only resolved in the child interface
+            } else if (ai.getRestletMethod().equals(Method.PUT)) {
+                // The cached input types can't be modified by callers
+                Class<?>[] types = ai.getJavaInputTypes();
+                types[0] = Object.class;
+                Assert.assertEquals(String.class, ai.getJavaInputTypes()[0]);
+                Assert.assertNotSame(types, ai.getJavaInputTypes());
+            } else if (ai.getRestletMethod().equals(Method.GET)) {
+                Assert.assertEquals(String.class, ai.getJavaOutputType());
+                Assert.assertSame(ai.getJavaOutputType(),
+                        ai.getJavaOutputType());
+            }
+        }
+    }
+
     public void testGetAnnotationsWithGenericParameterType() {
         List<AnnotationInfo> infos = AnnotationUtils.getInstance()
                 .getAnnotations(IChild.class);
@@ -33,7 +33,11 @@
 
 package org.restlet.test.engine;
 
+import java.text.SimpleDateFormat;
 import java.util.Date;
+import java.util.Locale;
+import java.util.Random;
+import java.util.TimeZone;
 
 import org.restlet.engine.util.DateUtils;
 import org.restlet.test.RestletTestCase;
@@ -87,6 +91,44 @@ public class DateTestCase extends RestletTestCase {
         assertEquals(DATE_RFC1123_1, dateFormat1);
     }
 
+    /**
+     * Tests that the RFC 1123 dates formatted and parsed without
+     * {@link java.text.DateFormat} match the ones of {@link SimpleDateFormat}.
+     */
+    public void testRfc1123Codec() throws Exception {
+        SimpleDateFormat format = new SimpleDateFormat(
+                DateUtils.FORMAT_RFC_1123.get(0), Locale.US);
+        format.setTimeZone(TimeZone.getTimeZone("GMT"));
+        Random random = new Random(1123);
+
+        for (int i = 0; i < 2000; i++) {
+            // Up to the year 3000
+            Date date = new Date(((random.nextLong() >>> 1) % 32503680000L) * 1000);
+            String expected = format.format(date);
+            assertEquals(expected, DateUtils.format(date));
+            assertEquals(date, DateUtils.parse(expected));
+        }
+
+        // Lenient parsing and other time zones still work
+        assertEquals(format.parse("Sun, 6 Nov 1994 08:49:37 GMT"),
+                DateUtils.parse("Sun, 6 Nov 1994 08:49:37 GMT"));
+        assertEquals(format.parse("Sun, 06 Nov 1994 08:49:37 PST"),
+                DateUtils.parse("Sun, 06 Nov 1994 08:49:37 PST"));
+        assertEquals("Sun, 06 Nov 1994 08:49:37 GMT",
+                DateUtils.format(format.parse("Sun, 06 Nov 1994 08:49:37 GMT")));
+
+        // Parsed dates are cached and immutable
+        Date date = DateUtils.parse(DATE_RFC1123_1);
+        assertSame(date, DateUtils.parse(DATE_RFC1123_1));
+
+        try {
+            date.setTime(0);
+            fail("A parsed date should be immutable");
+        } catch (UnsupportedOperationException e) {
+            // Expected
+        }
+    }
+
     /**
      * Tests for dates in the RFC 1036 format.
      */
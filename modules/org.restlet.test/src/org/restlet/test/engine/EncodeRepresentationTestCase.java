@@ -0,0 +1,217 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.test.engine;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import org.restlet.data.Encoding;
+import org.restlet.data.MediaType;
+import org.restlet.engine.application.DecodeRepresentation;
+import org.restlet.engine.application.EncodeRepresentation;
+import org.restlet.representation.InputRepresentation;
+import org.restlet.representation.Representation;
+import org.restlet.representation.StringRepresentation;
+import org.restlet.test.RestletTestCase;
+
+/**
+ * Test {@link EncodeRepresentation} and {@link DecodeRepresentation}.
+ * 
+ * @author Jerome Louvel
+ */
+public class EncodeRepresentationTestCase extends RestletTestCase {
+
+    /**
+     * Returns a compressible text of the given length.
+     * 
+     * @param length
+     *            The length of the text.
+     * @return The text.
+     */
+    private static String getText(int length) {
+        StringBuilder sb = new StringBuilder(length);
+
+        for (int i = 0; sb.length() < length; i++) {
+            sb.append("line ").append(i % 97).append(' ');
+        }
+
+        sb.setLength(length);
+        return sb.toString();
+    }
+
+    /**
+     * Reads the whole content of a channel with a small buffer.
+     * 
+     * @param channel
+     *            The channel to read.
+     * @return The content read.
+     * @throws IOException
+     */
+    private static byte[] read(ReadableByteChannel channel) throws IOException {
+        ByteArrayOutputStream result = new ByteArrayOutputStream();
+        ByteBuffer buffer = ByteBuffer.allocateDirect(100);
+
+        while (channel.read(buffer) != -1) {
+            buffer.flip();
+
+            while (buffer.hasRemaining()) {
+                result.write(buffer.get());
+            }
+
+            buffer.clear();
+        }
+
+        channel.close();
+        return result.toByteArray();
+    }
+
+    /**
+     * Reads the whole content of a stream.
+     * 
+     * @param stream
+     *            The stream to read.
+     * @return The content read.
+     * @throws IOException
+     */
+    private static byte[] read(InputStream stream) throws IOException {
+        ByteArrayOutputStream result = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1000];
+
+        for (int count = stream.read(buffer); count != -1; count = stream
+                .read(buffer)) {
+            result.write(buffer, 0, count);
+        }
+
+        stream.close();
+        return result.toByteArray();
+    }
+
+    /**
+     * Returns a representation of the given encoded bytes.
+     * 
+     * @param bytes
+     *            The encoded bytes.
+     * @param encoding
+     *            The encoding of the bytes.
+     * @return The decoded representation.
+     */
+    private static Representation decode(byte[] bytes, Encoding encoding) {
+        Representation encoded = new InputRepresentation(
+                new ByteArrayInputStream(bytes), MediaType.TEXT_PLAIN);
+        encoded.getEncodings().add(encoding);
+        return new DecodeRepresentation(encoded);
+    }
+
+    public void testChannel() throws IOException {
+        String text = getText(100000);
+
+        for (int i = 0; i < 3; i++) {
+            byte[] gzip = read(new EncodeRepresentation(Encoding.GZIP,
+                    new StringRepresentation(text)).getChannel());
+            assertEquals(text, new String(read(new GZIPInputStream(
+                    new ByteArrayInputStream(gzip)))));
+            assertEquals(text, decode(gzip, Encoding.GZIP).getText());
+
+            byte[] deflate = read(new EncodeRepresentation(Encoding.DEFLATE,
+                    new StringRepresentation(text)).getChannel());
+            assertEquals(text, new String(read(new InflaterInputStream(
+                    new ByteArrayInputStream(deflate)))));
+            assertEquals(text, decode(deflate, Encoding.DEFLATE).getText());
+        }
+
+        byte[] empty = read(new EncodeRepresentation(Encoding.GZIP,
+                new StringRepresentation("")).getChannel());
+        assertEquals(0, read(new GZIPInputStream(new ByteArrayInputStream(
+                empty))).length);
+    }
+
+    public void testCorruptTrailer() throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        new EncodeRepresentation(Encoding.GZIP, new StringRepresentation(
+                getText(5000))).write(baos);
+        byte[] gzip = baos.toByteArray();
+        gzip[gzip.length - 5]++;
+
+        try {
+            read(decode(gzip, Encoding.GZIP).getStream());
+            fail("The corrupt trailer should be detected");
+        } catch (IOException e) {
+            // Expected
+        }
+    }
+
+    public void testLevel() throws IOException {
+        String text = getText(50000);
+        ByteArrayOutputStream stored = new ByteArrayOutputStream();
+        new EncodeRepresentation(Encoding.DEFLATE, new StringRepresentation(
+                text), 0).write(stored);
+        ByteArrayOutputStream best = new ByteArrayOutputStream();
+        new EncodeRepresentation(Encoding.DEFLATE, new StringRepresentation(
+                text), 9).write(best);
+
+        assertTrue(stored.size() > text.length());
+        assertTrue(best.size() < text.length() / 4);
+        assertEquals(text, decode(stored.toByteArray(), Encoding.DEFLATE)
+                .getText());
+        assertEquals(text, decode(best.toByteArray(), Encoding.DEFLATE)
+                .getText());
+    }
+
+    public void testStream() throws IOException {
+        String text = getText(30000);
+
+        for (int i = 0; i < 3; i++) {
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            new EncodeRepresentation(Encoding.GZIP, new StringRepresentation(
+                    text)).write(baos);
+            byte[] gzip = baos.toByteArray();
+            assertEquals(text, new String(read(new GZIPInputStream(
+                    new ByteArrayInputStream(gzip)))));
+            assertEquals(text, decode(gzip, Encoding.GZIP).getText());
+
+            // Both paths produce the same compressed bytes
+            assertTrue(Arrays.equals(gzip, read(new EncodeRepresentation(
+                    Encoding.GZIP, new StringRepresentation(text))
+                    .getChannel())));
+        }
+    }
+
+}
@@ -36,11 +36,22 @@ package org.restlet.test.engine;
 import junit.framework.Test;
 import junit.framework.TestSuite;
 
+import org.restlet.test.engine.connector.BaseHelperTestCase;
+import org.restlet.test.engine.connector.ClientConnectionHelperTestCase;
+import org.restlet.test.engine.connector.ConnectionControllerTestCase;
+import org.restlet.test.engine.connector.HeadEncoderTestCase;
+import org.restlet.test.engine.connector.HeadParserTestCase;
 import org.restlet.test.engine.connector.HttpInboundRequestTestCase;
+import org.restlet.test.engine.connector.PipeliningTestCase;
+import org.restlet.test.engine.connector.PooledBuffersTestCase;
+import org.restlet.test.engine.connector.WorkerServiceTestCase;
+import org.restlet.test.engine.connector.ZeroCopyTestCase;
 import org.restlet.test.engine.io.BioUtilsTestCase;
 import org.restlet.test.engine.io.BufferTestCase;
 import org.restlet.test.engine.io.ReaderInputStreamTestCase;
 import org.restlet.test.engine.util.Base64TestCase;
+import org.restlet.test.engine.util.MetricsTestCase;
+import org.restlet.test.engine.util.TimingWheelTestCase;
 
 /**
  * Suite of unit tests for the Restlet Framework.
@@ -68,10 +79,15 @@ public class EngineTestSuite extends TestSuite {
         addTestSuite(BioUtilsTestCase.class);
         addTestSuite(CookiesTestCase.class);
         addTestSuite(ContentTypeTestCase.class);
+        addTestSuite(EncodeRepresentationTestCase.class);
+        addTestSuite(HeadEncoderTestCase.class);
+        addTestSuite(HeadParserTestCase.class);
         addTestSuite(HeaderTestCase.class);
         addTestSuite(HttpCallTestCase.class);
         addTestSuite(HttpInboundRequestTestCase.class);
         addTestSuite(ImmutableDateTestCase.class);
+        addTestSuite(MetricsTestCase.class);
+        addTestSuite(TimingWheelTestCase.class);
         addTestSuite(UnclosableInputStreamTestCase.class);
         addTestSuite(UnclosableOutputStreamTestCase.class);
         addTestSuite(PreferencesTestCase.class);
@@ -86,12 +102,19 @@ public class EngineTestSuite extends TestSuite {
         // [enddef]
 
         // [ifdef jse]
+        addTestSuite(BaseHelperTestCase.class);
         addTestSuite(ChunkedEncodingPutTestCase.class);
         addTestSuite(ChunkedEncodingTestCase.class);
+        addTestSuite(ClientConnectionHelperTestCase.class);
+        addTestSuite(ConnectionControllerTestCase.class);
         addTestSuite(GetTestCase.class);
         addTestSuite(GetChunkedTestCase.class);
+        addTestSuite(PipeliningTestCase.class);
+        addTestSuite(PooledBuffersTestCase.class);
         addTestSuite(PostPutTestCase.class);
         addTestSuite(RemoteClientAddressTestCase.class);
+        addTestSuite(WorkerServiceTestCase.class);
+        addTestSuite(ZeroCopyTestCase.class);
         addTestSuite(org.restlet.test.ext.ssl.SslGetTestCase.class);
         addTestSuite(org.restlet.test.ext.ssl.SslClientContextGetTestCase.class);
         // [enddef]
@@ -41,11 +41,15 @@ import org.restlet.data.ClientInfo;
 import org.restlet.data.Encoding;
 import org.restlet.data.MediaType;
 import org.restlet.engine.header.EncodingReader;
+import org.restlet.engine.header.Header;
+import org.restlet.engine.header.HeaderId;
 import org.restlet.engine.header.HeaderReader;
+import org.restlet.engine.header.HeaderUtils;
 import org.restlet.engine.header.PreferenceReader;
 import org.restlet.engine.header.TokenReader;
 import org.restlet.engine.util.DateUtils;
 import org.restlet.test.RestletTestCase;
+import org.restlet.util.Series;
 
 /**
  * Unit tests for the header.
@@ -99,6 +103,35 @@ public class HeaderTestCase extends RestletTestCase {
         assertEquals(l.size(), 1);
     }
 
+    /**
+     * Tests the resolution of header identifiers.
+     */
+    public void testHeaderId() {
+        for (HeaderId id : HeaderId.values()) {
+            if (id != HeaderId.UNKNOWN) {
+                assertSame(id, HeaderId.get(id.getName()));
+                assertSame(id, HeaderId.get(id.getName().toUpperCase()));
+            }
+        }
+
+        assertSame(HeaderId.UNKNOWN, HeaderId.get("X-Custom"));
+        assertSame(HeaderId.UNKNOWN, HeaderId.get(null));
+
+        Header header = new Header("content-type", "text/plain");
+        assertSame(HeaderId.CONTENT_TYPE, header.getId());
+        header.setName("Content-Length");
+        assertSame(HeaderId.CONTENT_LENGTH, header.getId());
+
+        Series<Header> headers = new Series<Header>(Header.class);
+        headers.add("Connection", "close");
+        headers.add("transfer-encoding", "chunked");
+        assertEquals("chunked",
+                HeaderUtils.getFirstValue(headers, HeaderId.TRANSFER_ENCODING));
+        assertNull(HeaderUtils.getFirstValue(headers, HeaderId.HOST));
+        assertTrue(HeaderUtils.isChunkedEncoding(headers));
+        assertTrue(HeaderUtils.isConnectionClose(headers));
+    }
+
     public void testInvalidDate() {
         final String headerValue = "-1";
         final Date date = DateUtils.parse(headerValue,
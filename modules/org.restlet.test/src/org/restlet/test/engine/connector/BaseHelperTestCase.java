@@ -0,0 +1,165 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+
+package org.restlet.test.engine.connector;
+
+import java.util.Queue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.restlet.Context;
+import org.restlet.Request;
+import org.restlet.Response;
+import org.restlet.Server;
+import org.restlet.data.Method;
+import org.restlet.data.Protocol;
+import org.restlet.engine.connector.HttpServerHelper;
+import org.restlet.test.RestletTestCase;
+
+/**
+ * Unit tests for the handoff of messages between the controller and the
+ * worker threads of the internal connectors.
+ * 
+ * @author Jerome Louvel
+ */
+public class BaseHelperTestCase extends RestletTestCase {
+
+    /**
+     * Server helper exposing its handoff and queuing again each inbound
+     * message once.
+     */
+    public static class HandoffServerHelper extends HttpServerHelper {
+
+        private volatile int handled;
+
+        public HandoffServerHelper(Server server) {
+            super(server);
+        }
+
+        @Override
+        public boolean control() {
+            return super.control();
+        }
+
+        public int getHandled() {
+            return handled;
+        }
+
+        @Override
+        public Queue<Response> getInboundMessages() {
+            return super.getInboundMessages();
+        }
+
+        @Override
+        public void handleInbound(Response response) {
+            if (response != null) {
+                this.handled++;
+
+                if (response.getAttributes().get("requeued") == null) {
+                    response.getAttributes().put("requeued", Boolean.TRUE);
+                    getInboundMessages().add(response);
+                }
+            }
+        }
+
+        @Override
+        public boolean isWorkerServiceOverloaded() {
+            return super.isWorkerServiceOverloaded();
+        }
+    }
+
+    public void testControl() throws Exception {
+        HandoffServerHelper helper = new HandoffServerHelper(new Server(
+                new Context(), Protocol.HTTP, 0));
+
+        for (int i = 0; i < 3; i++) {
+            helper.getInboundMessages().add(
+                    new Response(new Request(Method.GET, "http://localhost/")));
+        }
+
+        // Messages queued again are handled by the next control
+        helper.control();
+        assertEquals(3, helper.getHandled());
+        assertEquals(3, helper.getInboundMessages().size());
+
+        helper.control();
+        assertEquals(6, helper.getHandled());
+        assertTrue(helper.getInboundMessages().isEmpty());
+    }
+
+    public void testOverloaded() throws Exception {
+        Server server = new Server(new Context(), Protocol.HTTP, 0);
+        server.getContext().getParameters().add("lowThreads", "2");
+        HandoffServerHelper helper = new HandoffServerHelper(server);
+        helper.start();
+
+        try {
+            final CountDownLatch started = new CountDownLatch(2);
+            final CountDownLatch release = new CountDownLatch(1);
+            assertFalse(helper.isWorkerServiceOverloaded());
+
+            for (int i = 0; i < 2; i++) {
+                helper.getWorkerService().execute(new Runnable() {
+                    public void run() {
+                        started.countDown();
+
+                        try {
+                            release.await(5, TimeUnit.SECONDS);
+                        } catch (InterruptedException e) {
+                            // Ends the task
+                        }
+                    }
+                });
+            }
+
+            // The busy workers reached the low threads threshold
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            assertTrue(helper.isWorkerServiceOverloaded());
+            release.countDown();
+
+            for (int i = 0; i < 50; i++) {
+                if (!helper.isWorkerServiceOverloaded()) {
+                    break;
+                }
+
+                Thread.sleep(100);
+            }
+
+            assertFalse(helper.isWorkerServiceOverloaded());
+        } finally {
+            helper.stop();
+        }
+    }
+
+}
@@ -0,0 +1,163 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+
+package org.restlet.test.engine.connector;
+
+import org.restlet.Client;
+import org.restlet.Context;
+import org.restlet.Request;
+import org.restlet.Response;
+import org.restlet.Restlet;
+import org.restlet.Server;
+import org.restlet.data.MediaType;
+import org.restlet.data.Method;
+import org.restlet.data.Protocol;
+import org.restlet.engine.Engine;
+import org.restlet.engine.connector.HttpClientHelper;
+import org.restlet.engine.connector.HttpServerHelper;
+import org.restlet.test.RestletTestCase;
+
+/**
+ * Unit tests for the per-host index of client connections.
+ * 
+ * @author Jerome Louvel
+ */
+public class ClientConnectionHelperTestCase extends RestletTestCase {
+
+    /**
+     * Client helper exposing its index of connections per host.
+     */
+    public static class IndexedClientHelper extends HttpClientHelper {
+
+        public IndexedClientHelper(Client client) {
+            super(client);
+        }
+
+        public int getHostCount() {
+            return getHostConnections().size();
+        }
+    }
+
+    private Server server1;
+
+    private Server server2;
+
+    private Server createServer() throws Exception {
+        Server result = new Server(new Context(), Protocol.HTTP, 0,
+                new Restlet() {
+                    @Override
+                    public void handle(Request request, Response response) {
+                        response.setEntity("hello", MediaType.TEXT_PLAIN);
+                    }
+                });
+        result.start();
+        return result;
+    }
+
+    /**
+     * Sends a few requests to each server.
+     * 
+     * @param client
+     *            The client connector.
+     */
+    private void sendRequests(Client client) throws Exception {
+        for (int i = 0; i < 3; i++) {
+            for (Server server : new Server[] { this.server1, this.server2 }) {
+                Response response = client.handle(new Request(Method.GET,
+                        "http://localhost:" + server.getEphemeralPort()
+                                + "/test"));
+                assertTrue(response.getStatus().isSuccess());
+                assertEquals("hello", response.getEntity().getText());
+            }
+        }
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        Engine.register(false);
+        Engine.getInstance().getRegisteredServers()
+                .add(new HttpServerHelper(null));
+        Engine.getInstance().getRegisteredClients()
+                .add(new IndexedClientHelper(null));
+        this.server1 = createServer();
+        this.server2 = createServer();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        this.server1.stop();
+        this.server2.stop();
+        this.server1 = null;
+        this.server2 = null;
+        super.tearDown();
+    }
+
+    public void testDrainedHosts() throws Exception {
+        Client client = new Client(new Context(), Protocol.HTTP);
+        client.getContext().getParameters()
+                .add("persistingConnections", "false");
+        client.start();
+        IndexedClientHelper helper = (IndexedClientHelper) client.getContext()
+                .getAttributes().get("org.restlet.engine.helper");
+
+        try {
+            sendRequests(client);
+
+            // Closed connections leave the index with their host entry
+            for (int i = 0; (i < 50) && (helper.getHostCount() > 0); i++) {
+                Thread.sleep(100);
+            }
+
+            assertEquals(0, helper.getHostCount());
+        } finally {
+            client.stop();
+        }
+    }
+
+    public void testPersistentHosts() throws Exception {
+        Client client = new Client(new Context(), Protocol.HTTP);
+        client.start();
+        IndexedClientHelper helper = (IndexedClientHelper) client.getContext()
+                .getAttributes().get("org.restlet.engine.helper");
+
+        try {
+            sendRequests(client);
+            assertEquals(2, helper.getHostCount());
+        } finally {
+            client.stop();
+        }
+    }
+
+}
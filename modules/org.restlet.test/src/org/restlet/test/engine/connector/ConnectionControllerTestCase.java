@@ -0,0 +1,190 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+
+package org.restlet.test.engine.connector;
+
+import java.net.InetSocketAddress;
+
+import org.restlet.Client;
+import org.restlet.Context;
+import org.restlet.Request;
+import org.restlet.Response;
+import org.restlet.Restlet;
+import org.restlet.Server;
+import org.restlet.data.MediaType;
+import org.restlet.data.Method;
+import org.restlet.data.Protocol;
+import org.restlet.engine.Engine;
+import org.restlet.engine.connector.ConnectionController;
+import org.restlet.engine.connector.HttpClientHelper;
+import org.restlet.engine.connector.HttpServerHelper;
+import org.restlet.test.RestletTestCase;
+
+/**
+ * Unit tests for the multi-selector mode of the internal connectors.
+ * 
+ * @author Jerome Louvel
+ */
+public class ConnectionControllerTestCase extends RestletTestCase {
+
+    private Client client;
+
+    private Server server;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        Engine.register(false);
+        Engine.getInstance().getRegisteredServers()
+                .add(new HttpServerHelper(null));
+        Engine.getInstance().getRegisteredClients()
+                .add(new HttpClientHelper(null));
+
+        this.server = new Server(new Context(), Protocol.HTTP, 0,
+                new Restlet() {
+                    @Override
+                    public void handle(Request request, Response response) {
+                        response.setEntity("hello", MediaType.TEXT_PLAIN);
+                    }
+                });
+        this.server.getContext().getParameters().add("controllerThreads", "2");
+        this.server.start();
+
+        this.client = new Client(new Context(), Protocol.HTTP);
+        this.client.getContext().getParameters().add("controllerThreads", "2");
+        this.client.getContext().getParameters()
+                .add("controllerBalancing", "hash");
+        this.client.start();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        this.client.stop();
+        this.server.stop();
+        this.client = null;
+        this.server = null;
+        super.tearDown();
+    }
+
+    public void testBestController() {
+        HttpServerHelper serverHelper = (HttpServerHelper) this.server
+                .getContext().getAttributes().get("org.restlet.engine.helper");
+        HttpClientHelper clientHelper = (HttpClientHelper) this.client
+                .getContext().getAttributes().get("org.restlet.engine.helper");
+        assertEquals(2, serverHelper.getIoControllers().length);
+        assertEquals(2, clientHelper.getIoControllers().length);
+
+        // The least loaded IO controller is picked, never the main one
+        ConnectionController controller = serverHelper
+                .getBestController(new InetSocketAddress("localhost", 80));
+        assertNotSame(serverHelper.getController(), controller);
+        assertEquals(0, controller.getConnectionCount());
+
+        // The same remote address is always assigned to the same controller
+        InetSocketAddress address = new InetSocketAddress("localhost", 8182);
+        controller = clientHelper.getBestController(address);
+        assertNotSame(clientHelper.getController(), controller);
+        assertSame(controller, clientHelper.getBestController(address));
+        assertSame(controller, clientHelper.getBestController(address));
+    }
+
+    public void testNonPersistentRequests() throws Exception {
+        String uri = "http://localhost:" + this.server.getEphemeralPort()
+                + "/test";
+        Client closingClient = new Client(new Context(), Protocol.HTTP);
+        closingClient.getContext().getParameters()
+                .add("persistingConnections", "false");
+        closingClient.start();
+
+        try {
+            // The connection is closed while the entity is being read
+            for (int i = 0; i < 20; i++) {
+                Response response = closingClient.handle(new Request(
+                        Method.GET, uri));
+                assertTrue(response.getStatus().isSuccess());
+                assertEquals("hello", response.getEntity().getText());
+            }
+        } finally {
+            closingClient.stop();
+        }
+    }
+
+    public void testRequests() throws Exception {
+        final String uri = "http://localhost:" + this.server.getEphemeralPort()
+                + "/test";
+        final int[] successes = new int[1];
+        Thread[] threads = new Thread[4];
+
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < 10; j++) {
+                        Response response = client.handle(new Request(
+                                Method.GET, uri));
+
+                        if (response.getStatus().isSuccess()) {
+                            synchronized (successes) {
+                                successes[0]++;
+                            }
+                        }
+
+                        response.release();
+                    }
+                }
+            };
+            threads[i].start();
+        }
+
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(40, successes[0]);
+
+        // The accepted connections are owned by the IO controllers only
+        HttpServerHelper serverHelper = (HttpServerHelper) this.server
+                .getContext().getAttributes().get("org.restlet.engine.helper");
+        int count = 0;
+
+        for (ConnectionController controller : serverHelper
+                .getIoControllers()) {
+            count += controller.getConnectionCount();
+        }
+
+        assertEquals(0, serverHelper.getController().getConnectionCount());
+        assertTrue(count > 0);
+    }
+
+}
@@ -0,0 +1,85 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+package org.restlet.test.engine.connector;
+
+import java.nio.ByteBuffer;
+
+import org.restlet.engine.connector.HeadEncoder;
+import org.restlet.engine.header.Header;
+import org.restlet.engine.header.HeaderConstants;
+import org.restlet.test.RestletTestCase;
+import org.restlet.util.Series;
+
+/**
+ * Unit test for the encoding of message heads.
+ * 
+ * @author Jerome Louvel
+ */
+public class HeadEncoderTestCase extends RestletTestCase {
+
+    private static String decode(ByteBuffer buffer) throws Exception {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return new String(bytes, "ISO-8859-1");
+    }
+
+    public void testEncode() throws Exception {
+        Series<Header> headers = new Series<Header>(Header.class);
+        headers.add(HeaderConstants.HEADER_DATE,
+                "Sun, 06 Nov 1994 08:49:37 GMT");
+        headers.add(HeaderConstants.HEADER_SERVER, "Restlet");
+        headers.add(HeaderConstants.HEADER_CONTENT_LENGTH, "2");
+
+        assertEquals("HTTP/1.1 200 OK\r\n"
+                + "Date: Sun, 06 Nov 1994 08:49:37 GMT\r\n"
+                + "Server: Restlet\r\n" + "Content-Length: 2\r\n\r\n",
+                decode(HeadEncoder.encode("HTTP/1.1 200 OK\r\n", headers)));
+
+        // The cached Date line must follow the value changes
+        headers.set(HeaderConstants.HEADER_DATE,
+                "Sun, 06 Nov 1994 08:49:38 GMT", false);
+        assertEquals("HTTP/1.1 200 OK\r\n"
+                + "Date: Sun, 06 Nov 1994 08:49:38 GMT\r\n"
+                + "Server: Restlet\r\n" + "Content-Length: 2\r\n\r\n",
+                decode(HeadEncoder.encode("HTTP/1.1 200 OK\r\n", headers)));
+    }
+
+    public void testEncodeNonLatin1() throws Exception {
+        Series<Header> headers = new Series<Header>(Header.class);
+        headers.add("X-Name", "caf\u00e9 \u20ac");
+
+        assertEquals("GET / HTTP/1.1\r\nX-Name: caf\u00e9 ?\r\n\r\n",
+                decode(HeadEncoder.encode("GET / HTTP/1.1\r\n", headers)));
+    }
+
+}
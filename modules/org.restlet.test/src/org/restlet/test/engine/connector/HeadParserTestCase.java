@@ -0,0 +1,96 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.test.engine.connector;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.restlet.engine.connector.HeadParser;
+import org.restlet.engine.header.Header;
+import org.restlet.engine.header.HeaderConstants;
+import org.restlet.test.RestletTestCase;
+
+/**
+ * Unit test for the in place parsing of message heads.
+ * 
+ * @author Jerome Louvel
+ */
+public class HeadParserTestCase extends RestletTestCase {
+
+    private static ByteBuffer encode(String head) throws Exception {
+        return ByteBuffer.wrap(head.getBytes("ISO-8859-1"));
+    }
+
+    public void testIntern() throws Exception {
+        ByteBuffer bytes = encode("content-LENGTH");
+        assertSame(HeaderConstants.HEADER_CONTENT_LENGTH,
+                HeadParser.intern(bytes, 0, bytes.limit()));
+
+        bytes = encode("Content-Lengths");
+        assertNull(HeadParser.intern(bytes, 0, bytes.limit()));
+        bytes = encode("X-Custom");
+        assertNull(HeadParser.intern(bytes, 0, bytes.limit()));
+    }
+
+    public void testReadHeaders() throws Exception {
+        ByteBuffer bytes = encode("Host: localhost\r\n"
+                + "x-name:  caf\u00e9\r\n" + "\r\nBody");
+
+        Header header = HeadParser.readHeader(bytes,
+                HeadParser.getLineEnd(bytes));
+        assertSame(HeaderConstants.HEADER_HOST, header.getName());
+        assertEquals("localhost", header.getValue());
+
+        header = HeadParser.readHeader(bytes, HeadParser.getLineEnd(bytes));
+        assertEquals("x-name", header.getName());
+        assertEquals("caf\u00e9", header.getValue());
+
+        assertNull(HeadParser.readHeader(bytes, HeadParser.getLineEnd(bytes)));
+        assertEquals("Body".length(), bytes.remaining());
+    }
+
+    public void testIncompleteLine() throws Exception {
+        assertEquals(-1, HeadParser.getLineEnd(encode("Host: localhost")));
+        assertEquals(-1, HeadParser.getLineEnd(encode("Host: localhost\r")));
+
+        try {
+            ByteBuffer bytes = encode("Host: localhost\rX");
+            HeadParser.readHeader(bytes, HeadParser.getLineEnd(bytes));
+            fail("A missing line feed should be detected");
+        } catch (IOException e) {
+            // Expected
+        }
+    }
+
+}
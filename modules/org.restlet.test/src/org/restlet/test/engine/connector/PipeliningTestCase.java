@@ -0,0 +1,341 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+
+package org.restlet.test.engine.connector;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.restlet.Client;
+import org.restlet.Context;
+import org.restlet.Request;
+import org.restlet.Response;
+import org.restlet.Restlet;
+import org.restlet.Server;
+import org.restlet.data.MediaType;
+import org.restlet.data.Method;
+import org.restlet.data.Protocol;
+import org.restlet.data.Status;
+import org.restlet.engine.Engine;
+import org.restlet.engine.connector.HttpClientHelper;
+import org.restlet.engine.connector.HttpServerHelper;
+import org.restlet.test.RestletTestCase;
+
+/**
+ * Unit tests for the request pipelining of the internal client connector.
+ * 
+ * @author Jerome Louvel
+ */
+public class PipeliningTestCase extends RestletTestCase {
+
+    /**
+     * Server answering a single request per connection with a "Connection:
+     * close" header, while other requests may still be pipelined on it. The
+     * remaining bytes are read before closing the connection.
+     */
+    private static class ClosingServer extends Thread {
+
+        private volatile int connectionCount;
+
+        private final ServerSocket serverSocket;
+
+        public ClosingServer() throws IOException {
+            this.serverSocket = new ServerSocket(0);
+            setDaemon(true);
+        }
+
+        public int getConnectionCount() {
+            return connectionCount;
+        }
+
+        public int getPort() {
+            return this.serverSocket.getLocalPort();
+        }
+
+        /**
+         * Reads the bytes sent on the socket until the given number of
+         * message heads is reached, the connection ends or no more bytes are
+         * received.
+         * 
+         * @param socket
+         *            The accepted socket.
+         * @param heads
+         *            The number of message heads to read or 0 to read all.
+         */
+        private void read(Socket socket, int heads) throws IOException {
+            InputStream in = socket.getInputStream();
+            StringBuilder sb = new StringBuilder();
+            byte[] bytes = new byte[8192];
+            socket.setSoTimeout(500);
+
+            try {
+                while ((heads == 0) || (count(sb, "\r\n\r\n") < heads)) {
+                    int read = in.read(bytes);
+
+                    if (read == -1) {
+                        break;
+                    } else if (heads > 0) {
+                        sb.append(new String(bytes, 0, read, "US-ASCII"));
+                    }
+                }
+            } catch (SocketTimeoutException ste) {
+                // No more bytes received
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (!this.serverSocket.isClosed()) {
+                    Socket socket = this.serverSocket.accept();
+
+                    try {
+                        this.connectionCount++;
+                        read(socket, 2);
+                        OutputStream out = socket.getOutputStream();
+                        out.write(("HTTP/1.1 200 OK\r\nContent-Length: 2\r\n"
+                                + "Connection: close\r\n\r\nok")
+                                .getBytes("US-ASCII"));
+                        out.flush();
+                        read(socket, 0);
+                    } finally {
+                        socket.close();
+                    }
+                }
+            } catch (IOException ioe) {
+                // Server socket closed
+            }
+        }
+
+        public void shutdown() throws IOException {
+            this.serverSocket.close();
+        }
+    }
+
+    private static int count(CharSequence text, String pattern) {
+        int result = 0;
+        int index = text.toString().indexOf(pattern);
+
+        while (index != -1) {
+            result++;
+            index = text.toString().indexOf(pattern, index + pattern.length());
+        }
+
+        return result;
+    }
+
+    private Client client;
+
+    private ClosingServer server;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        Engine.register(false);
+        Engine.getInstance().getRegisteredClients()
+                .add(new HttpClientHelper(null));
+        this.server = new ClosingServer();
+        this.server.start();
+
+        this.client = new Client(new Context(), Protocol.HTTP);
+        this.client.getContext().getParameters()
+                .add("pipeliningConnections", "true");
+        this.client.start();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        this.client.stop();
+        this.server.shutdown();
+        this.client = null;
+        this.server = null;
+        super.tearDown();
+    }
+
+    public void testAbortedRequests() throws Exception {
+        final String uri = "http://localhost:" + this.server.getPort() + "/";
+        char[] chars = new char[8 * 1024 * 1024];
+        Arrays.fill(chars, 'x');
+        final String entity = new String(chars);
+
+        // The large entity is still being written when the first response
+        // closes the connection
+        final Method[] methods = { Method.GET, Method.GET, Method.PUT,
+                Method.GET };
+        final Response[] responses = new Response[methods.length];
+        final String[] texts = new String[methods.length];
+        Thread[] threads = new Thread[methods.length];
+
+        for (int i = 0; i < threads.length; i++) {
+            final int index = i;
+            threads[i] = new Thread() {
+                @Override
+                public void run() {
+                    Request request = new Request(methods[index], uri);
+
+                    if (Method.PUT.equals(methods[index])) {
+                        request.setEntity(entity, MediaType.TEXT_PLAIN);
+                    }
+
+                    Response response = client.handle(request);
+
+                    try {
+                        if (response.isEntityAvailable()) {
+                            texts[index] = response.getEntity().getText();
+                        }
+                    } catch (IOException ioe) {
+                        texts[index] = ioe.getMessage();
+                    }
+
+                    responses[index] = response;
+                }
+            };
+            threads[i].start();
+
+            // Let the connection open and pipeline the requests in order
+            Thread.sleep((i == 0) ? 300 : 50);
+        }
+
+        for (Thread thread : threads) {
+            thread.join(20000);
+            assertFalse(thread.isAlive());
+        }
+
+        // Each request was either answered, possibly after being sent again,
+        // or failed
+        for (int i = 0; i < responses.length; i++) {
+            Status status = responses[i].getStatus();
+
+            if (status.isSuccess()) {
+                assertEquals("ok", texts[i]);
+            } else {
+                assertTrue(status.toString(), status.isConnectorError());
+            }
+        }
+
+        assertTrue(this.server.getConnectionCount() > 1);
+    }
+
+    public void testOrderedResponses() throws Exception {
+        final List<Integer> ports = new CopyOnWriteArrayList<Integer>();
+        Engine.getInstance().getRegisteredServers()
+                .add(new HttpServerHelper(null));
+        Server server = new Server(new Context(), Protocol.HTTP, 0,
+                new Restlet() {
+                    @Override
+                    public void handle(Request request, Response response) {
+                        ports.add(request.getClientInfo().getPort());
+
+                        try {
+                            // Let the next requests be pipelined
+                            Thread.sleep(20);
+                        } catch (InterruptedException ie) {
+                            // Answer right away
+                        }
+
+                        response.setEntity(request.getResourceRef()
+                                .getPath(), MediaType.TEXT_PLAIN);
+                    }
+                });
+        server.start();
+
+        final Client client = new Client(new Context(), Protocol.HTTP);
+        client.getContext().getParameters()
+                .add("pipeliningConnections", "true");
+        client.getContext().getParameters().add("maxConnectionsPerHost", "1");
+        client.start();
+
+        try {
+            final String uri = "http://localhost:" + server.getEphemeralPort()
+                    + "/";
+
+            // Open the connection that will be shared by the requests
+            assertEquals("/", client.handle(new Request(Method.GET, uri))
+                    .getEntity().getText());
+
+            final String[] texts = new String[8];
+            Thread[] threads = new Thread[texts.length];
+
+            for (int i = 0; i < threads.length; i++) {
+                final int index = i;
+                threads[i] = new Thread() {
+                    @Override
+                    public void run() {
+                        Response response = client.handle(new Request(
+                                Method.GET, uri + index));
+
+                        try {
+                            if (response.getStatus().isSuccess()) {
+                                texts[index] = response.getEntity().getText();
+                            } else {
+                                texts[index] = response.getStatus().toString();
+                            }
+                        } catch (IOException ioe) {
+                            texts[index] = ioe.getMessage();
+                        }
+                    }
+                };
+                threads[i].start();
+            }
+
+            for (Thread thread : threads) {
+                thread.join(20000);
+                assertFalse(thread.isAlive());
+            }
+
+            // Each response was matched with its request
+            for (int i = 0; i < texts.length; i++) {
+                assertEquals("/" + i, texts[i]);
+            }
+
+            // All the requests were sent on the same connection
+            assertEquals(texts.length + 1, ports.size());
+
+            for (Integer port : ports) {
+                assertEquals(ports.get(0), port);
+            }
+        } finally {
+            client.stop();
+            server.stop();
+        }
+    }
+
+}
@@ -0,0 +1,248 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+
+package org.restlet.test.engine.connector;
+
+import java.io.IOException;
+
+import org.restlet.Client;
+import org.restlet.Context;
+import org.restlet.Request;
+import org.restlet.Response;
+import org.restlet.Restlet;
+import org.restlet.Server;
+import org.restlet.data.MediaType;
+import org.restlet.data.Method;
+import org.restlet.data.Protocol;
+import org.restlet.data.Status;
+import org.restlet.engine.Engine;
+import org.restlet.engine.connector.BaseHelper;
+import org.restlet.engine.connector.HttpClientHelper;
+import org.restlet.engine.connector.HttpServerHelper;
+import org.restlet.engine.io.BufferPool;
+import org.restlet.test.RestletTestCase;
+
+/**
+ * Unit tests for the internal connectors with pooled buffers, checking that
+ * the buffers are released and acquired again without corrupting the messages
+ * when connections are reused, aborted or closed.
+ * 
+ * @author Jerome Louvel
+ */
+public class PooledBuffersTestCase extends RestletTestCase {
+
+    /** Entity larger than the buffers, to be read in several fills. */
+    private static final String LARGE_TEXT = createText(300 * 1024 + 17);
+
+    private static String createText(int length) {
+        StringBuilder sb = new StringBuilder(length);
+
+        for (int i = 0; i < length; i++) {
+            sb.append((char) ('a' + (i % 26)));
+        }
+
+        return sb.toString();
+    }
+
+    private static BufferPool getBufferPool(Context context) {
+        return ((BaseHelper<?>) context.getAttributes().get(
+                "org.restlet.engine.helper")).getBufferPool();
+    }
+
+    private Client client;
+
+    private Server server;
+
+    private String uri;
+
+    private Client createClient(String persisting, String maxIoIdleTimeMs)
+            throws Exception {
+        Client result = new Client(new Context(), Protocol.HTTP);
+        result.getContext().getParameters().add("pooledBuffers", "true");
+        result.getContext().getParameters()
+                .add("persistingConnections", persisting);
+        result.getContext().getParameters()
+                .add("maxIoIdleTimeMs", maxIoIdleTimeMs);
+        result.start();
+        return result;
+    }
+
+    /**
+     * Sends a GET request for a small and a large entity, then a PUT request
+     * whose entity is echoed, and checks the entities received.
+     * 
+     * @param client
+     *            The client to use.
+     */
+    private void exchange(Client client) throws IOException {
+        Response response = client.handle(new Request(Method.GET, this.uri
+                + "small"));
+        assertTrue(response.getStatus().isSuccess());
+        assertEquals("hello", response.getEntity().getText());
+
+        response = client.handle(new Request(Method.GET, this.uri + "large"));
+        assertTrue(response.getStatus().isSuccess());
+        assertEquals(LARGE_TEXT, response.getEntity().getText());
+
+        Request request = new Request(Method.PUT, this.uri + "echo");
+        request.setEntity(LARGE_TEXT, MediaType.TEXT_PLAIN);
+        response = client.handle(request);
+        assertTrue(response.getStatus().isSuccess());
+        assertEquals(LARGE_TEXT, response.getEntity().getText());
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        Engine.register(false);
+        Engine.getInstance().getRegisteredServers()
+                .add(new HttpServerHelper(null));
+        Engine.getInstance().getRegisteredClients()
+                .add(new HttpClientHelper(null));
+
+        this.server = new Server(new Context(), Protocol.HTTP, 0,
+                new Restlet() {
+                    @Override
+                    public void handle(Request request, Response response) {
+                        String path = request.getResourceRef().getPath();
+
+                        try {
+                            if (path.endsWith("/small")) {
+                                response.setEntity("hello",
+                                        MediaType.TEXT_PLAIN);
+                            } else if (path.endsWith("/large")) {
+                                response.setEntity(LARGE_TEXT,
+                                        MediaType.TEXT_PLAIN);
+                            } else if (path.endsWith("/echo")) {
+                                response.setEntity(request.getEntity()
+                                        .getText(), MediaType.TEXT_PLAIN);
+                            } else if (path.endsWith("/slow")) {
+                                Thread.sleep(1500);
+                                response.setEntity(LARGE_TEXT,
+                                        MediaType.TEXT_PLAIN);
+                            }
+                        } catch (Exception e) {
+                            response.setStatus(
+                                    Status.SERVER_ERROR_INTERNAL, e);
+                        }
+                    }
+                });
+        this.server.getContext().getParameters().add("pooledBuffers", "true");
+        this.server.start();
+        this.uri = "http://localhost:" + this.server.getEphemeralPort() + "/";
+        this.client = createClient("true", "60000");
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        this.client.stop();
+        this.server.stop();
+        this.client = null;
+        this.server = null;
+        super.tearDown();
+    }
+
+    public void testAbortedConnections() throws Exception {
+        Client abortingClient = createClient("true", "500");
+
+        try {
+            // The client connection times out while waiting for the response
+            Response response = abortingClient.handle(new Request(Method.GET,
+                    this.uri + "slow"));
+            assertTrue(response.getStatus().isError());
+            response.release();
+
+            // Let the server fail to write the response
+            Thread.sleep(1500);
+
+            // The buffers released by both sides can be acquired again
+            exchange(abortingClient);
+            exchange(this.client);
+        } finally {
+            abortingClient.stop();
+        }
+    }
+
+    public void testClosedConnections() throws Exception {
+        Client closingClient = createClient("false", "60000");
+
+        try {
+            for (int i = 0; i < 5; i++) {
+                exchange(closingClient);
+            }
+
+            assertTrue(getBufferPool(closingClient.getContext()).getHits() > 0);
+            assertTrue(getBufferPool(this.server.getContext()).getHits() > 0);
+        } finally {
+            closingClient.stop();
+        }
+    }
+
+    public void testReusedConnections() throws Exception {
+        final int[] successes = new int[1];
+        Thread[] threads = new Thread[4];
+
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        for (int j = 0; j < 5; j++) {
+                            exchange(client);
+
+                            synchronized (successes) {
+                                successes[0]++;
+                            }
+                        }
+                    } catch (Throwable t) {
+                        t.printStackTrace();
+                    }
+                }
+            };
+            threads[i].start();
+        }
+
+        for (Thread thread : threads) {
+            thread.join(60000);
+            assertFalse(thread.isAlive());
+        }
+
+        assertEquals(20, successes[0]);
+
+        // The buffers released between messages were acquired again
+        assertTrue(getBufferPool(this.client.getContext()).getHits() > 0);
+        assertTrue(getBufferPool(this.server.getContext()).getHits() > 0);
+    }
+
+}
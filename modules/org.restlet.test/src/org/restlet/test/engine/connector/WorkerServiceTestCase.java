@@ -0,0 +1,220 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+
+package org.restlet.test.engine.connector;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.restlet.Client;
+import org.restlet.Context;
+import org.restlet.Request;
+import org.restlet.Response;
+import org.restlet.Restlet;
+import org.restlet.Server;
+import org.restlet.data.MediaType;
+import org.restlet.data.Method;
+import org.restlet.data.Protocol;
+import org.restlet.engine.Engine;
+import org.restlet.engine.connector.HttpClientHelper;
+import org.restlet.engine.connector.HttpServerHelper;
+import org.restlet.engine.util.SystemUtils;
+import org.restlet.test.RestletTestCase;
+
+/**
+ * Unit tests for the virtual threads worker mode of the internal connectors.
+ * Virtual threads are only available on Java 21 or later, otherwise the
+ * regular worker pool is expected to be used.
+ * 
+ * @author Jerome Louvel
+ */
+public class WorkerServiceTestCase extends RestletTestCase {
+
+    /**
+     * Server helper counting the tasks rejected by its worker service.
+     */
+    public static class CountingServerHelper extends HttpServerHelper {
+
+        private final AtomicInteger rejections = new AtomicInteger();
+
+        public CountingServerHelper(Server server) {
+            super(server);
+        }
+
+        @Override
+        public ThreadPoolExecutor createVirtualWorkerService() {
+            return super.createVirtualWorkerService();
+        }
+
+        @Override
+        protected RejectedExecutionHandler createRejectedExecutionHandler() {
+            return new RejectedExecutionHandler() {
+                public void rejectedExecution(Runnable r,
+                        ThreadPoolExecutor executor) {
+                    rejections.incrementAndGet();
+                }
+            };
+        }
+
+        public int getRejections() {
+            return rejections.get();
+        }
+    }
+
+    /**
+     * Indicates if the running JVM supports virtual threads.
+     * 
+     * @return True if the running JVM supports virtual threads.
+     */
+    private static boolean isSupported() {
+        try {
+            Thread.class.getMethod("ofVirtual");
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    public void testMaxVirtualThreads() throws Exception {
+        Server server = new Server(new Context(), Protocol.HTTP, 0);
+        server.getContext().getParameters().add("maxVirtualThreads", "1");
+        CountingServerHelper helper = new CountingServerHelper(server);
+        assertEquals(1, helper.getMaxVirtualThreads());
+
+        ThreadPoolExecutor service = helper.createVirtualWorkerService();
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(1);
+
+        try {
+            service.execute(new Runnable() {
+                public void run() {
+                    started.countDown();
+
+                    try {
+                        release.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        // Ends the task
+                    }
+                }
+            });
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+
+            // The only permit is taken
+            service.execute(new Runnable() {
+                public void run() {
+                }
+            });
+            assertEquals(1, helper.getRejections());
+            release.countDown();
+
+            // The permit is released once the first task is done
+            for (int i = 0; (i < 50) && (helper.getBusyWorkerCount() > 0); i++) {
+                Thread.sleep(100);
+            }
+
+            service.execute(new Runnable() {
+                public void run() {
+                    done.countDown();
+                }
+            });
+            assertTrue(done.await(5, TimeUnit.SECONDS));
+            assertEquals(1, helper.getRejections());
+        } finally {
+            service.shutdown();
+        }
+    }
+
+    public void testSystemUtils() throws Exception {
+        assertEquals(isSupported(), SystemUtils.isVirtualThreadsSupported());
+        assertFalse(SystemUtils.isVirtualThread(Thread.currentThread()));
+        assertFalse(SystemUtils.isVirtualThread(null));
+
+        // Outside of a virtual thread, a platform thread is created
+        Thread thread = SystemUtils.newTaskThread(new Runnable() {
+            public void run() {
+            }
+        }, "test-task");
+        assertEquals("test-task", thread.getName());
+        assertFalse(SystemUtils.isVirtualThread(thread));
+    }
+
+    public void testVirtualWorkers() throws Exception {
+        Engine.register(false);
+        Engine.getInstance().getRegisteredServers()
+                .add(new HttpServerHelper(null));
+        Engine.getInstance().getRegisteredClients()
+                .add(new HttpClientHelper(null));
+        final AtomicInteger virtualCalls = new AtomicInteger();
+        Server server = new Server(new Context(), Protocol.HTTP, 0,
+                new Restlet() {
+                    @Override
+                    public void handle(Request request, Response response) {
+                        if (SystemUtils.isVirtualThread(Thread.currentThread())) {
+                            virtualCalls.incrementAndGet();
+                        }
+
+                        response.setEntity("hello", MediaType.TEXT_PLAIN);
+                    }
+                });
+        server.getContext().getParameters().add("workerThreads", "virtual");
+        server.start();
+        Client client = new Client(new Context(), Protocol.HTTP);
+        client.start();
+
+        try {
+            HttpServerHelper helper = (HttpServerHelper) server.getContext()
+                    .getAttributes().get("org.restlet.engine.helper");
+            assertEquals(isSupported(), helper.isVirtualWorkerThreads());
+            assertNotNull(helper.getWorkerService());
+
+            for (int i = 0; i < 5; i++) {
+                Response response = client.handle(new Request(Method.GET,
+                        "http://localhost:" + server.getEphemeralPort()
+                                + "/test"));
+                assertTrue(response.getStatus().isSuccess());
+                assertEquals("hello", response.getEntity().getText());
+            }
+
+            assertEquals(isSupported() ? 5 : 0, virtualCalls.get());
+        } finally {
+            client.stop();
+            server.stop();
+        }
+    }
+
+}
@@ -0,0 +1,198 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+
+package org.restlet.test.engine.connector;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.restlet.Client;
+import org.restlet.Context;
+import org.restlet.Request;
+import org.restlet.Response;
+import org.restlet.Restlet;
+import org.restlet.Server;
+import org.restlet.data.MediaType;
+import org.restlet.data.Method;
+import org.restlet.data.Protocol;
+import org.restlet.data.Status;
+import org.restlet.engine.Engine;
+import org.restlet.engine.connector.HttpClientHelper;
+import org.restlet.engine.connector.HttpServerHelper;
+import org.restlet.representation.FileRepresentation;
+import org.restlet.test.RestletTestCase;
+
+/**
+ * Unit tests for the direct transfer of file entities to the socket channel.
+ * The same bytes are expected with and without the zero copy mode.
+ * 
+ * @author Jerome Louvel
+ */
+public class ZeroCopyTestCase extends RestletTestCase {
+
+    private static byte[] toBytes(InputStream in) throws IOException {
+        ByteArrayOutputStream result = new ByteArrayOutputStream();
+        byte[] bytes = new byte[8192];
+
+        try {
+            for (int read = in.read(bytes); read != -1; read = in.read(bytes)) {
+                result.write(bytes, 0, read);
+            }
+        } finally {
+            in.close();
+        }
+
+        return result.toByteArray();
+    }
+
+    private byte[] content;
+
+    private File file;
+
+    /**
+     * Starts a server returning the test file on GET and checking that it
+     * receives the test file on PUT.
+     * 
+     * @param zeroCopy
+     *            The value of the "zeroCopy" parameter.
+     * @return The started server.
+     */
+    private Server createServer(String zeroCopy) throws Exception {
+        Server result = new Server(new Context(), Protocol.HTTP, 0,
+                new Restlet() {
+                    @Override
+                    public void handle(Request request, Response response) {
+                        if (Method.PUT.equals(request.getMethod())) {
+                            try {
+                                byte[] received = toBytes(request
+                                        .getEntity().getStream());
+                                response.setStatus(Arrays.equals(content,
+                                        received) ? Status.SUCCESS_NO_CONTENT
+                                        : Status.CLIENT_ERROR_BAD_REQUEST);
+                            } catch (IOException ioe) {
+                                response.setStatus(
+                                        Status.SERVER_ERROR_INTERNAL, ioe);
+                            }
+                        } else {
+                            response.setEntity(new FileRepresentation(file,
+                                    MediaType.APPLICATION_OCTET_STREAM));
+                        }
+                    }
+                });
+        result.getContext().getParameters().add("zeroCopy", zeroCopy);
+        result.start();
+        return result;
+    }
+
+    private Client createClient(String zeroCopy) throws Exception {
+        Client result = new Client(new Context(), Protocol.HTTP);
+        result.getContext().getParameters().add("zeroCopy", zeroCopy);
+        result.start();
+        return result;
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        Engine.register(false);
+        Engine.getInstance().getRegisteredServers()
+                .add(new HttpServerHelper(null));
+        Engine.getInstance().getRegisteredClients()
+                .add(new HttpClientHelper(null));
+
+        // Larger than the outbound buffers so that several transfers occur
+        this.content = new byte[300 * 1024 + 17];
+        new Random(42).nextBytes(this.content);
+        this.file = File.createTempFile("zeroCopy", ".bin");
+        FileOutputStream out = new FileOutputStream(this.file);
+
+        try {
+            out.write(this.content);
+        } finally {
+            out.close();
+        }
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        this.file.delete();
+        this.file = null;
+        this.content = null;
+        super.tearDown();
+    }
+
+    /**
+     * Gets the test file from a server and puts it back.
+     * 
+     * @param zeroCopy
+     *            The value of the "zeroCopy" parameter.
+     */
+    private void testTransfer(String zeroCopy) throws Exception {
+        Server server = createServer(zeroCopy);
+        Client client = createClient(zeroCopy);
+
+        try {
+            String uri = "http://localhost:" + server.getEphemeralPort()
+                    + "/file";
+            Response response = client.handle(new Request(Method.GET, uri));
+            assertEquals(Status.SUCCESS_OK, response.getStatus());
+            assertEquals(this.content.length, response.getEntity().getSize());
+            assertTrue(Arrays.equals(this.content, toBytes(response
+                    .getEntity().getStream())));
+
+            Request request = new Request(Method.PUT, uri);
+            request.setEntity(new FileRepresentation(this.file,
+                    MediaType.APPLICATION_OCTET_STREAM));
+            response = client.handle(request);
+            assertEquals(Status.SUCCESS_NO_CONTENT, response.getStatus());
+        } finally {
+            client.stop();
+            server.stop();
+        }
+    }
+
+    public void testBufferedTransfer() throws Exception {
+        testTransfer("false");
+    }
+
+    public void testZeroCopyTransfer() throws Exception {
+        testTransfer("true");
+    }
+
+}
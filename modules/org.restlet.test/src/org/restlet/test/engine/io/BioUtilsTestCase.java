@@ -33,12 +33,23 @@
 
 package org.restlet.test.engine.io;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.Reader;
 import java.io.StringWriter;
+import java.io.Writer;
+import java.util.Arrays;
 
 import org.restlet.data.CharacterSet;
+import org.restlet.data.MediaType;
 import org.restlet.engine.io.BioUtils;
+import org.restlet.engine.io.InlineInputStream;
+import org.restlet.engine.io.IoUtils;
+import org.restlet.representation.OutputRepresentation;
+import org.restlet.representation.Representation;
+import org.restlet.representation.WriterRepresentation;
 import org.restlet.test.RestletTestCase;
 
 /**
@@ -48,6 +59,110 @@ import org.restlet.test.RestletTestCase;
  */
 public class BioUtilsTestCase extends RestletTestCase {
 
+    /**
+     * Returns an output representation writing the given bytes.
+     * 
+     * @param content
+     *            The bytes to write.
+     * @param sized
+     *            Indicates if the size should be known.
+     * @return The output representation.
+     */
+    private static Representation getOutputRepresentation(
+            final byte[] content, boolean sized) {
+        return new OutputRepresentation(MediaType.APPLICATION_OCTET_STREAM,
+                sized ? content.length : Representation.UNKNOWN_SIZE) {
+            @Override
+            public void write(OutputStream outputStream) throws IOException {
+                outputStream.write(content);
+            }
+        };
+    }
+
+    /**
+     * Returns some bytes, covering all byte values.
+     * 
+     * @param length
+     *            The number of bytes.
+     * @return The bytes.
+     */
+    private static byte[] getBytes(int length) {
+        byte[] result = new byte[length];
+
+        for (int i = 0; i < length; i++) {
+            result[i] = (byte) (i * 7);
+        }
+
+        return result;
+    }
+
+    /**
+     * Reads a stream fully, mixing single and bulk reads.
+     * 
+     * @param stream
+     *            The stream to read.
+     * @return The bytes read.
+     */
+    private static byte[] read(InputStream stream) throws IOException {
+        ByteArrayOutputStream result = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1000];
+        int b = stream.read();
+
+        while (b != -1) {
+            result.write(b);
+            int n = stream.read(buffer);
+
+            if (n > 0) {
+                result.write(buffer, 0, n);
+            }
+
+            b = (n == -1) ? -1 : stream.read();
+        }
+
+        stream.close();
+        return result.toByteArray();
+    }
+
+    public void testGetInputStream() throws IOException {
+        // Known and small size, written by the reading thread
+        byte[] content = getBytes(5000);
+        InputStream stream = BioUtils.getInputStream(getOutputRepresentation(
+                content, true));
+        assertTrue(stream instanceof InlineInputStream);
+        assertTrue(Arrays.equals(content, read(stream)));
+
+        // Unknown size, piped from a writer thread
+        stream = BioUtils.getInputStream(getOutputRepresentation(content,
+                false));
+        assertFalse(stream instanceof InlineInputStream);
+        assertTrue(Arrays.equals(content, read(stream)));
+
+        // Larger than the pipe buffer
+        content = getBytes(IoUtils.MAX_INLINE_SIZE + 12345);
+        stream = BioUtils.getInputStream(getOutputRepresentation(content, true));
+        assertFalse(stream instanceof InlineInputStream);
+        assertTrue(Arrays.equals(content, read(stream)));
+    }
+
+    public void testGetReader() throws IOException {
+        WriterRepresentation representation = new WriterRepresentation(
+                MediaType.TEXT_PLAIN) {
+            @Override
+            public void write(Writer writer) throws IOException {
+                writer.write("testé");
+            }
+        };
+
+        // Unknown size, piped from a writer thread
+        Reader reader = BioUtils.getReader(representation);
+        assertEquals("testé", BioUtils.toString(reader));
+
+        // Known size, written by the calling thread
+        representation.setSize(6);
+        reader = BioUtils.getReader(representation);
+        assertEquals("testé", BioUtils.toString(reader));
+    }
+
     public void testGetStream() throws IOException {
         StringWriter writer = new StringWriter();
         OutputStream out = BioUtils.getOutputStream(writer, CharacterSet.UTF_8);
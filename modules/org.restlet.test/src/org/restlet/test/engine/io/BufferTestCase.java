@@ -36,6 +36,7 @@ package org.restlet.test.engine.io;
 import java.io.IOException;
 
 import org.restlet.engine.io.Buffer;
+import org.restlet.engine.io.BufferPool;
 import org.restlet.engine.io.BufferState;
 import org.restlet.test.RestletTestCase;
 
@@ -73,4 +74,29 @@ public class BufferTestCase extends RestletTestCase {
         buffer.drain(sb, BufferState.FILLING);
         assertEquals("Remaining buffer", "ijklmnopqrstuvwxyz", sb.toString());
     }
+
+    public void testPooled() throws IOException {
+        BufferPool pool = new BufferPool(new int[] { 1024, 4096 }, 8, false,
+                0);
+        Buffer buffer = new Buffer(2048, pool, false);
+        assertTrue(buffer.isReleased());
+        assertTrue(buffer.isEmpty());
+
+        buffer.acquire();
+        assertFalse(buffer.isReleased());
+        assertEquals(4096, buffer.capacity());
+        assertEquals(0, pool.getHits());
+        assertEquals(1, pool.getMisses());
+
+        // Bytes in flight prevent the release
+        buffer.fill("abc");
+        assertFalse(buffer.release());
+        buffer.clear();
+        assertTrue(buffer.release());
+        assertEquals(1, pool.getPooledCount());
+
+        buffer.acquire();
+        assertEquals(1, pool.getHits());
+        assertEquals(0, pool.getPooledCount());
+    }
 }
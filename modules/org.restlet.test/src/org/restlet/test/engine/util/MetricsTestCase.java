@@ -0,0 +1,98 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.test.engine.util;
+
+import org.restlet.engine.util.LatencyHistogram;
+import org.restlet.engine.util.StripedCounter;
+import org.restlet.test.RestletTestCase;
+
+/**
+ * Unit tests for the {@link StripedCounter} and {@link LatencyHistogram}
+ * classes.
+ * 
+ * @author Jerome Louvel
+ */
+public class MetricsTestCase extends RestletTestCase {
+
+    public void testConcurrentCounter() throws Exception {
+        final StripedCounter counter = new StripedCounter();
+        Thread[] threads = new Thread[8];
+
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < 10000; j++) {
+                        counter.increment();
+                    }
+                }
+            };
+            threads[i].start();
+        }
+
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(80000L, counter.get());
+        counter.add(-80000L);
+        assertEquals(0L, counter.get());
+    }
+
+    public void testHistogram() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0L, histogram.getCount());
+        assertEquals(0L, histogram.getPercentileMicros(99));
+
+        for (int i = 0; i < 99; i++) {
+            // 3 microseconds
+            histogram.record(3000L);
+        }
+
+        // 5 milliseconds
+        histogram.record(5000000L);
+
+        assertEquals(100L, histogram.getCount());
+        assertEquals(4L, histogram.getPercentileMicros(50));
+        assertEquals(4L, histogram.getPercentileMicros(99));
+        assertEquals(8192L, histogram.getPercentileMicros(100));
+        assertEquals(5000L, histogram.getMaxMicros());
+        assertEquals(52L, histogram.getMeanMicros());
+
+        histogram.reset();
+        assertEquals(0L, histogram.getCount());
+        assertEquals(0L, histogram.getMaxMicros());
+    }
+
+}
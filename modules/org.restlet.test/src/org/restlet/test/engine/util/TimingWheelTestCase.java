@@ -0,0 +1,92 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.test.engine.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.restlet.engine.util.TimingWheel;
+import org.restlet.test.RestletTestCase;
+
+/**
+ * Unit tests for the {@link TimingWheel} class.
+ * 
+ * @author Jerome Louvel
+ */
+public class TimingWheelTestCase extends RestletTestCase {
+
+    public void testCancel() {
+        TimingWheel<String> wheel = new TimingWheel<String>(100, 8, 0);
+        TimingWheel.Timeout<String> timeout = wheel.schedule("a", 250);
+        wheel.schedule("b", 250);
+        timeout.cancel();
+        assertTrue(timeout.isCancelled());
+
+        List<String> expired = new ArrayList<String>();
+        assertEquals(1, wheel.advance(400, expired));
+        assertEquals("b", expired.get(0));
+        assertEquals(0, wheel.size());
+    }
+
+    public void testExpiration() {
+        TimingWheel<String> wheel = new TimingWheel<String>(100, 8, 0);
+        wheel.schedule("a", 250);
+        wheel.schedule("b", 1500);
+        assertEquals(2, wheel.size());
+
+        List<String> expired = new ArrayList<String>();
+        assertEquals(0, wheel.advance(200, expired));
+        assertEquals(1, wheel.advance(300, expired));
+        assertEquals("a", expired.get(0));
+
+        // The second element wraps around the wheel several times
+        expired.clear();
+        assertEquals(0, wheel.advance(1400, expired));
+        assertEquals(1, wheel.advance(1500, expired));
+        assertEquals("b", expired.get(0));
+        assertEquals(0, wheel.size());
+    }
+
+    public void testLateAdvance() {
+        TimingWheel<String> wheel = new TimingWheel<String>(100, 8, 0);
+        wheel.schedule("a", 100);
+        wheel.schedule("b", 700);
+
+        // Jumping beyond a full revolution expires everything due
+        List<String> expired = new ArrayList<String>();
+        assertEquals(2, wheel.advance(5000, expired));
+        assertEquals(0, wheel.size());
+    }
+
+}
@@ -0,0 +1,190 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+
+package org.restlet.test.resource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.restlet.Application;
+import org.restlet.Client;
+import org.restlet.Component;
+import org.restlet.Request;
+import org.restlet.Response;
+import org.restlet.Restlet;
+import org.restlet.Server;
+import org.restlet.data.Method;
+import org.restlet.data.Protocol;
+import org.restlet.data.Status;
+import org.restlet.representation.Representation;
+import org.restlet.representation.StringRepresentation;
+import org.restlet.resource.ResourceException;
+import org.restlet.resource.ServerResource;
+import org.restlet.routing.Router;
+import org.restlet.test.RestletTestCase;
+import org.restlet.util.ReadableListener;
+
+/**
+ * Test the asynchronous reading of request entities by server resources.
+ * 
+ * @author Jerome Louvel
+ */
+public class AsyncReadTestCase extends RestletTestCase {
+
+    /**
+     * Resource echoing the request entity once asynchronously read.
+     */
+    public static class EchoResource extends ServerResource {
+
+        @Override
+        protected Representation post(Representation entity)
+                throws ResourceException {
+            try {
+                readRequestEntity(new ReadableListener(entity) {
+                    private final ByteArrayOutputStream content = new ByteArrayOutputStream();
+
+                    @Override
+                    protected void onContent(ByteBuffer byteBuffer) {
+                        content.write(byteBuffer.array(),
+                                byteBuffer.arrayOffset()
+                                        + byteBuffer.position(),
+                                byteBuffer.remaining());
+                    }
+
+                    @Override
+                    protected void onEnd() {
+                        getResponse().setEntity(
+                                new StringRepresentation(content.toString()));
+                        setStatus(Status.SUCCESS_OK);
+                        commit();
+                    }
+
+                    @Override
+                    protected void onError(IOException ioe) {
+                        setStatus(Status.SERVER_ERROR_INTERNAL, ioe);
+                        commit();
+                    }
+                });
+            } catch (IOException e) {
+                throw new ResourceException(e);
+            }
+
+            return null;
+        }
+    }
+
+    private static class TestApplication extends Application {
+        @Override
+        public Restlet createInboundRoot() {
+            Router router = new Router(getContext());
+            router.attach("/echo", EchoResource.class);
+            return router;
+        }
+    }
+
+    private Component c;
+
+    private Client client;
+
+    private String uri;
+
+    /**
+     * Posts a text to the echo resource and checks that it is returned.
+     * 
+     * @param text
+     *            The text to post.
+     * @param chunked
+     *            Indicates if the size of the entity should be unknown.
+     */
+    private void post(String text, boolean chunked) throws IOException {
+        StringRepresentation entity = new StringRepresentation(text);
+
+        if (chunked) {
+            entity.setSize(Representation.UNKNOWN_SIZE);
+        }
+
+        Request request = new Request(Method.POST, uri, entity);
+        Response response = client.handle(request);
+        assertEquals(Status.SUCCESS_OK, response.getStatus());
+        assertEquals(text, response.getEntity().getText());
+        response.getEntity().release();
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        c = new Component();
+        final Server server = c.getServers().add(Protocol.HTTP, 0);
+        c.getDefaultHost().attach(new TestApplication());
+        c.start();
+        client = new Client(Protocol.HTTP);
+        uri = "http://localhost:" + server.getEphemeralPort() + "/echo";
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        c.stop();
+        c = null;
+        client.stop();
+        client = null;
+        super.tearDown();
+    }
+
+    public void testChunked() throws IOException {
+        post("Hello world", true);
+        post(largeText(), true);
+    }
+
+    public void testSized() throws IOException {
+        post("Hello world", false);
+        post(largeText(), false);
+    }
+
+    /**
+     * Returns a text larger than the connector buffers.
+     * 
+     * @return A text larger than the connector buffers.
+     */
+    private String largeText() {
+        StringBuilder sb = new StringBuilder();
+
+        for (int i = 0; i < 20000; i++) {
+            sb.append("line ").append(i).append('\n');
+        }
+
+        return sb.toString();
+    }
+
+}
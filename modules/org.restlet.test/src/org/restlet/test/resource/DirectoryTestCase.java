@@ -34,7 +34,9 @@
 package org.restlet.test.resource;
 
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.util.Date;
 
 import org.restlet.Application;
@@ -42,12 +44,16 @@ import org.restlet.Component;
 import org.restlet.Request;
 import org.restlet.Response;
 import org.restlet.Restlet;
+import org.restlet.data.Encoding;
 import org.restlet.data.Language;
 import org.restlet.data.LocalReference;
 import org.restlet.data.Method;
+import org.restlet.data.Preference;
 import org.restlet.data.Protocol;
 import org.restlet.data.Reference;
 import org.restlet.data.Status;
+import org.restlet.engine.application.DecodeRepresentation;
+import org.restlet.engine.application.EncoderOutputStream;
 import org.restlet.engine.io.BioUtils;
 import org.restlet.representation.Representation;
 import org.restlet.representation.StringRepresentation;
@@ -163,6 +169,127 @@ public class DirectoryTestCase extends RestletTestCase {
         return response;
     }
 
+    /**
+     * Writes a text file, optionally compressed in the GZIP format.
+     * 
+     * @param file
+     *            The file to write.
+     * @param text
+     *            The text to write.
+     * @param gzip
+     *            True to compress the text.
+     * @throws IOException
+     */
+    private void write(File file, String text, boolean gzip)
+            throws IOException {
+        OutputStream out = new FileOutputStream(file);
+
+        if (gzip) {
+            EncoderOutputStream gzipOut = new EncoderOutputStream(out, -1, true);
+            gzipOut.write(text.getBytes());
+            gzipOut.finish();
+        } else {
+            out.write(text.getBytes());
+        }
+
+        out.close();
+    }
+
+    /**
+     * Helper getting a resource, optionally accepting the GZIP encoding.
+     * 
+     * @param application
+     * @param resourceRef
+     * @param gzip
+     * @return The response.
+     * @throws IOException
+     */
+    private Response get(Application application, String resourceRef,
+            boolean gzip) throws IOException {
+        Request request = new Request(Method.GET, resourceRef);
+        request.setOriginalRef(request.getResourceRef().getTargetRef());
+        request.getResourceRef().setBaseRef(this.webSiteURL);
+
+        if (gzip) {
+            request.getClientInfo().getAcceptedEncodings()
+                    .add(new Preference<Encoding>(Encoding.GZIP));
+        }
+
+        Response response = new Response(request);
+        application.handle(request, response);
+        return response;
+    }
+
+    public void testCompressedDirectory() throws Exception {
+        this.testDir = new File(System.getProperty("java.io.tmpdir"),
+                "DirectoryTestCase/compressed" + new Date().getTime());
+        File cacheDir = new File(this.testDir, "cache");
+        File siteDir = new File(this.testDir, "site");
+        siteDir.mkdirs();
+
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 500; i++) {
+            sb.append("var line").append(i).append(";\n");
+        }
+        String script = sb.toString();
+
+        write(new File(siteDir, "app.js"), script, false);
+        write(new File(siteDir, "app.js.gz"), "precompressed " + script, true);
+        File styleFile = new File(siteDir, "style.css");
+        write(styleFile, "body {} " + script, false);
+
+        Component clientComponent = new Component();
+        clientComponent.getClients().add(Protocol.FILE);
+        MyApplication application = new MyApplication(siteDir);
+        clientComponent.getDefaultHost().attach("", application);
+        clientComponent.start();
+
+        try {
+            Directory directory = application.getDirectory();
+            directory.setServingPrecompressed(true);
+
+            // The pre-compressed sibling is only served to accepting clients
+            Response response = get(application, this.webSiteURL
+                    + "app.js", true);
+            assertEquals(Status.SUCCESS_OK, response.getStatus());
+            assertTrue(response.getEntity().getEncodings()
+                    .contains(Encoding.GZIP));
+            assertEquals("precompressed " + script, new DecodeRepresentation(
+                    response.getEntity()).getText());
+
+            response = get(application, this.webSiteURL + "app.js", false);
+            assertFalse(response.getEntity().getEncodings()
+                    .contains(Encoding.GZIP));
+            assertEquals(script, response.getEntity().getText());
+
+            // Without cache, other files are served as is
+            response = get(application, this.webSiteURL + "style.css", true);
+            assertFalse(response.getEntity().getEncodings()
+                    .contains(Encoding.GZIP));
+
+            // The compressed variant is cached on first access
+            directory.setCompressionCache(cacheDir);
+            response = get(application, this.webSiteURL + "style.css", true);
+            assertTrue(response.getEntity().getEncodings()
+                    .contains(Encoding.GZIP));
+            assertEquals("body {} " + script, new DecodeRepresentation(
+                    response.getEntity()).getText());
+            File cachedFile = new File(cacheDir, "style.css.gz");
+            assertTrue(cachedFile.exists());
+
+            // Then invalidated when the file is modified
+            write(styleFile, "p {} " + script, false);
+            styleFile.setLastModified(cachedFile.lastModified() + 2000);
+            response = get(application, this.webSiteURL + "style.css", true);
+            assertEquals("p {} " + script, new DecodeRepresentation(
+                    response.getEntity()).getText());
+            assertEquals(styleFile.lastModified(), cachedFile.lastModified());
+        } finally {
+            clientComponent.stop();
+            BioUtils.delete(this.testDir, true);
+        }
+    }
+
     public void testDirectory() throws Exception {
         // Create a temporary directory for the tests
         this.testDir = new File(System.getProperty("java.io.tmpdir"),
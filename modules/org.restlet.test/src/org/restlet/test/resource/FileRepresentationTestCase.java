@@ -35,6 +35,7 @@ package org.restlet.test.resource;
 
 import java.io.File;
 import java.io.FileOutputStream;
+import java.io.IOException;
 
 import org.restlet.Application;
 import org.restlet.Client;
@@ -49,6 +50,8 @@ import org.restlet.data.Method;
 import org.restlet.data.Protocol;
 import org.restlet.data.Status;
 import org.restlet.engine.io.BioUtils;
+import org.restlet.engine.local.MappedFileCache;
+import org.restlet.engine.local.MappedFileRepresentation;
 import org.restlet.representation.FileRepresentation;
 import org.restlet.representation.Representation;
 import org.restlet.test.RestletTestCase;
@@ -141,4 +144,91 @@ public class FileRepresentationTestCase extends RestletTestCase {
         client.stop();
     }
 
+    public void testMappedFile() throws Exception {
+        // Serve the file through a FILE client caching its mapping
+        Context context = new Context();
+        context.getParameters().add("mappedCacheSize", "10");
+        final Client fileClient = new Client(context, Protocol.FILE);
+        fileClient.start();
+
+        Application application = new Application() {
+            @Override
+            public Restlet createInboundRoot() {
+                return new Restlet() {
+                    @Override
+                    public void handle(Request request, Response response) {
+                        response.setEntity(fileClient.handle(
+                                new Request(Method.GET, file.toURI()
+                                        .toString())).getEntity());
+                    }
+                };
+            }
+        };
+
+        component.getDefaultHost().attach(application);
+        Client client = new Client(new Context(), Protocol.HTTP);
+
+        Response response = fileClient.handle(new Request(Method.GET, file
+                .toURI().toString()));
+        assertTrue(response.getEntity() instanceof MappedFileRepresentation);
+        assertEquals("abc", response.getEntity().getText());
+
+        response = client.handle(new Request(Method.GET, uri));
+        assertEquals(Status.SUCCESS_OK, response.getStatus());
+        assertEquals("abc", response.getEntity().getText());
+
+        // Update the file, it must be mapped again
+        write(file, "abcdef");
+        file.setLastModified(file.lastModified() + 2000);
+        response = client.handle(new Request(Method.GET, uri));
+        assertEquals("abcdef", response.getEntity().getText());
+
+        // Files exceeding the budget aren't mapped
+        write(file, "abcdefghijk");
+        response = fileClient.handle(new Request(Method.GET, file.toURI()
+                .toString()));
+        assertFalse(response.getEntity() instanceof MappedFileRepresentation);
+        assertEquals("abcdefghijk", response.getEntity().getText());
+
+        client.stop();
+        fileClient.stop();
+    }
+
+    public void testMappedFileCache() throws Exception {
+        File other = new File(this.testDir, "other.txt");
+        write(other, "defg");
+
+        MappedFileCache cache = new MappedFileCache(6, 5);
+        assertNotNull(cache.get(this.file));
+        assertEquals(3, cache.getSize());
+
+        // Reused while unchanged
+        assertEquals(3, cache.get(this.file).remaining());
+        assertEquals(3, cache.getSize());
+
+        // The least recently used file is evicted
+        assertEquals(4, cache.get(other).remaining());
+        assertEquals(4, cache.getSize());
+
+        // Too large files are ignored
+        write(other, "defghijk");
+        assertNull(cache.get(other));
+        cache.clear();
+        assertEquals(0, cache.getSize());
+    }
+
+    /**
+     * Writes a text to a file.
+     * 
+     * @param target
+     *            The file to write.
+     * @param text
+     *            The text to write.
+     */
+    private void write(File target, String text) throws IOException {
+        FileOutputStream os = new FileOutputStream(target);
+        os.write(text.getBytes());
+        os.close();
+    }
+
 }
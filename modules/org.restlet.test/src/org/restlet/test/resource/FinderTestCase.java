@@ -0,0 +1,98 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+
+package org.restlet.test.resource;
+
+import org.restlet.Request;
+import org.restlet.Response;
+import org.restlet.resource.Finder;
+import org.restlet.resource.ServerResource;
+import org.restlet.test.RestletTestCase;
+
+/**
+ * Test case for the creation of the target server resources by a
+ * {@link Finder}.
+ * 
+ * @author Jerome Louvel
+ */
+public class FinderTestCase extends RestletTestCase {
+
+    public static class FirstResource extends ServerResource {
+    }
+
+    static class HiddenResource extends ServerResource {
+        public HiddenResource() {
+        }
+    }
+
+    public static class SecondResource extends ServerResource {
+    }
+
+    private ServerResource create(Finder finder) {
+        Request request = new Request();
+        return finder.create(request, new Response(request));
+    }
+
+    public void testAbstractTargetClass() {
+        Finder finder = new Finder();
+        finder.setTargetClass(AbstractAnnotatedServerResource.class);
+        assertNull(create(finder));
+    }
+
+    public void testChangedTargetClass() {
+        Finder finder = new Finder();
+        finder.setTargetClass(FirstResource.class);
+        assertEquals(FirstResource.class, create(finder).getClass());
+        assertEquals(FirstResource.class, create(finder).getClass());
+
+        finder.setTargetClass(SecondResource.class);
+        assertEquals(SecondResource.class, create(finder).getClass());
+
+        finder.setTargetClass(FirstResource.class);
+        assertEquals(FirstResource.class, create(finder).getClass());
+    }
+
+    public void testNonPublicTargetClass() {
+        // The access checks must not be suppressed for a hidden class
+        Finder finder = new Finder();
+        finder.setTargetClass(HiddenResource.class);
+        assertNull(create(finder));
+
+        finder.setTargetClass(FirstResource.class);
+        assertEquals(FirstResource.class, create(finder).getClass());
+        finder.setTargetClass(HiddenResource.class);
+        assertNull(create(finder));
+    }
+
+}
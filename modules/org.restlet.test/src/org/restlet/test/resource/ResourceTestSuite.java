@@ -42,6 +42,7 @@ public class ResourceTestSuite {
         TestSuite suite = new TestSuite("Resource package");
         // $JUnit-BEGIN$
         suite.addTestSuite(DirectoryTestCase.class);
+        suite.addTestSuite(FinderTestCase.class);
 
         suite.addTestSuite(AnnotatedResource1TestCase.class);
         suite.addTestSuite(AnnotatedResource2TestCase.class);
@@ -62,6 +63,7 @@ public class ResourceTestSuite {
         // Tests based on HTTP client connectors are not supported by the GAE
         // edition.
         // [ifndef gae]
+        suite.addTestSuite(AsyncReadTestCase.class);
         suite.addTestSuite(FileRepresentationTestCase.class);
         // [enddef]
         // $JUnit-END$
@@ -35,7 +35,11 @@ package org.restlet.test.routing;
 
 import org.restlet.Request;
 import org.restlet.Response;
+import org.restlet.Restlet;
+import org.restlet.data.Method;
 import org.restlet.routing.Route;
+import org.restlet.routing.Router;
+import org.restlet.routing.Template;
 import org.restlet.test.RestletTestCase;
 import org.restlet.util.RouteList;
 
@@ -60,6 +64,78 @@ public class RouteListTestCase extends RestletTestCase {
         }
     }
 
+    /**
+     * Returns the route selected by a router for a given path.
+     */
+    private static Route getRoute(Router router, String path) {
+        Request request = new Request(Method.GET, "http://localhost" + path);
+        request.getResourceRef().setBaseRef("http://localhost");
+        return (Route) router.getNext(request, new Response(request));
+    }
+
+    /**
+     * Checks that indexing doesn't change the routes selected.
+     */
+    private static void assertSameRoutes(Router router, String[] paths) {
+        for (int mode : new int[] { Router.MODE_FIRST_MATCH,
+                Router.MODE_BEST_MATCH }) {
+            router.setRoutingMode(mode);
+
+            for (String path : paths) {
+                router.getRoutes().setIndexing(false);
+                Route expected = getRoute(router, path);
+                router.getRoutes().setIndexing(true);
+                assertSame(path, expected, getRoute(router, path));
+            }
+        }
+    }
+
+    public void testIndexing() {
+        Router router = new Router();
+        Restlet users = new Restlet() {
+        };
+        Restlet user = new Restlet() {
+        };
+        Restlet orders = new Restlet() {
+        };
+        Restlet any = new Restlet() {
+        };
+        router.attach("/users", users);
+        router.attach("/users/{id}", user);
+        router.attach("/users/{id}/orders", orders);
+        router.attach("/users/me/orders", orders);
+        router.attach("/static/", any, Template.MODE_STARTS_WITH);
+        router.attach("/{type}/list", any);
+        router.attach("/search?q={q}", any);
+        router.getRoutes().add(new MockScoringRoute(0));
+        router.getRoutes().setIndexing(true);
+
+        String[] paths = new String[] { "/users", "/users/12",
+                "/users/12/orders", "/users/me/orders", "/static/a/b.css",
+                "/books/list", "/users/list", "/search?q=x", "/unknown", "/",
+                "" };
+        assertSameRoutes(router, paths);
+        assertSame(user, getRoute(router, "/users/12").getNext());
+        assertNull(getRoute(router, "/unknown"));
+
+        router.detach(orders);
+        router.attach("/users/{id}/orders", any);
+        assertSameRoutes(router, paths);
+        assertSame(any, getRoute(router, "/users/12/orders").getNext());
+
+        // Duplicate routes
+        Route route = router.getRoutes().get(1);
+        router.getRoutes().add(0, route);
+        assertSameRoutes(router, paths);
+        router.getRoutes().remove(0);
+        assertSameRoutes(router, paths);
+        assertSame(user, getRoute(router, "/users/12").getNext());
+
+        router.getRoutes().clear();
+        assertTrue(router.getRoutes().isIndexing());
+        assertNull(getRoute(router, "/users"));
+    }
+
     public void testGetLast() {
         final RouteList list = new RouteList();
 
@@ -75,6 +151,38 @@ public class RouteListTestCase extends RestletTestCase {
         assertNull(list.getLast(null, null, 6f));
     }
 
+    public void testGetLeastOutstanding() {
+        final RouteList list = new RouteList();
+
+        assertNull(list.getLeastOutstanding(null, null, 1f));
+
+        final Route first = new MockScoringRoute(5);
+        final Route second = new MockScoringRoute(5);
+        final Route[] selected = new Route[1];
+
+        list.add(first);
+        list.add(second);
+        list.add(new MockScoringRoute(0));
+
+        first.setNext(new Restlet() {
+            @Override
+            public void handle(Request request, Response response) {
+                assertEquals(1, first.getOutstandingCount());
+                selected[0] = list.getLeastOutstanding(null, null, 1f);
+            }
+        });
+
+        Request request = new Request();
+        first.handle(request, new Response(request));
+        assertSame(second, selected[0]);
+        assertEquals(0, first.getOutstandingCount());
+
+        // Round robin between idle routes
+        assertNotSame(list.getLeastOutstanding(null, null, 1f),
+                list.getLeastOutstanding(null, null, 1f));
+        assertNull(list.getLeastOutstanding(null, null, 6f));
+    }
+
     public void testGetNext() {
         final RouteList list = new RouteList();
 
@@ -93,6 +201,14 @@ public class RouteListTestCase extends RestletTestCase {
         assertSame(third, list.getNext(null, null, 1f));
 
         assertSame(first, list.getNext(null, null, 1f));
+
+        // Resume after the last selected route, skipping the others
+        list.add(1, new MockScoringRoute(0));
+        list.remove(third);
+        assertSame(second, list.getNext(null, null, 1f));
+        assertSame(first, list.getNext(null, null, 1f));
+        assertSame(second, list.getNext(null, null, 1f));
+        assertSame(first, list.getNext(null, null, 1f));
     }
 
     public void testGetRandom() {
@@ -119,4 +235,35 @@ public class RouteListTestCase extends RestletTestCase {
         assertNull(list.getRandom(null, null, 9f));
     }
 
+    public void testGetWeighted() {
+        final RouteList list = new RouteList();
+
+        assertNull(list.getWeighted(null, null, 1f));
+
+        final Route light = new MockScoringRoute(5);
+        final Route heavy = new MockScoringRoute(5);
+        final Route disabled = new MockScoringRoute(5);
+        heavy.setWeight(3);
+        disabled.setWeight(0);
+
+        list.add(light);
+        list.add(heavy);
+        list.add(disabled);
+        list.add(new MockScoringRoute(0));
+
+        int heavyCount = 0;
+
+        for (int i = 0; i < 4000; i++) {
+            Route route = list.getWeighted(null, null, 1f);
+            assertNotSame(disabled, route);
+
+            if (route == heavy) {
+                heavyCount++;
+            }
+        }
+
+        assertTrue(heavyCount > 2700 && heavyCount < 3300);
+        assertNull(list.getWeighted(null, null, 6f));
+    }
+
 }
@@ -47,6 +47,54 @@ import org.restlet.test.TraceRestlet;
  */
 public class ValidatorTestCase extends RestletTestCase {
 
+    public void testRangeBoundaries() {
+        // Create mock call
+        Request rq = new Request();
+        Response rs = new Response(rq);
+
+        // Prepare the validator to test
+        Validator validator = new Validator();
+        validator.setNext(new TraceRestlet(null));
+        validator.validateRange("id", true, Long.MIN_VALUE, Long.MAX_VALUE);
+
+        // Test if the values with 19 digits or more are parsed
+        String[] valid = { "9223372036854775807", "+9223372036854775807",
+                "-9223372036854775808", "1000000000000000000",
+                "000000000000000000000042", "-0" };
+
+        for (String id : valid) {
+            rq.getAttributes().put("id", id);
+            rs.setStatus(Status.SUCCESS_OK);
+            validator.handle(rq, rs);
+            assertEquals(id, Status.SUCCESS_OK, rs.getStatus());
+        }
+
+        // Test if the overflows are detected
+        String[] invalid = { "9223372036854775808", "-9223372036854775809",
+                "10000000000000000000", "99999999999999999999", "-", "+",
+                "" };
+
+        for (String id : invalid) {
+            rq.getAttributes().put("id", id);
+            rs.setStatus(Status.SUCCESS_OK);
+            validator.handle(rq, rs);
+            assertEquals(id, Status.CLIENT_ERROR_BAD_REQUEST, rs.getStatus());
+        }
+
+        // Test if the bounds are checked after parsing
+        validator = new Validator();
+        validator.setNext(new TraceRestlet(null));
+        validator.validateRange("id", true, 1, 100);
+        rq.getAttributes().put("id", "0000000000000000000100");
+        rs.setStatus(Status.SUCCESS_OK);
+        validator.handle(rq, rs);
+        assertEquals(Status.SUCCESS_OK, rs.getStatus());
+
+        rq.getAttributes().put("id", "9223372036854775807");
+        validator.handle(rq, rs);
+        assertEquals(Status.CLIENT_ERROR_BAD_REQUEST, rs.getStatus());
+    }
+
     public void testRequired() {
         // Create mock call
         Request rq = new Request();
@@ -94,4 +142,54 @@ public class ValidatorTestCase extends RestletTestCase {
         validator.handle(rq, rs);
         assertEquals(Status.SUCCESS_OK, rs.getStatus());
     }
+
+    public void testChecks() {
+        // Create mock call
+        Request rq = new Request();
+        Response rs = new Response(rq);
+
+        // Prepare the validator to test
+        Validator validator = new Validator();
+        validator.setNext(new TraceRestlet(null));
+        validator.validateRange("id", true, 1, 100);
+        validator.validateLength("name", false, 2, 5);
+        validator.validateValues("sort", false, "asc", "desc");
+
+        // Test if valid values are accepted
+        rq.getAttributes().put("id", "42");
+        rq.getAttributes().put("name", "abc");
+        rq.getAttributes().put("sort", "asc");
+        validator.handle(rq, rs);
+        assertEquals(Status.SUCCESS_OK, rs.getStatus());
+
+        rq.getAttributes().put("id", Long.valueOf(100));
+        validator.handle(rq, rs);
+        assertEquals(Status.SUCCESS_OK, rs.getStatus());
+
+        // Test if each invalid value is detected
+        rq.getAttributes().put("id", "101");
+        validator.handle(rq, rs);
+        assertEquals(Status.CLIENT_ERROR_BAD_REQUEST, rs.getStatus());
+
+        rq.getAttributes().put("id", "4a");
+        rs.setStatus(Status.SUCCESS_OK);
+        validator.handle(rq, rs);
+        assertEquals(Status.CLIENT_ERROR_BAD_REQUEST, rs.getStatus());
+
+        rq.getAttributes().put("id", "+7");
+        rq.getAttributes().put("name", "abcdef");
+        rs.setStatus(Status.SUCCESS_OK);
+        validator.handle(rq, rs);
+        assertEquals(Status.CLIENT_ERROR_BAD_REQUEST, rs.getStatus());
+
+        // Test if all the failures are reported
+        rq.getAttributes().remove("id");
+        rq.getAttributes().put("sort", "up");
+        rs.setStatus(Status.SUCCESS_OK);
+        validator.handle(rq, rs);
+        assertEquals(Status.CLIENT_ERROR_BAD_REQUEST, rs.getStatus());
+        assertTrue(rs.getStatus().getDescription().contains("\"id\""));
+        assertTrue(rs.getStatus().getDescription().contains("\"name\""));
+        assertTrue(rs.getStatus().getDescription().contains("\"sort\""));
+    }
 }
@@ -0,0 +1,193 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+
+package org.restlet.test.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.restlet.Context;
+import org.restlet.Request;
+import org.restlet.Response;
+import org.restlet.Restlet;
+import org.restlet.data.CacheDirective;
+import org.restlet.data.Dimension;
+import org.restlet.data.Language;
+import org.restlet.data.MediaType;
+import org.restlet.data.Method;
+import org.restlet.data.Preference;
+import org.restlet.data.Status;
+import org.restlet.data.Tag;
+import org.restlet.engine.application.CacheFilter;
+import org.restlet.representation.StringRepresentation;
+import org.restlet.service.CacheService;
+import org.restlet.test.RestletTestCase;
+
+/**
+ * Unit tests for the cache service.
+ * 
+ * @author Jerome Louvel
+ */
+public class CacheServiceTestCase extends RestletTestCase {
+
+    /** Restlet counting its calls. */
+    private static class CountingRestlet extends Restlet {
+
+        private List<CacheDirective> directives = new ArrayList<CacheDirective>();
+
+        private int count;
+
+        @Override
+        public void handle(Request request, Response response) {
+            super.handle(request, response);
+            count++;
+
+            if (Method.GET.equals(request.getMethod())) {
+                StringRepresentation entity = new StringRepresentation(
+                        "Hello " + count, MediaType.TEXT_PLAIN);
+                entity.setTag(new Tag("t" + count));
+                response.setEntity(entity);
+                response.getCacheDirectives().addAll(directives);
+                response.getDimensions().add(Dimension.LANGUAGE);
+            }
+        }
+    }
+
+    private CacheFilter filter;
+
+    private CountingRestlet restlet;
+
+    private Response get(String uri) throws Exception {
+        Response response = handle(new Request(Method.GET, uri));
+        assertEquals(Status.SUCCESS_OK, response.getStatus());
+        return response;
+    }
+
+    private Response handle(Request request) {
+        Response response = new Response(request);
+        filter.handle(request, response);
+        return response;
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        CacheService cacheService = new CacheService();
+        this.restlet = new CountingRestlet();
+        this.restlet.directives.add(CacheDirective.maxAge(60));
+        this.filter = (CacheFilter) cacheService
+                .createInboundFilter(new Context());
+        this.filter.setNext(this.restlet);
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        this.filter = null;
+        this.restlet = null;
+        super.tearDown();
+    }
+
+    public void testConditional() throws Exception {
+        get("http://localhost/a");
+
+        Request request = new Request(Method.GET, "http://localhost/a");
+        request.getConditions().getNoneMatch().add(new Tag("t1"));
+        Response response = handle(request);
+        assertEquals(Status.REDIRECTION_NOT_MODIFIED, response.getStatus());
+        assertFalse(response.isEntityAvailable());
+        assertEquals(new Tag("t1"), response.getEntity().getTag());
+        assertEquals(1, restlet.count);
+    }
+
+    public void testHit() throws Exception {
+        assertEquals("Hello 1", get("http://localhost/a").getEntity()
+                .getText());
+        Response response = get("http://localhost/a");
+        assertEquals("Hello 1", response.getEntity().getText());
+        assertEquals(new Tag("t1"), response.getEntity().getTag());
+        assertTrue(response.getDimensions().contains(Dimension.LANGUAGE));
+        assertEquals("Hello 2", get("http://localhost/b").getEntity()
+                .getText());
+        assertEquals(2, restlet.count);
+    }
+
+    public void testInvalidation() throws Exception {
+        get("http://localhost/a");
+        handle(new Request(Method.POST, "http://localhost/a"));
+        assertEquals("Hello 3", get("http://localhost/a").getEntity()
+                .getText());
+    }
+
+    public void testNoStore() throws Exception {
+        restlet.directives.clear();
+        restlet.directives.add(CacheDirective.noStore());
+        get("http://localhost/a");
+        get("http://localhost/a");
+        assertEquals(2, restlet.count);
+        assertEquals(0, filter.getSize());
+
+        restlet.directives.clear();
+        restlet.directives.add(CacheDirective.maxAge(60));
+        get("http://localhost/a");
+        Request request = new Request(Method.GET, "http://localhost/a");
+        request.getCacheDirectives().add(CacheDirective.noCache());
+        handle(request);
+        assertEquals(4, restlet.count);
+    }
+
+    public void testSizeLimit() throws Exception {
+        filter.getCacheService().setMaxSize(10);
+        get("http://localhost/a");
+        get("http://localhost/b");
+        assertEquals(7, filter.getSize());
+        get("http://localhost/a");
+        assertEquals(3, restlet.count);
+
+        filter.getCacheService().setMaxEntrySize(3);
+        assertEquals("Hello 4", get("http://localhost/c").getEntity()
+                .getText());
+        get("http://localhost/c");
+        assertEquals(5, restlet.count);
+    }
+
+    public void testVariance() throws Exception {
+        Request request = new Request(Method.GET, "http://localhost/a");
+        request.getClientInfo().getAcceptedLanguages().add(
+                new Preference<Language>(Language.FRENCH));
+        handle(request);
+        get("http://localhost/a");
+        get("http://localhost/a");
+        assertEquals(2, restlet.count);
+    }
+}
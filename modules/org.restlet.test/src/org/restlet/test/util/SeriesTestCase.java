@@ -0,0 +1,126 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.test.util;
+
+import java.util.Iterator;
+
+import org.restlet.data.Parameter;
+import org.restlet.test.RestletTestCase;
+import org.restlet.util.Series;
+
+/**
+ * Test case for the lookups of {@link Series} entries by name, on series
+ * small enough to be scanned and large enough to be indexed.
+ * 
+ * @author Jerome Louvel
+ */
+public class SeriesTestCase extends RestletTestCase {
+
+    private static Series<Parameter> createSeries(int fillers) {
+        Series<Parameter> result = new Series<Parameter>(Parameter.class);
+        result.add("Name", "a");
+
+        for (int i = 0; i < fillers; i++) {
+            result.add("filler" + i, Integer.toString(i));
+        }
+
+        result.add("name", "b");
+        result.add("NAME", "c");
+        return result;
+    }
+
+    private void testLookups(Series<Parameter> series) {
+        assertEquals("a", series.getFirstValue("Name"));
+        assertEquals("b", series.getFirstValue("name"));
+        assertEquals("a", series.getFirstValue("name", true));
+        assertNull(series.getFirstValue("nAme"));
+        assertNull(series.getFirstValue("other", true));
+        assertEquals("a,b,c", series.getValues("NaMe"));
+        assertEquals(3, series.getValuesArray("name", true).length);
+        assertEquals(1, series.subList("NAME").size());
+
+        // Modifications must be visible to the next lookups
+        series.add(0, new Parameter("name", "z"));
+        assertEquals("z", series.getFirstValue("name", true));
+        assertEquals("z", series.getFirstValue("name"));
+
+        for (Iterator<Parameter> iter = series.iterator(); iter.hasNext();) {
+            if ("z".equals(iter.next().getValue())) {
+                iter.remove();
+            }
+        }
+
+        assertEquals("a", series.getFirstValue("name", true));
+        series.set("name", "d", true);
+        assertEquals("d", series.getValues("name"));
+        assertTrue(series.removeAll("NAME", true));
+        assertFalse(series.removeAll("NAME", true));
+        assertNull(series.getFirst("name", true));
+        series.add("Name", "e");
+        assertEquals("e", series.getFirstValue("name", true));
+        series.clear();
+        assertNull(series.getFirst("name", true));
+    }
+
+    public void testIndexedLookups() {
+        testLookups(createSeries(20));
+    }
+
+    public void testRenamedEntries() {
+        Series<Parameter> series = createSeries(20);
+
+        // Build the index, then rename an entry in place
+        assertEquals("a", series.getFirstValue("name", true));
+        series.getFirst("Name").setName("renamed");
+        assertEquals("b", series.getFirstValue("name", true));
+        assertEquals("b,c", series.getValues("name", ",", true));
+        assertNull(series.getFirstValue("Name"));
+
+        // Rename an entry preceding the existing ones with the same name
+        series.getFirst("filler3").setName("name");
+        series.reindex();
+        assertEquals("3", series.getFirstValue("name"));
+        assertEquals("3", series.getFirstValue("NAME", true));
+        assertEquals("3,b,c", series.getValues("name", ",", true));
+        assertEquals("a", series.getFirstValue("renamed"));
+        assertNull(series.getFirst("filler3"));
+        assertTrue(series.removeFirst("name"));
+        assertEquals("b", series.getFirstValue("name"));
+    }
+
+    public void testScannedLookups() {
+        testLookups(createSeries(0));
+    }
+
+}
@@ -36,6 +36,7 @@ package org.restlet.test.util;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 
 import org.restlet.engine.Engine;
 import org.restlet.routing.Template;
@@ -90,6 +91,58 @@ public class TemplateTestCase extends RestletTestCase {
         assertEquals("123/456", variables3.get("v1"));
     }
 
+    public void testSegments() {
+        Template template = new Template("/users/{user}/orders/{order}",
+                Template.MODE_EQUALS, Variable.TYPE_URI_SEGMENT, "", true,
+                false);
+        template.getVariables().put("order",
+                new Variable(Variable.TYPE_DIGIT));
+
+        Map<String, Object> variables = new HashMap<String, Object>();
+        assertEquals(22, template.parse("/users/j%20d/orders/42", variables));
+        assertEquals("j%20d", variables.get("user"));
+        assertEquals("42", variables.get("order"));
+
+        Variable user = new Variable(Variable.TYPE_URI_SEGMENT);
+        user.setDecodingOnParse(true);
+        template.getVariables().put("user", user);
+        template.setPattern(template.getPattern());
+        assertEquals(22, template.parse("/users/j%20d/orders/42", variables));
+        assertEquals("j d", variables.get("user"));
+        assertEquals("42", variables.get("order"));
+
+        assertEquals(-1, template.match("/users/jd/orders/4a"));
+        assertEquals(-1, template.match("/users//orders/42"));
+        assertEquals(-1, template.match("/users/a/b/orders/42"));
+
+        template.setMatchingMode(Template.MODE_STARTS_WITH);
+        assertEquals(19, template.match("/users/jd/orders/42/items"));
+    }
+
+    public void testTypedVariables() {
+        Template template = new Template("/{id}/{uuid}");
+        template.getVariables().put("id", new Variable(Variable.TYPE_DIGIT));
+        template.getVariables().put("uuid", new Variable(Variable.TYPE_UUID));
+        String uuid = "123e4567-e89b-12d3-a456-426655440000";
+
+        Map<String, Object> variables = new HashMap<String, Object>();
+        assertTrue(template.parse("/12/" + uuid, variables) > 0);
+        assertEquals("12", variables.get("id"));
+        assertEquals(uuid, variables.get("uuid"));
+        assertEquals(-1, template.match("/12/123e4567-e89b-12d3-a456"));
+
+        template.setTypedVariables(true);
+        variables.clear();
+        assertTrue(template.parse("/12/" + uuid, variables) > 0);
+        assertEquals(Long.valueOf(12), variables.get("id"));
+        assertEquals(UUID.fromString(uuid), variables.get("uuid"));
+
+        // Values overflowing a long are kept as strings
+        variables.clear();
+        assertTrue(template.parse("/99999999999999999999/" + uuid, variables) > 0);
+        assertEquals("99999999999999999999", variables.get("id"));
+    }
+
     public void testVariableNames() throws Exception {
         Template tpl = new Template(
                 "http://{userId}.restlet.com/invoices/{invoiceId}");
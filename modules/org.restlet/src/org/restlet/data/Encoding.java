@@ -43,6 +43,10 @@ public final class Encoding extends Metadata {
     /** All encodings acceptable. */
     public static final Encoding ALL = new Encoding("*", "All encodings");
 
+    /** The Brotli format defined by RFC 7932. */
+    public static final Encoding BROTLI = new Encoding("br",
+            "Brotli compression");
+
     /** The common Unix file compression. */
     public static final Encoding COMPRESS = new Encoding("compress",
             "Common Unix compression");
@@ -85,6 +89,8 @@ public final class Encoding extends Metadata {
                 result = ALL;
             } else if (name.equalsIgnoreCase(GZIP.getName())) {
                 result = GZIP;
+            } else if (name.equalsIgnoreCase(BROTLI.getName())) {
+                result = BROTLI;
             } else if (name.equalsIgnoreCase(ZIP.getName())) {
                 result = ZIP;
             } else if (name.equalsIgnoreCase(COMPRESS.getName())) {
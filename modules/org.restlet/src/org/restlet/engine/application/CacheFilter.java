@@ -0,0 +1,646 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+
+package org.restlet.engine.application;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+
+import org.restlet.Context;
+import org.restlet.Request;
+import org.restlet.Response;
+import org.restlet.data.CacheDirective;
+import org.restlet.data.ClientInfo;
+import org.restlet.data.Dimension;
+import org.restlet.data.Method;
+import org.restlet.data.Reference;
+import org.restlet.data.Status;
+import org.restlet.engine.header.Header;
+import org.restlet.engine.header.HeaderConstants;
+import org.restlet.representation.ByteArrayRepresentation;
+import org.restlet.representation.EmptyRepresentation;
+import org.restlet.representation.InputRepresentation;
+import org.restlet.representation.Representation;
+import org.restlet.routing.Filter;
+import org.restlet.service.CacheService;
+import org.restlet.util.Series;
+
+// [excludes gwt]
+/**
+ * Filter caching in memory the responses to GET requests.
+ * 
+ * @author Jerome Louvel
+ * @see CacheService
+ */
+public class CacheFilter extends Filter {
+
+    /**
+     * Cached response, with the request preferences it was negotiated for.
+     */
+    private static class Entry {
+
+        /** The entity content. */
+        private final byte[] content;
+
+        /** The date when the response was stored. */
+        private final long date;
+
+        /** The variant dimensions of the response. */
+        private final Set<Dimension> dimensions;
+
+        /** The response cache directives. */
+        private final List<CacheDirective> directives;
+
+        /** The date when the response becomes stale. */
+        private final long expirationDate;
+
+        /** The additional response headers. */
+        private final Series<Header> headers;
+
+        /** The response location. */
+        private final Reference locationRef;
+
+        /** The entity metadata. */
+        private final Representation metadata;
+
+        /** The response status. */
+        private final Status status;
+
+        /** The request preferences along the variant dimensions. */
+        private final String variance;
+
+        /**
+         * Constructor.
+         * 
+         * @param request
+         *            The request handled.
+         * @param response
+         *            The response to store.
+         * @param content
+         *            The entity content.
+         * @param date
+         *            The current date.
+         * @param expirationDate
+         *            The date when the response becomes stale.
+         */
+        @SuppressWarnings("unchecked")
+        public Entry(Request request, Response response, byte[] content,
+                long date, long expirationDate) {
+            Series<Header> responseHeaders = (Series<Header>) response
+                    .getAttributes().get(HeaderConstants.ATTRIBUTE_HEADERS);
+
+            this.content = content;
+            this.date = date;
+            this.dimensions = new HashSet<Dimension>(response.getDimensions());
+            this.directives = new ArrayList<CacheDirective>(
+                    response.getCacheDirectives());
+            this.expirationDate = expirationDate;
+            this.headers = (responseHeaders == null) ? null
+                    : new Series<Header>(Header.class, responseHeaders);
+            this.locationRef = response.getLocationRef();
+            this.metadata = new EmptyRepresentation();
+            copyMetadata(response.getEntity(), this.metadata);
+            this.status = response.getStatus();
+            this.variance = getVariance(request, this.dimensions);
+        }
+
+        /**
+         * Updates a response with the cached one.
+         * 
+         * @param request
+         *            The request to answer.
+         * @param response
+         *            The response to update.
+         * @param now
+         *            The current date.
+         */
+        public void answer(Request request, Response response, long now) {
+            Status conditionalStatus = request.getConditions().getStatus(
+                    request.getMethod(), true, this.metadata.getTag(),
+                    this.metadata.getModificationDate());
+
+            if ((conditionalStatus != null) && conditionalStatus.isError()) {
+                response.setStatus(conditionalStatus);
+                response.setEntity(null);
+            } else if (Status.REDIRECTION_NOT_MODIFIED
+                    .equals(conditionalStatus)) {
+                // No content, only the validators written by the connectors
+                Representation entity = new EmptyRepresentation();
+                entity.setTag(this.metadata.getTag());
+                entity.setLocationRef(this.metadata.getLocationRef());
+                response.setEntity(entity);
+                response.setStatus(conditionalStatus);
+            } else {
+                Representation entity = new ByteArrayRepresentation(
+                        this.content, this.metadata.getMediaType(),
+                        this.content.length);
+                copyMetadata(this.metadata, entity);
+                response.setEntity(entity);
+                response.setStatus((conditionalStatus == null) ? this.status
+                        : conditionalStatus);
+            }
+
+            response.getDimensions().addAll(this.dimensions);
+            response.getCacheDirectives().addAll(this.directives);
+            response.setAge((int) ((now - this.date) / 1000L));
+            response.setLocationRef(this.locationRef);
+
+            if (this.headers != null) {
+                response.getAttributes().put(HeaderConstants.ATTRIBUTE_HEADERS,
+                        new Series<Header>(Header.class, this.headers));
+            }
+        }
+    }
+
+    /**
+     * Copies the metadata of a representation.
+     * 
+     * @param source
+     *            The source representation.
+     * @param target
+     *            The target representation.
+     */
+    private static void copyMetadata(Representation source,
+            Representation target) {
+        target.setCharacterSet(source.getCharacterSet());
+        target.setDisposition(source.getDisposition());
+        target.setEncodings(new ArrayList<org.restlet.data.Encoding>(source
+                .getEncodings()));
+        target.setExpirationDate(source.getExpirationDate());
+        target.setLanguages(new ArrayList<org.restlet.data.Language>(source
+                .getLanguages()));
+        target.setLocationRef(source.getLocationRef());
+        target.setMediaType(source.getMediaType());
+        target.setModificationDate(source.getModificationDate());
+        target.setTag(source.getTag());
+    }
+
+    /**
+     * Returns the freshness lifetime in milliseconds of a response, based on
+     * the "s-maxage" and "max-age" directives or on the entity expiration
+     * date.
+     * 
+     * @param response
+     *            The response.
+     * @param now
+     *            The current date.
+     * @return The freshness lifetime or -1 if the response can't be stored.
+     */
+    private static long getFreshness(Response response, long now) {
+        long maxAge = -1;
+        long sharedMaxAge = -1;
+
+        for (CacheDirective directive : response.getCacheDirectives()) {
+            String name = directive.getName();
+
+            if (HeaderConstants.CACHE_NO_STORE.equals(name)
+                    || HeaderConstants.CACHE_PRIVATE.equals(name)
+                    || HeaderConstants.CACHE_NO_CACHE.equals(name)) {
+                return -1;
+            } else if (HeaderConstants.CACHE_SHARED_MAX_AGE.equals(name)) {
+                sharedMaxAge = getSeconds(directive);
+            } else if (HeaderConstants.CACHE_MAX_AGE.equals(name)) {
+                maxAge = getSeconds(directive);
+            }
+        }
+
+        long result = -1;
+
+        if (sharedMaxAge >= 0) {
+            result = sharedMaxAge * 1000L;
+        } else if (maxAge >= 0) {
+            result = maxAge * 1000L;
+        } else if (response.getEntity().getExpirationDate() != null) {
+            result = response.getEntity().getExpirationDate().getTime() - now;
+        }
+
+        return (result > 0) ? result : -1;
+    }
+
+    /**
+     * Returns the number of seconds of a cache directive.
+     * 
+     * @param directive
+     *            The cache directive.
+     * @return The number of seconds or -1 if invalid.
+     */
+    private static long getSeconds(CacheDirective directive) {
+        try {
+            return Long.parseLong(directive.getValue());
+        } catch (NumberFormatException nfe) {
+            return -1;
+        }
+    }
+
+    /**
+     * Returns the preferences of a request along the given variant dimensions.
+     * 
+     * @param request
+     *            The request.
+     * @param dimensions
+     *            The variant dimensions.
+     * @return The preferences of the request.
+     */
+    private static String getVariance(Request request,
+            Set<Dimension> dimensions) {
+        StringBuilder sb = new StringBuilder();
+        ClientInfo clientInfo = request.getClientInfo();
+
+        if (dimensions.contains(Dimension.MEDIA_TYPE)) {
+            sb.append(clientInfo.getAcceptedMediaTypes()).append('|');
+        }
+
+        if (dimensions.contains(Dimension.CHARACTER_SET)) {
+            sb.append(clientInfo.getAcceptedCharacterSets()).append('|');
+        }
+
+        if (dimensions.contains(Dimension.ENCODING)) {
+            sb.append(clientInfo.getAcceptedEncodings()).append('|');
+        }
+
+        if (dimensions.contains(Dimension.LANGUAGE)) {
+            sb.append(clientInfo.getAcceptedLanguages()).append('|');
+        }
+
+        if (dimensions.contains(Dimension.CLIENT_AGENT)) {
+            sb.append(clientInfo.getAgent()).append('|');
+        }
+
+        if (dimensions.contains(Dimension.CLIENT_ADDRESS)) {
+            sb.append(clientInfo.getAddress()).append('|');
+        }
+
+        return sb.toString();
+    }
+
+    /**
+     * Indicates if the request cache directives contain a given one.
+     * 
+     * @param request
+     *            The request.
+     * @param name
+     *            The directive name.
+     * @param value
+     *            The directive value or null to match any value.
+     * @return True if the request cache directives contain the given one.
+     */
+    private static boolean hasDirective(Request request, String name,
+            String value) {
+        boolean result = false;
+
+        for (Iterator<CacheDirective> iter = request.getCacheDirectives()
+                .iterator(); !result && iter.hasNext();) {
+            CacheDirective directive = iter.next();
+            result = name.equals(directive.getName())
+                    && ((value == null) || value.equals(directive.getValue()));
+        }
+
+        return result;
+    }
+
+    /** The parent cache service. */
+    private final CacheService cacheService;
+
+    /** The cached responses of each resource, in least recently used order. */
+    private final LinkedHashMap<String, List<Entry>> entries;
+
+    /** The total size of the cached entities. */
+    private long size;
+
+    /**
+     * Constructor.
+     * 
+     * @param context
+     *            The context.
+     * @param cacheService
+     *            The parent cache service.
+     */
+    public CacheFilter(Context context, CacheService cacheService) {
+        super(context);
+        this.cacheService = cacheService;
+        this.entries = new LinkedHashMap<String, List<Entry>>(16, 0.75f, true);
+        this.size = 0;
+    }
+
+    /**
+     * Stores the response if it is cacheable, or invalidates the cached
+     * responses of the resource after a successful unsafe request.
+     */
+    @Override
+    protected void afterHandle(Request request, Response response) {
+        if (!getCacheService().isEnabled()) {
+            // Caching disabled
+        } else if (!request.getMethod().isSafe()) {
+            if (response.getStatus().isSuccess()) {
+                invalidate(getKey(request));
+            }
+        } else if (isStorable(request, response)) {
+            long now = System.currentTimeMillis();
+            long freshness = getFreshness(response, now);
+
+            if (freshness > 0) {
+                byte[] content = read(response);
+
+                if (content != null) {
+                    store(getKey(request), new Entry(request, response,
+                            content, now, now + freshness));
+                }
+            }
+        }
+    }
+
+    /**
+     * Answers the request with a fresh cached response if available.
+     */
+    @Override
+    protected int beforeHandle(Request request, Response response) {
+        int result = CONTINUE;
+
+        if (getCacheService().isEnabled() && isLookupAllowed(request)) {
+            long now = System.currentTimeMillis();
+            Entry entry = lookup(request, now);
+
+            if (entry != null) {
+                entry.answer(request, response, now);
+                result = STOP;
+
+                if (getLogger().isLoggable(Level.FINE)) {
+                    getLogger().fine(
+                            "Cached response returned for "
+                                    + request.getResourceRef());
+                }
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Removes all the cached responses.
+     */
+    public synchronized void clear() {
+        this.entries.clear();
+        this.size = 0;
+    }
+
+    /**
+     * Returns the parent cache service.
+     * 
+     * @return The parent cache service.
+     */
+    public CacheService getCacheService() {
+        return cacheService;
+    }
+
+    /**
+     * Returns the key of the cached responses of the target resource.
+     * 
+     * @param request
+     *            The request.
+     * @return The cache key.
+     */
+    protected String getKey(Request request) {
+        return request.getResourceRef().toString(true, false);
+    }
+
+    /**
+     * Returns the total size of the cached entities.
+     * 
+     * @return The total size of the cached entities.
+     */
+    public synchronized long getSize() {
+        return size;
+    }
+
+    /**
+     * Removes the cached responses of a resource.
+     * 
+     * @param key
+     *            The cache key.
+     */
+    private synchronized void invalidate(String key) {
+        List<Entry> removed = this.entries.remove(key);
+
+        if (removed != null) {
+            for (Entry entry : removed) {
+                this.size -= entry.content.length;
+            }
+        }
+    }
+
+    /**
+     * Indicates if the request can be answered with a cached response.
+     * 
+     * @param request
+     *            The request.
+     * @return True if the request can be answered with a cached response.
+     */
+    protected boolean isLookupAllowed(Request request) {
+        return (Method.GET.equals(request.getMethod()) || Method.HEAD
+                .equals(request.getMethod()))
+                && (request.getChallengeResponse() == null)
+                && !hasDirective(request, HeaderConstants.CACHE_NO_STORE, null)
+                && !hasDirective(request, HeaderConstants.CACHE_NO_CACHE, null)
+                && !hasDirective(request, HeaderConstants.CACHE_MAX_AGE, "0");
+    }
+
+    /**
+     * Indicates if the response can be stored.
+     * 
+     * @param request
+     *            The request.
+     * @param response
+     *            The response.
+     * @return True if the response can be stored.
+     */
+    protected boolean isStorable(Request request, Response response) {
+        Set<Dimension> dimensions = response.getDimensions();
+
+        return Method.GET.equals(request.getMethod())
+                && Status.SUCCESS_OK.equals(response.getStatus())
+                && response.isEntityAvailable()
+                && response.isAutoCommitting()
+                && (response.getEntity().getRange() == null)
+                && response.getCookieSettings().isEmpty()
+                && (request.getChallengeResponse() == null)
+                && !hasDirective(request, HeaderConstants.CACHE_NO_STORE, null)
+                && !dimensions.contains(Dimension.UNSPECIFIED)
+                && !dimensions.contains(Dimension.AUTHORIZATION)
+                && !dimensions.contains(Dimension.TIME);
+    }
+
+    /**
+     * Returns the fresh cached response matching the request preferences.
+     * Stale responses found are removed.
+     * 
+     * @param request
+     *            The request.
+     * @param now
+     *            The current date.
+     * @return The matching cached response or null.
+     */
+    private synchronized Entry lookup(Request request, long now) {
+        Entry result = null;
+        List<Entry> list = this.entries.get(getKey(request));
+
+        if (list != null) {
+            for (Iterator<Entry> iter = list.iterator(); (result == null)
+                    && iter.hasNext();) {
+                Entry entry = iter.next();
+
+                if (entry.expirationDate <= now) {
+                    this.size -= entry.content.length;
+                    iter.remove();
+                } else if (entry.variance.equals(getVariance(request,
+                        entry.dimensions))) {
+                    result = entry;
+                }
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Reads the response entity content if it doesn't exceed the maximum size
+     * of a cached entity. As the entity is consumed, it is replaced by an
+     * equivalent one.
+     * 
+     * @param response
+     *            The response.
+     * @return The entity content or null if it is too large or unreadable.
+     */
+    private byte[] read(Response response) {
+        byte[] result = null;
+        Representation entity = response.getEntity();
+        long maxEntrySize = getCacheService().getMaxEntrySize();
+
+        if (entity.getSize() <= maxEntrySize) {
+            try {
+                InputStream stream = entity.getStream();
+                ByteArrayOutputStream content = new ByteArrayOutputStream(
+                        (entity.getSize() > 0) ? (int) entity.getSize()
+                                : 1024);
+                byte[] buffer = new byte[1024];
+                int read = 0;
+
+                while ((content.size() <= maxEntrySize)
+                        && ((read = stream.read(buffer)) != -1)) {
+                    content.write(buffer, 0, read);
+                }
+
+                Representation replacement = null;
+
+                if (read == -1) {
+                    stream.close();
+                    result = content.toByteArray();
+                    replacement = new ByteArrayRepresentation(result,
+                            entity.getMediaType(), result.length);
+                } else {
+                    // Too large, send what was read followed by the rest
+                    replacement = new InputRepresentation(
+                            new SequenceInputStream(new ByteArrayInputStream(
+                                    content.toByteArray()), stream),
+                            entity.getMediaType(), entity.getSize());
+                }
+
+                copyMetadata(entity, replacement);
+                response.setEntity(replacement);
+            } catch (IOException ioe) {
+                getLogger().log(Level.WARNING,
+                        "Unable to read the response entity to cache", ioe);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Stores a response, replacing the one cached for the same request
+     * preferences, then evicts the least recently used responses exceeding
+     * the maximum total size.
+     * 
+     * @param key
+     *            The cache key.
+     * @param entry
+     *            The response to store.
+     */
+    private synchronized void store(String key, Entry entry) {
+        List<Entry> list = this.entries.get(key);
+
+        if (list == null) {
+            list = new ArrayList<Entry>();
+            this.entries.put(key, list);
+        }
+
+        for (Iterator<Entry> iter = list.iterator(); iter.hasNext();) {
+            Entry cached = iter.next();
+
+            if (cached.variance.equals(entry.variance)
+                    && cached.dimensions.equals(entry.dimensions)) {
+                this.size -= cached.content.length;
+                iter.remove();
+            }
+        }
+
+        list.add(entry);
+        this.size += entry.content.length;
+
+        for (Iterator<Map.Entry<String, List<Entry>>> iter = this.entries
+                .entrySet().iterator(); (this.size > getCacheService()
+                .getMaxSize()) && iter.hasNext();) {
+            Map.Entry<String, List<Entry>> eldest = iter.next();
+
+            if (eldest.getValue() != list) {
+                for (Entry evicted : eldest.getValue()) {
+                    this.size -= evicted.content.length;
+                }
+
+                iter.remove();
+            }
+        }
+    }
+
+}
@@ -42,8 +42,6 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
-import java.util.zip.GZIPInputStream;
-import java.util.zip.InflaterInputStream;
 import java.util.zip.ZipInputStream;
 
 import org.restlet.data.Encoding;
@@ -131,9 +129,9 @@ public class DecodeRepresentation extends WrapperRepresentation {
 
         if (encodedStream != null) {
             if (encoding.equals(Encoding.GZIP)) {
-                result = new GZIPInputStream(encodedStream);
+                result = new DecoderInputStream(encodedStream, true);
             } else if (encoding.equals(Encoding.DEFLATE)) {
-                result = new InflaterInputStream(encodedStream);
+                result = new DecoderInputStream(encodedStream, false);
             } else if (encoding.equals(Encoding.ZIP)) {
                 final ZipInputStream stream = new ZipInputStream(encodedStream);
                 if (stream.getNextEntry() != null) {
@@ -0,0 +1,270 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.engine.application;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.CRC32;
+import java.util.zip.InflaterInputStream;
+import java.util.zip.ZipException;
+
+import org.restlet.engine.io.IoUtils;
+
+// [excludes gwt]
+/**
+ * Input stream decompressing content in the DEFLATE or GZIP format with a
+ * pooled inflater. The inflater is returned to its pool once the end of the
+ * compressed content is reached or the stream is closed.
+ * 
+ * @author Jerome Louvel
+ */
+public class DecoderInputStream extends InflaterInputStream {
+
+    /** The GZIP flag indicating a header checksum. */
+    private static final int FHCRC = 2;
+
+    /** The GZIP flag indicating extra fields. */
+    private static final int FEXTRA = 4;
+
+    /** The GZIP flag indicating an original file name. */
+    private static final int FNAME = 8;
+
+    /** The GZIP flag indicating a comment. */
+    private static final int FCOMMENT = 16;
+
+    /** The checksum of the decompressed content, or null for DEFLATE. */
+    private final CRC32 crc;
+
+    /** Indicates if the end of the compressed content has been reached. */
+    private volatile boolean ended;
+
+    /** The pool of the inflater. */
+    private final InflaterPool pool;
+
+    /** Indicates if the inflater has been returned to its pool. */
+    private volatile boolean released;
+
+    /**
+     * Constructor.
+     * 
+     * @param inputStream
+     *            The input stream providing the compressed content.
+     * @param gzip
+     *            True for the GZIP format, false for the ZLIB wrapped DEFLATE
+     *            format.
+     * @throws IOException
+     */
+    public DecoderInputStream(InputStream inputStream, boolean gzip)
+            throws IOException {
+        this(inputStream, InflaterPool.getInstance(gzip), gzip);
+    }
+
+    /**
+     * Constructor.
+     * 
+     * @param inputStream
+     *            The input stream providing the compressed content.
+     * @param pool
+     *            The pool of the inflater.
+     * @param gzip
+     *            True for the GZIP format.
+     * @throws IOException
+     */
+    private DecoderInputStream(InputStream inputStream, InflaterPool pool,
+            boolean gzip) throws IOException {
+        super(inputStream, pool.checkout(), IoUtils.BUFFER_SIZE);
+        this.pool = pool;
+        this.ended = false;
+        this.released = false;
+
+        if (gzip) {
+            this.crc = new CRC32();
+
+            try {
+                readHeader();
+            } catch (IOException e) {
+                release();
+                throw e;
+            }
+        } else {
+            this.crc = null;
+        }
+    }
+
+    @Override
+    public int available() throws IOException {
+        return this.ended ? 0 : super.available();
+    }
+
+    /**
+     * Closes the stream and returns the inflater to its pool.
+     */
+    @Override
+    public void close() throws IOException {
+        release();
+        super.close();
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (this.ended) {
+            return -1;
+        }
+
+        int result = super.read(b, off, len);
+
+        if (result == -1) {
+            if (this.crc != null) {
+                readTrailer();
+            }
+
+            this.ended = true;
+            release();
+        } else if (this.crc != null) {
+            this.crc.update(b, off, result);
+        }
+
+        return result;
+    }
+
+    /**
+     * Reads and checks the GZIP header from the underlying stream.
+     * 
+     * @throws IOException
+     */
+    private void readHeader() throws IOException {
+        if ((readUnsignedByte() != 0x1f) || (readUnsignedByte() != 0x8b)) {
+            throw new ZipException("Not in GZIP format");
+        }
+
+        if (readUnsignedByte() != 8) {
+            throw new ZipException("Unsupported GZIP compression method");
+        }
+
+        int flags = readUnsignedByte();
+
+        // Skip the modification time, extra flags and operating system
+        skipHeader(6);
+
+        if ((flags & FEXTRA) != 0) {
+            skipHeader(readUnsignedByte() | (readUnsignedByte() << 8));
+        }
+
+        if ((flags & FNAME) != 0) {
+            while (readUnsignedByte() != 0) {
+            }
+        }
+
+        if ((flags & FCOMMENT) != 0) {
+            while (readUnsignedByte() != 0) {
+            }
+        }
+
+        if ((flags & FHCRC) != 0) {
+            skipHeader(2);
+        }
+    }
+
+    /**
+     * Reads and checks the GZIP trailer following the compressed content,
+     * starting with the bytes already buffered but not consumed by the
+     * inflater.
+     * 
+     * @throws IOException
+     */
+    private void readTrailer() throws IOException {
+        byte[] trailer = new byte[EncoderOutputStream.GZIP_TRAILER_LENGTH];
+        int remaining = Math.min(this.inf.getRemaining(), trailer.length);
+        System.arraycopy(this.buf, this.len - this.inf.getRemaining(),
+                trailer, 0, remaining);
+
+        for (int i = remaining; i < trailer.length; i++) {
+            trailer[i] = (byte) readUnsignedByte();
+        }
+
+        long crc = 0;
+        long size = 0;
+
+        for (int i = 3; i >= 0; i--) {
+            crc = (crc << 8) | (trailer[i] & 0xff);
+            size = (size << 8) | (trailer[4 + i] & 0xff);
+        }
+
+        if ((crc != this.crc.getValue())
+                || (size != (this.inf.getBytesWritten() & 0xffffffffL))) {
+            throw new ZipException("Corrupt GZIP trailer");
+        }
+    }
+
+    /**
+     * Reads an unsigned byte from the underlying stream.
+     * 
+     * @return The unsigned byte.
+     * @throws IOException
+     */
+    private int readUnsignedByte() throws IOException {
+        int result = this.in.read();
+
+        if (result == -1) {
+            throw new EOFException("Unexpected end of GZIP stream");
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the inflater to its pool.
+     */
+    private void release() {
+        if (!this.released) {
+            this.released = true;
+            this.pool.checkin(this.inf);
+        }
+    }
+
+    /**
+     * Skips a number of header bytes from the underlying stream.
+     * 
+     * @param count
+     *            The number of bytes to skip.
+     * @throws IOException
+     */
+    private void skipHeader(int count) throws IOException {
+        for (int i = 0; i < count; i++) {
+            readUnsignedByte();
+        }
+    }
+
+}
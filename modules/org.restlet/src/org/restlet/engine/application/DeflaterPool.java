@@ -0,0 +1,167 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.engine.application;
+
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.zip.Deflater;
+
+import org.restlet.engine.util.Pool;
+
+// [excludes gwt]
+/**
+ * Bounded pool of deflaters sharing the same compression level and wrapping
+ * mode. Deflaters hold native memory that is only released by their end()
+ * method, so reusing them spares both the allocation and the cleanup for each
+ * encoded entity. Deflaters checked in while the pool is full are ended.
+ * 
+ * @author Jerome Louvel
+ */
+public class DeflaterPool extends Pool<Deflater> {
+
+    /** The maximum number of idle deflaters kept by each pool. */
+    private static final int CAPACITY = 32;
+
+    /** The shared pools, indexed by compression level and wrapping mode. */
+    private static final DeflaterPool[] POOLS = new DeflaterPool[22];
+
+    static {
+        for (int level = Deflater.DEFAULT_COMPRESSION; level <= Deflater.BEST_COMPRESSION; level++) {
+            POOLS[getIndex(level, false)] = new DeflaterPool(level, false);
+            POOLS[getIndex(level, true)] = new DeflaterPool(level, true);
+        }
+    }
+
+    /**
+     * Returns the index of a shared pool.
+     * 
+     * @param level
+     *            The compression level.
+     * @param nowrap
+     *            True if the ZLIB header and checksum are omitted.
+     * @return The index of the shared pool.
+     */
+    private static int getIndex(int level, boolean nowrap) {
+        return ((level - Deflater.DEFAULT_COMPRESSION) << 1) | (nowrap ? 1 : 0);
+    }
+
+    /**
+     * Returns the shared pool of deflaters for a given compression level and
+     * wrapping mode.
+     * 
+     * @param level
+     *            The compression level, from 0 to 9 or
+     *            {@link Deflater#DEFAULT_COMPRESSION}.
+     * @param nowrap
+     *            True if the ZLIB header and checksum are omitted, as required
+     *            by the GZIP format.
+     * @return The shared pool of deflaters.
+     */
+    public static DeflaterPool getInstance(int level, boolean nowrap) {
+        if ((level < Deflater.DEFAULT_COMPRESSION)
+                || (level > Deflater.BEST_COMPRESSION)) {
+            throw new IllegalArgumentException("Invalid compression level: "
+                    + level);
+        }
+
+        return POOLS[getIndex(level, nowrap)];
+    }
+
+    /** The compression level of the pooled deflaters. */
+    private final int level;
+
+    /** Indicates if the ZLIB header and checksum are omitted. */
+    private final boolean nowrap;
+
+    /**
+     * Constructor.
+     * 
+     * @param level
+     *            The compression level of the pooled deflaters.
+     * @param nowrap
+     *            True if the ZLIB header and checksum are omitted.
+     */
+    public DeflaterPool(int level, boolean nowrap) {
+        super();
+        this.level = level;
+        this.nowrap = nowrap;
+    }
+
+    /**
+     * Resets the deflater and checks it in the pool, or ends it if the pool is
+     * full.
+     * 
+     * @param deflater
+     *            The deflater to check in.
+     */
+    @Override
+    public void checkin(Deflater deflater) {
+        if (deflater != null) {
+            deflater.reset();
+
+            if (!getStore().offer(deflater)) {
+                deflater.end();
+            }
+        }
+    }
+
+    @Override
+    protected Deflater createObject() {
+        return new Deflater(getLevel(), isNowrap());
+    }
+
+    @Override
+    protected Queue<Deflater> createStore() {
+        return new ArrayBlockingQueue<Deflater>(CAPACITY);
+    }
+
+    /**
+     * Returns the compression level of the pooled deflaters.
+     * 
+     * @return The compression level of the pooled deflaters.
+     */
+    public int getLevel() {
+        return level;
+    }
+
+    /**
+     * Indicates if the ZLIB header and checksum are omitted.
+     * 
+     * @return True if the ZLIB header and checksum are omitted.
+     */
+    public boolean isNowrap() {
+        return nowrap;
+    }
+
+}
@@ -42,8 +42,8 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
+import java.util.zip.Deflater;
 import java.util.zip.DeflaterOutputStream;
-import java.util.zip.GZIPOutputStream;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
 
@@ -81,8 +81,11 @@ public class EncodeRepresentation extends WrapperRepresentation {
     /** The applied encodings. */
     private volatile List<Encoding> encodings;
 
+    /** The compression level. */
+    private volatile int level;
+
     /**
-     * Constructor.
+     * Constructor using the default compression level.
      * 
      * @param encoding
      *            Encoder algorithm.
@@ -91,10 +94,27 @@ public class EncodeRepresentation extends WrapperRepresentation {
      */
     public EncodeRepresentation(Encoding encoding,
             Representation wrappedRepresentation) {
+        this(encoding, wrappedRepresentation, Deflater.DEFAULT_COMPRESSION);
+    }
+
+    /**
+     * Constructor.
+     * 
+     * @param encoding
+     *            Encoder algorithm.
+     * @param wrappedRepresentation
+     *            The wrapped representation.
+     * @param level
+     *            The compression level, from 0 to 9 or
+     *            {@link Deflater#DEFAULT_COMPRESSION}.
+     */
+    public EncodeRepresentation(Encoding encoding,
+            Representation wrappedRepresentation, int level) {
         super(wrappedRepresentation);
         this.canEncode = getSupportedEncodings().contains(encoding);
         this.encodings = null;
         this.encoding = encoding;
+        this.level = level;
     }
 
     /**
@@ -130,14 +150,22 @@ public class EncodeRepresentation extends WrapperRepresentation {
 
     /**
      * Returns a readable byte channel. If it is supported by a file a read-only
-     * instance of FileChannel is returned.
+     * instance of FileChannel is returned. GZIP and DEFLATE encodings are
+     * directly pulled from the wrapped channel by the reader.
      * 
      * @return A readable byte channel.
      */
     @Override
     public ReadableByteChannel getChannel() throws IOException {
         if (canEncode()) {
-            return NioUtils.getChannel(getStream());
+            if (this.encoding.equals(Encoding.GZIP)
+                    || this.encoding.equals(Encoding.DEFLATE)) {
+                return new EncoderChannel(getWrappedRepresentation()
+                        .getChannel(), getLevel(),
+                        this.encoding.equals(Encoding.GZIP));
+            } else if (!this.encoding.equals(Encoding.IDENTITY)) {
+                return NioUtils.getChannel(getStream());
+            }
         }
 
         return getWrappedRepresentation().getChannel();
@@ -216,6 +244,16 @@ public class EncodeRepresentation extends WrapperRepresentation {
         return this.encodings;
     }
 
+    /**
+     * Returns the compression level, from 0 to 9 or
+     * {@link Deflater#DEFAULT_COMPRESSION}.
+     * 
+     * @return The compression level.
+     */
+    public int getLevel() {
+        return this.level;
+    }
+
     /**
      * Returns the size in bytes of the encoded representation if known,
      * UNKNOWN_SIZE (-1) otherwise.
@@ -283,11 +321,14 @@ public class EncodeRepresentation extends WrapperRepresentation {
             DeflaterOutputStream encoderOutputStream = null;
 
             if (this.encoding.equals(Encoding.GZIP)) {
-                encoderOutputStream = new GZIPOutputStream(outputStream);
+                encoderOutputStream = new EncoderOutputStream(outputStream,
+                        getLevel(), true);
             } else if (this.encoding.equals(Encoding.DEFLATE)) {
-                encoderOutputStream = new DeflaterOutputStream(outputStream);
+                encoderOutputStream = new EncoderOutputStream(outputStream,
+                        getLevel(), false);
             } else if (this.encoding.equals(Encoding.ZIP)) {
                 final ZipOutputStream stream = new ZipOutputStream(outputStream);
+                stream.setLevel(getLevel());
                 String name = "entry";
                 if (getWrappedRepresentation().getDisposition() != null) {
                     name = getWrappedRepresentation()
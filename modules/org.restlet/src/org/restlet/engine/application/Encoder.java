@@ -35,6 +35,7 @@ package org.restlet.engine.application;
 
 import java.util.Iterator;
 import java.util.List;
+import java.util.zip.Deflater;
 
 import org.restlet.Context;
 import org.restlet.Request;
@@ -151,7 +152,10 @@ public class Encoder extends Filter {
         Encoding bestEncoding = getBestEncoding(client);
 
         if (bestEncoding != null) {
-            result = new EncodeRepresentation(bestEncoding, representation);
+            int level = (getEncoderService() == null) ? Deflater.DEFAULT_COMPRESSION
+                    : getEncoderService().getCompressionLevel();
+            result = new EncodeRepresentation(bestEncoding, representation,
+                    level);
         }
 
         return result;
@@ -0,0 +1,231 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.engine.application;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ReadableByteChannel;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+import org.restlet.engine.io.IoUtils;
+
+// [excludes gwt]
+/**
+ * Readable channel compressing the content of a source channel in the DEFLATE
+ * or GZIP format with a pooled deflater. The compression is pulled by the
+ * reader, so the compressed bytes are directly produced into the reader's
+ * buffer without requiring a writer thread. The deflater is returned to its
+ * pool once the end of the content is reached or the channel is closed.
+ * 
+ * @author Jerome Louvel
+ */
+public class EncoderChannel implements ReadableByteChannel {
+
+    /** The checksum of the uncompressed content, or null for DEFLATE. */
+    private final CRC32 crc;
+
+    /** The deflater, or null once returned to its pool. */
+    private volatile Deflater deflater;
+
+    /** Indicates if the end of the compressed content has been reached. */
+    private volatile boolean ended;
+
+    /** Indicates if the end of the source channel has been reached. */
+    private volatile boolean finishing;
+
+    /** The uncompressed bytes read from the source channel. */
+    private final ByteBuffer input;
+
+    /** Indicates if the channel is open. */
+    private volatile boolean open;
+
+    /** The compressed bytes not yet read. */
+    private final ByteBuffer output;
+
+    /** The pool of the deflater. */
+    private final DeflaterPool pool;
+
+    /** The source channel, possibly null for an empty content. */
+    private final ReadableByteChannel source;
+
+    /** Indicates if the GZIP trailer has been produced. */
+    private volatile boolean trailed;
+
+    /**
+     * Constructor.
+     * 
+     * @param source
+     *            The source channel, possibly null for an empty content.
+     * @param level
+     *            The compression level.
+     * @param gzip
+     *            True for the GZIP format, false for the ZLIB wrapped DEFLATE
+     *            format.
+     */
+    public EncoderChannel(ReadableByteChannel source, int level, boolean gzip) {
+        this.source = source;
+        this.pool = DeflaterPool.getInstance(level, gzip);
+        this.deflater = this.pool.checkout();
+        this.input = ByteBuffer.allocate(IoUtils.BUFFER_SIZE);
+        this.output = ByteBuffer.allocate(IoUtils.BUFFER_SIZE);
+        this.open = true;
+        this.ended = false;
+        this.finishing = false;
+
+        if (gzip) {
+            this.crc = new CRC32();
+            this.output.put(EncoderOutputStream.GZIP_HEADER);
+            this.trailed = false;
+        } else {
+            this.crc = null;
+            this.trailed = true;
+        }
+
+        this.output.flip();
+    }
+
+    /**
+     * Closes the channel and its source, and returns the deflater to its pool.
+     */
+    public void close() throws IOException {
+        if (this.open) {
+            this.open = false;
+            release();
+
+            if (this.source != null) {
+                this.source.close();
+            }
+        }
+    }
+
+    /**
+     * Produces the next compressed bytes into the output buffer, reading the
+     * source channel as needed.
+     * 
+     * @return True if compressed bytes were produced, false if the source
+     *         channel has no bytes available or if the end was reached.
+     * @throws IOException
+     */
+    private boolean deflate() throws IOException {
+        byte[] bytes = this.output.array();
+
+        while (!this.ended) {
+            if (this.deflater.finished()) {
+                if (this.trailed) {
+                    this.ended = true;
+                    release();
+                } else {
+                    EncoderOutputStream.putGzipTrailer(bytes, 0,
+                            this.crc.getValue(), this.deflater.getBytesRead());
+                    this.output.clear();
+                    this.output
+                            .limit(EncoderOutputStream.GZIP_TRAILER_LENGTH);
+                    this.trailed = true;
+                    return true;
+                }
+            } else {
+                if (!this.finishing && this.deflater.needsInput()) {
+                    this.input.clear();
+                    int read = (this.source == null) ? -1 : this.source
+                            .read(this.input);
+
+                    if (read == -1) {
+                        this.deflater.finish();
+                        this.finishing = true;
+                    } else if (read == 0) {
+                        return false;
+                    } else {
+                        this.deflater.setInput(this.input.array(), 0, read);
+
+                        if (this.crc != null) {
+                            this.crc.update(this.input.array(), 0, read);
+                        }
+                    }
+                }
+
+                int count = this.deflater.deflate(bytes, 0, bytes.length);
+
+                if (count > 0) {
+                    this.output.clear();
+                    this.output.limit(count);
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    public boolean isOpen() {
+        return this.open;
+    }
+
+    /**
+     * Reads compressed bytes into the target buffer.
+     * 
+     * @param target
+     *            The target buffer.
+     * @return The number of bytes read, or -1 if the end was reached.
+     */
+    public int read(ByteBuffer target) throws IOException {
+        if (!this.open) {
+            throw new ClosedChannelException();
+        }
+
+        int result = 0;
+
+        while (target.hasRemaining()
+                && (this.output.hasRemaining() || deflate())) {
+            int count = Math.min(this.output.remaining(), target.remaining());
+            target.put(this.output.array(), this.output.position(), count);
+            this.output.position(this.output.position() + count);
+            result += count;
+        }
+
+        return ((result == 0) && this.ended) ? -1 : result;
+    }
+
+    /**
+     * Returns the deflater to its pool.
+     */
+    private void release() {
+        if (this.deflater != null) {
+            this.pool.checkin(this.deflater);
+            this.deflater = null;
+        }
+    }
+
+}
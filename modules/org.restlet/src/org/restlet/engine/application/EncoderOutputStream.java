@@ -0,0 +1,165 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.engine.application;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.DeflaterOutputStream;
+
+import org.restlet.engine.io.IoUtils;
+
+// [excludes gwt]
+/**
+ * Output stream compressing its content in the DEFLATE or GZIP format with a
+ * pooled deflater. The deflater is returned to its pool once the stream is
+ * finished.
+ * 
+ * @author Jerome Louvel
+ */
+public class EncoderOutputStream extends DeflaterOutputStream {
+
+    /** The fixed GZIP header, without modification time nor file name. */
+    static final byte[] GZIP_HEADER = { 0x1f, (byte) 0x8b, 8, 0, 0, 0, 0, 0,
+            0, 0 };
+
+    /** The length of the GZIP trailer. */
+    static final int GZIP_TRAILER_LENGTH = 8;
+
+    /**
+     * Writes the GZIP trailer, made of the CRC-32 and the size modulo 2^32 of
+     * the uncompressed content, both in little-endian order.
+     * 
+     * @param target
+     *            The target byte array.
+     * @param offset
+     *            The offset of the trailer in the target array.
+     * @param crc
+     *            The CRC-32 of the uncompressed content.
+     * @param size
+     *            The size of the uncompressed content.
+     */
+    static void putGzipTrailer(byte[] target, int offset, long crc, long size) {
+        for (int i = 0; i < 4; i++) {
+            target[offset + i] = (byte) (crc >>> (i << 3));
+            target[offset + 4 + i] = (byte) (size >>> (i << 3));
+        }
+    }
+
+    /** The checksum of the uncompressed content, or null for DEFLATE. */
+    private final CRC32 crc;
+
+    /** Indicates if the stream has been finished. */
+    private volatile boolean finished;
+
+    /** The pool of the deflater. */
+    private final DeflaterPool pool;
+
+    /**
+     * Constructor.
+     * 
+     * @param outputStream
+     *            The output stream receiving the compressed content.
+     * @param level
+     *            The compression level.
+     * @param gzip
+     *            True for the GZIP format, false for the ZLIB wrapped DEFLATE
+     *            format.
+     * @throws IOException
+     */
+    public EncoderOutputStream(OutputStream outputStream, int level,
+            boolean gzip) throws IOException {
+        this(outputStream, DeflaterPool.getInstance(level, gzip), gzip);
+    }
+
+    /**
+     * Constructor.
+     * 
+     * @param outputStream
+     *            The output stream receiving the compressed content.
+     * @param pool
+     *            The pool of the deflater.
+     * @param gzip
+     *            True for the GZIP format.
+     * @throws IOException
+     */
+    private EncoderOutputStream(OutputStream outputStream, DeflaterPool pool,
+            boolean gzip) throws IOException {
+        super(outputStream, pool.checkout(), IoUtils.BUFFER_SIZE);
+        this.pool = pool;
+        this.finished = false;
+
+        if (gzip) {
+            this.crc = new CRC32();
+            outputStream.write(GZIP_HEADER);
+        } else {
+            this.crc = null;
+        }
+    }
+
+    /**
+     * Finishes the compressed content, writes the GZIP trailer if needed and
+     * returns the deflater to its pool, without closing the underlying stream.
+     */
+    @Override
+    public void finish() throws IOException {
+        if (!this.finished) {
+            super.finish();
+
+            if (this.crc != null) {
+                byte[] trailer = new byte[GZIP_TRAILER_LENGTH];
+                putGzipTrailer(trailer, 0, this.crc.getValue(),
+                        this.def.getBytesRead());
+                this.out.write(trailer);
+            }
+
+            this.finished = true;
+            this.pool.checkin(this.def);
+        }
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (this.finished) {
+            throw new IOException("The encoder stream has been finished.");
+        }
+
+        super.write(b, off, len);
+
+        if (this.crc != null) {
+            this.crc.update(b, off, len);
+        }
+    }
+
+}
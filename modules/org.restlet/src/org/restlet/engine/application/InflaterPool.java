@@ -0,0 +1,123 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.engine.application;
+
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.zip.Inflater;
+
+import org.restlet.engine.util.Pool;
+
+// [excludes gwt]
+/**
+ * Bounded pool of inflaters sharing the same wrapping mode. Inflaters checked
+ * in while the pool is full are ended.
+ * 
+ * @author Jerome Louvel
+ */
+public class InflaterPool extends Pool<Inflater> {
+
+    /** The maximum number of idle inflaters kept by each pool. */
+    private static final int CAPACITY = 32;
+
+    /** The shared pool of ZLIB inflaters. */
+    private static final InflaterPool WRAPPED = new InflaterPool(false);
+
+    /** The shared pool of raw inflaters. */
+    private static final InflaterPool UNWRAPPED = new InflaterPool(true);
+
+    /**
+     * Returns the shared pool of inflaters for a given wrapping mode.
+     * 
+     * @param nowrap
+     *            True if the ZLIB header and checksum are omitted, as required
+     *            by the GZIP format.
+     * @return The shared pool of inflaters.
+     */
+    public static InflaterPool getInstance(boolean nowrap) {
+        return nowrap ? UNWRAPPED : WRAPPED;
+    }
+
+    /** Indicates if the ZLIB header and checksum are omitted. */
+    private final boolean nowrap;
+
+    /**
+     * Constructor.
+     * 
+     * @param nowrap
+     *            True if the ZLIB header and checksum are omitted.
+     */
+    public InflaterPool(boolean nowrap) {
+        super();
+        this.nowrap = nowrap;
+    }
+
+    /**
+     * Resets the inflater and checks it in the pool, or ends it if the pool is
+     * full.
+     * 
+     * @param inflater
+     *            The inflater to check in.
+     */
+    @Override
+    public void checkin(Inflater inflater) {
+        if (inflater != null) {
+            inflater.reset();
+
+            if (!getStore().offer(inflater)) {
+                inflater.end();
+            }
+        }
+    }
+
+    @Override
+    protected Inflater createObject() {
+        return new Inflater(isNowrap());
+    }
+
+    @Override
+    protected Queue<Inflater> createStore() {
+        return new ArrayBlockingQueue<Inflater>(CAPACITY);
+    }
+
+    /**
+     * Indicates if the ZLIB header and checksum are omitted.
+     * 
+     * @return True if the ZLIB header and checksum are omitted.
+     */
+    public boolean isNowrap() {
+        return nowrap;
+    }
+
+}
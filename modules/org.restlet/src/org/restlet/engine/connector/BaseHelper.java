@@ -34,6 +34,8 @@
 package org.restlet.engine.connector;
 
 import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.net.SocketAddress;
 import java.util.Queue;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
@@ -42,18 +44,24 @@ import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.SynchronousQueue;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 
+import javax.management.ObjectName;
+
 import org.restlet.Connector;
 import org.restlet.Request;
 import org.restlet.Response;
 import org.restlet.data.Status;
 import org.restlet.engine.ConnectorHelper;
 import org.restlet.engine.Engine;
+import org.restlet.engine.io.BufferPool;
 import org.restlet.engine.log.LoggingThreadFactory;
+import org.restlet.engine.util.SystemUtils;
 
 /**
  * Base connector helper. Here is the list of parameters that are supported.
@@ -80,6 +88,24 @@ import org.restlet.engine.log.LoggingThreadFactory;
  * strictly superior to 0 is required.</td>
  * </tr>
  * <tr>
+ * <td>controllerThreads</td>
+ * <td>int</td>
+ * <td>0</td>
+ * <td>Number of additional IO controller threads, each one running its own NIO
+ * selector, among which new connections are spread. If the value is '0', the
+ * main controller thread handles all the connections. Otherwise, the main
+ * controller only accepts new connections and controls the message queues.</td>
+ * </tr>
+ * <tr>
+ * <td>controllerBalancing</td>
+ * <td>String</td>
+ * <td>leastLoaded</td>
+ * <td>Strategy used to assign new connections to the IO controller threads.
+ * Either "hash" to pick a controller based on the hash code of the remote
+ * socket address, or "leastLoaded" to pick the controller owning the fewest
+ * connections.</td>
+ * </tr>
+ * <tr>
  * <td>minThreads</td>
  * <td>int</td>
  * <td>1</td>
@@ -123,12 +149,28 @@ import org.restlet.engine.log.LoggingThreadFactory;
  * operation before being closed. For an unlimited wait, use '0' as value.</td>
  * </tr>
  * <tr>
+ * <td>maxVirtualThreads</td>
+ * <td>int</td>
+ * <td>10 000</td>
+ * <td>Maximum number of calls concurrently serviced by virtual worker threads
+ * when "workerThreads" is set to "virtual". Additional calls are rejected and
+ * the connector is considered overloaded when this number is reached.</td>
+ * </tr>
+ * <tr>
  * <td>maxThreadIdleTimeMs</td>
  * <td>int</td>
  * <td>300 000</td>
  * <td>Time for an idle thread to wait for an operation before being collected.</td>
  * </tr>
  * <tr>
+ * <td>jmxMetrics</td>
+ * <td>boolean</td>
+ * <td>false</td>
+ * <td>Indicates if the connector metrics should be registered as a JMX MBean
+ * in the platform MBean server while the connector is started. The metrics
+ * themselves are always collected, see {@link #getMetrics()}.</td>
+ * </tr>
+ * <tr>
  * <td>tracing</td>
  * <td>boolean</td>
  * <td>false</td>
@@ -136,12 +178,15 @@ import org.restlet.engine.log.LoggingThreadFactory;
  * </tr>
  * <tr>
  * <td>workerThreads</td>
- * <td>boolean</td>
+ * <td>String</td>
  * <td>true</td>
  * <td>Indicates if the processing of calls should be done via threads provided
  * by a worker service (i.e. a pool of worker threads). Note that if set to
  * false, calls will be processed a single IO selector thread, which should
- * never block, otherwise the other connections would hang.</td>
+ * never block, otherwise the other connections would hang. If set to
+ * "virtual", each call is processed by a new virtual thread, up to the
+ * "maxVirtualThreads" limit. This requires a JVM supporting virtual threads
+ * (Java 21 or later), otherwise the regular pool of worker threads is used.</td>
  * </tr>
  * <tr>
  * <td>inboundBufferSize</td>
@@ -164,6 +209,35 @@ import org.restlet.engine.log.LoggingThreadFactory;
  * use direct buffers.</td>
  * </tr>
  * <tr>
+ * <td>pooledBuffers</td>
+ * <td>boolean</td>
+ * <td>false</td>
+ * <td>Indicates if the byte buffers of the connections should be borrowed from
+ * a shared pool only while bytes are in flight, instead of being held by each
+ * connection way.</td>
+ * </tr>
+ * <tr>
+ * <td>bufferPoolClasses</td>
+ * <td>String</td>
+ * <td>inboundBufferSize,outboundBufferSize</td>
+ * <td>Comma separated list of the buffer sizes, in bytes, of each size class
+ * of the buffer pool.</td>
+ * </tr>
+ * <tr>
+ * <td>bufferPoolMaxSize</td>
+ * <td>int</td>
+ * <td>1024</td>
+ * <td>Maximum number of buffers kept in each size class of the buffer
+ * pool.</td>
+ * </tr>
+ * <tr>
+ * <td>bufferPoolSlabSize</td>
+ * <td>int</td>
+ * <td>1024 * 1024</td>
+ * <td>Size of the slabs from which direct buffers of the buffer pool are carved
+ * out.</td>
+ * </tr>
+ * <tr>
  * <td>throttleTimeMs</td>
  * <td>int</td>
  * <td>0</td>
@@ -177,12 +251,25 @@ import org.restlet.engine.log.LoggingThreadFactory;
  * <td>Indicates the transport protocol such as TCP or UDP.</td>
  * </tr>
  * </table>
+ * <p>
+ * The controller threads hand the messages over to the worker threads through
+ * the inbound and outbound message queues, which are non-blocking but shared
+ * by all threads. The connection buffers aren't owned by a single thread, as
+ * workers stream the entities directly from them, so each buffer is still
+ * guarded by its own monitor. When "workerThreads" is false, the messages are
+ * handled by the controller threads instead.
  * 
  * @author Jerome Louvel
  */
 public abstract class BaseHelper<T extends Connector> extends
         ConnectorHelper<T> {
 
+    /** The pool of byte buffers shared by the connection ways. */
+    private volatile BufferPool bufferPool;
+
+    /** The number of worker threads currently running a task. */
+    private final AtomicInteger busyWorkers;
+
     /** Indicates if it is helping a client connector. */
     protected final boolean clientSide;
 
@@ -192,12 +279,24 @@ public abstract class BaseHelper<T extends Connector> extends
     /** The controller service. */
     private volatile ExecutorService controllerService;
 
+    /** The additional IO controllers, each one owning a share of connections. */
+    private volatile ConnectionController[] ioControllers;
+
     /** The queue of inbound messages. */
     protected final Queue<Response> inboundMessages;
 
+    /** The metrics collected. */
+    private final ConnectorMetrics metrics;
+
+    /** The JMX name of the registered metrics MBean. */
+    private volatile ObjectName metricsName;
+
     /** The queue of outbound messages. */
     protected final Queue<Response> outboundMessages;
 
+    /** The number of worker threads determining the overload state. */
+    private volatile int overloadThreads;
+
     /** The worker service. */
     private volatile ThreadPoolExecutor workerService;
 
@@ -211,8 +310,10 @@ public abstract class BaseHelper<T extends Connector> extends
      */
     public BaseHelper(T connector, boolean clientSide) {
         super(connector);
+        this.busyWorkers = new AtomicInteger();
         this.clientSide = clientSide;
         this.inboundMessages = new ConcurrentLinkedQueue<Response>();
+        this.metrics = new ConnectorMetrics(this);
         this.outboundMessages = new ConcurrentLinkedQueue<Response>();
         this.controller = createController();
     }
@@ -225,19 +326,37 @@ public abstract class BaseHelper<T extends Connector> extends
     protected boolean control() {
         boolean result = false;
 
-        // Control pending inbound messages
-        for (int i = 0; i < getInboundMessages().size(); i++) {
+        // Control pending inbound messages. The count is taken once as
+        // messages might be queued again while being handled.
+        for (int i = getInboundMessages().size(); i > 0; i--) {
             handleInbound(getInboundMessages().poll());
         }
 
         // Control pending outbound messages
-        for (int i = 0; i < getOutboundMessages().size(); i++) {
+        for (int i = getOutboundMessages().size(); i > 0; i--) {
             handleOutbound(getOutboundMessages().poll());
         }
 
         return result;
     }
 
+    /**
+     * Creates the pool of byte buffers shared by the connection ways.
+     * 
+     * @return The pool of byte buffers.
+     */
+    protected BufferPool createBufferPool() {
+        String[] values = getBufferPoolClasses().split(",");
+        int[] classSizes = new int[values.length];
+
+        for (int i = 0; i < values.length; i++) {
+            classSizes[i] = Integer.parseInt(values[i].trim());
+        }
+
+        return new BufferPool(classSizes, getBufferPoolMaxSize(),
+                isDirectBuffers(), getBufferPoolSlabSize());
+    }
+
     /**
      * Creates a new controller.
      * 
@@ -251,10 +370,39 @@ public abstract class BaseHelper<T extends Connector> extends
      * @return The connector controller service.
      */
     protected ExecutorService createControllerService() {
+        if (getControllerThreads() > 0) {
+            return Executors.newFixedThreadPool(1 + getControllerThreads(),
+                    new LoggingThreadFactory(getLogger(), isControllerDaemon()));
+        }
+
         return Executors.newSingleThreadExecutor(new LoggingThreadFactory(
                 getLogger(), isControllerDaemon()));
     }
 
+    /**
+     * Creates an additional IO controller, owning its own NIO selector.
+     * 
+     * @return A new IO controller.
+     */
+    protected abstract ConnectionController createIoController();
+
+    /**
+     * Creates the additional IO controllers, based on the "controllerThreads"
+     * parameter.
+     * 
+     * @return The additional IO controllers.
+     */
+    protected ConnectionController[] createIoControllers() {
+        ConnectionController[] result = new ConnectionController[Math.max(0,
+                getControllerThreads())];
+
+        for (int i = 0; i < result.length; i++) {
+            result[i] = createIoController();
+        }
+
+        return result;
+    }
+
     /**
      * Creates the request object.
      * 
@@ -270,6 +418,10 @@ public abstract class BaseHelper<T extends Connector> extends
      * @return The handler service.
      */
     protected ThreadPoolExecutor createWorkerService() {
+        if (isVirtualWorkerThreads()) {
+            return createVirtualWorkerService();
+        }
+
         int maxThreads = getMaxThreads();
         int minThreads = getMinThreads();
 
@@ -285,20 +437,87 @@ public abstract class BaseHelper<T extends Connector> extends
 
         ThreadPoolExecutor result = new ThreadPoolExecutor(minThreads,
                 maxThreads, getMaxThreadIdleTimeMs(), TimeUnit.MILLISECONDS,
-                queue, new LoggingThreadFactory(getLogger(), true));
-        result.setRejectedExecutionHandler(new RejectedExecutionHandler() {
+                queue, new LoggingThreadFactory(getLogger(), true)) {
+            @Override
+            protected void afterExecute(Runnable r, Throwable t) {
+                busyWorkers.decrementAndGet();
+                super.afterExecute(r, t);
+            }
+
+            @Override
+            protected void beforeExecute(Thread t, Runnable r) {
+                super.beforeExecute(t, r);
+                busyWorkers.incrementAndGet();
+            }
+        };
+        result.setRejectedExecutionHandler(createRejectedExecutionHandler());
+
+        // Ensure that core threads act like a minimum number of threads
+        result.prestartAllCoreThreads();
+        return result;
+    }
+
+    /**
+     * Creates the handler of tasks rejected by the worker service.
+     * 
+     * @return The handler of rejected tasks.
+     */
+    protected RejectedExecutionHandler createRejectedExecutionHandler() {
+        return new RejectedExecutionHandler() {
             public void rejectedExecution(Runnable r,
                     ThreadPoolExecutor executor) {
+                getMetrics().onWorkerRejection();
                 getLogger().warning(
                         "Unable to run the following "
                                 + (isClientSide() ? "client-side"
                                         : "server-side") + " task: " + r);
                 traceWorkerService();
             }
-        });
+        };
+    }
 
-        // Ensure that core threads act like a minimum number of threads
-        result.prestartAllCoreThreads();
+    /**
+     * Creates the worker service running each task on a new virtual thread.
+     * No thread is pooled, the number of concurrent tasks is instead limited
+     * by a semaphore with {@link #getMaxVirtualThreads()} permits.
+     * 
+     * @return The virtual threads worker service.
+     */
+    protected ThreadPoolExecutor createVirtualWorkerService() {
+        final Semaphore permits = new Semaphore(getMaxVirtualThreads());
+        ThreadPoolExecutor result = new ThreadPoolExecutor(0,
+                Integer.MAX_VALUE, 0L, TimeUnit.MILLISECONDS,
+                new SynchronousQueue<Runnable>(), new LoggingThreadFactory(
+                        getLogger(), true, true)) {
+            @Override
+            protected void afterExecute(Runnable r, Throwable t) {
+                busyWorkers.decrementAndGet();
+                permits.release();
+                super.afterExecute(r, t);
+            }
+
+            @Override
+            protected void beforeExecute(Thread t, Runnable r) {
+                super.beforeExecute(t, r);
+                busyWorkers.incrementAndGet();
+            }
+
+            @Override
+            public void execute(Runnable command) {
+                if (permits.tryAcquire()) {
+                    try {
+                        super.execute(command);
+                    } catch (RuntimeException e) {
+                        permits.release();
+                        throw e;
+                    }
+                } else {
+                    getRejectedExecutionHandler().rejectedExecution(command,
+                            this);
+                }
+            }
+        };
+        result.setRejectedExecutionHandler(createRejectedExecutionHandler());
         return result;
     }
 
@@ -320,6 +539,13 @@ public abstract class BaseHelper<T extends Connector> extends
         // Stops the controller
         if (this.controllerService != null) {
             this.controller.setRunning(false);
+
+            if (this.ioControllers != null) {
+                for (ConnectionController ioController : this.ioControllers) {
+                    ioController.setRunning(false);
+                }
+            }
+
             this.controllerService.shutdown();
 
             try {
@@ -382,6 +608,93 @@ public abstract class BaseHelper<T extends Connector> extends
         }
     }
 
+    /**
+     * Returns the comma separated list of buffer sizes of each size class of
+     * the buffer pool. Defaults to the inbound and outbound buffer sizes.
+     * 
+     * @return The buffer sizes of each size class of the buffer pool.
+     */
+    public String getBufferPoolClasses() {
+        return getHelpedParameters().getFirstValue(
+                "bufferPoolClasses",
+                getInboundBufferSize() + "," + getOutboundBufferSize());
+    }
+
+    /**
+     * Returns the pool of byte buffers shared by the connection ways, or null
+     * if buffers aren't pooled.
+     * 
+     * @return The pool of byte buffers or null.
+     */
+    public BufferPool getBufferPool() {
+        return bufferPool;
+    }
+
+    /**
+     * Returns the number of worker threads currently running a task.
+     * 
+     * @return The number of worker threads currently running a task.
+     */
+    public int getBusyWorkerCount() {
+        return this.busyWorkers.get();
+    }
+
+    /**
+     * Returns the maximum number of buffers kept in each size class of the
+     * buffer pool.
+     * 
+     * @return The maximum number of buffers kept in each size class.
+     */
+    public int getBufferPoolMaxSize() {
+        return Integer.parseInt(getHelpedParameters().getFirstValue(
+                "bufferPoolMaxSize", "1024"));
+    }
+
+    /**
+     * Returns the size of the slabs from which direct buffers of the buffer
+     * pool are carved out.
+     * 
+     * @return The size of the slabs.
+     */
+    public int getBufferPoolSlabSize() {
+        return Integer.parseInt(getHelpedParameters().getFirstValue(
+                "bufferPoolSlabSize", Integer.toString(1024 * 1024)));
+    }
+
+    /**
+     * Returns the controller that should own a new connection with the given
+     * remote socket address. If no additional IO controller is configured, the
+     * main controller is returned.
+     * 
+     * @param socketAddress
+     *            The remote socket address of the new connection.
+     * @return The controller that should own the new connection.
+     */
+    public ConnectionController getBestController(SocketAddress socketAddress) {
+        ConnectionController result = getController();
+        ConnectionController[] ioControllers = getIoControllers();
+
+        if ((ioControllers != null) && (ioControllers.length > 0)) {
+            if ("hash".equalsIgnoreCase(getControllerBalancing())) {
+                int hash = (socketAddress == null) ? 0 : socketAddress
+                        .hashCode();
+                result = ioControllers[(hash & Integer.MAX_VALUE)
+                        % ioControllers.length];
+            } else {
+                result = ioControllers[0];
+
+                for (int i = 1; i < ioControllers.length; i++) {
+                    if (ioControllers[i].getConnectionCount() < result
+                            .getConnectionCount()) {
+                        result = ioControllers[i];
+                    }
+                }
+            }
+        }
+
+        return result;
+    }
+
     /**
      * Returns the controller task.
      * 
@@ -391,6 +704,18 @@ public abstract class BaseHelper<T extends Connector> extends
         return controller;
     }
 
+    /**
+     * Returns the strategy used to assign new connections to the IO controller
+     * threads. Either "hash" or "leastLoaded".
+     * 
+     * @return The strategy used to assign new connections to the IO controller
+     *         threads.
+     */
+    public String getControllerBalancing() {
+        return getHelpedParameters().getFirstValue("controllerBalancing",
+                "leastLoaded");
+    }
+
     /**
      * Returns the time for the controller thread to sleep between each control.
      * 
@@ -401,6 +726,17 @@ public abstract class BaseHelper<T extends Connector> extends
                 "controllerSleepTimeMs", "1"));
     }
 
+    /**
+     * Returns the number of additional IO controller threads, each one running
+     * its own NIO selector.
+     * 
+     * @return The number of additional IO controller threads.
+     */
+    public int getControllerThreads() {
+        return Integer.parseInt(getHelpedParameters().getFirstValue(
+                "controllerThreads", "0"));
+    }
+
     /**
      * Returns the size of the content buffer for receiving messages.
      * 
@@ -420,6 +756,25 @@ public abstract class BaseHelper<T extends Connector> extends
         return inboundMessages;
     }
 
+    /**
+     * Returns the additional IO controllers, each one owning a share of the
+     * connections.
+     * 
+     * @return The additional IO controllers.
+     */
+    public ConnectionController[] getIoControllers() {
+        return ioControllers;
+    }
+
+    /**
+     * Returns the metrics collected.
+     * 
+     * @return The metrics collected.
+     */
+    public ConnectorMetrics getMetrics() {
+        return metrics;
+    }
+
     /**
      * Returns the number of threads for the overload state.
      * 
@@ -482,6 +837,18 @@ public abstract class BaseHelper<T extends Connector> extends
                 "maxThreads", "10"));
     }
 
+    /**
+     * Returns the maximum number of calls concurrently serviced by virtual
+     * worker threads.
+     * 
+     * @return The maximum number of calls concurrently serviced by virtual
+     *         worker threads.
+     */
+    public int getMaxVirtualThreads() {
+        return Integer.parseInt(getHelpedParameters().getFirstValue(
+                "maxVirtualThreads", "10000"));
+    }
+
     /**
      * Returns the minimum threads waiting to service requests. Technically
      * speaking, this is a core number of threads that are pre-started.
@@ -580,13 +947,20 @@ public abstract class BaseHelper<T extends Connector> extends
     protected void handleInbound(final Response response, boolean synchronous) {
         if (response != null) {
             if (synchronous || !hasWorkerThreads()) {
+                long start = System.nanoTime();
                 doHandleInbound(response);
+                getMetrics().getHandleLatencyHistogram().record(
+                        System.nanoTime() - start);
             } else {
                 execute(new Runnable() {
                     public void run() {
+                        long start = System.nanoTime();
+
                         try {
                             doHandleInbound(response);
                         } finally {
+                            getMetrics().getHandleLatencyHistogram().record(
+                                    System.nanoTime() - start);
                             Engine.clearThreadLocalVariables();
                         }
                     }
@@ -645,8 +1019,10 @@ public abstract class BaseHelper<T extends Connector> extends
      * @return True if the worker service (pool of worker threads) is enabled.
      */
     public boolean hasWorkerThreads() {
-        return Boolean.parseBoolean(getHelpedParameters().getFirstValue(
-                "workerThreads", "true"));
+        String workerThreads = getHelpedParameters().getFirstValue(
+                "workerThreads", "true");
+        return Boolean.parseBoolean(workerThreads)
+                || "virtual".equalsIgnoreCase(workerThreads);
     }
 
     /**
@@ -688,6 +1064,28 @@ public abstract class BaseHelper<T extends Connector> extends
         return !isClientSide();
     }
 
+    /**
+     * Indicates if the byte buffers of the connections should be borrowed
+     * from a shared pool only while bytes are in flight.
+     * 
+     * @return True if the byte buffers should be pooled.
+     */
+    public boolean isPooledBuffers() {
+        return Boolean.parseBoolean(getHelpedParameters().getFirstValue(
+                "pooledBuffers", "false"));
+    }
+
+    /**
+     * Indicates if the connector metrics should be registered as a JMX MBean.
+     * 
+     * @return True if the connector metrics should be registered as a JMX
+     *         MBean.
+     */
+    public boolean isJmxMetrics() {
+        return Boolean.parseBoolean(getHelpedParameters().getFirstValue(
+                "jmxMetrics", "false"));
+    }
+
     /**
      * Indicates if console tracing is enabled.
      * 
@@ -698,16 +1096,31 @@ public abstract class BaseHelper<T extends Connector> extends
                 "tracing", "false"));
     }
 
+    /**
+     * Indicates if calls should be processed by virtual worker threads. This
+     * requires the "workerThreads" parameter to be set to "virtual" and a JVM
+     * supporting virtual threads.
+     * 
+     * @return True if calls should be processed by virtual worker threads.
+     */
+    public boolean isVirtualWorkerThreads() {
+        return "virtual".equalsIgnoreCase(getHelpedParameters().getFirstValue(
+                "workerThreads", "true"))
+                && SystemUtils.isVirtualThreadsSupported();
+    }
+
     /**
      * Indicates if the worker service is busy. This state is detected by
      * checking if the number of active task running is superior or equal to the
-     * maximum pool size.
+     * number of threads for the overload state. The number of active tasks is
+     * tracked without locking the worker service, as this is checked by the
+     * controller on each loop.
      * 
      * @return True if the worker service is busy.
      */
     protected boolean isWorkerServiceOverloaded() {
         return (getWorkerService() != null)
-                && getWorkerService().getActiveCount() >= getLowThreads();
+                && this.busyWorkers.get() >= this.overloadThreads;
     }
 
     /**
@@ -749,20 +1162,69 @@ public abstract class BaseHelper<T extends Connector> extends
     @Override
     public void start() throws Exception {
         super.start();
+
+        if (isPooledBuffers()) {
+            this.bufferPool = createBufferPool();
+        }
+
         this.controllerService = createControllerService();
 
         if (hasWorkerThreads()) {
+            if (isVirtualWorkerThreads()) {
+                this.overloadThreads = getMaxVirtualThreads();
+            } else {
+                if ("virtual".equalsIgnoreCase(getHelpedParameters()
+                        .getFirstValue("workerThreads"))) {
+                    getLogger()
+                            .info("Virtual threads aren't supported by this JVM, using a pool of worker threads instead");
+                }
+
+                this.overloadThreads = getLowThreads();
+            }
+
             this.workerService = createWorkerService();
         }
 
+        this.ioControllers = createIoControllers();
         this.controllerService.submit(this.controller);
+
+        for (ConnectionController ioController : this.ioControllers) {
+            this.controllerService.submit(ioController);
+        }
+
+        if (isJmxMetrics()) {
+            registerMetrics();
+        }
     }
 
     @Override
     public void stop() throws Exception {
         super.stop();
+        unregisterMetrics();
         doGracefulStop();
         doFinishStop();
+
+        if ((getBufferPool() != null) && getLogger().isLoggable(Level.FINE)) {
+            getLogger().fine(getBufferPool().toString());
+        }
+    }
+
+    /**
+     * Registers the metrics as a JMX MBean in the platform MBean server.
+     */
+    protected void registerMetrics() {
+        try {
+            ObjectName name = new ObjectName("org.restlet:type=Connector,side="
+                    + (isClientSide() ? "client" : "server") + ",protocols="
+                    + ObjectName.quote(getProtocols().toString()) + ",id="
+                    + Integer.toHexString(System.identityHashCode(this)));
+            ManagementFactory.getPlatformMBeanServer().registerMBean(
+                    getMetrics(), name);
+            this.metricsName = name;
+        } catch (Exception e) {
+            getLogger().log(Level.WARNING,
+                    "Unable to register the connector metrics MBean", e);
+        }
     }
 
     /**
@@ -795,4 +1257,24 @@ public abstract class BaseHelper<T extends Connector> extends
         }
     }
 
+    /**
+     * Unregisters the metrics MBean from the platform MBean server, if it was
+     * registered.
+     */
+    protected void unregisterMetrics() {
+        ObjectName name = this.metricsName;
+
+        if (name != null) {
+            this.metricsName = null;
+
+            try {
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(
+                        name);
+            } catch (Exception e) {
+                getLogger().log(Level.FINE,
+                        "Unable to unregister the connector metrics MBean", e);
+            }
+        }
+    }
+
 }
@@ -39,6 +39,10 @@ import java.net.Socket;
 import java.net.UnknownHostException;
 import java.nio.channels.SocketChannel;
 import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CountDownLatch;
 import java.util.logging.Level;
 
@@ -126,6 +130,9 @@ public abstract class ClientConnectionHelper extends ConnectionHelper<Client> {
 
     protected static final String CONNECTOR_LATCH = "org.restlet.engine.connector.latch";
 
+    /** The index of active connections per target socket address. */
+    private final ConcurrentMap<InetSocketAddress, Queue<Connection<Client>>> hostConnections;
+
     /**
      * Constructor.
      * 
@@ -134,6 +141,29 @@ public abstract class ClientConnectionHelper extends ConnectionHelper<Client> {
      */
     public ClientConnectionHelper(Client connector) {
         super(connector, true);
+        this.hostConnections = new ConcurrentHashMap<InetSocketAddress, Queue<Connection<Client>>>();
+    }
+
+    /**
+     * Adds a new connection to the index of active connections per target
+     * socket address.
+     * 
+     * @param socketAddress
+     *            The target socket address.
+     * @param connection
+     *            The new connection.
+     */
+    protected void addHostConnection(InetSocketAddress socketAddress,
+            Connection<Client> connection) {
+        synchronized (getHostConnections()) {
+            getHostConnections(socketAddress).add(connection);
+        }
+    }
+
+    @Override
+    protected void checkin(Connection<?> connection) {
+        removeHostConnection(connection);
+        super.checkin(connection);
     }
 
     @Override
@@ -286,6 +316,7 @@ public abstract class ClientConnectionHelper extends ConnectionHelper<Client> {
         int hostConnectionCount = 0;
         int bestScore = 0;
         boolean foundConn = false;
+        Connection<Client> pipeliningConn = null;
 
         // Determine the target host domain and port of the request.
         InetSocketAddress socketAddress = getSocketAddress(request);
@@ -297,32 +328,47 @@ public abstract class ClientConnectionHelper extends ConnectionHelper<Client> {
         } else {
             // Associate the given request to the first available connection
             // opened on the same host domain and port.
-            for (Iterator<Connection<Client>> iterator = getConnections()
-                    .iterator(); !foundConn && iterator.hasNext();) {
+            Queue<Connection<Client>> connections = getHostConnections().get(
+                    socketAddress);
+
+            Iterator<Connection<Client>> iterator = (connections == null) ? null
+                    : connections.iterator();
+
+            while (!foundConn && (iterator != null) && iterator.hasNext()) {
                 Connection<Client> currConn = iterator.next();
 
-                if (socketAddress.equals(currConn.getSocketAddress())) {
-                    if (currConn.isAvailable()) {
+                if (currConn.isAvailable()) {
+                    result = currConn;
+                    foundConn = true;
+                } else {
+                    if ((pipeliningConn == null)
+                            && currConn.canPipeline(request)) {
+                        // Pipeline the request behind the ones in progress
+                        // unless an idle connection is found
+                        pipeliningConn = currConn;
+                    }
+
+                    // Assign the request to the busy connection that
+                    // handles the less number of messages. This is useful
+                    // in case the maximum number of connections has been
+                    // reached. As a drawback, the message will only be
+                    // handled as soon as possible.
+                    int currScore = currConn.getLoadScore();
+
+                    if (bestScore > currScore) {
+                        bestScore = currScore;
                         result = currConn;
-                        foundConn = true;
-                    } else {
-                        // Assign the request to the busy connection that
-                        // handles the less number of messages. This is useful
-                        // in case the maximum number of connections has been
-                        // reached. As a drawback, the message will only be
-                        // handled as soon as possible.
-                        int currScore = currConn.getLoadScore();
-
-                        if (bestScore > currScore) {
-                            bestScore = currScore;
-                            result = currConn;
-                        }
-
-                        hostConnectionCount++;
                     }
+
+                    hostConnectionCount++;
                 }
             }
 
+            if (!foundConn && (pipeliningConn != null)) {
+                result = pipeliningConn;
+                foundConn = true;
+            }
+
             // No connection has been found, try to create a new one that will
             // handle the message soon.
             if (foundConn) {
@@ -352,14 +398,47 @@ public abstract class ClientConnectionHelper extends ConnectionHelper<Client> {
 
                 result = checkout(
                         createSocketChannel(request.isConfidential(),
-                                socketAddress), getController(), socketAddress);
+                                socketAddress),
+                        getBestController(socketAddress), socketAddress);
                 getConnections().add(result);
+                addHostConnection(socketAddress, result);
             }
         }
 
         return result;
     }
 
+    /**
+     * Returns the index of active connections per target socket address.
+     * 
+     * @return The index of active connections per target socket address.
+     */
+    protected ConcurrentMap<InetSocketAddress, Queue<Connection<Client>>> getHostConnections() {
+        return hostConnections;
+    }
+
+    /**
+     * Returns the active connections to the given target socket address,
+     * creating the index entry if needed. Must be called while synchronized on
+     * the index.
+     * 
+     * @param socketAddress
+     *            The target socket address.
+     * @return The active connections to the given target socket address.
+     */
+    protected Queue<Connection<Client>> getHostConnections(
+            InetSocketAddress socketAddress) {
+        Queue<Connection<Client>> result = getHostConnections().get(
+                socketAddress);
+
+        if (result == null) {
+            result = new ConcurrentLinkedQueue<Connection<Client>>();
+            getHostConnections().put(socketAddress, result);
+        }
+
+        return result;
+    }
+
     /**
      * Returns the host name of the HTTP proxy, if specified.
      * 
@@ -586,6 +665,29 @@ public abstract class ClientConnectionHelper extends ConnectionHelper<Client> {
                 "socketOobInline", "false"));
     }
 
+    /**
+     * Removes a connection from the index of active connections per target
+     * socket address. The index entry is removed as well once it is drained,
+     * so that talking to many hosts doesn't grow the index forever.
+     * 
+     * @param connection
+     *            The connection to remove.
+     */
+    protected void removeHostConnection(Connection<?> connection) {
+        synchronized (getHostConnections()) {
+            Queue<Connection<Client>> connections = getHostConnections().get(
+                    connection.getSocketAddress());
+
+            if (connections != null) {
+                connections.remove(connection);
+
+                if (connections.isEmpty()) {
+                    getHostConnections().remove(connection.getSocketAddress());
+                }
+            }
+        }
+    }
+
     @Override
     public void start() throws Exception {
         getLogger().info("Starting the internal " + getProtocols() + " client");
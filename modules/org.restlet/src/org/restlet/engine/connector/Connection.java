@@ -39,10 +39,12 @@ import java.net.Socket;
 import java.net.SocketAddress;
 import java.nio.ByteBuffer;
 import java.nio.channels.SocketChannel;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import org.restlet.Connector;
+import org.restlet.Request;
 import org.restlet.Response;
 import org.restlet.data.Status;
 import org.restlet.engine.io.IoState;
@@ -52,8 +54,10 @@ import org.restlet.engine.io.ReadableTraceChannel;
 import org.restlet.engine.io.WritableSelectionChannel;
 import org.restlet.engine.io.WritableSocketChannel;
 import org.restlet.engine.io.WritableTraceChannel;
+import org.restlet.engine.util.TimingWheel;
 import org.restlet.util.SelectionListener;
 import org.restlet.util.SelectionRegistration;
+import org.restlet.util.SelectionUpdateListener;
 
 /**
  * A network connection though which messages are exchanged by connectors.
@@ -63,7 +67,14 @@ import org.restlet.util.SelectionRegistration;
  *            The parent connector type.
  * @author Jerome Louvel
  */
-public class Connection<T extends Connector> implements SelectionListener {
+public class Connection<T extends Connector> implements SelectionListener,
+        SelectionUpdateListener {
+
+    /** The IO controller owning the connection. */
+    private volatile ConnectionController controller;
+
+    /** Indicates if the connection is waiting to be controlled. */
+    private final AtomicBoolean controlRequested;
 
     /** The parent connector helper. */
     private final ConnectionHelper<T> helper;
@@ -107,6 +118,9 @@ public class Connection<T extends Connector> implements SelectionListener {
     /** The state of the connection. */
     private volatile ConnectionState state;
 
+    /** The time out scheduled by the IO controller, or null. */
+    private volatile TimingWheel.Timeout<Connection<?>> timeout;
+
     /** The writable selection channel. */
     private volatile WritableSelectionChannel writableSelectionChannel;
 
@@ -126,12 +140,57 @@ public class Connection<T extends Connector> implements SelectionListener {
     public Connection(ConnectionHelper<T> helper, SocketChannel socketChannel,
             ConnectionController controller, InetSocketAddress socketAddress,
             int inboundBufferSize, int outboundBufferSize) throws IOException {
+        this.controlRequested = new AtomicBoolean();
         this.helper = helper;
         this.inboundWay = helper.createInboundWay(this, inboundBufferSize);
         this.outboundWay = helper.createOutboundWay(this, outboundBufferSize);
         init(socketChannel, controller, socketAddress);
     }
 
+    /**
+     * Indicates if the head of a message and its in-memory entity can be
+     * written to the underlying socket channel in a single gathering write,
+     * bypassing the outbound buffer and the writable selection channel. This
+     * is only possible when the bytes written don't need to be transformed or
+     * traced.
+     * 
+     * @return True if gathering writes can be used.
+     */
+    public boolean canGatherWrites() {
+        return getHelper().isGatheringWrites() && !getHelper().isTracing();
+    }
+
+    /**
+     * Indicates if file entities can be transferred directly from their file
+     * channel to the underlying socket channel, bypassing the outbound buffer
+     * and the writable selection channel. This is only possible when the bytes
+     * written don't need to be transformed or traced.
+     * 
+     * @return True if file entities can be transferred to the socket channel.
+     */
+    public boolean canTransferFiles() {
+        return getHelper().isZeroCopy() && !getHelper().isTracing();
+    }
+
+    /**
+     * Indicates if the given request can be pipelined on this connection,
+     * behind the messages already in progress. Only requests with an
+     * idempotent method can be pipelined, and only behind other pipelinable
+     * requests, up to the pipelining depth of the helper.
+     * 
+     * @param request
+     *            The request to pipeline.
+     * @return True if the given request can be pipelined on this connection.
+     */
+    public boolean canPipeline(Request request) {
+        return isPipelining() && isPersistent()
+                && getState().equals(ConnectionState.OPEN)
+                && request.getMethod().isIdempotent()
+                && (getLoadScore() < getHelper().getPipeliningDepth())
+                && getInboundWay().canPipeline()
+                && getOutboundWay().canPipeline();
+    }
+
     /**
      * Clears the connection so it can be reused. Typically invoked by a
      * connection pool.
@@ -144,6 +203,7 @@ public class Connection<T extends Connector> implements SelectionListener {
         this.registration = null;
         this.state = ConnectionState.CLOSED;
         this.writableSelectionChannel = null;
+        this.controller = null;
     }
 
     /**
@@ -228,7 +288,14 @@ public class Connection<T extends Connector> implements SelectionListener {
             @Override
             public int read(ByteBuffer dst) throws IOException {
                 onActivity();
-                return super.read(dst);
+                int result = super.read(dst);
+
+                if (result > 0) {
+                    getInboundWay().onBytesTransferred(result);
+                    getHelper().getMetrics().onBytesRead(result);
+                }
+
+                return result;
             }
         };
     }
@@ -243,7 +310,14 @@ public class Connection<T extends Connector> implements SelectionListener {
             @Override
             public int write(ByteBuffer src) throws IOException {
                 onActivity();
-                return super.write(src);
+                int result = super.write(src);
+
+                if (result > 0) {
+                    getOutboundWay().onBytesTransferred(result);
+                    getHelper().getMetrics().onBytesWritten(result);
+                }
+
+                return result;
             }
         };
     }
@@ -259,6 +333,15 @@ public class Connection<T extends Connector> implements SelectionListener {
                         .getInetAddress().getHostAddress();
     }
 
+    /**
+     * Returns the IO controller owning the connection.
+     * 
+     * @return The IO controller owning the connection.
+     */
+    public ConnectionController getController() {
+        return controller;
+    }
+
     /**
      * Returns the parent connector helper.
      * 
@@ -411,6 +494,15 @@ public class Connection<T extends Connector> implements SelectionListener {
         return state;
     }
 
+    /**
+     * Returns the time out scheduled by the IO controller.
+     * 
+     * @return The time out scheduled by the IO controller, or null.
+     */
+    public TimingWheel.Timeout<Connection<?>> getTimeout() {
+        return timeout;
+    }
+
     /**
      * Returns the underlying socket channel as a writable selection channel.
      * 
@@ -453,8 +545,11 @@ public class Connection<T extends Connector> implements SelectionListener {
 
         if ((controller != null) && (socketChannel != null)
                 && (socketAddress != null)) {
+            this.controller = controller;
+            this.controlRequested.set(false);
             this.registration = (controller == null) ? null : controller
                     .register(socketChannel, 0, this);
+            controller.attach(this);
             this.readableSelectionChannel = createReadableSelectionChannel();
             this.writableSelectionChannel = createWritableSelectionChannel();
 
@@ -534,6 +629,14 @@ public class Connection<T extends Connector> implements SelectionListener {
         this.lastActivity = System.currentTimeMillis();
     }
 
+    /**
+     * Called back by the IO controller right before controlling the
+     * connection, so that any later state change requests a new control.
+     */
+    public void onControlled() {
+        this.controlRequested.set(false);
+    }
+
     /**
      * Called on error. By default, it calls {@link #close(boolean)} with a
      * 'false' parameter.
@@ -642,6 +745,18 @@ public class Connection<T extends Connector> implements SelectionListener {
         close(false);
     }
 
+    /**
+     * Called back when a selection registration of the connection has been
+     * updated, possibly by a worker thread. By default, it requests the
+     * connection to be controlled.
+     * 
+     * @param registration
+     *            The updated selection registration.
+     */
+    public void onUpdated(SelectionRegistration registration) {
+        requestControl();
+    }
+
     /**
      * Opens the connection. By default, set the IO state of the connection to
      * {@link ConnectionState#OPEN} and the IO state of the inbound way to
@@ -652,6 +767,20 @@ public class Connection<T extends Connector> implements SelectionListener {
         updateState();
     }
 
+    /**
+     * Requests the connection to be controlled by its IO controller, as its
+     * state may have changed. Requests are coalesced until the controller
+     * effectively controls the connection.
+     */
+    public void requestControl() {
+        ConnectionController controller = getController();
+
+        if ((controller != null)
+                && this.controlRequested.compareAndSet(false, true)) {
+            controller.control(this);
+        }
+    }
+
     /**
      * Reuses the connection and associates it to the given socket.
      * 
@@ -717,9 +846,21 @@ public class Connection<T extends Connector> implements SelectionListener {
             }
 
             this.state = state;
+            getHelper().getMetrics().onStateChanged(state);
+            requestControl();
         }
     }
 
+    /**
+     * Sets the time out scheduled by the IO controller.
+     * 
+     * @param timeout
+     *            The time out scheduled by the IO controller, or null.
+     */
+    public void setTimeout(TimingWheel.Timeout<Connection<?>> timeout) {
+        this.timeout = timeout;
+    }
+
     /**
      * Shutdowns the socket, first its input then its output.
      * 
@@ -39,32 +39,77 @@ import java.nio.channels.ClosedByInterruptException;
 import java.nio.channels.SelectableChannel;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Queue;
+import java.util.Set;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 
 import org.restlet.Context;
 import org.restlet.engine.io.IoState;
+import org.restlet.engine.util.ConcurrentHashSet;
+import org.restlet.engine.util.TimingWheel;
 import org.restlet.util.SelectionListener;
 import org.restlet.util.SelectionRegistration;
 
 /**
  * Controls the IO work of parent connector helper and manages its connections.
+ * Only the connections whose state may have changed since the previous control
+ * loop are visited, either because they were selected for IO operations or
+ * because they requested to be controlled. The IO idle time outs are detected
+ * with a hashed timing wheel instead of a scan of all the connections.
  * 
  * @author Jerome Louvel
  */
 public class ConnectionController extends Controller implements Runnable {
 
+    /** The duration in milliseconds of a tick of the time outs wheel. */
+    private static final long TIMEOUT_TICK_MS = 100L;
+
+    /** The number of slots of the time outs wheel. */
+    private static final int TIMEOUT_SLOTS = 512;
+
+    /** The queue of socket channels accepted by another controller. */
+    private final Queue<SocketChannel> acceptedChannels;
+
+    /** The number of connections owned by this controller. */
+    private final AtomicInteger connectionCount;
+
+    /** The connections owned by this controller. */
+    private final Set<Connection<?>> connections;
+
+    /** The connections being controlled by the current control loop. */
+    private final List<Connection<?>> controlledConnections;
+
+    /** The connections that requested to be controlled. */
+    private final Queue<Connection<?>> pendingConnections;
+
+    /** The connections whose time out expired. */
+    private final List<Connection<?>> expiredConnections;
+
     /** The NIO selector. */
     private volatile Selector selector;
 
     /** The list of new selection registrations. */
     private final Queue<SelectionRegistration> newRegistrations;
 
+    /** The thread running the controller. */
+    private volatile Thread thread;
+
+    /** The IO idle time outs of the connections. */
+    private final TimingWheel<Connection<?>> timeouts;
+
     /** The list of updated selection registrations. */
     private final Queue<SelectionRegistration> updatedRegistrations;
 
+    /** Indicates if a wake up of the NIO selector is pending. */
+    private final AtomicBoolean wakeupPending;
+
     /**
      * Constructor.
      * 
@@ -73,39 +118,180 @@ public class ConnectionController extends Controller implements Runnable {
      */
     public ConnectionController(ConnectionHelper<?> helper) {
         super(helper);
+        this.acceptedChannels = new ConcurrentLinkedQueue<SocketChannel>();
+        this.connectionCount = new AtomicInteger();
+        this.connections = new ConcurrentHashSet<Connection<?>>();
+        this.controlledConnections = new ArrayList<Connection<?>>();
+        this.expiredConnections = new ArrayList<Connection<?>>();
         this.newRegistrations = new ConcurrentLinkedQueue<SelectionRegistration>();
+        this.pendingConnections = new ConcurrentLinkedQueue<Connection<?>>();
+        this.timeouts = new TimingWheel<Connection<?>>(TIMEOUT_TICK_MS,
+                TIMEOUT_SLOTS, System.currentTimeMillis());
         this.updatedRegistrations = new ConcurrentLinkedQueue<SelectionRegistration>();
+        this.wakeupPending = new AtomicBoolean();
     }
 
     /**
-     * Control each connection for messages to read or write.
+     * Hands off a socket channel accepted by another controller. The
+     * connection will be opened by the thread of this controller, which will
+     * then own it.
      * 
+     * @param socketChannel
+     *            The accepted NIO socket channel.
+     */
+    public void accept(SocketChannel socketChannel) {
+        this.acceptedChannels.add(socketChannel);
+        wakeup();
+    }
+
+    /**
+     * Attaches a connection to this controller, which will then control it.
+     * 
+     * @param connection
+     *            The connection to attach.
+     */
+    public void attach(Connection<?> connection) {
+        if (this.connections.add(connection)) {
+            this.connectionCount.incrementAndGet();
+        }
+
+        connection.requestControl();
+    }
+
+    /**
+     * Controls a connection for messages to read or write. If an action was
+     * taken, the connection is controlled again during the next control loop,
+     * until it has nothing left to do.
+     * 
+     * @param conn
+     *            The connection to control.
      * @throws IOException
      */
-    protected void controlConnections() throws IOException {
-        // Close connections or register interest in NIO operations
-        for (Connection<?> conn : getHelper().getConnections()) {
-            if (getHelper().getLogger().isLoggable(Level.FINEST)) {
-                getHelper().getLogger().log(Level.FINEST,
-                        "Connection status: " + conn);
-            }
+    protected void controlConnection(Connection<?> conn) throws IOException {
+        if (getHelper().getLogger().isLoggable(Level.FINEST)) {
+            getHelper().getLogger().log(Level.FINEST,
+                    "Connection status: " + conn);
+        }
+
+        boolean acted = true;
+
+        if (conn.getState() == ConnectionState.CLOSED) {
+            // Detach the connection and collect it
+            acted = false;
+
+            if (this.connections.remove(conn)) {
+                this.connectionCount.decrementAndGet();
+
+                if (conn.getTimeout() != null) {
+                    conn.getTimeout().cancel();
+                    conn.setTimeout(null);
+                }
 
-            if (conn.getState() == ConnectionState.CLOSED) {
-                // Detach the connection and collect it
                 getHelper().getConnections().remove(conn);
                 getHelper().checkin(conn);
-            } else if ((conn.getState() == ConnectionState.CLOSING)
-                    && conn.isEmpty()) {
-                conn.close(false);
-            } else if (conn.hasTimedOut()) {
-                conn.onTimeOut();
-            } else if (conn.updateState()) {
-                getUpdatedRegistrations().add(conn.getRegistration());
-            } else if (conn.getInboundWay().getIoState() == IoState.READY) {
-                conn.getInboundWay().onSelected();
-            } else if (conn.getOutboundWay().getIoState() == IoState.READY) {
-                conn.getOutboundWay().onSelected();
             }
+        } else if ((conn.getState() == ConnectionState.CLOSING)
+                && conn.isEmpty()) {
+            conn.close(false);
+        } else if (conn.hasTimedOut()) {
+            conn.onTimeOut();
+        } else if (conn.updateState()) {
+            getUpdatedRegistrations().add(conn.getRegistration());
+        } else if (conn.getInboundWay().getIoState() == IoState.READY) {
+            conn.getInboundWay().onSelected();
+        } else if (conn.getOutboundWay().getIoState() == IoState.READY) {
+            conn.getOutboundWay().onSelected();
+        } else {
+            acted = false;
+        }
+
+        if ((conn.getTimeout() == null)
+                && (conn.getState() != ConnectionState.CLOSED)
+                && (conn.getMaxIoIdleTimeMs() > 0)) {
+            // Schedule the detection of the IO idle time out
+            conn.setTimeout(this.timeouts.schedule(conn,
+                    conn.getLastActivity() + conn.getMaxIoIdleTimeMs()));
+        }
+
+        if (acted) {
+            conn.requestControl();
+        }
+    }
+
+    /**
+     * Controls the connections that requested it since the previous control
+     * loop, then the connections whose IO idle time out expired. Connections
+     * requesting a new control while being controlled are handled by the next
+     * control loop.
+     * 
+     * @throws IOException
+     */
+    protected void controlConnections() throws IOException {
+        Connection<?> conn = this.pendingConnections.poll();
+
+        while (conn != null) {
+            this.controlledConnections.add(conn);
+            conn = this.pendingConnections.poll();
+        }
+
+        for (int i = 0; i < this.controlledConnections.size(); i++) {
+            conn = this.controlledConnections.get(i);
+            conn.onControlled();
+
+            if ((conn.getController() == this)
+                    && this.connections.contains(conn)) {
+                controlConnection(conn);
+            }
+        }
+
+        this.controlledConnections.clear();
+        controlTimeouts();
+    }
+
+    /**
+     * Detects the connections whose IO idle time out expired. As the activity
+     * of connections doesn't update the wheel, the time out of an active
+     * connection is rescheduled from its last activity.
+     * 
+     * @throws IOException
+     */
+    protected void controlTimeouts() throws IOException {
+        long now = System.currentTimeMillis();
+
+        if (this.timeouts.advance(now, this.expiredConnections) > 0) {
+            for (int i = 0; i < this.expiredConnections.size(); i++) {
+                Connection<?> conn = this.expiredConnections.get(i);
+                conn.setTimeout(null);
+
+                if (this.connections.contains(conn)) {
+                    if (conn.hasTimedOut()) {
+                        conn.onTimeOut();
+                        conn.requestControl();
+                    } else if (conn.getMaxIoIdleTimeMs() > 0) {
+                        conn.setTimeout(this.timeouts.schedule(conn,
+                                conn.getLastActivity()
+                                        + conn.getMaxIoIdleTimeMs()));
+                    }
+                }
+            }
+
+            this.expiredConnections.clear();
+        }
+    }
+
+    /**
+     * Requests a connection to be controlled during the next control loop. If
+     * the calling thread isn't the controller's thread, the NIO selector is
+     * woken up.
+     * 
+     * @param connection
+     *            The connection to control.
+     */
+    public void control(Connection<?> connection) {
+        this.pendingConnections.add(connection);
+
+        if (Thread.currentThread() != this.thread) {
+            wakeup();
         }
     }
 
@@ -129,10 +315,14 @@ public class ConnectionController extends Controller implements Runnable {
 
     @Override
     protected void doInit() {
+        this.thread = Thread.currentThread();
         this.selector = createSelector();
-        // Done in the controller for thread safety reason regarding the byte
-        // buffers part of the pooled connections
-        getHelper().createConnectionPool();
+
+        if (isMain()) {
+            // Done in the controller for thread safety reason regarding the
+            // byte buffers part of the pooled connections
+            getHelper().createConnectionPool();
+        }
     }
 
     @Override
@@ -148,12 +338,32 @@ public class ConnectionController extends Controller implements Runnable {
     @Override
     protected void doRun(long sleepTime) throws IOException {
         super.doRun(sleepTime);
+        getHelper().getMetrics().onSelectorIteration();
+        openAcceptedChannels();
         registerKeys();
         updateKeys();
         selectKeys(sleepTime);
         controlConnections();
     }
 
+    /**
+     * Returns the number of connections owned by this controller.
+     * 
+     * @return The number of connections owned by this controller.
+     */
+    public int getConnectionCount() {
+        return this.connectionCount.get();
+    }
+
+    /**
+     * Returns the connections owned by this controller.
+     * 
+     * @return The connections owned by this controller.
+     */
+    protected Set<Connection<?>> getConnections() {
+        return this.connections;
+    }
+
     /**
      * Returns the queue of new selection registrations.
      * 
@@ -181,6 +391,19 @@ public class ConnectionController extends Controller implements Runnable {
         return this.updatedRegistrations;
     }
 
+    /**
+     * Indicates if some work is pending, such as accepted channels to open,
+     * selection registrations to update or connections to control.
+     * 
+     * @return True if some work is pending.
+     */
+    protected boolean hasPendingWork() {
+        return !this.acceptedChannels.isEmpty()
+                || !this.pendingConnections.isEmpty()
+                || !getNewRegistrations().isEmpty()
+                || !getUpdatedRegistrations().isEmpty();
+    }
+
     /**
      * Called back when a ready key has been selected.
      * 
@@ -197,8 +420,17 @@ public class ConnectionController extends Controller implements Runnable {
             }
 
             if (selectedKey.attachment() != null) {
-                ((SelectionRegistration) selectedKey.attachment())
-                        .onSelected(selectedKey.readyOps());
+                SelectionRegistration registration = (SelectionRegistration) selectedKey
+                        .attachment();
+                registration.onSelected(selectedKey.readyOps());
+
+                if (registration.getListener() instanceof Connection<?>) {
+                    ((Connection<?>) registration.getListener())
+                            .requestControl();
+                } else if (registration.getListener() instanceof Way) {
+                    ((Way) registration.getListener()).getConnection()
+                            .requestControl();
+                }
             }
         } catch (CancelledKeyException cke) {
             getHelper().getLogger().log(Level.FINER,
@@ -208,6 +440,32 @@ public class ConnectionController extends Controller implements Runnable {
         }
     }
 
+    /**
+     * Opens the connections for the socket channels handed off by another
+     * controller.
+     */
+    protected void openAcceptedChannels() {
+        SocketChannel socketChannel = this.acceptedChannels.poll();
+
+        while (socketChannel != null) {
+            try {
+                getHelper().open(socketChannel, this);
+            } catch (IOException ioe) {
+                getHelper().getLogger().log(Level.WARNING,
+                        "Unable to open an accepted connection", ioe);
+
+                try {
+                    socketChannel.close();
+                } catch (IOException e) {
+                    getHelper().getLogger().log(Level.FINE,
+                            "Unable to close an accepted socket channel", e);
+                }
+            }
+
+            socketChannel = this.acceptedChannels.poll();
+        }
+    }
+
     /**
      * Registers a selection listener with the underlying selector for the given
      * operations and returns the registration created.
@@ -258,8 +516,16 @@ public class ConnectionController extends Controller implements Runnable {
      */
     protected void selectKeys(long sleepTime) throws IOException,
             ClosedByInterruptException {
-        // Select the connections ready for NIO operations
-        int selectCount = getSelector().select(sleepTime);
+        int selectCount = 0;
+        this.wakeupPending.set(false);
+
+        // Select the connections ready for NIO operations, without blocking
+        // if some work is already pending
+        if (hasPendingWork()) {
+            selectCount = getSelector().selectNow();
+        } else {
+            selectCount = getSelector().select(sleepTime);
+        }
 
         if (selectCount > 0) {
             if (getHelper().getLogger().isLoggable(Level.FINEST)) {
@@ -306,4 +572,19 @@ public class ConnectionController extends Controller implements Runnable {
         }
     }
 
+    /**
+     * Wakes up the NIO selector if it is blocked, so that pending work queued
+     * by other threads is processed without waiting for the select timeout.
+     * Only the first call since the last selection effectively wakes up the
+     * selector.
+     */
+    public void wakeup() {
+        Selector selector = getSelector();
+
+        if ((selector != null) && this.wakeupPending.compareAndSet(false, true)) {
+            getHelper().getMetrics().onSelectorWakeup();
+            selector.wakeup();
+        }
+    }
+
 }
@@ -37,9 +37,10 @@ import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.nio.channels.SocketChannel;
 import java.util.Set;
-import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.logging.Level;
 
 import org.restlet.Connector;
+import org.restlet.engine.util.ConcurrentHashSet;
 
 /**
  * Connector helper using network connections. Here is the list of parameters
@@ -85,6 +86,13 @@ import org.restlet.Connector;
  * <td>Indicates if pipelining connections are supported.</td>
  * </tr>
  * <tr>
+ * <td>pipeliningDepth</td>
+ * <td>int</td>
+ * <td>8</td>
+ * <td>Maximum number of messages in progress on a pipelining connection. On the
+ * client-side, only requests with an idempotent method are pipelined.</td>
+ * </tr>
+ * <tr>
  * <td>pooledConnections</td>
  * <td>boolean</td>
  * <td>true</td>
@@ -104,6 +112,31 @@ import org.restlet.Connector;
  * <td>Indicates if sockets can be reused right away even if they are busy (in
  * TIME_WAIT or 2MSL wait state).</td>
  * </tr>
+ * <tr>
+ * <td>zeroCopy</td>
+ * <td>boolean</td>
+ * <td>true</td>
+ * <td>Indicates if file entities, including ranges of them, should be
+ * transferred directly from the file channel to the socket channel, without
+ * being copied into the connection buffers. Ignored when tracing is enabled or
+ * when the connection encrypts its bytes.</td>
+ * </tr>
+ * <tr>
+ * <td>gatheringWrites</td>
+ * <td>boolean</td>
+ * <td>true</td>
+ * <td>Indicates if the head of a message and its small in-memory entity or
+ * memory-mapped file should be written to the socket channel in a single
+ * gathering write, bypassing the outbound buffer. Ignored when tracing is
+ * enabled or when the connection encrypts its bytes.</td>
+ * </tr>
+ * <tr>
+ * <td>gatheringMaxSize</td>
+ * <td>int</td>
+ * <td>8192</td>
+ * <td>The maximum size in bytes of an in-memory entity written with a
+ * gathering write.</td>
+ * </tr>
  * </table>
  * 
  * @author Jerome Louvel
@@ -126,7 +159,7 @@ public abstract class ConnectionHelper<T extends Connector> extends
      */
     public ConnectionHelper(T connector, boolean clientSide) {
         super(connector, clientSide);
-        this.connections = new CopyOnWriteArraySet<Connection<T>>();
+        this.connections = new ConcurrentHashSet<Connection<T>>();
         this.connectionPool = null;
     }
 
@@ -198,6 +231,11 @@ public abstract class ConnectionHelper<T extends Connector> extends
         }
     }
 
+    @Override
+    protected ConnectionController createIoController() {
+        return new ConnectionController(this);
+    }
+
     /**
      * Creates an inbound way for the given connection.
      * 
@@ -259,6 +297,18 @@ public abstract class ConnectionHelper<T extends Connector> extends
         return connections;
     }
 
+    /**
+     * Returns the maximum size in bytes of an in-memory entity written with a
+     * gathering write.
+     * 
+     * @return The maximum size in bytes of an in-memory entity written with a
+     *         gathering write.
+     */
+    public int getGatheringMaxSize() {
+        return Integer.parseInt(getHelpedParameters().getFirstValue(
+                "gatheringMaxSize", "8192"));
+    }
+
     /**
      * Returns the initial number of connections pre-created in the connections
      * pool.
@@ -308,6 +358,59 @@ public abstract class ConnectionHelper<T extends Connector> extends
 
     }
 
+    /**
+     * Opens a connection associated to a newly accepted socket channel and adds
+     * it to the set of active connections. Must be called by the thread of the
+     * controller owning the connection.
+     * 
+     * @param socketChannel
+     *            The accepted NIO socket channel.
+     * @param controller
+     *            The controller owning the connection.
+     * @return The opened connection.
+     * @throws IOException
+     */
+    protected Connection<T> open(SocketChannel socketChannel,
+            ConnectionController controller) throws IOException {
+        Connection<T> result = checkout(socketChannel, controller,
+                (InetSocketAddress) socketChannel.socket()
+                        .getRemoteSocketAddress());
+        result.open();
+        getConnections().add(result);
+
+        if (getLogger().isLoggable(Level.FINE)) {
+            getLogger().fine(
+                    "Connection from \"" + result.getSocketAddress()
+                            + "\" accepted. New count: "
+                            + getConnections().size());
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the maximum number of messages in progress on a pipelining
+     * connection.
+     * 
+     * @return The maximum number of messages in progress on a pipelining
+     *         connection.
+     */
+    public int getPipeliningDepth() {
+        return Integer.parseInt(getHelpedParameters().getFirstValue(
+                "pipeliningDepth", "8"));
+    }
+
+    /**
+     * Indicates if the head of a message and its small in-memory entity should
+     * be written to the socket channel in a single gathering write.
+     * 
+     * @return True if gathering writes should be used.
+     */
+    public boolean isGatheringWrites() {
+        return Boolean.parseBoolean(getHelpedParameters().getFirstValue(
+                "gatheringWrites", "true"));
+    }
+
     /**
      * Indicates if persistent connections should be used if possible.
      * 
@@ -359,4 +462,16 @@ public abstract class ConnectionHelper<T extends Connector> extends
         return Boolean.parseBoolean(getHelpedParameters().getFirstValue(
                 "socketReuseAddress", "true"));
     }
+
+    /**
+     * Indicates if file entities should be transferred directly from the file
+     * channel to the socket channel.
+     * 
+     * @return True if file entities should be transferred directly to the
+     *         socket channel.
+     */
+    public boolean isZeroCopy() {
+        return Boolean.parseBoolean(getHelpedParameters().getFirstValue(
+                "zeroCopy", "true"));
+    }
 }
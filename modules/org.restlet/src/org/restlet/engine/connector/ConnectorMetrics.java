@@ -0,0 +1,349 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.engine.connector;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+import org.restlet.engine.util.LatencyHistogram;
+import org.restlet.engine.util.StripedCounter;
+
+/**
+ * Metrics collected by a connector helper. Counters are striped and
+ * histograms are lock-free so that the collection can be left enabled in
+ * production. Connection counts are computed on demand by scanning the
+ * connections of the helper, outside of the IO processing path.
+ * 
+ * @author Jerome Louvel
+ */
+public class ConnectorMetrics implements ConnectorMetricsMBean {
+
+    /** The number of bytes read from the sockets. */
+    private final StripedCounter bytesRead;
+
+    /** The number of bytes written to the sockets. */
+    private final StripedCounter bytesWritten;
+
+    /** The latencies of the handling of inbound messages. */
+    private final LatencyHistogram handleLatency;
+
+    /** The parent helper. */
+    private final BaseHelper<?> helper;
+
+    /** The latencies of the parsing of inbound message heads. */
+    private final LatencyHistogram parseLatency;
+
+    /** The number of iterations of the selector loops. */
+    private final StripedCounter selectorIterations;
+
+    /** The number of explicit wakeups of the selectors. */
+    private final StripedCounter selectorWakeups;
+
+    /** The number of transitions to each connection state, by ordinal. */
+    private final StripedCounter[] stateTotals;
+
+    /** The number of tasks rejected by the worker service. */
+    private final StripedCounter workerRejections;
+
+    /** The latencies of the writing of outbound messages. */
+    private final LatencyHistogram writeLatency;
+
+    /**
+     * Constructor.
+     * 
+     * @param helper
+     *            The parent helper.
+     */
+    public ConnectorMetrics(BaseHelper<?> helper) {
+        this.helper = helper;
+        this.bytesRead = new StripedCounter();
+        this.bytesWritten = new StripedCounter();
+        this.handleLatency = new LatencyHistogram();
+        this.parseLatency = new LatencyHistogram();
+        this.selectorIterations = new StripedCounter();
+        this.selectorWakeups = new StripedCounter();
+        this.stateTotals = new StripedCounter[ConnectionState.values().length];
+
+        for (int i = 0; i < this.stateTotals.length; i++) {
+            this.stateTotals[i] = new StripedCounter();
+        }
+
+        this.workerRejections = new StripedCounter();
+        this.writeLatency = new LatencyHistogram();
+    }
+
+    /**
+     * Counts the current connections of the helper by state. The array is
+     * indexed by {@link ConnectionState} ordinal, with an extra last slot
+     * counting the idle open connections.
+     * 
+     * @return The current connections count by state.
+     */
+    private int[] countConnections() {
+        int[] result = new int[ConnectionState.values().length + 1];
+
+        if (getHelper() instanceof ConnectionHelper<?>) {
+            for (Connection<?> connection : ((ConnectionHelper<?>) getHelper())
+                    .getConnections()) {
+                ConnectionState state = connection.getState();
+
+                if (state != null) {
+                    result[state.ordinal()]++;
+
+                    if ((state == ConnectionState.OPEN)
+                            && (connection.getLoadScore() == 0)
+                            && connection.isEmpty()) {
+                        result[result.length - 1]++;
+                    }
+                }
+            }
+        }
+
+        return result;
+    }
+
+    public int getBusyConnections() {
+        int[] counts = countConnections();
+        return counts[ConnectionState.OPEN.ordinal()]
+                - counts[counts.length - 1];
+    }
+
+    public int getBusyWorkers() {
+        return getHelper().getBusyWorkerCount();
+    }
+
+    public long getBytesRead() {
+        return this.bytesRead.get();
+    }
+
+    public long getBytesWritten() {
+        return this.bytesWritten.get();
+    }
+
+    public long getClosedTotal() {
+        return getStateTotal(ConnectionState.CLOSED);
+    }
+
+    public int getClosingConnections() {
+        return countConnections()[ConnectionState.CLOSING.ordinal()];
+    }
+
+    public long getClosingTotal() {
+        return getStateTotal(ConnectionState.CLOSING);
+    }
+
+    public String getHandleLatency() {
+        return getHandleLatencyHistogram().toString();
+    }
+
+    /**
+     * Returns the histogram of the latencies of the handling of inbound
+     * messages.
+     * 
+     * @return The histogram of the handle latencies.
+     */
+    public LatencyHistogram getHandleLatencyHistogram() {
+        return handleLatency;
+    }
+
+    /**
+     * Returns the parent helper.
+     * 
+     * @return The parent helper.
+     */
+    public BaseHelper<?> getHelper() {
+        return helper;
+    }
+
+    public int getIdleConnections() {
+        int[] counts = countConnections();
+        return counts[counts.length - 1];
+    }
+
+    public int getOpenConnections() {
+        return countConnections()[ConnectionState.OPEN.ordinal()];
+    }
+
+    public int getOpeningConnections() {
+        return countConnections()[ConnectionState.OPENING.ordinal()];
+    }
+
+    public long getOpeningTotal() {
+        return getStateTotal(ConnectionState.OPENING);
+    }
+
+    public long getOpenTotal() {
+        return getStateTotal(ConnectionState.OPEN);
+    }
+
+    public String getParseLatency() {
+        return getParseLatencyHistogram().toString();
+    }
+
+    /**
+     * Returns the histogram of the latencies of the parsing of inbound
+     * message heads, from the start line to the end of the headers.
+     * 
+     * @return The histogram of the parse latencies.
+     */
+    public LatencyHistogram getParseLatencyHistogram() {
+        return parseLatency;
+    }
+
+    public long getSelectorIterations() {
+        return this.selectorIterations.get();
+    }
+
+    public long getSelectorWakeups() {
+        return this.selectorWakeups.get();
+    }
+
+    /**
+     * Returns the number of transitions to the given connection state.
+     * 
+     * @param state
+     *            The connection state.
+     * @return The number of transitions to the given connection state.
+     */
+    public long getStateTotal(ConnectionState state) {
+        return this.stateTotals[state.ordinal()].get();
+    }
+
+    public int getWorkerQueueDepth() {
+        ThreadPoolExecutor workerService = getHelper().getWorkerService();
+        return (workerService == null) ? 0 : workerService.getQueue().size();
+    }
+
+    public long getWorkerRejections() {
+        return this.workerRejections.get();
+    }
+
+    public String getWriteLatency() {
+        return getWriteLatencyHistogram().toString();
+    }
+
+    /**
+     * Returns the histogram of the latencies of the writing of outbound
+     * messages, from the start line to the end of the entity.
+     * 
+     * @return The histogram of the write latencies.
+     */
+    public LatencyHistogram getWriteLatencyHistogram() {
+        return writeLatency;
+    }
+
+    /**
+     * Called when bytes have been read from a socket.
+     * 
+     * @param count
+     *            The number of bytes read.
+     */
+    public void onBytesRead(int count) {
+        this.bytesRead.add(count);
+    }
+
+    /**
+     * Called when bytes have been written to a socket.
+     * 
+     * @param count
+     *            The number of bytes written.
+     */
+    public void onBytesWritten(int count) {
+        this.bytesWritten.add(count);
+    }
+
+    /**
+     * Called on each iteration of a selector loop.
+     */
+    public void onSelectorIteration() {
+        this.selectorIterations.increment();
+    }
+
+    /**
+     * Called when a selector is explicitly woken up.
+     */
+    public void onSelectorWakeup() {
+        this.selectorWakeups.increment();
+    }
+
+    /**
+     * Called when a connection changes of state.
+     * 
+     * @param state
+     *            The new connection state.
+     */
+    public void onStateChanged(ConnectionState state) {
+        if (state != null) {
+            this.stateTotals[state.ordinal()].increment();
+        }
+    }
+
+    /**
+     * Called when a task is rejected by the worker service.
+     */
+    public void onWorkerRejection() {
+        this.workerRejections.increment();
+    }
+
+    public void reset() {
+        this.bytesRead.reset();
+        this.bytesWritten.reset();
+        this.handleLatency.reset();
+        this.parseLatency.reset();
+        this.selectorIterations.reset();
+        this.selectorWakeups.reset();
+
+        for (StripedCounter stateTotal : this.stateTotals) {
+            stateTotal.reset();
+        }
+
+        this.workerRejections.reset();
+        this.writeLatency.reset();
+    }
+
+    @Override
+    public String toString() {
+        int[] counts = countConnections();
+        return "Connections: " + counts[ConnectionState.OPEN.ordinal()]
+                + " open, " + counts[counts.length - 1] + " idle, "
+                + counts[ConnectionState.CLOSING.ordinal()] + " closing. "
+                + "Bytes: " + getBytesRead() + " read, " + getBytesWritten()
+                + " written. Selectors: " + getSelectorIterations()
+                + " iterations, " + getSelectorWakeups() + " wakeups. "
+                + "Workers: " + getBusyWorkers() + " busy, "
+                + getWorkerQueueDepth() + " queued, " + getWorkerRejections()
+                + " rejected. Parse: " + getParseLatency() + ". Handle: "
+                + getHandleLatency() + ". Write: " + getWriteLatency() + ".";
+    }
+
+}
@@ -0,0 +1,187 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.engine.connector;
+
+/**
+ * JMX management interface of the {@link ConnectorMetrics}. Durations are
+ * expressed in microseconds.
+ * 
+ * @author Jerome Louvel
+ */
+public interface ConnectorMetricsMBean {
+
+    /**
+     * Returns the number of open connections currently handling messages.
+     * 
+     * @return The number of busy connections.
+     */
+    int getBusyConnections();
+
+    /**
+     * Returns the number of worker threads currently running a task.
+     * 
+     * @return The number of busy worker threads.
+     */
+    int getBusyWorkers();
+
+    /**
+     * Returns the total number of bytes read from the sockets.
+     * 
+     * @return The total number of bytes read.
+     */
+    long getBytesRead();
+
+    /**
+     * Returns the total number of bytes written to the sockets.
+     * 
+     * @return The total number of bytes written.
+     */
+    long getBytesWritten();
+
+    /**
+     * Returns the number of connections currently being closed.
+     * 
+     * @return The number of closing connections.
+     */
+    int getClosingConnections();
+
+    /**
+     * Returns the number of transitions to the {@link ConnectionState#CLOSED}
+     * state.
+     * 
+     * @return The number of closed connections.
+     */
+    long getClosedTotal();
+
+    /**
+     * Returns the number of transitions to the {@link ConnectionState#CLOSING}
+     * state.
+     * 
+     * @return The number of connections that started closing.
+     */
+    long getClosingTotal();
+
+    /**
+     * Returns a summary of the handle latencies.
+     * 
+     * @return A summary of the handle latencies.
+     */
+    String getHandleLatency();
+
+    /**
+     * Returns the number of open connections currently idle.
+     * 
+     * @return The number of idle connections.
+     */
+    int getIdleConnections();
+
+    /**
+     * Returns the number of connections currently open.
+     * 
+     * @return The number of open connections.
+     */
+    int getOpenConnections();
+
+    /**
+     * Returns the number of connections currently being opened.
+     * 
+     * @return The number of opening connections.
+     */
+    int getOpeningConnections();
+
+    /**
+     * Returns the number of transitions to the {@link ConnectionState#OPENING}
+     * state.
+     * 
+     * @return The number of connections that started opening.
+     */
+    long getOpeningTotal();
+
+    /**
+     * Returns the number of transitions to the {@link ConnectionState#OPEN}
+     * state.
+     * 
+     * @return The number of opened connections.
+     */
+    long getOpenTotal();
+
+    /**
+     * Returns a summary of the parse latencies.
+     * 
+     * @return A summary of the parse latencies.
+     */
+    String getParseLatency();
+
+    /**
+     * Returns the number of iterations of the selector loops.
+     * 
+     * @return The number of iterations of the selector loops.
+     */
+    long getSelectorIterations();
+
+    /**
+     * Returns the number of explicit wakeups of the selectors.
+     * 
+     * @return The number of explicit wakeups of the selectors.
+     */
+    long getSelectorWakeups();
+
+    /**
+     * Returns the number of tasks waiting in the queue of the worker service.
+     * 
+     * @return The depth of the worker queue.
+     */
+    int getWorkerQueueDepth();
+
+    /**
+     * Returns the number of tasks rejected by the worker service.
+     * 
+     * @return The number of rejected tasks.
+     */
+    long getWorkerRejections();
+
+    /**
+     * Returns a summary of the write latencies.
+     * 
+     * @return A summary of the write latencies.
+     */
+    String getWriteLatency();
+
+    /**
+     * Resets the counters and histograms. The current connection counts are
+     * not affected.
+     */
+    void reset();
+
+}
@@ -48,10 +48,10 @@ public abstract class Controller {
     protected final ConnectionHelper<?> helper;
 
     /** Indicates if the controller is overloaded. */
-    protected boolean overloaded;
+    protected volatile boolean overloaded;
 
     /** Indicates if the task is running. */
-    protected boolean running;
+    protected volatile boolean running;
 
     /**
      * Constructor.
@@ -84,7 +84,9 @@ public abstract class Controller {
      * @param sleepTime
      */
     protected void doRun(long sleepTime) throws IOException {
-        getHelper().control();
+        if (isMain()) {
+            getHelper().control();
+        }
     }
 
     /**
@@ -105,6 +107,17 @@ public abstract class Controller {
         return getHelper().getWorkerService();
     }
 
+    /**
+     * Indicates if this controller is the main one of the parent helper. Only
+     * the main controller controls the helper's message queues and overload
+     * state, additional IO controllers only control their own connections.
+     * 
+     * @return True if this controller is the main one of the parent helper.
+     */
+    public boolean isMain() {
+        return getHelper().getController() == this;
+    }
+
     /**
      * Indicates if the controller is overloaded.
      * 
@@ -131,7 +144,8 @@ public abstract class Controller {
             doInit();
             setRunning(true);
             long sleepTime = getHelper().getControllerSleepTimeMs();
-            boolean hasWorkerThreads = getHelper().hasWorkerThreads();
+            boolean hasWorkerThreads = getHelper().hasWorkerThreads()
+                    && isMain();
             boolean isWorkerServiceOverloaded;
 
             while (isRunning()) {
@@ -0,0 +1,244 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+
+package org.restlet.engine.connector;
+
+import java.nio.ByteBuffer;
+
+import org.restlet.engine.header.Header;
+import org.restlet.engine.header.HeaderConstants;
+import org.restlet.util.Series;
+
+/**
+ * Encodes the head of an outbound message, made of its start line and of its
+ * headers, into a single byte buffer ready to be written to a socket channel.
+ * The lines of the Date and Server headers are kept pre-encoded as their
+ * values rarely change, at most once per second for the Date header.
+ * 
+ * @author Jerome Louvel
+ */
+public class HeadEncoder {
+
+    /**
+     * A header line encoded with the ISO-8859-1 character set, including the
+     * ending CRLF.
+     */
+    private static final class EncodedLine {
+
+        /** The encoded bytes. */
+        private final byte[] bytes;
+
+        /** The header value. */
+        private final String value;
+
+        /**
+         * Constructor.
+         * 
+         * @param name
+         *            The header name.
+         * @param value
+         *            The header value.
+         */
+        private EncodedLine(String name, String value) {
+            this.value = value;
+            this.bytes = new byte[getLength(name, value)];
+            encode(name, value, this.bytes, 0);
+        }
+    }
+
+    /** The last encoded Date header line. */
+    private static volatile EncodedLine dateLine;
+
+    /** The last encoded Server header line. */
+    private static volatile EncodedLine serverLine;
+
+    /**
+     * Copies the characters of a string into a byte array, with the
+     * ISO-8859-1 character set. Characters out of this set are replaced by
+     * '?'.
+     * 
+     * @param source
+     *            The source string.
+     * @param target
+     *            The target byte array.
+     * @param offset
+     *            The offset in the target array.
+     * @return The offset following the last byte copied.
+     */
+    private static int copy(String source, byte[] target, int offset) {
+        int result = offset;
+
+        for (int i = 0; i < source.length(); i++) {
+            char c = source.charAt(i);
+            target[result++] = (c > 0xFF) ? (byte) '?' : (byte) c;
+        }
+
+        return result;
+    }
+
+    /**
+     * Encodes the head of a message.
+     * 
+     * @param startLine
+     *            The start line, including the ending CRLF.
+     * @param headers
+     *            The headers.
+     * @return The byte buffer containing the encoded head, ready to be read.
+     */
+    public static ByteBuffer encode(CharSequence startLine,
+            Series<Header> headers) {
+        String line = startLine.toString();
+        int size = headers.size();
+        byte[][] cached = new byte[size][];
+        int length = line.length() + 2;
+
+        for (int i = 0; i < size; i++) {
+            Header header = headers.get(i);
+            cached[i] = getCachedLine(header.getName(), header.getValue());
+
+            if (cached[i] != null) {
+                length += cached[i].length;
+            } else {
+                length += getLength(header.getName(), header.getValue());
+            }
+        }
+
+        byte[] result = new byte[length];
+        int offset = copy(line, result, 0);
+
+        for (int i = 0; i < size; i++) {
+            if (cached[i] != null) {
+                System.arraycopy(cached[i], 0, result, offset, cached[i].length);
+                offset += cached[i].length;
+            } else {
+                Header header = headers.get(i);
+                offset = encode(header.getName(), header.getValue(), result,
+                        offset);
+            }
+        }
+
+        // Write the end of the headers section
+        result[offset++] = '\r';
+        result[offset] = '\n';
+        return ByteBuffer.wrap(result);
+    }
+
+    /**
+     * Encodes a header line into a byte array.
+     * 
+     * @param name
+     *            The header name.
+     * @param value
+     *            The header value.
+     * @param target
+     *            The target byte array.
+     * @param offset
+     *            The offset in the target array.
+     * @return The offset following the encoded line.
+     */
+    private static int encode(String name, String value, byte[] target,
+            int offset) {
+        int result = copy(name, target, offset);
+        target[result++] = ':';
+        target[result++] = ' ';
+
+        if (value != null) {
+            result = copy(value, target, result);
+        }
+
+        target[result++] = '\r';
+        target[result++] = '\n';
+        return result;
+    }
+
+    /**
+     * Returns the pre-encoded line of a Date or Server header. The cached line
+     * is updated when the header value changes.
+     * 
+     * @param name
+     *            The header name.
+     * @param value
+     *            The header value.
+     * @return The pre-encoded line or null if the header isn't cached.
+     */
+    private static byte[] getCachedLine(String name, String value) {
+        byte[] result = null;
+
+        if (value != null) {
+            if (HeaderConstants.HEADER_DATE.equals(name)) {
+                EncodedLine line = dateLine;
+
+                if ((line == null) || !value.equals(line.value)) {
+                    line = new EncodedLine(HeaderConstants.HEADER_DATE, value);
+                    dateLine = line;
+                }
+
+                result = line.bytes;
+            } else if (HeaderConstants.HEADER_SERVER.equals(name)) {
+                EncodedLine line = serverLine;
+
+                if ((line == null) || !value.equals(line.value)) {
+                    line = new EncodedLine(HeaderConstants.HEADER_SERVER,
+                            value);
+                    serverLine = line;
+                }
+
+                result = line.bytes;
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the length of an encoded header line.
+     * 
+     * @param name
+     *            The header name.
+     * @param value
+     *            The header value.
+     * @return The length of the encoded header line.
+     */
+    private static int getLength(String name, String value) {
+        return name.length() + ((value == null) ? 0 : value.length()) + 4;
+    }
+
+    /**
+     * Private constructor to ensure that the class acts as a true utility
+     * class i.e. it isn't instantiable and extensible.
+     */
+    private HeadEncoder() {
+    }
+
+}
@@ -0,0 +1,267 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.engine.connector;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.restlet.engine.header.Header;
+import org.restlet.engine.header.HeaderConstants;
+import org.restlet.engine.header.HeaderId;
+import org.restlet.engine.header.HeaderUtils;
+
+/**
+ * Parses the header lines of an inbound message in place, directly from the
+ * bytes of the IO buffer. The well-known header names are interned against the
+ * {@link HeaderConstants} using the perfect hash table of {@link HeaderId}.
+ * The header values are kept as byte slices and only decoded to strings when
+ * first read.
+ * 
+ * @author Jerome Louvel
+ */
+public class HeadParser {
+
+    /**
+     * Header whose value is decoded from its ISO-8859-1 bytes when first read.
+     */
+    private static final class LazyHeader extends Header {
+
+        /** The undecoded value bytes. */
+        private volatile byte[] valueBytes;
+
+        /**
+         * Constructor.
+         * 
+         * @param name
+         *            The header name.
+         * @param valueBytes
+         *            The undecoded value bytes.
+         */
+        private LazyHeader(String name, byte[] valueBytes) {
+            super(name, null);
+            this.valueBytes = valueBytes;
+        }
+
+        @Override
+        public String getValue() {
+            byte[] bytes = this.valueBytes;
+
+            if (bytes != null) {
+                super.setValue(decode(bytes));
+                this.valueBytes = null;
+            }
+
+            return super.getValue();
+        }
+
+        @Override
+        public void setValue(String value) {
+            this.valueBytes = null;
+            super.setValue(value);
+        }
+    }
+
+    /**
+     * Decodes bytes with the ISO-8859-1 character set.
+     * 
+     * @param bytes
+     *            The bytes to decode.
+     * @return The decoded string.
+     */
+    private static String decode(byte[] bytes) {
+        char[] chars = new char[bytes.length];
+
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = (char) (bytes[i] & 0xFF);
+        }
+
+        return new String(chars);
+    }
+
+    /**
+     * Returns the index of the carriage return ending the next line available
+     * in the buffer, between its position and its limit. The line is only
+     * considered available if the following line feed is also in the buffer.
+     * 
+     * @param bytes
+     *            The buffer to scan.
+     * @return The index of the ending carriage return or -1 if the line isn't
+     *         completely available yet.
+     */
+    public static int getLineEnd(ByteBuffer bytes) {
+        int limit = bytes.limit() - 1;
+
+        for (int i = bytes.position(); i < limit; i++) {
+            if (HeaderUtils.isCarriageReturn(bytes.get(i))) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Returns the well-known header name matching a byte slice, ignoring the
+     * case.
+     * 
+     * @param bytes
+     *            The buffer containing the name.
+     * @param start
+     *            The index of the first byte of the name.
+     * @param end
+     *            The index following the last byte of the name.
+     * @return The matching header constant or null.
+     */
+    public static String intern(ByteBuffer bytes, int start, int end) {
+        int hash = 0;
+
+        for (int i = start; i < end; i++) {
+            hash = HeaderId.hash(hash, bytes.get(i));
+        }
+
+        HeaderId candidate = HeaderId.getCandidate(hash);
+        String result = (candidate == null) ? null : candidate.getName();
+
+        if ((result != null) && (result.length() == end - start)) {
+            for (int i = 0; (result != null) && (i < result.length()); i++) {
+                char c = result.charAt(i);
+                int b = bytes.get(start + i);
+
+                if (Character.isLetter(c) ? ((c | 0x20) != (b | 0x20))
+                        : (c != b)) {
+                    result = null;
+                }
+            }
+        } else {
+            result = null;
+        }
+
+        return result;
+    }
+
+    /**
+     * Reads the header line starting at the buffer position and ending at the
+     * given carriage return. The buffer position is moved after the ending
+     * line feed.
+     * 
+     * @param bytes
+     *            The buffer to read.
+     * @param lineEnd
+     *            The index of the carriage return ending the line, as returned
+     *            by {@link #getLineEnd(ByteBuffer)}.
+     * @return The header read or null if the empty line ending the headers
+     *         was read.
+     * @throws IOException
+     */
+    public static Header readHeader(ByteBuffer bytes, int lineEnd)
+            throws IOException {
+        Header result = null;
+        int start = bytes.position();
+        int next = bytes.get(lineEnd + 1);
+
+        if (!HeaderUtils.isLineFeed(next)) {
+            throw new IOException(
+                    "Missing line feed character at the end of the line. Found character \""
+                            + (char) next + "\" (" + next + ") instead");
+        }
+
+        if (start < lineEnd) {
+            // Parse the header name
+            int colon = start;
+
+            while ((colon < lineEnd) && (bytes.get(colon) != ':')) {
+                colon++;
+            }
+
+            if (colon == lineEnd) {
+                throw new IOException(
+                        "Unable to parse the header name. End of line reached too early.");
+            }
+
+            String name = intern(bytes, start, colon);
+
+            if (name == null) {
+                name = decode(toArray(bytes, start, colon));
+            }
+
+            // Skip any separator space between colon and header value
+            int valueStart = colon + 1;
+
+            while ((valueStart < lineEnd)
+                    && HeaderUtils.isSpace(bytes.get(valueStart))) {
+                valueStart++;
+            }
+
+            result = new LazyHeader(name, toArray(bytes, valueStart, lineEnd));
+        }
+
+        bytes.position(lineEnd + 2);
+        return result;
+    }
+
+    /**
+     * Copies a slice of a buffer into a new byte array, without moving the
+     * buffer position.
+     * 
+     * @param bytes
+     *            The source buffer.
+     * @param start
+     *            The index of the first byte.
+     * @param end
+     *            The index following the last byte.
+     * @return The new byte array.
+     */
+    private static byte[] toArray(ByteBuffer bytes, int start, int end) {
+        byte[] result = new byte[end - start];
+
+        if (bytes.hasArray()) {
+            System.arraycopy(bytes.array(), bytes.arrayOffset() + start,
+                    result, 0, result.length);
+        } else {
+            for (int i = 0; i < result.length; i++) {
+                result[i] = bytes.get(start + i);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Private constructor to ensure that the class acts as a true utility
+     * class i.e. it isn't instantiable and extensible.
+     */
+    private HeadParser() {
+    }
+
+}
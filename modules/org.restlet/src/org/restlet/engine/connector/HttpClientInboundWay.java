@@ -38,6 +38,7 @@ import java.util.Queue;
 import java.util.concurrent.ConcurrentLinkedQueue;
 
 import org.restlet.Client;
+import org.restlet.Request;
 import org.restlet.Response;
 import org.restlet.data.Status;
 import org.restlet.engine.io.IoState;
@@ -66,6 +67,23 @@ public class HttpClientInboundWay extends ClientInboundWay {
         this.messages = new ConcurrentLinkedQueue<Response>();
     }
 
+    /**
+     * Indicates if all the requests waiting for a response have an idempotent
+     * method, allowing new requests to be pipelined behind them.
+     * 
+     * @return True if new requests can be pipelined.
+     */
+    @Override
+    public boolean canPipeline() {
+        for (Response rsp : getMessages()) {
+            if (!rsp.getRequest().getMethod().isIdempotent()) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
     @Override
     public void clear() {
         super.clear();
@@ -116,6 +134,51 @@ public class HttpClientInboundWay extends ClientInboundWay {
                         .getListener() != null));
     }
 
+    /**
+     * Aborts the pipelined requests that won't be answered on this connection,
+     * for example because the server closed it after the current response.
+     * Requests with an idempotent method and a replayable entity are sent
+     * again, possibly on another connection. Other ones are reported as
+     * communication errors as they might have been processed by the server.
+     */
+    protected void onAborted() {
+        for (Response rsp : getMessages()) {
+            if (rsp != getMessage()) {
+                getMessages().remove(rsp);
+                Request request = rsp.getRequest();
+
+                if (request.getMethod().isIdempotent()
+                        && (!request.isEntityAvailable() || !request
+                                .getEntity().isTransient())) {
+                    getHelper().getOutboundMessages().add(rsp);
+                } else {
+                    getHelper().onInboundError(
+                            Status.CONNECTOR_ERROR_COMMUNICATION, rsp);
+                }
+            }
+        }
+
+        ((HttpClientOutboundWay) getConnection().getOutboundWay())
+                .onAborted();
+    }
+
+    /**
+     * Reports the requests still waiting for a response as communication
+     * errors, as the closed connection won't receive their response.
+     */
+    @Override
+    public void onClosed() {
+        for (Response rsp : getMessages()) {
+            if (rsp != getMessage()) {
+                getMessages().remove(rsp);
+                getHelper().onInboundError(
+                        Status.CONNECTOR_ERROR_COMMUNICATION, rsp);
+            }
+        }
+
+        super.onClosed();
+    }
+
     @Override
     public void onCompleted(boolean endDetected) {
         if (getMessage() != null) {
@@ -123,6 +186,12 @@ public class HttpClientInboundWay extends ClientInboundWay {
         }
 
         super.onCompleted(endDetected);
+
+        if ((getConnection().getState() != ConnectionState.OPEN)
+                && !getMessages().isEmpty()) {
+            // The connection is closing with pipelined requests in progress
+            onAborted();
+        }
     }
 
     @Override
@@ -152,10 +221,22 @@ public class HttpClientInboundWay extends ClientInboundWay {
 
     @Override
     public void updateState() {
+        if ((getMessageState() == MessageState.IDLE)
+                && !getMessages().isEmpty()) {
+            // Expect the response to the oldest request written
+            setMessageState(MessageState.START);
+        }
+
         if ((getIoState() == IoState.IDLE)
                 && (getMessageState() != MessageState.BODY) && !isEmpty()) {
-            // Read the next response
-            setIoState(IoState.INTEREST);
+            if ((getMessageState() == MessageState.IDLE)
+                    || getBuffer().isEmpty()) {
+                // Read the next response
+                setIoState(IoState.INTEREST);
+            } else {
+                // Parse the next pipelined response already buffered
+                setIoState(IoState.READY);
+            }
         }
 
         // Update the registration
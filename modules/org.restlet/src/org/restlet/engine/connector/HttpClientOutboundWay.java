@@ -63,6 +63,23 @@ public class HttpClientOutboundWay extends ClientOutboundWay {
         this.messages = new ConcurrentLinkedQueue<Response>();
     }
 
+    /**
+     * Indicates if all the requests waiting to be written have an idempotent
+     * method, allowing new requests to be pipelined behind them.
+     * 
+     * @return True if new requests can be pipelined.
+     */
+    @Override
+    public boolean canPipeline() {
+        for (Response rsp : getMessages()) {
+            if (!rsp.getRequest().getMethod().isIdempotent()) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
     @Override
     public void clear() {
         super.clear();
@@ -83,9 +100,72 @@ public class HttpClientOutboundWay extends ClientOutboundWay {
         return messages;
     }
 
+    /**
+     * Queues the request to be written. If the connection is already closing,
+     * for example because it was aborted after being selected for this
+     * request, the request is sent again, possibly on another connection.
+     * 
+     * @param response
+     *            The response whose request must be written.
+     */
     @Override
     protected void handle(Response response) {
-        getMessages().add(response);
+        boolean closing = false;
+
+        synchronized (getMessages()) {
+            closing = (getConnection().getState() == ConnectionState.CLOSING)
+                    || (getConnection().getState() == ConnectionState.CLOSED);
+
+            if (!closing) {
+                getMessages().add(response);
+            }
+        }
+
+        if (closing) {
+            getHelper().getOutboundMessages().add(response);
+        } else {
+            getConnection().requestControl();
+        }
+    }
+
+    /**
+     * Sends again the requests that haven't been written yet, as the
+     * connection won't handle them. As they weren't received by the server,
+     * they can be safely sent on another connection, whatever their method.
+     * The request being written is removed as well and handled by
+     * {@link #onAborted(Response)} once this way stops writing it.
+     */
+    protected void onAborted() {
+        synchronized (getMessages()) {
+            for (Response rsp : getMessages()) {
+                getMessages().remove(rsp);
+
+                if (rsp != getMessage()) {
+                    getHelper().getOutboundMessages().add(rsp);
+                }
+            }
+        }
+    }
+
+    /**
+     * Handles a request that was being written when the connection was
+     * aborted. As the server won't answer it, a request with an idempotent
+     * method and no entity is sent again, possibly on another connection.
+     * Other ones are reported as communication errors as their entity may
+     * have been partially consumed.
+     * 
+     * @param message
+     *            The aborted message.
+     */
+    protected void onAborted(Response message) {
+        Request request = message.getRequest();
+
+        if (request.getMethod().isIdempotent() && !request.isEntityAvailable()) {
+            getHelper().getOutboundMessages().add(message);
+        } else {
+            getHelper().onOutboundError(Status.CONNECTOR_ERROR_COMMUNICATION,
+                    message);
+        }
     }
 
     @Override
@@ -93,6 +173,23 @@ public class HttpClientOutboundWay extends ClientOutboundWay {
         return super.isEmpty() && getMessages().isEmpty();
     }
 
+    @Override
+    public void onClosed() {
+        Response message = getMessage();
+        boolean aborted = false;
+
+        synchronized (getMessages()) {
+            aborted = (message != null) && !getMessages().contains(message);
+        }
+
+        if (aborted) {
+            // The connection was closed while writing an aborted request
+            onAborted(message);
+        }
+
+        super.onClosed();
+    }
+
     @Override
     public void onCompleted(boolean endDetected) {
         Response message = getMessage();
@@ -102,13 +199,19 @@ public class HttpClientOutboundWay extends ClientOutboundWay {
             Queue<Response> inboundMessages = ((HttpClientInboundWay) getConnection()
                     .getInboundWay()).getMessages();
 
-            // The request has been written
-            getMessages().remove(message);
+            boolean written = false;
 
-            if (request.isExpectingResponse()) {
+            synchronized (getMessages()) {
+                written = getMessages().remove(message);
+            }
+
+            if (!written
+                    || (getConnection().getState() != ConnectionState.OPEN)) {
+                // The request was aborted while being written or the
+                // connection is closing, so it won't be answered
+                onAborted(message);
+            } else if (request.isExpectingResponse()) {
                 inboundMessages.add(message);
-                getConnection().getInboundWay().setMessageState(
-                        MessageState.START);
             }
         }
 
@@ -143,8 +246,10 @@ public class HttpClientOutboundWay extends ClientOutboundWay {
     @Override
     public void updateState() {
         // Update the IO state if necessary
-        if (!getMessages().isEmpty() && (getMessage() == null)) {
-            setMessage(getMessages().peek());
+        synchronized (getMessages()) {
+            if (!getMessages().isEmpty() && (getMessage() == null)) {
+                setMessage(getMessages().peek());
+            }
         }
 
         super.updateState();
@@ -60,7 +60,9 @@ import org.restlet.engine.header.CookieReader;
 import org.restlet.engine.header.ExpectationReader;
 import org.restlet.engine.header.Header;
 import org.restlet.engine.header.HeaderConstants;
+import org.restlet.engine.header.HeaderId;
 import org.restlet.engine.header.HeaderReader;
+import org.restlet.engine.header.HeaderUtils;
 import org.restlet.engine.header.PreferenceReader;
 import org.restlet.engine.header.RangeReader;
 import org.restlet.engine.header.RecipientInfoReader;
@@ -318,8 +320,8 @@ public class HttpInboundRequest extends Request implements InboundRequest {
                 // Set other properties
                 result.setAgent(getHeaders().getValues(
                         HeaderConstants.HEADER_USER_AGENT));
-                result.setFrom(getHeaders().getFirstValue(
-                        HeaderConstants.HEADER_FROM));
+                result.setFrom(HeaderUtils.getFirstValue(getHeaders(),
+                        HeaderId.FROM));
                 result.setAddress(getConnection().getAddress());
                 result.setPort(getConnection().getPort());
 
@@ -375,16 +377,14 @@ public class HttpInboundRequest extends Request implements InboundRequest {
                         HeaderConstants.HEADER_IF_NONE_MATCH);
                 Date ifModifiedSince = null;
                 Date ifUnmodifiedSince = null;
-                String ifRangeHeader = getHeaders().getFirstValue(
-                        HeaderConstants.HEADER_IF_RANGE);
+                String ifRangeHeader = HeaderUtils.getFirstValue(
+                        getHeaders(), HeaderId.IF_RANGE);
 
                 for (Header header : getHeaders()) {
-                    if (header.getName().equalsIgnoreCase(
-                            HeaderConstants.HEADER_IF_MODIFIED_SINCE)) {
+                    if (header.getId() == HeaderId.IF_MODIFIED_SINCE) {
                         ifModifiedSince = HeaderReader.readDate(
                                 header.getValue(), false);
-                    } else if (header.getName().equalsIgnoreCase(
-                            HeaderConstants.HEADER_IF_UNMODIFIED_SINCE)) {
+                    } else if (header.getId() == HeaderId.IF_UNMODIFIED_SINCE) {
                         ifUnmodifiedSince = HeaderReader.readDate(
                                 header.getValue(), false);
                     }
@@ -658,8 +658,7 @@ public class HttpInboundRequest extends Request implements InboundRequest {
         }
 
         // Parse the host header
-        String host = (getHeaders() == null) ? null : getHeaders()
-                .getFirstValue(HeaderConstants.HEADER_HOST, true);
+        String host = HeaderUtils.getFirstValue(getHeaders(), HeaderId.HOST);
         String hostDomain = null;
         int hostPort = -1;
 
@@ -733,8 +732,8 @@ public class HttpInboundRequest extends Request implements InboundRequest {
         }
 
         // Set the request date
-        String dateHeader = (getHeaders() == null) ? null : getHeaders()
-                .getFirstValue(HeaderConstants.HEADER_DATE);
+        String dateHeader = HeaderUtils.getFirstValue(getHeaders(),
+                HeaderId.DATE);
         Date date = null;
         if (dateHeader != null) {
             date = DateUtils.parse(dateHeader);
@@ -747,8 +746,8 @@ public class HttpInboundRequest extends Request implements InboundRequest {
         setDate(date);
 
         // Set the max forwards
-        String maxForwardsHeader = (getHeaders() == null) ? null : getHeaders()
-                .getFirstValue(HeaderConstants.HEADER_MAX_FORWARDS);
+        String maxForwardsHeader = HeaderUtils.getFirstValue(getHeaders(),
+                HeaderId.MAX_FORWARDS);
         if (maxForwardsHeader != null) {
             try {
                 setMaxForwards(Integer.parseInt(maxForwardsHeader));
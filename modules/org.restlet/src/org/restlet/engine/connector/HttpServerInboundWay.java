@@ -143,8 +143,13 @@ public class HttpServerInboundWay extends ServerInboundWay {
 
         if ((getIoState() == IoState.IDLE) && getMessages().isEmpty()
                 && outboundMessages.isEmpty()) {
-            // Read the next request
-            setIoState(IoState.INTEREST);
+            if (getBuffer().isEmpty()) {
+                // Read the next request
+                setIoState(IoState.INTEREST);
+            } else {
+                // Parse the next pipelined request already buffered
+                setIoState(IoState.READY);
+            }
         }
 
         super.updateState();
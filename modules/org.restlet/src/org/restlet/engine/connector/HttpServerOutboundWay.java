@@ -87,6 +87,7 @@ public class HttpServerOutboundWay extends ServerOutboundWay {
     @Override
     protected void handle(Response response) {
         getMessages().add(response);
+        getConnection().requestControl();
     }
 
     @Override
@@ -68,6 +68,12 @@ public abstract class InboundWay extends Way {
     /** The NIO selection registration of the entity. */
     private volatile SelectionRegistration entityRegistration;
 
+    /**
+     * The index of the carriage return ending the header line available in
+     * place in the buffer, or -1.
+     */
+    private volatile int headerLineEnd;
+
     /**
      * Constructor.
      * 
@@ -79,6 +85,7 @@ public abstract class InboundWay extends Way {
     public InboundWay(Connection<?> connection, int bufferSize) {
         super(connection, bufferSize);
         this.builderIndex = 0;
+        this.headerLineEnd = -1;
     }
 
     @Override
@@ -86,6 +93,7 @@ public abstract class InboundWay extends Way {
         super.clear();
         this.builderIndex = 0;
         this.entityRegistration = null;
+        this.headerLineEnd = -1;
     }
 
     /**
@@ -145,21 +153,32 @@ public abstract class InboundWay extends Way {
     }
 
     /**
-     * Read the current message line (start line or header line).
+     * Read the current message line (start line or header line). Complete
+     * header lines are left in place in the buffer and parsed directly from
+     * its bytes by {@link #readHeader()}.
      * 
      * @return True if the line is ready for reading.
      * @throws IOException
      */
     protected boolean fillLine() throws IOException {
         boolean result = false;
-        setLineBuilderState(getBuffer().drain(getLineBuilder(),
-                getLineBuilderState()));
 
-        if (getLineBuilderState() == BufferState.DRAINING) {
-            result = true;
+        if ((getMessageState() == MessageState.HEADERS)
+                && (getLineBuilderState() == BufferState.IDLE)) {
+            this.headerLineEnd = HeadParser.getLineEnd(getBuffer().getBytes());
+            result = (this.headerLineEnd != -1);
+        }
+
+        if (!result) {
+            setLineBuilderState(getBuffer().drain(getLineBuilder(),
+                    getLineBuilderState()));
 
-            if (getLogger().isLoggable(Level.FINE)) {
-                getLogger().log(Level.FINE, getLineBuilder().toString());
+            if (getLineBuilderState() == BufferState.DRAINING) {
+                result = true;
+
+                if (getLogger().isLoggable(Level.FINE)) {
+                    getLogger().log(Level.FINE, getLineBuilder().toString());
+                }
             }
         }
 
@@ -240,6 +259,7 @@ public abstract class InboundWay extends Way {
                                         + getConnection().getSocketAddress());
                     }
 
+                    setMessageStartTime(System.nanoTime());
                     readStartLine();
                 }
             } else if (getMessageState() == MessageState.HEADERS) {
@@ -253,6 +273,13 @@ public abstract class InboundWay extends Way {
                     getHeaders().add(header);
                 } else {
                     // All headers received
+                    if (getMessageStartTime() != 0L) {
+                        getHelper().getMetrics().getParseLatencyHistogram()
+                                .record(System.nanoTime()
+                                        - getMessageStartTime());
+                        setMessageStartTime(0L);
+                    }
+
                     onReceived();
                 }
             }
@@ -355,8 +382,22 @@ public abstract class InboundWay extends Way {
      * @throws IOException
      */
     protected Header readHeader() throws IOException {
-        Header header = HeaderReader.readHeader(getLineBuilder());
-        clearLineBuilder();
+        Header header = null;
+
+        if (this.headerLineEnd != -1) {
+            int lineEnd = this.headerLineEnd;
+            this.headerLineEnd = -1;
+            header = HeadParser.readHeader(getBuffer().getBytes(), lineEnd);
+
+            if ((header != null) && getLogger().isLoggable(Level.FINE)) {
+                getLogger().log(Level.FINE,
+                        header.getName() + ": " + header.getValue());
+            }
+        } else {
+            header = HeaderReader.readHeader(getLineBuilder());
+            clearLineBuilder();
+        }
+
         return header;
     }
 
@@ -385,6 +426,11 @@ public abstract class InboundWay extends Way {
      */
     protected void setEntityRegistration(
             SelectionRegistration entityRegistration) {
+        if (entityRegistration != null) {
+            // Worker threads reading the entity update its registration
+            entityRegistration.setUpdateListener(getConnection());
+        }
+
         this.entityRegistration = entityRegistration;
     }
 
@@ -34,6 +34,8 @@
 package org.restlet.engine.connector;
 
 import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
 import java.nio.channels.ReadableByteChannel;
 import java.nio.channels.SelectableChannel;
@@ -43,19 +45,28 @@ import java.util.logging.Level;
 import org.restlet.Message;
 import org.restlet.Request;
 import org.restlet.Response;
+import org.restlet.data.CharacterSet;
 import org.restlet.data.Protocol;
+import org.restlet.data.Range;
 import org.restlet.data.Status;
 import org.restlet.engine.ConnectorHelper;
+import org.restlet.engine.application.RangeRepresentation;
 import org.restlet.engine.header.Header;
 import org.restlet.engine.header.HeaderConstants;
 import org.restlet.engine.header.HeaderUtils;
 import org.restlet.engine.io.BlockableChannel;
 import org.restlet.engine.io.Buffer;
 import org.restlet.engine.io.IoState;
+import org.restlet.engine.io.NioUtils;
+import org.restlet.engine.io.RangeInputStream;
 import org.restlet.engine.io.ReadableChunkingChannel;
 import org.restlet.engine.io.ReadableSizedChannel;
+import org.restlet.engine.local.MappedFileRepresentation;
 import org.restlet.engine.util.StringUtils;
+import org.restlet.representation.ChannelRepresentation;
+import org.restlet.representation.FileRepresentation;
 import org.restlet.representation.Representation;
+import org.restlet.representation.StringRepresentation;
 import org.restlet.service.ConnectorService;
 import org.restlet.util.Series;
 
@@ -93,6 +104,22 @@ public abstract class OutboundWay extends Way {
      */
     private volatile SelectionKey entitySelectionKey;
 
+    /** The position of the next byte to transfer from the file entity. */
+    private volatile long filePosition;
+
+    /** The number of bytes remaining to transfer from the file entity. */
+    private volatile long fileRemaining;
+
+    /** The bytes ending a chunk encoded file entity, or null. */
+    private volatile byte[] fileTrailer;
+
+    /**
+     * The byte buffers holding the head and the in-memory entity of the
+     * message, written to the socket channel in a single gathering write, or
+     * null.
+     */
+    private volatile ByteBuffer[] gatheredBuffers;
+
     /** The header index. */
     private volatile int headerIndex;
 
@@ -161,12 +188,33 @@ public abstract class OutboundWay extends Way {
 
     @Override
     public void clear() {
+        closeFileChannel();
         super.clear();
         this.entityChannel = null;
         this.entitySelectionKey = null;
+        this.gatheredBuffers = null;
         this.headerIndex = 0;
     }
 
+    /**
+     * Closes the file channel of the entity if it was transferred directly to
+     * the socket channel.
+     */
+    protected void closeFileChannel() {
+        if (getEntityChannelType() == EntityType.TRANSFERABLE) {
+            setEntityChannelType(null);
+
+            try {
+                getEntityFileChannel().close();
+            } catch (IOException e) {
+                getLogger().log(Level.FINE,
+                        "Unable to close the transferred file channel", e);
+            }
+
+            setEntityChannel(null);
+        }
+    }
+
     /**
      * Returns the entity as a NIO readable byte channel.
      * 
@@ -228,6 +276,78 @@ public abstract class OutboundWay extends Way {
         return entitySelectionKey;
     }
 
+    /**
+     * Returns the buffer of an entity that can be gathered with the head of the
+     * message. In addition to the entities supported by
+     * {@link #getGatherableBytes(Representation)}, the mapped region of a
+     * {@link MappedFileRepresentation} without range is directly gathered,
+     * whatever its size.
+     * 
+     * @param entity
+     *            The entity to write.
+     * @return The entity buffer or null if the entity can't be gathered.
+     */
+    protected ByteBuffer getGatherableBuffer(Representation entity) {
+        ByteBuffer result = null;
+
+        if (entity instanceof MappedFileRepresentation) {
+            if ((entity.getRange() == null) && entity.isAvailable()) {
+                result = ((MappedFileRepresentation) entity).getBuffer();
+
+                if (result.remaining() != entity.getAvailableSize()) {
+                    result = null;
+                }
+            }
+        } else {
+            byte[] bytes = getGatherableBytes(entity);
+
+            if (bytes != null) {
+                result = ByteBuffer.wrap(bytes);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the bytes of an entity that can be gathered with the head of the
+     * message. Only {@link StringRepresentation} instances without range,
+     * smaller than the maximum gathering size and whose encoded length matches
+     * their announced size are gathered.
+     * 
+     * @param entity
+     *            The entity to write.
+     * @return The entity bytes or null if the entity can't be gathered.
+     */
+    protected byte[] getGatherableBytes(Representation entity) {
+        byte[] result = null;
+
+        if ((entity instanceof StringRepresentation)
+                && (entity.getRange() == null)) {
+            long size = entity.getAvailableSize();
+            String text = entity.isAvailable() ? ((StringRepresentation) entity)
+                    .getText() : null;
+
+            if ((text != null) && (size >= 0)
+                    && (size <= getHelper().getGatheringMaxSize())) {
+                CharacterSet charset = (entity.getCharacterSet() == null) ? CharacterSet.ISO_8859_1
+                        : entity.getCharacterSet();
+
+                try {
+                    result = text.getBytes(charset.getName());
+
+                    if (result.length != size) {
+                        result = null;
+                    }
+                } catch (UnsupportedEncodingException e) {
+                    result = null;
+                }
+            }
+        }
+
+        return result;
+    }
+
     /**
      * Returns the header index.
      * 
@@ -264,11 +384,21 @@ public abstract class OutboundWay extends Way {
      */
     protected boolean hasIoInterest() {
         return (getMessageState() == MessageState.START)
-                || getBuffer().canDrain();
+                || getBuffer().canDrain() || getBuffer().couldDrain();
+    }
+
+    @Override
+    public void onClosed() {
+        closeFileChannel();
+        this.gatheredBuffers = null;
+        super.onClosed();
     }
 
     @Override
     public void onCompleted(boolean endReached) {
+        closeFileChannel();
+        this.gatheredBuffers = null;
+
         if (getActualMessage() != null) {
             Representation messageEntity = getActualMessage().getEntity();
 
@@ -286,6 +416,12 @@ public abstract class OutboundWay extends Way {
             }
         }
 
+        if (getMessageStartTime() != 0L) {
+            getHelper().getMetrics().getWriteLatencyHistogram()
+                    .record(System.nanoTime() - getMessageStartTime());
+            setMessageStartTime(0L);
+        }
+
         super.onCompleted(endReached);
         setHeaderIndex(0);
 
@@ -334,9 +470,21 @@ public abstract class OutboundWay extends Way {
     public int onFill(Buffer buffer, Object... args) throws IOException {
         int remaining = buffer.remaining();
 
+        if ((getMessageState() == MessageState.START)
+                && (getLineBuilder().length() == 0) && buffer.isEmpty()
+                && getConnection().canGatherWrites()) {
+            prepareGathering();
+        }
+
         // Write the message or part of it in the byte
         // buffer
-        if (getMessageState() == MessageState.BODY) {
+        if ((getMessageState() == MessageState.BODY)
+                && (this.gatheredBuffers != null)) {
+            return onGather();
+        } else if ((getMessageState() == MessageState.BODY)
+                && (getEntityChannelType() == EntityType.TRANSFERABLE)) {
+            return onTransfer(buffer);
+        } else if (getMessageState() == MessageState.BODY) {
             int filled = buffer.fill(getEntityChannel());
 
             // Detect end of entity reached
@@ -385,9 +533,123 @@ public abstract class OutboundWay extends Way {
     public void onFillEof() {
     }
 
+    /**
+     * Writes the gathered head and in-memory entity of the message directly to
+     * the socket channel, in a single system call when possible. The number of
+     * bytes written is returned so that the processing loop continues to call
+     * back this method while the socket channel accepts more bytes.
+     * 
+     * @return The number of bytes written, or -1 if the end of the message was
+     *         reached.
+     * @throws IOException
+     */
+    protected int onGather() throws IOException {
+        int result = 0;
+        ByteBuffer[] buffers = this.gatheredBuffers;
+        boolean remaining = false;
+
+        for (int i = 0; !remaining && (i < buffers.length); i++) {
+            remaining = buffers[i].hasRemaining();
+        }
+
+        if (remaining) {
+            long written = getConnection().getSocketChannel().write(buffers);
+
+            if (written > 0) {
+                getConnection().onActivity();
+                onBytesTransferred((int) written);
+                getHelper().getMetrics().onBytesWritten((int) written);
+                result = (int) written;
+
+                if (getLogger().isLoggable(Level.FINER)) {
+                    getLogger().log(Level.FINER,
+                            written + " bytes written by gathering");
+                }
+            }
+        } else {
+            // End of the message
+            this.gatheredBuffers = null;
+            setMessageState(MessageState.END);
+            result = -1;
+        }
+
+        return result;
+    }
+
+    /**
+     * Transfers the file entity directly to the socket channel. The remaining
+     * line builder content is first filled in the byte buffer, which must then
+     * be fully drained before the file bytes are transferred, in order to
+     * preserve the ordering of bytes. The number of bytes transferred is
+     * returned so that the processing loop continues to call back this method
+     * while the socket channel accepts more bytes.
+     * 
+     * @param buffer
+     *            The IO buffer.
+     * @return The number of bytes filled or transferred, or -1 if the end of
+     *         the entity was reached.
+     * @throws IOException
+     */
+    protected int onTransfer(Buffer buffer) throws IOException {
+        int result = 0;
+
+        if (getLineBuilder().length() > 0) {
+            // Finish writing the headers and the optional chunk size
+            int remaining = buffer.remaining();
+
+            if (remaining >= getLineBuilder().length()) {
+                result = getLineBuilder().length();
+                buffer.fill(StringUtils.getLatin1Bytes(getLineBuilder()
+                        .toString()));
+                clearLineBuilder();
+            } else {
+                result = remaining;
+                buffer.fill(StringUtils.getLatin1Bytes(getLineBuilder()
+                        .substring(0, remaining)));
+                getLineBuilder().delete(0, remaining);
+            }
+        } else if (buffer.isEmpty()) {
+            if (this.fileRemaining > 0) {
+                long transferred = getEntityFileChannel().transferTo(
+                        this.filePosition, this.fileRemaining,
+                        getConnection().getSocketChannel());
+
+                if (transferred > 0) {
+                    this.filePosition += transferred;
+                    this.fileRemaining -= transferred;
+                    getConnection().onActivity();
+                    onBytesTransferred((int) transferred);
+                    getHelper().getMetrics().onBytesWritten((int) transferred);
+                    result = (int) transferred;
+
+                    if (getLogger().isLoggable(Level.FINER)) {
+                        getLogger().log(Level.FINER,
+                                transferred + " bytes transferred");
+                    }
+                }
+            } else {
+                // End of the file entity
+                closeFileChannel();
+                setMessageState(MessageState.END);
+
+                if (this.fileTrailer != null) {
+                    // Write the last chunk
+                    buffer.fill(this.fileTrailer);
+                    result = this.fileTrailer.length;
+                    this.fileTrailer = null;
+                } else {
+                    result = -1;
+                }
+            }
+        }
+
+        return result;
+    }
+
     @Override
     protected void onPostProcessing() {
-        if ((getMessageState() != MessageState.IDLE) || getBuffer().canDrain()) {
+        if ((getMessageState() != MessageState.IDLE) || getBuffer().canDrain()
+                || getBuffer().couldDrain()) {
             super.onPostProcessing();
         }
     }
@@ -417,6 +679,162 @@ public abstract class OutboundWay extends Way {
         return result;
     }
 
+    /**
+     * Prepares the gathering write of the current message if its entity is
+     * absent, is a small {@link StringRepresentation} whose bytes can be
+     * obtained without blocking or is a memory-mapped file. In this case, the
+     * head and the entity bytes are encoded into the gathered buffers and the
+     * message state is set to {@link MessageState#BODY}. Otherwise, the headers
+     * computed are kept for the regular line by line writing.
+     * 
+     * @throws IOException
+     */
+    protected void prepareGathering() throws IOException {
+        setMessageStartTime(System.nanoTime());
+        setHeaders(new Series<Header>(Header.class));
+        setHeaderIndex(0);
+        addHeaders(getHeaders());
+        ByteBuffer entityBuffer = null;
+
+        if (getActualMessage().isEntityAvailable()) {
+            entityBuffer = getGatherableBuffer(getActualMessage().getEntity());
+
+            if (entityBuffer == null) {
+                return;
+            }
+        }
+
+        if (getHelper().getLogger().isLoggable(Level.FINE)) {
+            getHelper().getLogger().log(Level.FINE,
+                    "Writing message to " + getConnection().getSocketAddress());
+        }
+
+        writeStartLine();
+        ByteBuffer head = HeadEncoder.encode(getLineBuilder(), getHeaders());
+
+        if (getLogger().isLoggable(Level.FINE)) {
+            String line = getLineBuilder().toString();
+            getLogger().log(Level.FINE, line.substring(0, line.length() - 2));
+
+            for (Header header : getHeaders()) {
+                getLogger().log(Level.FINE,
+                        header.getName() + ": " + header.getValue());
+            }
+        }
+
+        clearLineBuilder();
+        setHeaderIndex(getHeaders().size());
+
+        if (entityBuffer == null) {
+            this.gatheredBuffers = new ByteBuffer[] { head };
+        } else {
+            // Callback connector service before sending entity
+            ConnectorService connectorService = ConnectorHelper
+                    .getConnectorService();
+
+            if (connectorService != null) {
+                connectorService.afterSend(getActualMessage().getEntity());
+            }
+
+            this.gatheredBuffers = new ByteBuffer[] { head, entityBuffer };
+        }
+
+        setMessageState(MessageState.BODY);
+    }
+
+    /**
+     * Prepares the direct transfer of a file entity to the socket channel. The
+     * entity is transferable if it is a {@link FileRepresentation} or a
+     * {@link ChannelRepresentation} backed by a {@link FileChannel}, optionally
+     * wrapped in a {@link RangeRepresentation}. In this case, the entity
+     * channel type is set to {@link EntityType#TRANSFERABLE}. If the channel of
+     * a wrapped representation had to be obtained but isn't transferable, a
+     * channel exposing the expected range is returned and must be used instead
+     * of the entity channel.
+     * 
+     * @param entity
+     *            The entity to write.
+     * @return The channel to write or null if the entity channel should be
+     *         used.
+     * @throws IOException
+     */
+    protected ReadableByteChannel prepareTransfer(Representation entity)
+            throws IOException {
+        ReadableByteChannel result = null;
+
+        if (getConnection().canTransferFiles()) {
+            Representation source = entity;
+            Range range = null;
+
+            if (entity instanceof RangeRepresentation) {
+                source = ((RangeRepresentation) entity)
+                        .getWrappedRepresentation();
+                range = entity.getRange();
+            }
+
+            if ((source instanceof FileRepresentation)
+                    || (source instanceof ChannelRepresentation)) {
+                ReadableByteChannel rbc = source.getChannel();
+
+                if (rbc instanceof FileChannel) {
+                    FileChannel fc = (FileChannel) rbc;
+                    long origin = fc.position();
+                    long total = fc.size() - origin;
+                    long start = 0;
+                    long count = total;
+
+                    if (range == null) {
+                        // Transfer the whole file
+                    } else if (range.getIndex() == Range.INDEX_LAST) {
+                        if (range.getSize() != Range.SIZE_MAX) {
+                            count = Math.min(range.getSize(), total);
+                            start = total - count;
+                        }
+                    } else {
+                        start = Math.min(range.getIndex(), total);
+                        count = total - start;
+
+                        if (range.getSize() != Range.SIZE_MAX) {
+                            count = Math.min(range.getSize(), count);
+                        }
+                    }
+
+                    // Never exceed the announced size
+                    if (entity.getAvailableSize() != Representation.UNKNOWN_SIZE) {
+                        count = Math.min(count, entity.getAvailableSize());
+                    }
+
+                    this.filePosition = origin + start;
+                    this.fileRemaining = count;
+                    this.fileTrailer = null;
+                    setEntityChannel(fc);
+                    setEntityChannelType(EntityType.TRANSFERABLE);
+
+                    if (shouldBeChunked(entity)) {
+                        if (count > 0) {
+                            // Send the whole file as a single chunk
+                            getLineBuilder().append(Long.toHexString(count));
+                            getLineBuilder().append("\r\n");
+                            this.fileTrailer = StringUtils
+                                    .getLatin1Bytes("\r\n0\r\n\r\n");
+                        } else {
+                            this.fileTrailer = StringUtils
+                                    .getLatin1Bytes("0\r\n\r\n");
+                        }
+                    }
+                } else if ((rbc != null) && (range != null)) {
+                    // Expose the range over the channel already obtained
+                    result = NioUtils.getChannel(new RangeInputStream(NioUtils
+                            .getInputStream(rbc), entity.getSize(), range));
+                } else {
+                    result = rbc;
+                }
+            }
+        }
+
+        return result;
+    }
+
     /**
      * Sets the entity as a NIO readable byte channel.
      * 
@@ -498,6 +916,7 @@ public abstract class OutboundWay extends Way {
                                 + getConnection().getSocketAddress());
             }
 
+            setMessageStartTime(System.nanoTime());
             writeStartLine();
             setMessageState(MessageState.HEADERS);
             break;
@@ -537,11 +956,18 @@ public abstract class OutboundWay extends Way {
                     }
 
                     setMessageState(MessageState.BODY);
-                    ReadableByteChannel rbc = getActualMessage().getEntity()
-                            .getChannel();
+                    Representation entity = getActualMessage().getEntity();
+                    ReadableByteChannel rbc = prepareTransfer(entity);
+
+                    if (getEntityChannelType() == EntityType.TRANSFERABLE) {
+                        // The file entity is directly transferred
+                        break;
+                    } else if (rbc == null) {
+                        rbc = entity.getChannel();
+                    }
 
                     if (rbc instanceof FileChannel) {
-                        setEntityChannelType(EntityType.TRANSFERABLE);
+                        setEntityChannelType(EntityType.BLOCKING);
                     } else if (rbc instanceof BlockableChannel) {
                         BlockableChannel bc = (BlockableChannel) rbc;
 
@@ -34,7 +34,6 @@
 package org.restlet.engine.connector;
 
 import java.io.IOException;
-import java.net.InetSocketAddress;
 import java.net.SocketException;
 import java.nio.channels.AsynchronousCloseException;
 import java.nio.channels.ClosedByInterruptException;
@@ -44,7 +43,6 @@ import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 
-import org.restlet.Server;
 import org.restlet.engine.io.IoUtils;
 
 /**
@@ -110,21 +108,17 @@ public class ServerConnectionController extends ConnectionController {
                     if ((getHelper().getMaxTotalConnections() == -1)
                             || (connectionsCount <= getHelper()
                                     .getMaxTotalConnections())) {
-                        Connection<Server> connection = getHelper().checkout(
-                                socketChannel,
-                                this,
-                                (InetSocketAddress) socketChannel.socket()
-                                        .getRemoteSocketAddress());
-                        connection.open();
-                        getHelper().getConnections().add(connection);
+                        ConnectionController owner = getHelper()
+                                .getBestController(
+                                        socketChannel.socket()
+                                                .getRemoteSocketAddress());
 
-                        if (getHelper().getLogger().isLoggable(Level.FINE)) {
-                            getHelper().getLogger().fine(
-                                    "Connection from \""
-                                            + connection.getSocketAddress()
-                                            + "\" accepted. New count: "
-                                            + getHelper().getConnections()
-                                                    .size());
+                        if (owner == this) {
+                            getHelper().open(socketChannel, this);
+                        } else {
+                            // Hand off to the owner's thread so that its
+                            // selection registrations stay local
+                            owner.accept(socketChannel);
                         }
                     } else {
                         // Rejection connection
@@ -34,6 +34,7 @@
 package org.restlet.engine.connector;
 
 import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -63,6 +64,9 @@ public abstract class Way implements SelectionListener, CompletionListener,
     /** The IO buffer. */
     private final Buffer buffer;
 
+    /** The number of bytes transferred through the socket channel. */
+    private final AtomicLong byteCount;
+
     /** The parent connection. */
     private final Connection<?> connection;
 
@@ -81,6 +85,9 @@ public abstract class Way implements SelectionListener, CompletionListener,
     /** The current message exchanged. */
     private volatile Response message;
 
+    /** The start time of the current message exchange, in nanoseconds. */
+    private volatile long messageStartTime;
+
     /** The message state. */
     private volatile MessageState messageState;
 
@@ -97,7 +104,9 @@ public abstract class Way implements SelectionListener, CompletionListener,
      */
     public Way(Connection<?> connection, int bufferSize) {
         this.connection = connection;
-        this.buffer = new Buffer(bufferSize, getHelper().isDirectBuffers());
+        this.buffer = new Buffer(bufferSize, getHelper().getBufferPool(),
+                getHelper().isDirectBuffers());
+        this.byteCount = new AtomicLong();
         this.headers = null;
         this.ioState = IoState.IDLE;
         this.lineBuilder = new StringBuilder();
@@ -121,16 +130,29 @@ public abstract class Way implements SelectionListener, CompletionListener,
                 && ((getIoState() == IoState.PROCESSING) || (getIoState() == IoState.READY));
     }
 
+    /**
+     * Indicates if new messages can be pipelined behind the ones currently
+     * handled by this way. By default, returns false.
+     * 
+     * @return True if new messages can be pipelined.
+     */
+    public boolean canPipeline() {
+        return false;
+    }
+
     /**
      * Recycles the way so it can be reused. Typically invoked by a connection
      * pool.
      */
     public void clear() {
         this.buffer.clear();
+        this.buffer.release();
         this.headers = null;
         this.ioState = IoState.IDLE;
         clearLineBuilder();
+        this.byteCount.set(0L);
         this.message = null;
+        this.messageStartTime = 0L;
         this.messageState = MessageState.IDLE;
         this.registration.clear();
     }
@@ -185,6 +207,16 @@ public abstract class Way implements SelectionListener, CompletionListener,
         return buffer;
     }
 
+    /**
+     * Returns the number of bytes transferred through the socket channel since
+     * the way was created or recycled.
+     * 
+     * @return The number of bytes transferred.
+     */
+    public long getByteCount() {
+        return byteCount.get();
+    }
+
     /**
      * Returns the parent connection.
      * 
@@ -274,6 +306,16 @@ public abstract class Way implements SelectionListener, CompletionListener,
         return message;
     }
 
+    /**
+     * Returns the start time of the current message exchange, in nanoseconds,
+     * or 0 if no exchange is being timed.
+     * 
+     * @return The start time of the current message exchange.
+     */
+    protected long getMessageStartTime() {
+        return messageStartTime;
+    }
+
     /**
      * Returns the message state.
      * 
@@ -313,6 +355,17 @@ public abstract class Way implements SelectionListener, CompletionListener,
         return getBuffer().isEmpty();
     }
 
+    /**
+     * Callback method invoked when bytes have been transferred through the
+     * socket channel.
+     * 
+     * @param count
+     *            The number of bytes transferred.
+     */
+    public void onBytesTransferred(int count) {
+        this.byteCount.addAndGet(count);
+    }
+
     /**
      * Callback method invoked when the parent connection is ready to be closed.
      */
@@ -322,6 +375,7 @@ public abstract class Way implements SelectionListener, CompletionListener,
         setMessage(null);
         setHeaders(null);
         getBuffer().clear();
+        getBuffer().release();
     }
 
     /**
@@ -418,6 +472,11 @@ public abstract class Way implements SelectionListener, CompletionListener,
             } else if ((getIoState() == IoState.PROCESSING)) {
                 onPostProcessing();
             }
+
+            if (getMessage() == null) {
+                // No bytes in flight, give the byte buffer back to the pool
+                getBuffer().release();
+            }
         } catch (Exception e) {
             getConnection().onError("Error while processing a connection", e,
                     Status.CONNECTOR_ERROR_COMMUNICATION);
@@ -480,6 +539,7 @@ public abstract class Way implements SelectionListener, CompletionListener,
             }
 
             this.ioState = ioState;
+            getConnection().requestControl();
         }
     }
 
@@ -500,7 +560,20 @@ public abstract class Way implements SelectionListener, CompletionListener,
      *            The current message processed.
      */
     protected void setMessage(Response message) {
-        this.message = message;
+        if (this.message != message) {
+            this.message = message;
+            getConnection().requestControl();
+        }
+    }
+
+    /**
+     * Sets the start time of the current message exchange, in nanoseconds.
+     * 
+     * @param messageStartTime
+     *            The start time of the current message exchange, or 0.
+     */
+    protected void setMessageStartTime(long messageStartTime) {
+        this.messageStartTime = messageStartTime;
     }
 
     /**
@@ -512,6 +585,7 @@ public abstract class Way implements SelectionListener, CompletionListener,
     protected void setMessageState(MessageState messageState) {
         if (this.messageState != messageState) {
             this.messageState = messageState;
+            getConnection().requestControl();
 
             if (getLogger().isLoggable(Level.FINEST)) {
                 if (this instanceof OutboundWay) {
@@ -539,7 +613,8 @@ public abstract class Way implements SelectionListener, CompletionListener,
 
     @Override
     public String toString() {
-        return getIoState() + ", " + getMessageState() + ", " + getBuffer();
+        return getIoState() + ", " + getMessageState() + ", " + getBuffer()
+                + ", " + getByteCount() + " bytes";
     }
 
     /**
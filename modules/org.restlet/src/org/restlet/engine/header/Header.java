@@ -43,6 +43,9 @@ import org.restlet.util.NamedValue;
  */
 public class Header implements NamedValue<String> {
 
+    /** The identifier, lazily resolved from the name. */
+    private volatile HeaderId id;
+
     /** The name. */
     private volatile String name;
 
@@ -95,6 +98,24 @@ public class Header implements NamedValue<String> {
         return result;
     }
 
+    /**
+     * Returns the identifier of the header. It is resolved from the name
+     * once, then cached until the name changes.
+     * 
+     * @return The identifier, {@link HeaderId#UNKNOWN} if the header isn't
+     *         well-known.
+     */
+    public HeaderId getId() {
+        HeaderId result = this.id;
+
+        if (result == null) {
+            result = HeaderId.get(getName());
+            this.id = result;
+        }
+
+        return result;
+    }
+
     /**
      * Returns the name.
      * 
@@ -127,6 +148,7 @@ public class Header implements NamedValue<String> {
      */
     public void setName(String name) {
         this.name = name;
+        this.id = null;
     }
 
     /**
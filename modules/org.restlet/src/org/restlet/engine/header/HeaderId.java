@@ -0,0 +1,349 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.engine.header;
+
+import java.util.Arrays;
+
+/**
+ * Numeric identifiers of the well-known headers declared in
+ * {@link HeaderConstants}. A header name is resolved to its identifier with a
+ * case insensitive perfect hash table computed when the class is loaded, so
+ * that header processing can dispatch with a switch instead of chains of
+ * string comparisons.
+ * 
+ * @author Jerome Louvel
+ * @see Header#getId()
+ */
+public enum HeaderId {
+
+    /** The "Accept" header. */
+    ACCEPT(HeaderConstants.HEADER_ACCEPT),
+
+    /** The "Accept-Charset" header. */
+    ACCEPT_CHARSET(HeaderConstants.HEADER_ACCEPT_CHARSET),
+
+    /** The "Accept-Encoding" header. */
+    ACCEPT_ENCODING(HeaderConstants.HEADER_ACCEPT_ENCODING),
+
+    /** The "Accept-Language" header. */
+    ACCEPT_LANGUAGE(HeaderConstants.HEADER_ACCEPT_LANGUAGE),
+
+    /** The "Accept-Ranges" header. */
+    ACCEPT_RANGES(HeaderConstants.HEADER_ACCEPT_RANGES),
+
+    /** The "Age" header. */
+    AGE(HeaderConstants.HEADER_AGE),
+
+    /** The "Allow" header. */
+    ALLOW(HeaderConstants.HEADER_ALLOW),
+
+    /** The "Authentication-Info" header. */
+    AUTHENTICATION_INFO(HeaderConstants.HEADER_AUTHENTICATION_INFO),
+
+    /** The "Authorization" header. */
+    AUTHORIZATION(HeaderConstants.HEADER_AUTHORIZATION),
+
+    /** The "Cache-Control" header. */
+    CACHE_CONTROL(HeaderConstants.HEADER_CACHE_CONTROL),
+
+    /** The "Connection" header. */
+    CONNECTION(HeaderConstants.HEADER_CONNECTION),
+
+    /** The "Content-Disposition" header. */
+    CONTENT_DISPOSITION(HeaderConstants.HEADER_CONTENT_DISPOSITION),
+
+    /** The "Content-Encoding" header. */
+    CONTENT_ENCODING(HeaderConstants.HEADER_CONTENT_ENCODING),
+
+    /** The "Content-Language" header. */
+    CONTENT_LANGUAGE(HeaderConstants.HEADER_CONTENT_LANGUAGE),
+
+    /** The "Content-Length" header. */
+    CONTENT_LENGTH(HeaderConstants.HEADER_CONTENT_LENGTH),
+
+    /** The "Content-Location" header. */
+    CONTENT_LOCATION(HeaderConstants.HEADER_CONTENT_LOCATION),
+
+    /** The "Content-MD5" header. */
+    CONTENT_MD5(HeaderConstants.HEADER_CONTENT_MD5),
+
+    /** The "Content-Range" header. */
+    CONTENT_RANGE(HeaderConstants.HEADER_CONTENT_RANGE),
+
+    /** The "Content-Type" header. */
+    CONTENT_TYPE(HeaderConstants.HEADER_CONTENT_TYPE),
+
+    /** The "Cookie" header. */
+    COOKIE(HeaderConstants.HEADER_COOKIE),
+
+    /** The "Date" header. */
+    DATE(HeaderConstants.HEADER_DATE),
+
+    /** The "ETag" header. */
+    ETAG(HeaderConstants.HEADER_ETAG),
+
+    /** The "Expect" header. */
+    EXPECT(HeaderConstants.HEADER_EXPECT),
+
+    /** The "Expires" header. */
+    EXPIRES(HeaderConstants.HEADER_EXPIRES),
+
+    /** The "From" header. */
+    FROM(HeaderConstants.HEADER_FROM),
+
+    /** The "Host" header. */
+    HOST(HeaderConstants.HEADER_HOST),
+
+    /** The "If-Match" header. */
+    IF_MATCH(HeaderConstants.HEADER_IF_MATCH),
+
+    /** The "If-Modified-Since" header. */
+    IF_MODIFIED_SINCE(HeaderConstants.HEADER_IF_MODIFIED_SINCE),
+
+    /** The "If-None-Match" header. */
+    IF_NONE_MATCH(HeaderConstants.HEADER_IF_NONE_MATCH),
+
+    /** The "If-Range" header. */
+    IF_RANGE(HeaderConstants.HEADER_IF_RANGE),
+
+    /** The "If-Unmodified-Since" header. */
+    IF_UNMODIFIED_SINCE(HeaderConstants.HEADER_IF_UNMODIFIED_SINCE),
+
+    /** The "Last-Modified" header. */
+    LAST_MODIFIED(HeaderConstants.HEADER_LAST_MODIFIED),
+
+    /** The "Location" header. */
+    LOCATION(HeaderConstants.HEADER_LOCATION),
+
+    /** The "Max-Forwards" header. */
+    MAX_FORWARDS(HeaderConstants.HEADER_MAX_FORWARDS),
+
+    /** The "Pragma" header. */
+    PRAGMA(HeaderConstants.HEADER_PRAGMA),
+
+    /** The "Proxy-Authenticate" header. */
+    PROXY_AUTHENTICATE(HeaderConstants.HEADER_PROXY_AUTHENTICATE),
+
+    /** The "Proxy-Authorization" header. */
+    PROXY_AUTHORIZATION(HeaderConstants.HEADER_PROXY_AUTHORIZATION),
+
+    /** The "Range" header. */
+    RANGE(HeaderConstants.HEADER_RANGE),
+
+    /** The "Referer" header. */
+    REFERRER(HeaderConstants.HEADER_REFERRER),
+
+    /** The "Retry-After" header. */
+    RETRY_AFTER(HeaderConstants.HEADER_RETRY_AFTER),
+
+    /** The "Server" header. */
+    SERVER(HeaderConstants.HEADER_SERVER),
+
+    /** The "Set-Cookie" header. */
+    SET_COOKIE(HeaderConstants.HEADER_SET_COOKIE),
+
+    /** The "Set-Cookie2" header. */
+    SET_COOKIE2(HeaderConstants.HEADER_SET_COOKIE2),
+
+    /** The "Slug" header. */
+    SLUG(HeaderConstants.HEADER_SLUG),
+
+    /** The "Trailer" header. */
+    TRAILER(HeaderConstants.HEADER_TRAILER),
+
+    /** The "Transfer-Encoding" header. */
+    TRANSFER_ENCODING(HeaderConstants.HEADER_TRANSFER_ENCODING),
+
+    /** The "TE" header. */
+    TRANSFER_EXTENSION(HeaderConstants.HEADER_TRANSFER_EXTENSION),
+
+    /** The "Upgrade" header. */
+    UPGRADE(HeaderConstants.HEADER_UPGRADE),
+
+    /** The "User-Agent" header. */
+    USER_AGENT(HeaderConstants.HEADER_USER_AGENT),
+
+    /** The "Vary" header. */
+    VARY(HeaderConstants.HEADER_VARY),
+
+    /** The "Via" header. */
+    VIA(HeaderConstants.HEADER_VIA),
+
+    /** The "Warning" header. */
+    WARNING(HeaderConstants.HEADER_WARNING),
+
+    /** The "WWW-Authenticate" header. */
+    WWW_AUTHENTICATE(HeaderConstants.HEADER_WWW_AUTHENTICATE),
+
+    /** The "X-Forwarded-For" header. */
+    X_FORWARDED_FOR(HeaderConstants.HEADER_X_FORWARDED_FOR),
+
+    /** The "X-HTTP-Method-Override" header. */
+    X_HTTP_METHOD_OVERRIDE(HeaderConstants.HEADER_X_HTTP_METHOD_OVERRIDE),
+
+    /** Identifies the headers that aren't well-known. */
+    UNKNOWN(null);
+
+    /** The size of the perfect hash table, a power of two. */
+    private static final int TABLE_SIZE = 512;
+
+    /** The hash multiplier, chosen so that the well-known names don't collide. */
+    private static final int MULTIPLIER;
+
+    /** The perfect hash table of the well-known headers. */
+    private static final HeaderId[] TABLE = new HeaderId[TABLE_SIZE];
+
+    static {
+        int multiplier = 31;
+        boolean collision = true;
+
+        while (collision) {
+            collision = false;
+            Arrays.fill(TABLE, null);
+
+            for (HeaderId id : values()) {
+                if (!collision && (id != UNKNOWN)) {
+                    int hash = 0;
+
+                    for (int i = 0; i < id.getName().length(); i++) {
+                        hash = hash * multiplier
+                                + (id.getName().charAt(i) | 0x20);
+                    }
+
+                    int slot = slot(hash);
+
+                    if (TABLE[slot] == null) {
+                        TABLE[slot] = id;
+                    } else {
+                        collision = true;
+                        multiplier += 2;
+                    }
+                }
+            }
+        }
+
+        MULTIPLIER = multiplier;
+    }
+
+    /**
+     * Returns the identifier of a header name, ignoring the case.
+     * 
+     * @param name
+     *            The header name.
+     * @return The header identifier, {@link #UNKNOWN} if the header isn't
+     *         well-known.
+     */
+    public static HeaderId get(String name) {
+        HeaderId result = UNKNOWN;
+
+        if (name != null) {
+            int hash = 0;
+
+            for (int i = 0; i < name.length(); i++) {
+                hash = hash(hash, name.charAt(i));
+            }
+
+            HeaderId candidate = getCandidate(hash);
+
+            if ((candidate != null)
+                    && ((candidate.getName() == name) || candidate.getName()
+                            .equalsIgnoreCase(name))) {
+                result = candidate;
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the only well-known header that could match a name hash computed
+     * with {@link #hash(int, int)}. The name must still be compared with the
+     * candidate.
+     * 
+     * @param hash
+     *            The name hash.
+     * @return The candidate header identifier or null.
+     */
+    public static HeaderId getCandidate(int hash) {
+        return TABLE[slot(hash)];
+    }
+
+    /**
+     * Updates a case insensitive header name hash with the next character of
+     * the name. The hash starts with 0.
+     * 
+     * @param hash
+     *            The current hash.
+     * @param character
+     *            The next character.
+     * @return The updated hash.
+     */
+    public static int hash(int hash, int character) {
+        return hash * MULTIPLIER + (character | 0x20);
+    }
+
+    /**
+     * Returns the index of a header name in the perfect hash table.
+     * 
+     * @param hash
+     *            The header name hash.
+     * @return The table index.
+     */
+    private static int slot(int hash) {
+        return (hash ^ (hash >>> 16)) & (TABLE_SIZE - 1);
+    }
+
+    /** The header name. */
+    private final String name;
+
+    /**
+     * Constructor.
+     * 
+     * @param name
+     *            The header name.
+     */
+    private HeaderId(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Returns the header name as declared in {@link HeaderConstants}.
+     * 
+     * @return The header name.
+     */
+    public String getName() {
+        return name;
+    }
+
+}
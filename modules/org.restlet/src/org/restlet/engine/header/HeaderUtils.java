@@ -617,11 +617,12 @@ public class HeaderUtils {
             Response response) {
         if (headers != null) {
             for (Header header : headers) {
-                if (header.getName().equalsIgnoreCase(
-                        HeaderConstants.HEADER_LOCATION)) {
+                switch (header.getId()) {
+                case LOCATION:
                     response.setLocationRef(header.getValue());
-                } else if (header.getName().equalsIgnoreCase(
-                        HeaderConstants.HEADER_AGE)) {
+                    break;
+
+                case AGE:
                     try {
                         response.setAge(Integer.parseInt(header.getValue()));
                     } catch (NumberFormatException nfe) {
@@ -630,8 +631,9 @@ public class HeaderUtils {
                                 "Error during Age header parsing. Header: "
                                         + header.getValue(), nfe);
                     }
-                } else if (header.getName().equalsIgnoreCase(
-                        HeaderConstants.HEADER_DATE)) {
+                    break;
+
+                case DATE:
                     Date date = DateUtils.parse(header.getValue());
 
                     if (date == null) {
@@ -639,8 +641,9 @@ public class HeaderUtils {
                     }
 
                     response.setDate(date);
-                } else if (header.getName().equalsIgnoreCase(
-                        HeaderConstants.HEADER_RETRY_AFTER)) {
+                    break;
+
+                case RETRY_AFTER:
                     // [ifndef gwt]
                     Date retryAfter = DateUtils.parse(header.getValue());
 
@@ -664,10 +667,10 @@ public class HeaderUtils {
 
                     response.setRetryAfter(retryAfter);
                     // [enddef]
-                } else if ((header.getName()
-                        .equalsIgnoreCase(HeaderConstants.HEADER_SET_COOKIE))
-                        || (header.getName()
-                                .equalsIgnoreCase(HeaderConstants.HEADER_SET_COOKIE2))) {
+                    break;
+
+                case SET_COOKIE:
+                case SET_COOKIE2:
                     try {
                         CookieSettingReader cr = new CookieSettingReader(
                                 header.getValue());
@@ -678,53 +681,67 @@ public class HeaderUtils {
                                 "Error during cookie setting parsing. Header: "
                                         + header.getValue(), e);
                     }
-                } else if (header.getName().equalsIgnoreCase(
-                        HeaderConstants.HEADER_WWW_AUTHENTICATE)) {
+                    break;
+
+                case WWW_AUTHENTICATE:
                     // [ifndef gwt]
                     List<ChallengeRequest> crs = org.restlet.engine.security.AuthenticatorUtils
                             .parseRequest(response, header.getValue(), headers);
                     response.getChallengeRequests().addAll(crs);
                     // [enddef]
-                } else if (header.getName().equalsIgnoreCase(
-                        HeaderConstants.HEADER_PROXY_AUTHENTICATE)) {
+                    break;
+
+                case PROXY_AUTHENTICATE:
                     // [ifndef gwt]
-                    List<ChallengeRequest> crs = org.restlet.engine.security.AuthenticatorUtils
+                    List<ChallengeRequest> pcrs = org.restlet.engine.security.AuthenticatorUtils
                             .parseRequest(response, header.getValue(), headers);
-                    response.getProxyChallengeRequests().addAll(crs);
+                    response.getProxyChallengeRequests().addAll(pcrs);
                     // [enddef]
-                } else if (header.getName().equalsIgnoreCase(
-                        HeaderConstants.HEADER_AUTHENTICATION_INFO)) {
+                    break;
+
+                case AUTHENTICATION_INFO:
                     // [ifndef gwt]
                     AuthenticationInfo authenticationInfo = org.restlet.engine.security.AuthenticatorUtils
                             .parseAuthenticationInfo(header.getValue());
                     response.setAuthenticationInfo(authenticationInfo);
                     // [enddef]
-                } else if (header.getName().equalsIgnoreCase(
-                        HeaderConstants.HEADER_SERVER)) {
+                    break;
+
+                case SERVER:
                     response.getServerInfo().setAgent(header.getValue());
-                } else if (header.getName().equalsIgnoreCase(
-                        HeaderConstants.HEADER_ALLOW)) {
+                    break;
+
+                case ALLOW:
                     MethodReader
                             .addValues(header, response.getAllowedMethods());
-                } else if (header.getName().equalsIgnoreCase(
-                        HeaderConstants.HEADER_VARY)) {
+                    break;
+
+                case VARY:
                     DimensionReader.addValues(header, response.getDimensions());
-                } else if (header.getName().equalsIgnoreCase(
-                        HeaderConstants.HEADER_VIA)) {
+                    break;
+
+                case VIA:
                     RecipientInfoReader.addValues(header,
                             response.getRecipientsInfo());
-                } else if (header.getName().equalsIgnoreCase(
-                        HeaderConstants.HEADER_WARNING)) {
+                    break;
+
+                case WARNING:
                     WarningReader.addValues(header, response.getWarnings());
-                } else if (header.getName().equalsIgnoreCase(
-                        HeaderConstants.HEADER_CACHE_CONTROL)) {
+                    break;
+
+                case CACHE_CONTROL:
                     CacheDirectiveReader.addValues(header,
                             response.getCacheDirectives());
-                } else if (header.getName().equalsIgnoreCase(
-                        HeaderConstants.HEADER_ACCEPT_RANGES)) {
+                    break;
+
+                case ACCEPT_RANGES:
                     TokenReader tr = new TokenReader(header.getValue());
                     response.getServerInfo().setAcceptingRanges(
                             tr.readValues().contains("bytes"));
+                    break;
+
+                default:
+                    break;
                 }
             }
         }
@@ -750,8 +767,8 @@ public class HeaderUtils {
 
         if (headers != null) {
             for (Header header : headers) {
-                if (header.getName().equalsIgnoreCase(
-                        HeaderConstants.HEADER_CONTENT_TYPE)) {
+                switch (header.getId()) {
+                case CONTENT_TYPE:
                     ContentType contentType = new ContentType(header.getValue());
                     result.setMediaType(contentType.getMediaType());
 
@@ -761,39 +778,47 @@ public class HeaderUtils {
                     }
 
                     entityHeaderFound = true;
-                } else if (header.getName().equalsIgnoreCase(
-                        HeaderConstants.HEADER_CONTENT_LENGTH)) {
+                    break;
+
+                case CONTENT_LENGTH:
                     entityHeaderFound = true;
-                } else if (header.getName().equalsIgnoreCase(
-                        HeaderConstants.HEADER_EXPIRES)) {
+                    break;
+
+                case EXPIRES:
                     result.setExpirationDate(HeaderReader.readDate(
                             header.getValue(), false));
                     entityHeaderFound = true;
-                } else if (header.getName().equalsIgnoreCase(
-                        HeaderConstants.HEADER_CONTENT_ENCODING)) {
+                    break;
+
+                case CONTENT_ENCODING:
                     new EncodingReader(header.getValue()).addValues(result
                             .getEncodings());
                     entityHeaderFound = true;
-                } else if (header.getName().equalsIgnoreCase(
-                        HeaderConstants.HEADER_CONTENT_LANGUAGE)) {
+                    break;
+
+                case CONTENT_LANGUAGE:
                     new LanguageReader(header.getValue()).addValues(result
                             .getLanguages());
                     entityHeaderFound = true;
-                } else if (header.getName().equalsIgnoreCase(
-                        HeaderConstants.HEADER_LAST_MODIFIED)) {
+                    break;
+
+                case LAST_MODIFIED:
                     result.setModificationDate(HeaderReader.readDate(
                             header.getValue(), false));
                     entityHeaderFound = true;
-                } else if (header.getName().equalsIgnoreCase(
-                        HeaderConstants.HEADER_ETAG)) {
+                    break;
+
+                case ETAG:
                     result.setTag(Tag.parse(header.getValue()));
                     entityHeaderFound = true;
-                } else if (header.getName().equalsIgnoreCase(
-                        HeaderConstants.HEADER_CONTENT_LOCATION)) {
+                    break;
+
+                case CONTENT_LOCATION:
                     result.setLocationRef(header.getValue());
                     entityHeaderFound = true;
-                } else if (header.getName().equalsIgnoreCase(
-                        HeaderConstants.HEADER_CONTENT_DISPOSITION)) {
+                    break;
+
+                case CONTENT_DISPOSITION:
                     try {
                         result.setDisposition(new DispositionReader(header
                                 .getValue()).readValue());
@@ -804,15 +829,17 @@ public class HeaderUtils {
                                 "Error during Content-Disposition header parsing. Header: "
                                         + header.getValue(), ioe);
                     }
-                } else if (header.getName().equalsIgnoreCase(
-                        HeaderConstants.HEADER_CONTENT_RANGE)) {
+                    break;
+
+                case CONTENT_RANGE:
                     // [ifndef gwt]
                     org.restlet.engine.header.RangeReader.update(
                             header.getValue(), result);
                     entityHeaderFound = true;
                     // [enddef]
-                } else if (header.getName().equalsIgnoreCase(
-                        HeaderConstants.HEADER_CONTENT_MD5)) {
+                    break;
+
+                case CONTENT_MD5:
                     // [ifndef gwt]
                     result.setDigest(new org.restlet.data.Digest(
                             org.restlet.data.Digest.ALGORITHM_MD5,
@@ -820,6 +847,10 @@ public class HeaderUtils {
                                     .getValue())));
                     entityHeaderFound = true;
                     // [enddef]
+                    break;
+
+                default:
+                    break;
                 }
             }
         }
@@ -833,6 +864,45 @@ public class HeaderUtils {
         return result;
     }
 
+    /**
+     * Returns the first header matching an identifier. The lookup compares the
+     * cached header identifiers and doesn't allocate.
+     * 
+     * @param headers
+     *            The headers to search.
+     * @param id
+     *            The header identifier.
+     * @return The first matching header or null.
+     */
+    public static Header getFirst(Series<Header> headers, HeaderId id) {
+        Header result = null;
+
+        if (headers != null) {
+            for (int i = 0; (result == null) && (i < headers.size()); i++) {
+                if (headers.get(i).getId() == id) {
+                    result = headers.get(i);
+                }
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the value of the first header matching an identifier.
+     * 
+     * @param headers
+     *            The headers to search.
+     * @param id
+     *            The header identifier.
+     * @return The value of the first matching header or null.
+     * @see #getFirst(Series, HeaderId)
+     */
+    public static String getFirstValue(Series<Header> headers, HeaderId id) {
+        Header header = getFirst(headers, id);
+        return (header == null) ? null : header.getValue();
+    }
+
     /**
      * Returns the content length of the request entity if know,
      * {@link Representation#UNKNOWN_SIZE} otherwise.
@@ -845,8 +915,7 @@ public class HeaderUtils {
         if (headers != null) {
             // Extract the content length header
             for (Header header : headers) {
-                if (header.getName().equalsIgnoreCase(
-                        HeaderConstants.HEADER_CONTENT_LENGTH)) {
+                if (header.getId() == HeaderId.CONTENT_LENGTH) {
                     try {
                         contentLength = Long.parseLong(header.getValue());
                     } catch (NumberFormatException e) {
@@ -901,8 +970,8 @@ public class HeaderUtils {
         boolean result = false;
 
         if (headers != null) {
-            final String header = headers.getFirstValue(
-                    HeaderConstants.HEADER_TRANSFER_ENCODING, true);
+            String header = getFirstValue(headers,
+                    HeaderId.TRANSFER_ENCODING);
             result = "chunked".equalsIgnoreCase(header);
         }
 
@@ -944,8 +1013,7 @@ public class HeaderUtils {
         boolean result = false;
 
         if (headers != null) {
-            String header = headers.getFirstValue(
-                    HeaderConstants.HEADER_CONNECTION, true);
+            String header = getFirstValue(headers, HeaderId.CONNECTION);
             result = "close".equalsIgnoreCase(header);
         }
 
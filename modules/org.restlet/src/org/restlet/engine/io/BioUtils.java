@@ -48,6 +48,7 @@ import org.restlet.Context;
 import org.restlet.data.CharacterSet;
 import org.restlet.data.Range;
 import org.restlet.engine.Edition;
+import org.restlet.engine.util.SystemUtils;
 import org.restlet.representation.Representation;
 
 /**
@@ -312,23 +313,27 @@ public final class BioUtils {
     // [ifndef gwt] method
     /**
      * Returns an input stream based on the given representation's content and
-     * its write(OutputStream) method. Internally, it uses a writer thread and a
-     * pipe stream.
+     * its write(OutputStream) method. If the representation is small enough,
+     * it is written in memory by the reading thread, otherwise a writer thread
+     * and a pipe stream are used.
      * 
      * @param representation
      *            the representation to get the {@link java.io.OutputStream}
      *            from.
      * @return A stream with the representation's content.
+     * @see #isInlinable(Representation)
      */
     public static InputStream getInputStream(final Representation representation) {
         InputStream result = null;
 
-        if (Edition.CURRENT != Edition.GAE) {
-            // [ifndef gae]
-            if (representation == null) {
-                return null;
-            }
+        if (representation == null) {
+            return null;
+        }
 
+        if (isInlinable(representation)) {
+            result = new InlineInputStream(representation);
+        } else if (Edition.CURRENT != Edition.GAE) {
+            // [ifndef gae]
             final PipeStream pipe = new PipeStream();
             // Creates a thread that will handle the task of continuously
             // writing the representation into the input side of the pipe
@@ -337,7 +342,6 @@ public final class BioUtils {
                     try {
                         java.io.OutputStream os = pipe.getOutputStream();
                         representation.write(os);
-                        os.write(-1);
                         os.flush();
                         os.close();
                     } catch (IOException ioe) {
@@ -352,7 +356,12 @@ public final class BioUtils {
             org.restlet.Application application = org.restlet.Application
                     .getCurrent();
 
-            if (application != null && application.getTaskService() != null) {
+            if (SystemUtils.isVirtualThread(Thread.currentThread())) {
+                // Keep the background writer on a virtual thread
+                SystemUtils.newTaskThread(task,
+                        "Restlet-PipedOutputStream").start();
+            } else if (application != null
+                    && application.getTaskService() != null) {
                 application.getTaskService().execute(task);
             } else {
                 new Thread(task, "Restlet-PipedOutputStream").start();
@@ -406,8 +415,9 @@ public final class BioUtils {
 
     // [ifndef gwt] method
     /**
-     * Returns a reader from a writer representation.Internally, it uses a
-     * writer thread and a pipe stream.
+     * Returns a reader from a writer representation. If the representation is
+     * small enough, it is written in memory by the calling thread, otherwise a
+     * writer thread and a pipe stream are used.
      * 
      * @param representation
      *            The representation to read from.
@@ -418,7 +428,13 @@ public final class BioUtils {
             final org.restlet.representation.WriterRepresentation representation)
             throws IOException {
         Reader result = null;
-        if (Edition.CURRENT != Edition.GAE) {
+        if (isInlinable(representation)) {
+            // Write the content with the current thread
+            java.io.StringWriter writer = new java.io.StringWriter(
+                    (int) representation.getSize());
+            representation.write(writer);
+            result = new java.io.StringReader(writer.toString());
+        } else if (Edition.CURRENT != Edition.GAE) {
             // [ifndef gae]
             final java.io.PipedWriter pipedWriter = new java.io.PipedWriter();
             java.io.PipedReader pipedReader = new java.io.PipedReader(
@@ -443,7 +459,12 @@ public final class BioUtils {
                 }
             };
 
-            if (application != null && application.getTaskService() != null) {
+            if (SystemUtils.isVirtualThread(Thread.currentThread())) {
+                // Keep the background writer on a virtual thread
+                SystemUtils.newTaskThread(task,
+                        "Restlet-PipeWriter").start();
+            } else if (application != null
+                    && application.getTaskService() != null) {
                 application.getTaskService().execute(task);
             } else {
                 new Thread(task, "Restlet-PipeWriter").start();
@@ -460,6 +481,23 @@ public final class BioUtils {
 
     }
 
+    // [ifndef gwt] method
+    /**
+     * Indicates if the content of a representation should be written in memory
+     * by the thread pulling it, instead of being piped from a separate writer
+     * thread. This is the case when its size is known and doesn't exceed
+     * {@link IoUtils#MAX_INLINE_SIZE}.
+     * 
+     * @param representation
+     *            The representation to test.
+     * @return True if the content should be written by the pulling thread.
+     */
+    public static boolean isInlinable(Representation representation) {
+        long size = representation.getSize();
+        return (size != Representation.UNKNOWN_SIZE)
+                && (size <= IoUtils.MAX_INLINE_SIZE);
+    }
+
     // [ifndef gwt] method
     /**
      * Converts the representation to a string value. Be careful when using this
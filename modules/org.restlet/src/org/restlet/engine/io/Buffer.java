@@ -70,12 +70,24 @@ public class Buffer {
 		return result;
 	}
 
+	/** Empty byte buffer wrapped while a pooled buffer is released. */
+	private static final ByteBuffer RELEASED = ByteBuffer.allocate(0);
+
 	/** The byte buffer. */
-	private final ByteBuffer bytes;
+	private volatile ByteBuffer bytes;
 
 	/** The index of the buffer's beginning while filling. */
 	private volatile int fillBegin;
 
+	/** The lock on which multiple thread can synchronize. */
+	private final Object lock;
+
+	/** The pool from which the byte buffer is borrowed or null. */
+	private final BufferPool pool;
+
+	/** The size of the byte buffer to borrow from the pool. */
+	private final int size;
+
 	/** The byte buffer IO state. */
 	private volatile BufferState state;
 
@@ -101,9 +113,50 @@ public class Buffer {
 		super();
 		this.fillBegin = 0;
 		this.bytes = byteBuffer;
+		this.lock = new Object();
+		this.pool = null;
+		this.size = byteBuffer.capacity();
 		this.state = byteBufferState;
 	}
 
+	/**
+	 * Constructor. The byte buffer is only borrowed from the given pool while
+	 * bytes are in flight, see {@link #acquire()} and {@link #release()}. If
+	 * the pool is null, a regular buffer is allocated.
+	 * 
+	 * @param bufferSize
+	 *            The byte buffer size.
+	 * @param pool
+	 *            The pool from which the byte buffer is borrowed or null.
+	 * @param direct
+	 *            Indicates if a direct NIO buffer should be created when no
+	 *            pool is given.
+	 */
+	public Buffer(int bufferSize, BufferPool pool, boolean direct) {
+		super();
+		this.fillBegin = 0;
+		this.bytes = (pool == null) ? createByteBuffer(bufferSize, direct)
+				: RELEASED;
+		this.lock = new Object();
+		this.pool = pool;
+		this.size = bufferSize;
+		this.state = BufferState.FILLING;
+	}
+
+	/**
+	 * Borrows a byte buffer from the pool if it was previously released. Note
+	 * that this is automatically done by the process methods.
+	 */
+	public void acquire() {
+		synchronized (getLock()) {
+			if (isReleased()) {
+				this.bytes = this.pool.acquire(this.size);
+				this.fillBegin = 0;
+				this.state = BufferState.FILLING;
+			}
+		}
+	}
+
 	/**
 	 * Constructor. Allocates a new non-direct byte buffer.
 	 * 
@@ -442,7 +495,7 @@ public class Buffer {
 	 * @return The lock on which multiple thread can synchronize.
 	 */
 	public Object getLock() {
-		return this.bytes;
+		return this.lock;
 	}
 
 	/**
@@ -483,6 +536,15 @@ public class Buffer {
 		return isFilling() ? (capacity() == remaining()) : !hasRemaining();
 	}
 
+	/**
+	 * Indicates if the byte buffer has been released back to its pool.
+	 * 
+	 * @return True if the byte buffer has been released back to its pool.
+	 */
+	public boolean isReleased() {
+		return this.bytes == RELEASED;
+	}
+
 	/**
 	 * Indicates if the buffer state has the {@link BufferState#FILLING} value.
 	 * 
@@ -514,6 +576,7 @@ public class Buffer {
 		int result = 0;
 
 		synchronized (getLock()) {
+			acquire();
 			int totalFilled = 0;
 			int drained = 0;
 			int filled = 0;
@@ -668,6 +731,31 @@ public class Buffer {
 		return process(processor, 0, args);
 	}
 
+	/**
+	 * Releases the byte buffer back to its pool if it is empty. Does nothing if
+	 * the buffer isn't pooled.
+	 * 
+	 * @return True if the byte buffer has been released.
+	 */
+	public boolean release() {
+		boolean result = false;
+
+		if (this.pool != null) {
+			synchronized (getLock()) {
+				if (!isReleased() && isEmpty()) {
+					ByteBuffer released = this.bytes;
+					this.bytes = RELEASED;
+					this.fillBegin = 0;
+					this.state = BufferState.FILLING;
+					this.pool.release(released);
+					result = true;
+				}
+			}
+		}
+
+		return result;
+	}
+
 	/**
 	 * Returns the number of bytes that can be read or written in the byte
 	 * buffer.
@@ -0,0 +1,275 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.engine.io;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pool of byte buffers organized by size classes. A requested size is served by
+ * the smallest class able to hold it. Direct buffers are carved out of larger
+ * slabs in order to limit the number of native allocations. Requests larger
+ * than the biggest class are allocated on demand and never pooled.
+ * 
+ * @author Jerome Louvel
+ */
+public class BufferPool {
+
+    /** The capacity of each size class, in ascending order. */
+    private final int[] classSizes;
+
+    /** The pooled buffers of each size class. */
+    private final List<Queue<ByteBuffer>> classBuffers;
+
+    /** The number of pooled buffers of each size class. */
+    private final AtomicInteger[] classCounts;
+
+    /** Indicates if direct NIO buffers should be allocated. */
+    private final boolean direct;
+
+    /** The number of requests served by a pooled buffer. */
+    private final AtomicLong hits;
+
+    /** The maximum number of buffers kept in each size class. */
+    private final int maxPooled;
+
+    /** The number of requests that required a new allocation. */
+    private final AtomicLong misses;
+
+    /** The size of the slabs from which direct buffers are carved out. */
+    private final int slabSize;
+
+    /**
+     * Constructor.
+     * 
+     * @param classSizes
+     *            The capacity of each size class.
+     * @param maxPooled
+     *            The maximum number of buffers kept in each size class.
+     * @param direct
+     *            Indicates if direct NIO buffers should be allocated.
+     * @param slabSize
+     *            The size of the slabs from which direct buffers are carved
+     *            out.
+     */
+    public BufferPool(int[] classSizes, int maxPooled, boolean direct,
+            int slabSize) {
+        this.classSizes = classSizes.clone();
+        Arrays.sort(this.classSizes);
+        this.classBuffers = new ArrayList<Queue<ByteBuffer>>(
+                this.classSizes.length);
+        this.classCounts = new AtomicInteger[this.classSizes.length];
+
+        for (int i = 0; i < this.classSizes.length; i++) {
+            this.classBuffers.add(new ConcurrentLinkedQueue<ByteBuffer>());
+            this.classCounts[i] = new AtomicInteger();
+        }
+
+        this.direct = direct;
+        this.hits = new AtomicLong();
+        this.maxPooled = maxPooled;
+        this.misses = new AtomicLong();
+        this.slabSize = slabSize;
+    }
+
+    /**
+     * Acquires a cleared byte buffer with a capacity at least equal to the
+     * given size.
+     * 
+     * @param size
+     *            The minimum capacity.
+     * @return A cleared byte buffer.
+     */
+    public ByteBuffer acquire(int size) {
+        ByteBuffer result = null;
+        int index = getClassIndex(size);
+
+        if (index == -1) {
+            this.misses.incrementAndGet();
+            result = allocate(size);
+        } else {
+            result = this.classBuffers.get(index).poll();
+
+            if (result == null) {
+                this.misses.incrementAndGet();
+                result = allocateClass(index);
+            } else {
+                this.classCounts[index].decrementAndGet();
+                this.hits.incrementAndGet();
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Allocates a new byte buffer outside of any size class.
+     * 
+     * @param size
+     *            The buffer capacity.
+     * @return The new byte buffer.
+     */
+    protected ByteBuffer allocate(int size) {
+        return isDirect() ? ByteBuffer.allocateDirect(size) : ByteBuffer
+                .allocate(size);
+    }
+
+    /**
+     * Allocates a new byte buffer for the given size class. Direct buffers are
+     * sliced out of a new slab, the remaining slices being added to the pool.
+     * 
+     * @param index
+     *            The size class index.
+     * @return The new byte buffer.
+     */
+    protected ByteBuffer allocateClass(int index) {
+        int size = this.classSizes[index];
+        int count = isDirect() ? Math.min(this.slabSize / size, this.maxPooled)
+                : 1;
+
+        if (count <= 1) {
+            return allocate(size);
+        }
+
+        ByteBuffer slab = ByteBuffer.allocateDirect(size * count);
+        ByteBuffer result = null;
+
+        for (int i = 0; i < count; i++) {
+            slab.limit((i + 1) * size);
+            slab.position(i * size);
+
+            if (result == null) {
+                result = slab.slice();
+            } else {
+                release(slab.slice());
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the index of the smallest size class able to hold the given
+     * size, or -1 if the size is too large.
+     * 
+     * @param size
+     *            The requested size.
+     * @return The size class index or -1.
+     */
+    private int getClassIndex(int size) {
+        for (int i = 0; i < this.classSizes.length; i++) {
+            if (this.classSizes[i] >= size) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Returns the number of requests served by a pooled buffer.
+     * 
+     * @return The number of requests served by a pooled buffer.
+     */
+    public long getHits() {
+        return this.hits.get();
+    }
+
+    /**
+     * Returns the number of requests that required a new allocation.
+     * 
+     * @return The number of requests that required a new allocation.
+     */
+    public long getMisses() {
+        return this.misses.get();
+    }
+
+    /**
+     * Returns the number of buffers currently available in the pool.
+     * 
+     * @return The number of buffers currently available in the pool.
+     */
+    public int getPooledCount() {
+        int result = 0;
+
+        for (AtomicInteger count : this.classCounts) {
+            result += count.get();
+        }
+
+        return result;
+    }
+
+    /**
+     * Indicates if direct NIO buffers are allocated.
+     * 
+     * @return True if direct NIO buffers are allocated.
+     */
+    public boolean isDirect() {
+        return direct;
+    }
+
+    /**
+     * Releases a byte buffer back into the pool. Buffers whose capacity doesn't
+     * match a size class or exceeding the maximum pool size are dropped.
+     * 
+     * @param buffer
+     *            The byte buffer to release.
+     */
+    public void release(ByteBuffer buffer) {
+        if (buffer != null) {
+            int index = Arrays.binarySearch(this.classSizes, buffer.capacity());
+
+            if ((index >= 0)
+                    && (this.classCounts[index].incrementAndGet() <= this.maxPooled)) {
+                buffer.clear();
+                this.classBuffers.get(index).offer(buffer);
+            } else if (index >= 0) {
+                this.classCounts[index].decrementAndGet();
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "Buffer pool: " + getPooledCount() + " pooled, " + getHits()
+                + " hits, " + getMisses() + " misses";
+    }
+
+}
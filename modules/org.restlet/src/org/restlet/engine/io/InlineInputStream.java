@@ -0,0 +1,148 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+
+package org.restlet.engine.io;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.restlet.representation.Representation;
+
+// [excludes gwt]
+/**
+ * Input stream based on a representation's write(OutputStream) method, invoked
+ * by the reading thread itself upon the first read. The written content is
+ * buffered in memory, so this is only suitable for representations of limited
+ * size, but it doesn't require any additional writer thread.
+ * 
+ * @author Jerome Louvel
+ */
+public class InlineInputStream extends InputStream {
+
+    /**
+     * Byte array output stream directly exposing its content as an input
+     * stream.
+     */
+    private static class Content extends ByteArrayOutputStream {
+        /**
+         * Constructor.
+         * 
+         * @param size
+         *            The initial size.
+         */
+        public Content(int size) {
+            super(size);
+        }
+
+        /**
+         * Returns an input stream reading the written bytes without copy.
+         * 
+         * @return An input stream reading the written bytes.
+         */
+        public InputStream toInputStream() {
+            return new ByteArrayInputStream(this.buf, 0, this.count);
+        }
+    }
+
+    /** The source representation, written on the first read. */
+    private volatile Representation source;
+
+    /** The stream reading the written content. */
+    private volatile InputStream stream;
+
+    /**
+     * Constructor.
+     * 
+     * @param source
+     *            The source representation.
+     */
+    public InlineInputStream(Representation source) {
+        this.source = source;
+        this.stream = null;
+    }
+
+    @Override
+    public int available() throws IOException {
+        return getStream().available();
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.source = null;
+        this.stream = null;
+    }
+
+    /**
+     * Returns the stream reading the written content. Writes the source
+     * representation if needed.
+     * 
+     * @return The stream reading the written content.
+     * @throws IOException
+     */
+    private InputStream getStream() throws IOException {
+        if (this.stream == null) {
+            if (this.source == null) {
+                throw new IOException("The stream was closed");
+            }
+
+            long size = this.source.getSize();
+            Content content = new Content(
+                    ((size > 0) && (size <= Integer.MAX_VALUE)) ? (int) size
+                            : IoUtils.BUFFER_SIZE);
+            this.source.write(content);
+            this.source = null;
+            this.stream = content.toInputStream();
+        }
+
+        return this.stream;
+    }
+
+    @Override
+    public int read() throws IOException {
+        return getStream().read();
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        return getStream().read(b, off, len);
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        return getStream().skip(n);
+    }
+
+}
@@ -51,6 +51,16 @@ public class IoUtils {
     public static final int BUFFER_SIZE = getProperty(
             "org.restlet.engine.io.bufferSize", 8192);
 
+    /**
+     * The maximum size of representations whose content is written in memory
+     * by the reading thread when pulled as a stream, a reader or a channel,
+     * instead of being piped from a separate writer thread. It looks for the
+     * System property "org.restlet.engine.io.maxInlineSize" and if not
+     * defined, uses the "65536" default value.
+     */
+    public static final int MAX_INLINE_SIZE = getProperty(
+            "org.restlet.engine.io.maxInlineSize", 65536);
+
     /**
      * The number of milliseconds after which IO operation will time out. It
      * looks for the System property "org.restlet.engine.io.timeoutMs" and if
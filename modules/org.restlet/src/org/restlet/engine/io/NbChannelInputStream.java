@@ -171,6 +171,9 @@ public class NbChannelInputStream extends InputStream implements
 
             // Let's return the next ones
             getBuffer().drain(targetArray, offset, result);
+
+            // Following drains of the same read must not overwrite them
+            args[1] = Integer.valueOf(offset + result);
         }
 
         return result;
@@ -188,7 +191,12 @@ public class NbChannelInputStream extends InputStream implements
     public int onFill(Buffer buffer, Object... args) throws IOException {
         int result = buffer.fill(this.channel);
 
-        if (result == 0) {
+        if ((result == 0) && !this.channel.isOpen()) {
+            // The entity channels report their end before their connection
+            // closes, so the entity was truncated
+            throw new IOException(
+                    "The channel was closed before the end of the entity");
+        } else if (result == 0) {
             // No bytes were read, try to register
             // a select key to get more
             if (Context.getCurrentLogger().isLoggable(Level.FINER)) {
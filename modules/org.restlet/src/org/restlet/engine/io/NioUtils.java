@@ -50,6 +50,7 @@ import java.util.logging.Level;
 
 import org.restlet.Context;
 import org.restlet.engine.Edition;
+import org.restlet.engine.util.SystemUtils;
 import org.restlet.representation.Representation;
 
 // [excludes gwt]
@@ -185,8 +186,9 @@ public class NioUtils {
 
     /**
      * Returns a readable byte channel based on the given representation's
-     * content and its write(WritableByteChannel) method. Internally, it uses a
-     * writer thread and a pipe channel.
+     * content and its write(WritableByteChannel) method. If the representation
+     * is small enough, it is written in memory by the reading thread, otherwise
+     * a writer thread and a pipe channel are used.
      * 
      * @param representation
      *            the representation to get the {@link OutputStream} from.
@@ -196,7 +198,10 @@ public class NioUtils {
     public static ReadableByteChannel getReadableByteChannel(
             final Representation representation) throws IOException {
         ReadableByteChannel result = null;
-        if (Edition.CURRENT != Edition.GAE) {
+        if (BioUtils.isInlinable(representation)) {
+            // Write the content with the reading thread
+            result = Channels.newChannel(new InlineInputStream(representation));
+        } else if (Edition.CURRENT != Edition.GAE) {
             // [ifndef gae]
             final java.nio.channels.Pipe pipe = java.nio.channels.Pipe.open();
             org.restlet.Application application = org.restlet.Application
@@ -218,7 +223,12 @@ public class NioUtils {
                 }
             };
 
-            if (application != null && application.getTaskService() != null) {
+            if (SystemUtils.isVirtualThread(Thread.currentThread())) {
+                // Keep the background writer on a virtual thread
+                SystemUtils.newTaskThread(task,
+                        "Restlet-PipedWritableChannel").start();
+            } else if (application != null
+                    && application.getTaskService() != null) {
                 application.getTaskService().execute(task);
             } else {
                 new Thread(task, "Restlet-PipedWritableChannel").start();
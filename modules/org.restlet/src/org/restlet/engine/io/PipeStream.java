@@ -31,33 +31,83 @@
  * Restlet is a registered trademark of Restlet S.A.S.
  */
 
+
 package org.restlet.engine.io;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.util.concurrent.ArrayBlockingQueue;
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.TimeUnit;
 
 // [excludes gwt]
 /**
  * Pipe stream that pipes output streams into input streams. Implementation
- * based on a shared synchronized queue.
+ * based on a shared and bounded circular byte buffer, transferring bytes in
+ * bulk between the writer and the reader threads.
  * 
  * @author Jerome Louvel
  */
 public class PipeStream {
 
-    /** The queue timeout. */
-    private static final long QUEUE_TIMEOUT = 5;
+    /** The timeout in milliseconds. */
+    private static final long QUEUE_TIMEOUT = 5000;
+
+    /** The circular byte buffer. */
+    private final byte[] bytes;
+
+    /** The number of bytes available to the reader. */
+    private int count;
+
+    /** Indicates if the reader side was closed. */
+    private boolean inputClosed;
 
-    /** The supporting synchronized queue. */
-    private final BlockingQueue<Integer> queue;
+    /** Indicates if the writer side was closed. */
+    private boolean outputClosed;
+
+    /** The index of the next byte to read. */
+    private int readIndex;
 
     /** Constructor. */
     public PipeStream() {
-        this.queue = new ArrayBlockingQueue<Integer>(1024);
+        this(IoUtils.BUFFER_SIZE);
+    }
+
+    /**
+     * Constructor.
+     * 
+     * @param capacity
+     *            The capacity of the internal byte buffer.
+     */
+    public PipeStream(int capacity) {
+        this.bytes = new byte[capacity];
+        this.count = 0;
+        this.inputClosed = false;
+        this.outputClosed = false;
+        this.readIndex = 0;
+    }
+
+    /**
+     * Waits until the other side of the pipe signals a change or the timeout
+     * expires.
+     * 
+     * @param deadline
+     *            The time at which the timeout expires.
+     * @param message
+     *            The timeout message.
+     * @throws IOException
+     */
+    private void await(long deadline, String message) throws IOException {
+        long delay = deadline - System.currentTimeMillis();
+
+        if (delay <= 0) {
+            throw new IOException(message);
+        }
+
+        try {
+            wait(delay);
+        } catch (InterruptedException ie) {
+            throw new IOException(
+                    "Interruption occurred while waiting on the pipe");
+        }
     }
 
     /**
@@ -67,52 +117,140 @@ public class PipeStream {
      */
     public InputStream getInputStream() {
         return new InputStream() {
-            private boolean endReached = false;
+            @Override
+            public int available() throws IOException {
+                synchronized (PipeStream.this) {
+                    return count;
+                }
+            }
 
             @Override
-            public int read() throws IOException {
-                try {
-                    if (this.endReached) {
-                        return -1;
-                    }
-
-                    final Integer value = queue.poll(QUEUE_TIMEOUT,
-                            TimeUnit.SECONDS);
-                    if (value == null) {
-                        throw new IOException(
-                                "Timeout while reading from the queue-based input stream");
-                    }
-
-                    this.endReached = (value.intValue() == -1);
-                    return value;
-                } catch (InterruptedException ie) {
-                    throw new IOException(
-                            "Interruption occurred while writing in the queue");
+            public void close() throws IOException {
+                synchronized (PipeStream.this) {
+                    inputClosed = true;
+                    PipeStream.this.notifyAll();
                 }
             }
+
+            @Override
+            public int read() throws IOException {
+                byte[] single = new byte[1];
+                int result = read(single, 0, 1);
+                return (result == -1) ? -1 : (single[0] & 0xFF);
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                return PipeStream.this.read(b, off, len);
+            }
         };
     }
 
     /**
-     * Returns a new output stream that can write into the pipe.
+     * Returns a new output stream that can write into the pipe. Closing it
+     * signals the end of the content to the reader.
      * 
      * @return A new output stream that can write into the pipe.
      */
     public OutputStream getOutputStream() {
         return new OutputStream() {
             @Override
-            public void write(int b) throws IOException {
-                try {
-                    if (!queue.offer(b, QUEUE_TIMEOUT, TimeUnit.SECONDS)) {
-                        throw new IOException(
-                                "Timeout while writing to the queue-based output stream");
-                    }
-                } catch (InterruptedException ie) {
-                    throw new IOException(
-                            "Interruption occurred while writing in the queue");
+            public void close() throws IOException {
+                synchronized (PipeStream.this) {
+                    outputClosed = true;
+                    PipeStream.this.notifyAll();
                 }
             }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                PipeStream.this.write(b, off, len);
+            }
+
+            @Override
+            public void write(int b) throws IOException {
+                write(new byte[] { (byte) b }, 0, 1);
+            }
         };
     }
 
+    /**
+     * Reads bytes from the pipe, waiting for the writer if none is available.
+     * 
+     * @param b
+     *            The target byte array.
+     * @param off
+     *            The offset in the target array.
+     * @param len
+     *            The maximum number of bytes to read.
+     * @return The number of bytes read or -1 if the end was reached.
+     * @throws IOException
+     */
+    private synchronized int read(byte[] b, int off, int len)
+            throws IOException {
+        int result = 0;
+
+        if (len > 0) {
+            long deadline = System.currentTimeMillis() + QUEUE_TIMEOUT;
+
+            while ((this.count == 0) && !this.outputClosed) {
+                await(deadline,
+                        "Timeout while reading from the pipe input stream");
+            }
+
+            if (this.count == 0) {
+                result = -1;
+            } else {
+                result = Math.min(len, this.count);
+                int first = Math.min(result, this.bytes.length
+                        - this.readIndex);
+                System.arraycopy(this.bytes, this.readIndex, b, off, first);
+                System.arraycopy(this.bytes, 0, b, off + first, result - first);
+                this.readIndex = (this.readIndex + result) % this.bytes.length;
+                this.count -= result;
+                notifyAll();
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Writes bytes into the pipe, waiting for the reader if it is full.
+     * 
+     * @param b
+     *            The source byte array.
+     * @param off
+     *            The offset in the source array.
+     * @param len
+     *            The number of bytes to write.
+     * @throws IOException
+     */
+    private synchronized void write(byte[] b, int off, int len)
+            throws IOException {
+        long deadline = System.currentTimeMillis() + QUEUE_TIMEOUT;
+
+        while (len > 0) {
+            if (this.inputClosed) {
+                throw new IOException("The pipe input stream was closed");
+            } else if (this.outputClosed) {
+                throw new IOException("The pipe output stream was closed");
+            } else if (this.count == this.bytes.length) {
+                await(deadline,
+                        "Timeout while writing to the pipe output stream");
+            } else {
+                int writeIndex = (this.readIndex + this.count)
+                        % this.bytes.length;
+                int written = Math.min(len, Math.min(this.bytes.length
+                        - this.count, this.bytes.length - writeIndex));
+                System.arraycopy(b, off, this.bytes, writeIndex, written);
+                this.count += written;
+                off += written;
+                len -= written;
+                deadline = System.currentTimeMillis() + QUEUE_TIMEOUT;
+                notifyAll();
+            }
+        }
+    }
+
 }
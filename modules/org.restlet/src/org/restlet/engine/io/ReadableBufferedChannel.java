@@ -52,6 +52,9 @@ public class ReadableBufferedChannel extends
     /** Indicates if the end of the channel has been reached. */
     private volatile boolean endReached;
 
+    /** Indicates if the end of the source channel has been detected. */
+    private volatile boolean sourceEndDetected;
+
     /**
      * Constructor.
      * 
@@ -68,6 +71,7 @@ public class ReadableBufferedChannel extends
         super(buffer, source);
         this.completionListener = completionListener;
         this.endReached = false;
+        this.sourceEndDetected = false;
     }
 
     /**
@@ -93,7 +97,7 @@ public class ReadableBufferedChannel extends
      * @return True if the buffer could be filled again.
      */
     public boolean couldFill(Buffer buffer, Object... args) {
-        return !isEndReached();
+        return !isEndReached() && !this.sourceEndDetected;
     }
 
     /**
@@ -114,6 +118,18 @@ public class ReadableBufferedChannel extends
         return endReached;
     }
 
+    /**
+     * Indicates if the channel is open. Once its end has been reached, the
+     * channel stays open so that readers can detect this end even if the
+     * connection was closed in the meantime.
+     *
+     * @return True if the channel is open.
+     */
+    @Override
+    public boolean isOpen() {
+        return isEndReached() || super.isOpen();
+    }
+
     /**
      * Callback invoked upon IO completion. Calls
      * {@link CompletionListener#onCompleted(boolean)} if the end has been
@@ -153,7 +169,12 @@ public class ReadableBufferedChannel extends
         int result = getBuffer().fill(getWrappedChannel());
 
         if (result == -1) {
-            setEndReached(true);
+            if (getBuffer().isEmpty()) {
+                setEndReached(true);
+            } else {
+                // Let the remaining bytes be read before reporting the end
+                this.sourceEndDetected = true;
+            }
         }
 
         return result;
@@ -169,7 +190,13 @@ public class ReadableBufferedChannel extends
      *         been reached.
      */
     public int read(ByteBuffer targetBuffer) throws IOException {
-        return getBuffer().process(this, targetBuffer);
+        int result = getBuffer().process(this, targetBuffer);
+
+        if ((result == -1) && !isEndReached()) {
+            setEndReached(true);
+        }
+
+        return result;
     }
 
     /**
@@ -275,6 +275,22 @@ public class ReadableChunkedChannel extends ReadableBufferedChannel {
         return result;
     }
 
+    /**
+     * Reads some bytes and put them into the destination buffer. Once the last
+     * chunk has been read, the end of the channel is returned without
+     * processing the buffer, as the connection may have been closed and its
+     * buffer cleared in the meantime.
+     * 
+     * @param targetBuffer
+     *            The target buffer.
+     * @return The number of bytes read, or -1 if the end of the channel has
+     *         been reached.
+     */
+    @Override
+    public int read(ByteBuffer targetBuffer) throws IOException {
+        return isEndReached() ? -1 : super.read(targetBuffer);
+    }
+
     /**
      * Sets the chunk state.
      * 
@@ -34,6 +34,7 @@
 package org.restlet.engine.io;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.logging.Level;
 
 import org.restlet.Context;
@@ -110,6 +111,35 @@ public class ReadableSizedSelectionChannel extends ReadableBufferedChannel {
         return result;
     }
 
+    /**
+     * Reads some bytes and put them into the destination buffer. Once the
+     * announced size has been fully read, the end of the channel is returned
+     * without processing the buffer, as the connection may have been closed
+     * and its buffer cleared in the meantime.
+     * 
+     * @param targetBuffer
+     *            The target buffer.
+     * @return The number of bytes read, or -1 if the end of the channel has
+     *         been reached.
+     * @throws IOException
+     *             If the source channel ended before the announced size.
+     */
+    @Override
+    public int read(ByteBuffer targetBuffer) throws IOException {
+        int result = -1;
+
+        if (getAvailableSize() > 0) {
+            result = super.read(targetBuffer);
+
+            if ((result == -1) && (getAvailableSize() > 0)) {
+                throw new IOException(
+                        "The channel was closed before the end of the entity");
+            }
+        }
+
+        return result;
+    }
+
     /**
      * Sets the remaining size that should be read from the source channel.
      * 
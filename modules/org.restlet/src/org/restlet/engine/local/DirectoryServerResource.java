@@ -33,23 +33,32 @@
 
 package org.restlet.engine.local;
 
+import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.Iterator;
 import java.util.List;
 import java.util.SortedSet;
 import java.util.TreeSet;
 import java.util.logging.Level;
+import java.util.zip.Deflater;
 
 import org.restlet.Client;
 import org.restlet.Request;
 import org.restlet.Response;
+import org.restlet.data.Dimension;
+import org.restlet.data.Encoding;
 import org.restlet.data.MediaType;
 import org.restlet.data.Method;
 import org.restlet.data.Preference;
 import org.restlet.data.Reference;
 import org.restlet.data.ReferenceList;
 import org.restlet.data.Status;
+import org.restlet.engine.application.EncoderOutputStream;
+import org.restlet.representation.FileRepresentation;
 import org.restlet.representation.Representation;
 import org.restlet.representation.Variant;
 import org.restlet.resource.Directory;
@@ -70,6 +79,31 @@ import org.restlet.resource.ServerResource;
  */
 public class DirectoryServerResource extends ServerResource {
 
+    /** The encodings of pre-compressed sibling files, by order of preference. */
+    private static final Encoding[] PRECOMPRESSED_ENCODINGS = {
+            Encoding.BROTLI, Encoding.GZIP };
+
+    /** The extensions of pre-compressed sibling files. */
+    private static final String[] PRECOMPRESSED_EXTENSIONS = { ".br", ".gz" };
+
+    /**
+     * Indicates if a file name has the extension of a pre-compressed sibling
+     * file.
+     * 
+     * @param name
+     *            The file name.
+     * @return True if the file name has a pre-compressed extension.
+     */
+    private static boolean isPrecompressed(String name) {
+        boolean result = false;
+
+        for (int i = 0; !result && (i < PRECOMPRESSED_EXTENSIONS.length); i++) {
+            result = name.endsWith(PRECOMPRESSED_EXTENSIONS[i]);
+        }
+
+        return result;
+    }
+
     /** The list of variants for the GET method. */
     private volatile List<Variant> variantsGet;
 
@@ -463,6 +497,124 @@ public class DirectoryServerResource extends ServerResource {
                 .getContext().getClientDispatcher();
     }
 
+    /**
+     * Returns the GZIP variant of a local file from the compression cache of
+     * the directory, writing it if it is missing or if the file has been
+     * modified since it was cached.
+     * 
+     * @param resourceUri
+     *            The URI of the file.
+     * @param representation
+     *            The representation of the file.
+     * @return The cached GZIP variant or null if the file can't be cached.
+     */
+    private Representation getCachedRepresentation(String resourceUri,
+            Representation representation) {
+        Representation result = null;
+        String rootUri = getDirectory().getRootRef().toString();
+
+        if ((representation instanceof FileRepresentation)
+                && resourceUri.startsWith(rootUri)
+                && ((getApplication() == null) || getApplication()
+                        .getEncoderService().canEncode(representation))) {
+            File file = ((FileRepresentation) representation).getFile();
+            File cachedFile = new File(getDirectory().getCompressionCache(),
+                    Reference.decode(resourceUri.substring(rootUri.length()))
+                            + ".gz");
+
+            try {
+                if (!cachedFile.exists()
+                        || (cachedFile.lastModified() != file.lastModified())) {
+                    writeCachedFile(representation, file, cachedFile);
+                }
+
+                result = new FileRepresentation(cachedFile,
+                        representation.getMediaType());
+            } catch (IOException ioe) {
+                getLogger().log(Level.WARNING,
+                        "Unable to cache the compressed file: " + cachedFile,
+                        ioe);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns a compressed variant of a representation matching the encodings
+     * accepted by the client. Pre-compressed sibling files are looked up first
+     * if the directory serves them, then the compression cache of the
+     * directory is used if set.
+     * 
+     * @param resourceUri
+     *            The URI of the representation.
+     * @param representation
+     *            The representation to compress.
+     * @return The compressed variant or the representation itself.
+     */
+    private Representation getCompressedRepresentation(String resourceUri,
+            Representation representation) {
+        Representation result = null;
+        Encoding encoding = null;
+
+        boolean identity = getMethod().isSafe()
+                && !MediaType.TEXT_URI_LIST.equals(representation
+                        .getMediaType()) && !isPrecompressed(resourceUri);
+
+        for (Iterator<Encoding> iter = representation.getEncodings()
+                .iterator(); identity && iter.hasNext();) {
+            identity = Encoding.IDENTITY.equals(iter.next());
+        }
+
+        if (identity) {
+            if (getDirectory().isServingPrecompressed()) {
+                float bestQuality = 0F;
+
+                for (int i = 0; i < PRECOMPRESSED_ENCODINGS.length; i++) {
+                    float quality = getEncodingQuality(PRECOMPRESSED_ENCODINGS[i]);
+
+                    if (quality > bestQuality) {
+                        Response contextResponse = getRepresentation(resourceUri
+                                + PRECOMPRESSED_EXTENSIONS[i]);
+
+                        if (contextResponse.getStatus().isSuccess()
+                                && isSibling(contextResponse.getEntity(),
+                                        PRECOMPRESSED_EXTENSIONS[i])) {
+                            result = contextResponse.getEntity();
+                            encoding = PRECOMPRESSED_ENCODINGS[i];
+                            bestQuality = quality;
+                        }
+                    }
+                }
+            }
+
+            if ((result == null)
+                    && (getDirectory().getCompressionCache() != null)
+                    && (getEncodingQuality(Encoding.GZIP) > 0F)) {
+                result = getCachedRepresentation(resourceUri, representation);
+                encoding = Encoding.GZIP;
+            }
+        }
+
+        if (result == null) {
+            result = representation;
+        } else {
+            // The compressed variant only differs by its encoding
+            result.setMediaType(representation.getMediaType());
+            result.setCharacterSet(representation.getCharacterSet());
+            result.getLanguages().clear();
+            result.getLanguages().addAll(representation.getLanguages());
+            result.getEncodings().clear();
+            result.getEncodings().add(encoding);
+            result.setModificationDate(representation.getModificationDate());
+            result.setDisposition(representation.getDisposition());
+            result.setLocationRef(representation.getLocationRef());
+            getDimensions().add(Dimension.ENCODING);
+        }
+
+        return result;
+    }
+
     /**
      * Returns the parent directory handler.
      * 
@@ -557,6 +709,29 @@ public class DirectoryServerResource extends ServerResource {
         return identifiersComparator;
     }
 
+    /**
+     * Returns the quality of an encoding in the client preferences, 0 if it is
+     * not accepted.
+     * 
+     * @param encoding
+     *            The encoding.
+     * @return The quality of the encoding in the client preferences.
+     */
+    private float getEncodingQuality(Encoding encoding) {
+        float result = 0F;
+
+        for (Preference<Encoding> preference : getClientInfo()
+                .getAcceptedEncodings()) {
+            if (preference.getMetadata().equals(encoding)) {
+                return preference.getQuality();
+            } else if (preference.getMetadata().equals(Encoding.ALL)) {
+                result = preference.getQuality();
+            }
+        }
+
+        return result;
+    }
+
     /**
      * Returns the context's target URI (file, clap URI).
      * 
@@ -631,7 +806,8 @@ public class DirectoryServerResource extends ServerResource {
                                     rep.setLocationRef(baseRef + "/" + filePath);
                                 }
 
-                                resultSet.add(rep);
+                                resultSet.add(getCompressedRepresentation(
+                                        ref.toString(), rep));
                             }
                         }
                     }
@@ -687,7 +863,8 @@ public class DirectoryServerResource extends ServerResource {
                     }
 
                     result = new ArrayList<Variant>();
-                    result.add(this.fileContent);
+                    result.add(getCompressedRepresentation(this.targetUri,
+                            this.fileContent));
                 }
 
                 this.variantsGet = result;
@@ -739,8 +916,13 @@ public class DirectoryServerResource extends ServerResource {
                                     firstDotIndex);
                         }
 
-                        // Check if the current file is a valid variant
-                        if (baseEntryName.equals(this.baseName)) {
+                        // Check if the current file is a valid variant, leaving
+                        // pre-compressed siblings to the original file
+                        boolean sibling = getDirectory()
+                                .isServingPrecompressed()
+                                && isPrecompressed(fullEntryName);
+
+                        if (!sibling && baseEntryName.equals(this.baseName)) {
                             // Test if the variant is included in the base
                             // prototype variant
                             Variant variant = new Variant();
@@ -805,6 +987,30 @@ public class DirectoryServerResource extends ServerResource {
         return this.directoryTarget;
     }
 
+    /**
+     * Indicates if a representation returned by the client dispatcher is the
+     * sibling file with the given extension. Helpers negotiating variants
+     * might return the original file instead, so the file name is checked
+     * when known.
+     * 
+     * @param representation
+     *            The representation returned by the client dispatcher.
+     * @param extension
+     *            The extension of the sibling file.
+     * @return True if the representation is the sibling file.
+     */
+    private boolean isSibling(Representation representation, String extension) {
+        boolean result = (representation != null);
+
+        if (result && (representation.getDisposition() != null)
+                && (representation.getDisposition().getFilename() != null)) {
+            result = representation.getDisposition().getFilename()
+                    .endsWith(extension);
+        }
+
+        return result;
+    }
+
     /**
      * Indicates if the target resource is a file.
      * 
@@ -836,6 +1042,52 @@ public class DirectoryServerResource extends ServerResource {
         return null;
     }
 
+    /**
+     * Writes the GZIP variant of a file in the compression cache. The variant
+     * is first written in a temporary file, then renamed and stamped with the
+     * modification time of the original file.
+     * 
+     * @param representation
+     *            The representation of the file.
+     * @param file
+     *            The file to compress.
+     * @param cachedFile
+     *            The cached file to write.
+     * @throws IOException
+     */
+    private void writeCachedFile(Representation representation, File file,
+            File cachedFile) throws IOException {
+        File parent = cachedFile.getParentFile();
+
+        if (!parent.isDirectory() && !parent.mkdirs()) {
+            throw new IOException("Unable to create the cache directory: "
+                    + parent);
+        }
+
+        File tempFile = File.createTempFile("restlet-", ".gz", parent);
+        OutputStream outputStream = new FileOutputStream(tempFile);
+
+        try {
+            int level = (getApplication() == null) ? Deflater.DEFAULT_COMPRESSION
+                    : getApplication().getEncoderService()
+                            .getCompressionLevel();
+            EncoderOutputStream encoderStream = new EncoderOutputStream(
+                    outputStream, level, true);
+            representation.write(encoderStream);
+            encoderStream.finish();
+        } finally {
+            outputStream.close();
+        }
+
+        if (!tempFile.setLastModified(file.lastModified())
+                || !(tempFile.renameTo(cachedFile) || (cachedFile.delete() && tempFile
+                        .renameTo(cachedFile)))) {
+            tempFile.delete();
+            throw new IOException("Unable to write the cached file: "
+                    + cachedFile);
+        }
+    }
+
     /**
      * Sets the context's target URI (file, clap URI).
      * 
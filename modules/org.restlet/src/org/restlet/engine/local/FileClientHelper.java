@@ -90,6 +90,21 @@ import org.restlet.representation.Variant;
  * <td>Indicates if a failed upload can be resumed. This will prevent the
  * deletion of the temporary file created.</td>
  * </tr>
+ * <tr>
+ * <td>mappedCacheSize</td>
+ * <td>long</td>
+ * <td>0</td>
+ * <td>The maximum total size in bytes of the files kept memory-mapped to serve
+ * them repeatedly without reading them again. The least recently used files
+ * are evicted first. A mapped file is remapped as soon as its modification
+ * date or length changes. Zero disables the cache.</td>
+ * </tr>
+ * <tr>
+ * <td>mappedFileMaxSize</td>
+ * <td>long</td>
+ * <td>1048576</td>
+ * <td>The maximum size in bytes of a single memory-mapped file.</td>
+ * </tr>
  * </table>
  * 
  * @author Jerome Louvel
@@ -97,6 +112,9 @@ import org.restlet.representation.Variant;
  */
 public class FileClientHelper extends EntityClientHelper {
 
+    /** The cache of memory-mapped files, if enabled. */
+    private volatile MappedFileCache mappedFileCache;
+
     /**
      * Constructor.
      * 
@@ -179,7 +197,38 @@ public class FileClientHelper extends EntityClientHelper {
         // Take care of the file separator.
         return new FileEntity(
                 new File(LocalReference.localizePath(decodedPath)),
-                getMetadataService());
+                getMetadataService(), getMappedFileCache());
+    }
+
+    /**
+     * Returns the maximum total size in bytes of the memory-mapped files.
+     * Defaults to 0, disabling the cache.
+     * 
+     * @return The maximum total size in bytes of the memory-mapped files.
+     */
+    public long getMappedCacheSize() {
+        return Long.parseLong(getHelpedParameters().getFirstValue(
+                "mappedCacheSize", "0"));
+    }
+
+    /**
+     * Returns the cache of memory-mapped files, or null if it is disabled.
+     * 
+     * @return The cache of memory-mapped files.
+     */
+    public MappedFileCache getMappedFileCache() {
+        return mappedFileCache;
+    }
+
+    /**
+     * Returns the maximum size in bytes of a single memory-mapped file.
+     * Defaults to 1048576.
+     * 
+     * @return The maximum size in bytes of a single memory-mapped file.
+     */
+    public long getMappedFileMaxSize() {
+        return Long.parseLong(getHelpedParameters().getFirstValue(
+                "mappedFileMaxSize", "1048576"));
     }
 
     /**
@@ -674,6 +723,26 @@ public class FileClientHelper extends EntityClientHelper {
                 "resumeUpload", "false"));
     }
 
+    @Override
+    public synchronized void start() throws Exception {
+        super.start();
+
+        if (getMappedCacheSize() > 0) {
+            this.mappedFileCache = new MappedFileCache(getMappedCacheSize(),
+                    getMappedFileMaxSize());
+        }
+    }
+
+    @Override
+    public synchronized void stop() throws Exception {
+        if (this.mappedFileCache != null) {
+            this.mappedFileCache.clear();
+            this.mappedFileCache = null;
+        }
+
+        super.stop();
+    }
+
     /**
      * Complete the given file name with the extension corresponding to the
      * given metadata.
@@ -34,6 +34,7 @@
 package org.restlet.engine.local;
 
 import java.io.File;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -50,6 +51,9 @@ public class FileEntity extends Entity {
     /** The underlying regular file. */
     private final File file;
 
+    /** The optional cache of memory-mapped files. */
+    private final MappedFileCache mappedFileCache;
+
     /**
      * Constructor.
      * 
@@ -59,8 +63,24 @@ public class FileEntity extends Entity {
      *            The metadata service to use.
      */
     public FileEntity(File file, MetadataService metadataService) {
+        this(file, metadataService, null);
+    }
+
+    /**
+     * Constructor.
+     * 
+     * @param file
+     *            The underlying file.
+     * @param metadataService
+     *            The metadata service to use.
+     * @param mappedFileCache
+     *            The optional cache of memory-mapped files.
+     */
+    public FileEntity(File file, MetadataService metadataService,
+            MappedFileCache mappedFileCache) {
         super(metadataService);
         this.file = file;
+        this.mappedFileCache = mappedFileCache;
     }
 
     @Override
@@ -87,7 +107,8 @@ public class FileEntity extends Entity {
             // try {
             // [enddef]
             for (File f : getFile().listFiles()) {
-                result.add(new FileEntity(f, getMetadataService()));
+                result.add(new FileEntity(f, getMetadataService(),
+                        getMappedFileCache()));
             }
             // [ifdef gae] uncomment
             // } catch (java.security.AccessControlException ace) {
@@ -107,6 +128,15 @@ public class FileEntity extends Entity {
         return file;
     }
 
+    /**
+     * Returns the optional cache of memory-mapped files.
+     * 
+     * @return The optional cache of memory-mapped files.
+     */
+    public MappedFileCache getMappedFileCache() {
+        return mappedFileCache;
+    }
+
     @Override
     public String getName() {
         return getFile().getName();
@@ -116,12 +146,20 @@ public class FileEntity extends Entity {
     public Entity getParent() {
         File parentFile = getFile().getParentFile();
         return (parentFile == null) ? null : new FileEntity(parentFile,
-                getMetadataService());
+                getMetadataService(), getMappedFileCache());
     }
 
     @Override
     public Representation getRepresentation(MediaType defaultMediaType,
             int timeToLive) {
+        ByteBuffer buffer = (getMappedFileCache() == null) ? null
+                : getMappedFileCache().get(getFile());
+
+        if (buffer != null) {
+            return new MappedFileRepresentation(getFile(), defaultMediaType,
+                    timeToLive, buffer);
+        }
+
         return new FileRepresentation(getFile(), defaultMediaType, timeToLive);
     }
 
@@ -0,0 +1,260 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+
+package org.restlet.engine.local;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.logging.Level;
+
+import org.restlet.Context;
+
+// [excludes gwt]
+/**
+ * Cache of memory-mapped regular files. Files are keyed by their absolute path
+ * and their mapping is reused as long as their modification date and length
+ * don't change. When the total size of the mapped files exceeds a byte budget,
+ * the least recently used ones are evicted. Note that the memory of an evicted
+ * mapping is only released once it has been garbage collected.
+ * 
+ * @author Jerome Louvel
+ */
+public class MappedFileCache {
+
+    /** A file mapping and the file state it was created from. */
+    private static class Mapping {
+
+        /** The mapped bytes. */
+        private final MappedByteBuffer buffer;
+
+        /** The modification date of the file when mapped. */
+        private final long lastModified;
+
+        /**
+         * Constructor.
+         * 
+         * @param buffer
+         *            The mapped bytes.
+         * @param lastModified
+         *            The modification date of the file when mapped.
+         */
+        public Mapping(MappedByteBuffer buffer, long lastModified) {
+            this.buffer = buffer;
+            this.lastModified = lastModified;
+        }
+    }
+
+    /** The mappings in least recently used order. */
+    private final LinkedHashMap<String, Mapping> mappings;
+
+    /** The maximum size of a single mapped file. */
+    private final long maxFileSize;
+
+    /** The maximum total size of the mapped files. */
+    private final long maxSize;
+
+    /** The current total size of the mapped files. */
+    private long size;
+
+    /**
+     * Constructor.
+     * 
+     * @param maxSize
+     *            The maximum total size of the mapped files.
+     * @param maxFileSize
+     *            The maximum size of a single mapped file.
+     */
+    public MappedFileCache(long maxSize, long maxFileSize) {
+        this.mappings = new LinkedHashMap<String, Mapping>(16, 0.75f, true);
+        this.maxFileSize = maxFileSize;
+        this.maxSize = maxSize;
+        this.size = 0;
+    }
+
+    /**
+     * Removes all the mappings.
+     */
+    public synchronized void clear() {
+        this.mappings.clear();
+        this.size = 0;
+    }
+
+    /**
+     * Returns the mapped content of a file. The file is mapped if it isn't
+     * already, or if it was modified since it was mapped. A new buffer sharing
+     * the mapped content is returned on each call so that callers can't
+     * interfere with each other.
+     * 
+     * @param file
+     *            The file to map.
+     * @return The mapped content or null if the file can't be mapped or is
+     *         too large.
+     */
+    public ByteBuffer get(File file) {
+        ByteBuffer result = null;
+        long length = file.length();
+        long lastModified = file.lastModified();
+
+        if ((length > 0) && (length <= getMaxFileSize())
+                && (length <= getMaxSize())) {
+            String key = file.getAbsolutePath();
+            Mapping mapping = null;
+
+            synchronized (this) {
+                mapping = this.mappings.get(key);
+            }
+
+            if ((mapping == null) || (mapping.lastModified != lastModified)
+                    || (mapping.buffer.capacity() != length)) {
+                MappedByteBuffer buffer = map(file, length);
+                mapping = (buffer == null) ? null : new Mapping(buffer,
+                        lastModified);
+                put(key, mapping);
+            }
+
+            if (mapping != null) {
+                result = mapping.buffer.duplicate();
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the maximum size of a single mapped file.
+     * 
+     * @return The maximum size of a single mapped file.
+     */
+    public long getMaxFileSize() {
+        return maxFileSize;
+    }
+
+    /**
+     * Returns the maximum total size of the mapped files.
+     * 
+     * @return The maximum total size of the mapped files.
+     */
+    public long getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Returns the current total size of the mapped files.
+     * 
+     * @return The current total size of the mapped files.
+     */
+    public synchronized long getSize() {
+        return size;
+    }
+
+    /**
+     * Maps the content of a file in read-only mode.
+     * 
+     * @param file
+     *            The file to map.
+     * @param length
+     *            The expected length of the file.
+     * @return The mapped content or null if the file couldn't be mapped or
+     *         changed meanwhile.
+     */
+    private MappedByteBuffer map(File file, long length) {
+        MappedByteBuffer result = null;
+        RandomAccessFile raf = null;
+
+        try {
+            raf = new RandomAccessFile(file, "r");
+            FileChannel channel = raf.getChannel();
+
+            if (channel.size() == length) {
+                result = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+            }
+        } catch (IOException ioe) {
+            Context.getCurrentLogger().log(Level.FINE,
+                    "Unable to map the file " + file, ioe);
+        } finally {
+            if (raf != null) {
+                try {
+                    // The mapping stays valid once the file is closed
+                    raf.close();
+                } catch (IOException ioe) {
+                    Context.getCurrentLogger().log(Level.FINE,
+                            "Unable to close the mapped file " + file, ioe);
+                }
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Stores or removes a mapping then evicts the least recently used mappings
+     * exceeding the maximum total size.
+     * 
+     * @param key
+     *            The file path.
+     * @param mapping
+     *            The new mapping or null to remove the previous one.
+     */
+    private synchronized void put(String key, Mapping mapping) {
+        Mapping previous = (mapping == null) ? this.mappings.remove(key)
+                : this.mappings.put(key, mapping);
+
+        if (previous != null) {
+            this.size -= previous.buffer.capacity();
+        }
+
+        if (mapping != null) {
+            this.size += mapping.buffer.capacity();
+        }
+
+        for (Iterator<Map.Entry<String, Mapping>> iter = this.mappings
+                .entrySet().iterator(); (this.size > getMaxSize())
+                && iter.hasNext();) {
+            Mapping eldest = iter.next().getValue();
+
+            if (eldest != mapping) {
+                this.size -= eldest.buffer.capacity();
+                iter.remove();
+            }
+        }
+    }
+
+}
@@ -0,0 +1,123 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+
+package org.restlet.engine.local;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+import org.restlet.data.MediaType;
+import org.restlet.engine.io.IoUtils;
+import org.restlet.engine.io.NbChannelOutputStream;
+import org.restlet.engine.io.NioUtils;
+import org.restlet.representation.FileRepresentation;
+
+// [excludes gwt]
+/**
+ * File representation whose content was memory-mapped, typically by a
+ * {@link MappedFileCache}. Writing it copies the mapped region straight to the
+ * target channel or stream without reading the file again.
+ * 
+ * @author Jerome Louvel
+ */
+public class MappedFileRepresentation extends FileRepresentation {
+
+    /** The mapped content of the file. */
+    private final ByteBuffer buffer;
+
+    /**
+     * Constructor.
+     * 
+     * @param file
+     *            The represented file.
+     * @param mediaType
+     *            The representation's media type.
+     * @param timeToLive
+     *            The time to live before it expires (in seconds).
+     * @param buffer
+     *            The mapped content of the file.
+     */
+    public MappedFileRepresentation(File file, MediaType mediaType,
+            int timeToLive, ByteBuffer buffer) {
+        super(file, mediaType, timeToLive);
+        this.buffer = buffer;
+        setSize(buffer.remaining());
+    }
+
+    /**
+     * Returns a new buffer sharing the mapped content of the file, positioned
+     * at its beginning.
+     * 
+     * @return A new buffer sharing the mapped content of the file.
+     */
+    public ByteBuffer getBuffer() {
+        return this.buffer.duplicate();
+    }
+
+    @Override
+    public void write(OutputStream outputStream) throws IOException {
+        ByteBuffer source = getBuffer();
+        byte[] bytes = new byte[Math.min(source.remaining(),
+                IoUtils.BUFFER_SIZE)];
+
+        while (source.hasRemaining()) {
+            int length = Math.min(bytes.length, source.remaining());
+            source.get(bytes, 0, length);
+            outputStream.write(bytes, 0, length);
+        }
+    }
+
+    /**
+     * Writes the mapped region of the file to a byte channel.
+     * 
+     * @param writableChannel
+     *            A writable byte channel.
+     */
+    @Override
+    public void write(WritableByteChannel writableChannel) throws IOException {
+        if (NioUtils.isBlocking(writableChannel)) {
+            ByteBuffer source = getBuffer();
+
+            while (source.hasRemaining()) {
+                writableChannel.write(source);
+            }
+        } else {
+            write(new NbChannelOutputStream(writableChannel));
+        }
+    }
+
+}
@@ -37,6 +37,8 @@ import java.util.concurrent.ThreadFactory;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import org.restlet.engine.util.SystemUtils;
+
 /**
  * Thread factory that logs uncaught exceptions thrown by the created threads.
  * 
@@ -62,6 +64,9 @@ public class LoggingThreadFactory implements ThreadFactory {
     /** Indicates if threads should be created as daemons. */
     private final boolean daemon;
 
+    /** The factory of virtual threads to use, or null for platform threads. */
+    private final ThreadFactory virtualFactory;
+
     /**
      * Constructor.
      * 
@@ -81,8 +86,35 @@ public class LoggingThreadFactory implements ThreadFactory {
      *            Indicates if threads should be created as daemons.
      */
     public LoggingThreadFactory(Logger logger, boolean daemon) {
+        this(logger, daemon, false);
+    }
+
+    /**
+     * Constructor. If virtual threads are requested but not supported by the
+     * running JVM, regular platform threads are created instead.
+     * 
+     * @param logger
+     *            The associated logger.
+     * @param daemon
+     *            Indicates if threads should be created as daemons. Ignored
+     *            for virtual threads which are always daemons.
+     * @param virtual
+     *            Indicates if virtual threads should be created.
+     */
+    public LoggingThreadFactory(Logger logger, boolean daemon, boolean virtual) {
         this.logger = logger;
         this.daemon = daemon;
+        this.virtualFactory = virtual ? SystemUtils.getVirtualThreadFactory()
+                : null;
+    }
+
+    /**
+     * Indicates if virtual threads are created.
+     * 
+     * @return True if virtual threads are created.
+     */
+    public boolean isVirtual() {
+        return this.virtualFactory != null;
     }
 
     /**
@@ -92,10 +124,15 @@ public class LoggingThreadFactory implements ThreadFactory {
      *            The runnable task.
      */
     public Thread newThread(Runnable r) {
-        Thread result = new Thread(r);
+        Thread result = isVirtual() ? this.virtualFactory.newThread(r)
+                : new Thread(r);
         result.setName("Restlet-" + result.hashCode());
         result.setUncaughtExceptionHandler(new LoggingExceptionHandler());
-        result.setDaemon(this.daemon);
+
+        if (!isVirtual()) {
+            result.setDaemon(this.daemon);
+        }
+
         return result;
     }
 }
@@ -35,6 +35,7 @@ package org.restlet.engine.resource;
 
 import java.lang.reflect.Array;
 import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.Modifier;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.lang.reflect.TypeVariable;
@@ -158,9 +159,15 @@ public class AnnotationInfo {
     /** The input part of the annotation value. */
     private final String input;
 
+    /** The cached input types of the Java method. */
+    private volatile Class<?>[] javaInputTypes;
+
     /** The annotated Java method. */
     private final java.lang.reflect.Method javaMethod;
 
+    /** The cached output type of the Java method. */
+    private volatile Class<?> javaOutputType;
+
     /** The output part of the annotation value. */
     private final String output;
 
@@ -192,6 +199,18 @@ public class AnnotationInfo {
         this.restletMethod = restletMethod;
         this.javaMethod = javaMethod;
 
+        if ((javaMethod != null)
+                && Modifier.isPublic(javaMethod.getModifiers())) {
+            try {
+                // Skip the access checks on each invocation
+                javaMethod.setAccessible(true);
+            } catch (RuntimeException re) {
+                // Denied by a security manager or a module not opened
+                Context.getCurrentLogger().fine(
+                        "Unable to suppress the access checks of " + javaMethod);
+            }
+        }
+
         // Parse the main components of the annotation value
         if ((value != null) && !value.equals("")) {
             int queryIndex = value.indexOf('?');
@@ -336,14 +355,20 @@ public class AnnotationInfo {
      * @return The input types of the Java method.
      */
     public Class<?>[] getJavaInputTypes() {
-        int count = getJavaMethod().getParameterTypes().length;
-        Class<?>[] classes = new Class[count];
+        Class<?>[] result = this.javaInputTypes;
+
+        if (result == null) {
+            int count = getJavaMethod().getParameterTypes().length;
+            result = new Class[count];
 
-        for (int i = 0; i < count; i++) {
-            classes[i] = getJavaInputType(i);
+            for (int i = 0; i < count; i++) {
+                result[i] = getJavaInputType(i);
+            }
+
+            this.javaInputTypes = result;
         }
 
-        return classes;
+        return result.clone();
     }
 
     /**
@@ -361,8 +386,15 @@ public class AnnotationInfo {
      * @return The output type of the Java method.
      */
     public Class<?> getJavaOutputType() {
-        return getJavaActualType(getJavaMethod().getReturnType(),
-                getJavaMethod().getGenericReturnType());
+        Class<?> result = this.javaOutputType;
+
+        if (result == null) {
+            result = getJavaActualType(getJavaMethod().getReturnType(),
+                    getJavaMethod().getGenericReturnType());
+            this.javaOutputType = result;
+        }
+
+        return result;
     }
 
     /**
@@ -0,0 +1,96 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.engine.util;
+
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Thread-safe set implementation backed by a {@link ConcurrentHashMap}. Unlike
+ * a copy-on-write set, adding or removing an element doesn't copy the whole
+ * content. Iterators are weakly consistent and never throw
+ * {@link java.util.ConcurrentModificationException}.
+ * 
+ * @param <E>
+ *            The element type.
+ */
+public class ConcurrentHashSet<E> extends AbstractSet<E> {
+
+    /** The backing map. */
+    private final ConcurrentHashMap<E, Boolean> map;
+
+    /**
+     * Default constructor.
+     */
+    public ConcurrentHashSet() {
+        this.map = new ConcurrentHashMap<E, Boolean>();
+    }
+
+    @Override
+    public boolean add(E element) {
+        return this.map.putIfAbsent(element, Boolean.TRUE) == null;
+    }
+
+    @Override
+    public void clear() {
+        this.map.clear();
+    }
+
+    @Override
+    public boolean contains(Object element) {
+        return this.map.containsKey(element);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return this.map.isEmpty();
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        return this.map.keySet().iterator();
+    }
+
+    @Override
+    public boolean remove(Object element) {
+        return this.map.remove(element) != null;
+    }
+
+    @Override
+    public int size() {
+        return this.map.size();
+    }
+
+}
@@ -39,12 +39,45 @@ import java.util.Date;
 import java.util.List;
 
 /**
- * Date manipulation utilities.
+ * Date manipulation utilities. Dates in the default HTTP format (RFC 1123) are
+ * formatted and parsed without {@link java.text.DateFormat} and the recent
+ * results are cached. Other formats reuse formatters cached per thread.
  * 
  * @author Jerome Louvel
  */
 public final class DateUtils {
 
+    // [ifndef gwt] member
+    /**
+     * A date associated to its formatted value, cached by the RFC 1123
+     * formatter and parser.
+     */
+    private static final class CachedDate {
+
+        /** The date. */
+        private final Date date;
+
+        /** The number of seconds since the epoch. */
+        private final long second;
+
+        /** The formatted value. */
+        private final String value;
+
+        /**
+         * Constructor.
+         * 
+         * @param date
+         *            The date.
+         * @param value
+         *            The formatted value.
+         */
+        private CachedDate(Date date, String value) {
+            this.date = date;
+            this.second = date.getTime() / 1000;
+            this.value = value;
+        }
+    }
+
     /** Obsoleted HTTP date format (ANSI C asctime() format). */
     public static final List<String> FORMAT_ASC_TIME = unmodifiableList("EEE MMM dd HH:mm:ss yyyy");
 
@@ -65,6 +98,47 @@ public final class DateUtils {
             "EEE, dd MMM yy HH:mm:ss z", "EEE, dd MMM yy HH:mm z",
             "dd MMM yy HH:mm:ss z", "dd MMM yy HH:mm z");
 
+    // [ifndef gwt] member
+    /** The number of cached RFC 1123 dates, a power of two. */
+    private static final int CACHE_SIZE = 64;
+
+    // [ifndef gwt] member
+    /** The abbreviated day names, starting with Sunday. */
+    private static final String[] DAYS = { "Sun", "Mon", "Tue", "Wed", "Thu",
+            "Fri", "Sat" };
+
+    // [ifndef gwt] member
+    /** The recently formatted RFC 1123 dates, indexed by their second. */
+    private static final CachedDate[] FORMATTED_DATES = new CachedDate[CACHE_SIZE];
+
+    // [ifndef gwt] member
+    /** The date formats of the current thread, indexed by pattern. */
+    private static final ThreadLocal<java.util.Map<String, java.text.DateFormat>> FORMATS = new ThreadLocal<java.util.Map<String, java.text.DateFormat>>() {
+        @Override
+        protected java.util.Map<String, java.text.DateFormat> initialValue() {
+            return new java.util.HashMap<String, java.text.DateFormat>();
+        }
+    };
+
+    // [ifndef gwt] member
+    /**
+     * The first time, in milliseconds since the epoch, that isn't formatted
+     * without {@link java.text.DateFormat}. It is the start of year 10000.
+     */
+    private static final long MAX_RFC_1123_TIME = 253402300800000L;
+
+    // [ifndef gwt] member
+    /** The abbreviated month names, starting with January. */
+    private static final String[] MONTHS = { "Jan", "Feb", "Mar", "Apr",
+            "May", "Jun", "Jul", "Aug", "Sep", "Oct", "Nov", "Dec" };
+
+    // [ifndef gwt] member
+    /**
+     * The recently parsed RFC 1123 dates, indexed by the hash code of their
+     * formatted value.
+     */
+    private static final CachedDate[] PARSED_DATES = new CachedDate[CACHE_SIZE];
+
     // [ifndef gwt] member
     /** Remember the often used GMT time zone. */
     private static final java.util.TimeZone TIMEZONE_GMT = java.util.TimeZone
@@ -159,17 +233,14 @@ public final class DateUtils {
         }
 
         // [ifndef gwt]
-        java.text.DateFormat formatter = null;
-
-        if (FORMAT_RFC_3339.get(0).equals(format)) {
-            formatter = new InternetDateFormat(TIMEZONE_GMT);
-        } else {
-            formatter = new java.text.SimpleDateFormat(format,
-                    java.util.Locale.US);
-            formatter.setTimeZone(TIMEZONE_GMT);
+        long time = date.getTime();
+
+        if ((time >= 0) && (time < MAX_RFC_1123_TIME)
+                && FORMAT_RFC_1123.get(0).equals(format)) {
+            return formatRfc1123(time);
         }
 
-        return formatter.format(date);
+        return getFormat(format).format(date);
         // [enddef]
         // [ifdef gwt]
         /*
@@ -188,6 +259,86 @@ public final class DateUtils {
         // [enddef]
     }
 
+    // [ifndef gwt] method
+    /**
+     * Formats a time in the RFC 1123 format, without
+     * {@link java.text.DateFormat}. The result is cached by second, as the
+     * same dates, such as the current one, are often formatted several times.
+     * 
+     * @param time
+     *            The positive number of milliseconds since the epoch, before
+     *            the year 10000.
+     * @return The formatted date.
+     */
+    private static String formatRfc1123(long time) {
+        long second = time / 1000;
+        int slot = (int) (second & (CACHE_SIZE - 1));
+        CachedDate cached = FORMATTED_DATES[slot];
+
+        if ((cached == null) || (cached.second != second)) {
+            int days = (int) (second / 86400);
+            int secondOfDay = (int) (second % 86400);
+
+            // Convert the days since the epoch into a Gregorian date
+            int shifted = days + 719468;
+            int era = shifted / 146097;
+            int dayOfEra = shifted - era * 146097;
+            int yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra
+                    / 146096) / 365;
+            int dayOfYear = dayOfEra
+                    - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+            int shiftedMonth = (5 * dayOfYear + 2) / 153;
+            int day = dayOfYear - (153 * shiftedMonth + 2) / 5 + 1;
+            int month = (shiftedMonth < 10) ? shiftedMonth + 3
+                    : shiftedMonth - 9;
+            int year = yearOfEra + era * 400 + ((month <= 2) ? 1 : 0);
+
+            StringBuilder sb = new StringBuilder(29);
+            sb.append(DAYS[(days + 4) % 7]).append(", ");
+            sb.append((char) ('0' + day / 10)).append((char) ('0' + day % 10));
+            sb.append(' ').append(MONTHS[month - 1]).append(' ');
+            sb.append(year).append(' ');
+            writeDigits(secondOfDay / 3600, sb).append(':');
+            writeDigits((secondOfDay / 60) % 60, sb).append(':');
+            writeDigits(secondOfDay % 60, sb).append(" GMT");
+            cached = new CachedDate(new Date(second * 1000), sb.toString());
+            FORMATTED_DATES[slot] = cached;
+        }
+
+        return cached.value;
+    }
+
+    // [ifndef gwt] method
+    /**
+     * Returns the date format of the current thread for the given pattern.
+     * 
+     * @param format
+     *            The date format pattern.
+     * @return The date format.
+     */
+    private static java.text.DateFormat getFormat(String format) {
+        java.util.Map<String, java.text.DateFormat> formats = FORMATS.get();
+        java.text.DateFormat result = formats.get(format);
+
+        if (result == null) {
+            if (FORMAT_RFC_3339.get(0).equals(format)) {
+                result = new InternetDateFormat(TIMEZONE_GMT);
+            } else {
+                result = new java.text.SimpleDateFormat(format,
+                        java.util.Locale.US);
+            }
+
+            formats.put(format, result);
+        }
+
+        if (result instanceof java.text.SimpleDateFormat) {
+            // Parsing a time zone name may have changed the time zone
+            result.setTimeZone(TIMEZONE_GMT);
+        }
+
+        return result;
+    }
+
     /**
      * Parses a formatted date into a Date object using the default HTTP format
      * (RFC 1123).
@@ -218,19 +369,28 @@ public final class DateUtils {
 
         String format = null;
         int formatsSize = formats.size();
+        // [ifndef gwt]
+        boolean rfc1123 = (formatsSize > 0)
+                && FORMAT_RFC_1123.get(0).equals(formats.get(0));
+        CachedDate cached = null;
+        int slot = date.hashCode() & (CACHE_SIZE - 1);
 
-        for (int i = 0; (result == null) && (i < formatsSize); i++) {
-            format = formats.get(i);
-            // [ifndef gwt]
-            java.text.DateFormat parser = null;
+        if (rfc1123) {
+            cached = PARSED_DATES[slot];
 
-            if (FORMAT_RFC_3339.get(0).equals(format)) {
-                parser = new InternetDateFormat(TIMEZONE_GMT);
+            if ((cached != null) && cached.value.equals(date)) {
+                result = cached.date;
             } else {
-                parser = new java.text.SimpleDateFormat(format,
-                        java.util.Locale.US);
-                parser.setTimeZone(TIMEZONE_GMT);
+                cached = null;
+                result = parseRfc1123(date);
             }
+        }
+        // [enddef]
+
+        for (int i = 0; (result == null) && (i < formatsSize); i++) {
+            format = formats.get(i);
+            // [ifndef gwt]
+            java.text.DateFormat parser = getFormat(format);
             // [enddef]
             // [ifdef gwt]
             /*
@@ -253,6 +413,95 @@ public final class DateUtils {
             }
         }
 
+        // [ifndef gwt]
+        if (rfc1123 && (cached == null) && (result != null)) {
+            result = ImmutableDate.valueOf(result.getTime());
+            PARSED_DATES[slot] = new CachedDate(result, date);
+        }
+        // [enddef]
+
+        return result;
+    }
+
+    // [ifndef gwt] method
+    /**
+     * Parses a number made of a fixed count of decimal digits.
+     * 
+     * @param source
+     *            The source string.
+     * @param start
+     *            The index of the first digit.
+     * @param count
+     *            The number of digits.
+     * @return The number parsed or -1 if a character isn't a digit.
+     */
+    private static int parseDigits(String source, int start, int count) {
+        int result = 0;
+
+        for (int i = start; (result != -1) && (i < start + count); i++) {
+            char c = source.charAt(i);
+            result = ((c >= '0') && (c <= '9')) ? result * 10 + (c - '0') : -1;
+        }
+
+        return result;
+    }
+
+    // [ifndef gwt] method
+    /**
+     * Parses a date in the RFC 1123 format, without
+     * {@link java.text.DateFormat}. Only the strict form, such as
+     * "Sun, 06 Nov 1994 08:49:37 GMT", is recognized.
+     * 
+     * @param date
+     *            The date to parse.
+     * @return The parsed date or null if the date isn't in the strict RFC
+     *         1123 format.
+     */
+    private static Date parseRfc1123(String date) {
+        Date result = null;
+
+        if ((date.length() == 29) && (date.charAt(3) == ',')
+                && (date.charAt(4) == ' ') && (date.charAt(7) == ' ')
+                && (date.charAt(11) == ' ') && (date.charAt(16) == ' ')
+                && (date.charAt(19) == ':') && (date.charAt(22) == ':')
+                && (date.charAt(25) == ' ')
+                && date.regionMatches(true, 26, "GMT", 0, 3)) {
+            boolean dayFound = false;
+            int month = -1;
+
+            for (int i = 0; !dayFound && (i < DAYS.length); i++) {
+                dayFound = date.regionMatches(true, 0, DAYS[i], 0, 3);
+            }
+
+            for (int i = 0; (month == -1) && (i < MONTHS.length); i++) {
+                if (date.regionMatches(true, 8, MONTHS[i], 0, 3)) {
+                    month = i + 1;
+                }
+            }
+
+            int day = parseDigits(date, 5, 2);
+            int year = parseDigits(date, 12, 4);
+            int hour = parseDigits(date, 17, 2);
+            int minute = parseDigits(date, 20, 2);
+            int second = parseDigits(date, 23, 2);
+
+            // Earlier years use the Julian calendar in java.text
+            if (dayFound && (month != -1) && (day != -1) && (year >= 1583)
+                    && (hour != -1) && (minute != -1) && (second != -1)) {
+                // Convert the Gregorian date into days since the epoch
+                int shiftedYear = (month <= 2) ? year - 1 : year;
+                int era = shiftedYear / 400;
+                int yearOfEra = shiftedYear - era * 400;
+                int dayOfYear = (153 * ((month > 2) ? month - 3 : month + 9) + 2)
+                        / 5 + day - 1;
+                int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra
+                        / 100 + dayOfYear;
+                long days = era * 146097L + dayOfEra - 719468;
+                result = new Date(((days * 24 + hour) * 60 + minute) * 60000L
+                        + second * 1000L);
+            }
+        }
+
         return result;
     }
 
@@ -282,6 +531,21 @@ public final class DateUtils {
         return Collections.unmodifiableList(Arrays.asList(array));
     }
 
+    // [ifndef gwt] method
+    /**
+     * Writes a number between 0 and 99 with two digits.
+     * 
+     * @param number
+     *            The number to write.
+     * @param sb
+     *            The target string builder.
+     * @return The target string builder.
+     */
+    private static StringBuilder writeDigits(int number, StringBuilder sb) {
+        return sb.append((char) ('0' + number / 10)).append(
+                (char) ('0' + number % 10));
+    }
+
     /**
      * Private constructor to ensure that the class acts as a true utility class
      * i.e. it isn't instantiable and extensible.
@@ -69,6 +69,18 @@ final class ImmutableDate extends Date {
         return CACHE.get(date);
     }
 
+    /**
+     * Returns a new ImmutableDate object for the given time, without going
+     * through the cache of wrapped dates.
+     * 
+     * @param time
+     *            The number of milliseconds since the epoch.
+     * @return A new immutable date object.
+     */
+    static ImmutableDate valueOf(long time) {
+        return new ImmutableDate(new Date(time));
+    }
+
     /**
      * Private constructor. A factory method is provided.
      * 
@@ -0,0 +1,214 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.engine.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// [excludes gwt]
+/**
+ * Lock-free histogram of latencies. Latencies are recorded in nanoseconds and
+ * counted in buckets of exponentially growing width, the bucket of index i
+ * holding the latencies lower than 2^i microseconds and greater than or equal
+ * to the upper bound of the previous bucket. Percentiles are therefore
+ * approximated by the upper bound of their bucket.
+ * 
+ * @author Jerome Louvel
+ */
+public class LatencyHistogram {
+
+    /** The number of buckets, the last one covering more than half an hour. */
+    public static final int BUCKETS = 32;
+
+    /** The number of latencies per bucket. */
+    private final AtomicLongArray buckets;
+
+    /** The number of latencies recorded. */
+    private final StripedCounter count;
+
+    /** The highest latency recorded, in nanoseconds. */
+    private final AtomicLong max;
+
+    /** The sum of the latencies recorded, in nanoseconds. */
+    private final StripedCounter total;
+
+    /**
+     * Constructor.
+     */
+    public LatencyHistogram() {
+        this.buckets = new AtomicLongArray(BUCKETS);
+        this.count = new StripedCounter();
+        this.max = new AtomicLong();
+        this.total = new StripedCounter();
+    }
+
+    /**
+     * Returns the index of the bucket of a given latency.
+     * 
+     * @param nanos
+     *            The latency in nanoseconds.
+     * @return The index of the bucket.
+     */
+    private static int bucketOf(long nanos) {
+        long micros = nanos / 1000L;
+        int result = (micros <= 0L) ? 0 : 64 - Long
+                .numberOfLeadingZeros(micros);
+        return (result < BUCKETS) ? result : BUCKETS - 1;
+    }
+
+    /**
+     * Returns the upper bound of a given bucket, in microseconds.
+     * 
+     * @param bucket
+     *            The bucket index.
+     * @return The upper bound of the bucket, in microseconds.
+     */
+    public static long getUpperBoundMicros(int bucket) {
+        return 1L << bucket;
+    }
+
+    /**
+     * Returns a snapshot of the number of latencies per bucket.
+     * 
+     * @return A snapshot of the number of latencies per bucket.
+     */
+    public long[] getBuckets() {
+        long[] result = new long[BUCKETS];
+
+        for (int i = 0; i < BUCKETS; i++) {
+            result[i] = this.buckets.get(i);
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the number of latencies recorded.
+     * 
+     * @return The number of latencies recorded.
+     */
+    public long getCount() {
+        return this.count.get();
+    }
+
+    /**
+     * Returns the highest latency recorded, in microseconds.
+     * 
+     * @return The highest latency recorded, in microseconds.
+     */
+    public long getMaxMicros() {
+        return this.max.get() / 1000L;
+    }
+
+    /**
+     * Returns the mean latency, in microseconds.
+     * 
+     * @return The mean latency, in microseconds.
+     */
+    public long getMeanMicros() {
+        long recorded = getCount();
+        return (recorded == 0L) ? 0L : (this.total.get() / recorded) / 1000L;
+    }
+
+    /**
+     * Returns an approximation of the given percentile, in microseconds. The
+     * upper bound of the bucket containing the percentile is returned.
+     * 
+     * @param percentile
+     *            The percentile between 0 and 100.
+     * @return The approximated percentile, in microseconds.
+     */
+    public long getPercentileMicros(double percentile) {
+        long[] snapshot = getBuckets();
+        long recorded = 0L;
+
+        for (long bucketCount : snapshot) {
+            recorded += bucketCount;
+        }
+
+        long threshold = (long) Math.ceil(recorded * percentile / 100D);
+        long cumulated = 0L;
+
+        for (int i = 0; i < BUCKETS; i++) {
+            cumulated += snapshot[i];
+
+            if ((cumulated > 0L) && (cumulated >= threshold)) {
+                return getUpperBoundMicros(i);
+            }
+        }
+
+        return 0L;
+    }
+
+    /**
+     * Records a latency.
+     * 
+     * @param nanos
+     *            The latency in nanoseconds.
+     */
+    public void record(long nanos) {
+        if (nanos >= 0L) {
+            this.buckets.incrementAndGet(bucketOf(nanos));
+            this.count.increment();
+            this.total.add(nanos);
+            long currentMax = this.max.get();
+
+            while ((nanos > currentMax)
+                    && !this.max.compareAndSet(currentMax, nanos)) {
+                currentMax = this.max.get();
+            }
+        }
+    }
+
+    /**
+     * Resets the histogram. Concurrent records may be partially lost.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            this.buckets.set(i, 0L);
+        }
+
+        this.count.reset();
+        this.max.set(0L);
+        this.total.reset();
+    }
+
+    @Override
+    public String toString() {
+        return "count=" + getCount() + ", mean=" + getMeanMicros()
+                + "us, p50=" + getPercentileMicros(50) + "us, p99="
+                + getPercentileMicros(99) + "us, max=" + getMaxMicros() + "us";
+    }
+
+}
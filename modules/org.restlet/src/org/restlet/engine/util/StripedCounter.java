@@ -0,0 +1,164 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.engine.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// [excludes gwt]
+/**
+ * Long counter striped over several cells to limit the contention between
+ * threads updating it concurrently. Each thread updates the cell selected by
+ * its identifier, and cells are padded to sit on distinct cache lines. Reading
+ * the value sums all the cells without locking, so it is only weakly
+ * consistent with concurrent updates.
+ * 
+ * @author Jerome Louvel
+ */
+public class StripedCounter {
+
+    /** The number of array slots between two cells, to avoid false sharing. */
+    private static final int PADDING = 8;
+
+    /** The default number of stripes. */
+    private static final int DEFAULT_STRIPES = stripesFor(Runtime
+            .getRuntime().availableProcessors());
+
+    /**
+     * Returns the smallest power of two greater than or equal to the given
+     * number of stripes, with a minimum of 2.
+     * 
+     * @param stripes
+     *            The requested number of stripes.
+     * @return The power of two number of stripes.
+     */
+    private static int stripesFor(int stripes) {
+        int result = 2;
+
+        while (result < stripes) {
+            result <<= 1;
+        }
+
+        return result;
+    }
+
+    /** The padded cells. */
+    private final AtomicLongArray cells;
+
+    /** The mask selecting a stripe from a thread identifier. */
+    private final int mask;
+
+    /**
+     * Default constructor. Uses a number of stripes based on the number of
+     * available processors.
+     */
+    public StripedCounter() {
+        this(DEFAULT_STRIPES);
+    }
+
+    /**
+     * Constructor.
+     * 
+     * @param stripes
+     *            The number of stripes, rounded up to a power of two.
+     */
+    public StripedCounter(int stripes) {
+        int count = stripesFor(stripes);
+        this.cells = new AtomicLongArray(count * PADDING);
+        this.mask = count - 1;
+    }
+
+    /**
+     * Adds the given delta to the counter.
+     * 
+     * @param delta
+     *            The value to add.
+     */
+    public void add(long delta) {
+        this.cells.addAndGet(index(), delta);
+    }
+
+    /**
+     * Decrements the counter.
+     */
+    public void decrement() {
+        add(-1L);
+    }
+
+    /**
+     * Returns the current value of the counter.
+     * 
+     * @return The current value of the counter.
+     */
+    public long get() {
+        long result = 0L;
+
+        for (int i = 0; i < this.cells.length(); i += PADDING) {
+            result += this.cells.get(i);
+        }
+
+        return result;
+    }
+
+    /**
+     * Increments the counter.
+     */
+    public void increment() {
+        add(1L);
+    }
+
+    /**
+     * Returns the index of the cell to update for the current thread.
+     * 
+     * @return The index of the cell.
+     */
+    private int index() {
+        long id = Thread.currentThread().getId();
+        return ((int) (id ^ (id >>> 16)) & this.mask) * PADDING;
+    }
+
+    /**
+     * Resets the counter to zero. Concurrent updates may be lost.
+     */
+    public void reset() {
+        for (int i = 0; i < this.cells.length(); i += PADDING) {
+            this.cells.set(i, 0L);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return Long.toString(get());
+    }
+
+}
@@ -33,6 +33,11 @@
 
 package org.restlet.engine.util;
 
+// [ifndef gwt] import
+import java.lang.reflect.Method;
+// [ifndef gwt] import
+import java.util.concurrent.ThreadFactory;
+
 /**
  * System utilities.
  * 
@@ -40,6 +45,18 @@ package org.restlet.engine.util;
  */
 public class SystemUtils {
 
+    // [ifndef gwt] member
+    /** The Thread.isVirtual() method if available, looked up once. */
+    private static volatile Method isVirtualMethod;
+
+    // [ifndef gwt] member
+    /** Indicates if the virtual threads lookup was already attempted. */
+    private static volatile boolean virtualThreadsLookedUp;
+
+    // [ifndef gwt] member
+    /** The factory of virtual threads if supported by the running JVM. */
+    private static volatile ThreadFactory virtualThreadFactory;
+
     // [ifndef gwt] method
     /**
      * Parses the "java.version" system property and returns the first digit of
@@ -129,6 +146,98 @@ public class SystemUtils {
         return result;
     }
 
+    // [ifndef gwt] method
+    /**
+     * Returns a factory of virtual threads if the running JVM supports them
+     * (Java 21 or later), null otherwise. As this code base targets earlier
+     * Java versions, the factory is obtained reflectively via
+     * "Thread.ofVirtual().factory()".
+     * 
+     * @return The factory of virtual threads or null.
+     */
+    public static ThreadFactory getVirtualThreadFactory() {
+        if (!virtualThreadsLookedUp) {
+            synchronized (SystemUtils.class) {
+                if (!virtualThreadsLookedUp) {
+                    try {
+                        Object builder = Thread.class.getMethod("ofVirtual")
+                                .invoke(null);
+                        Class<?> builderClass = Class
+                                .forName("java.lang.Thread$Builder");
+                        virtualThreadFactory = (ThreadFactory) builderClass
+                                .getMethod("factory").invoke(builder);
+                        isVirtualMethod = Thread.class.getMethod("isVirtual");
+                    } catch (Throwable t) {
+                        virtualThreadFactory = null;
+                        isVirtualMethod = null;
+                    }
+
+                    virtualThreadsLookedUp = true;
+                }
+            }
+        }
+
+        return virtualThreadFactory;
+    }
+
+    // [ifndef gwt] method
+    /**
+     * Indicates if the given thread is a virtual thread. Always returns false
+     * on JVMs that don't support virtual threads.
+     * 
+     * @param thread
+     *            The thread to test.
+     * @return True if the given thread is a virtual thread.
+     */
+    public static boolean isVirtualThread(Thread thread) {
+        boolean result = false;
+
+        if ((thread != null) && (getVirtualThreadFactory() != null)) {
+            try {
+                result = Boolean.TRUE.equals(isVirtualMethod.invoke(thread));
+            } catch (Exception e) {
+                result = false;
+            }
+        }
+
+        return result;
+    }
+
+    // [ifndef gwt] method
+    /**
+     * Indicates if the running JVM supports virtual threads.
+     * 
+     * @return True if the running JVM supports virtual threads.
+     */
+    public static boolean isVirtualThreadsSupported() {
+        return getVirtualThreadFactory() != null;
+    }
+
+    // [ifndef gwt] method
+    /**
+     * Creates a new thread for a background task. If the current thread is a
+     * virtual thread, a virtual thread is created as well, otherwise a regular
+     * platform thread is returned. The thread isn't started.
+     * 
+     * @param task
+     *            The task to run.
+     * @param name
+     *            The name of the thread.
+     * @return The new unstarted thread.
+     */
+    public static Thread newTaskThread(Runnable task, String name) {
+        Thread result = null;
+
+        if (isVirtualThread(Thread.currentThread())) {
+            result = getVirtualThreadFactory().newThread(task);
+            result.setName(name);
+        } else {
+            result = new Thread(task, name);
+        }
+
+        return result;
+    }
+
     /**
      * Private constructor to ensure that the class acts as a true utility class
      * i.e. it isn't instantiable and extensible.
@@ -0,0 +1,263 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+package org.restlet.engine.util;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Hashed timing wheel scheduling time outs with a fixed tick precision. Each
+ * time out is stored in the slot of its deadline tick, modulo the number of
+ * slots, so scheduling and expiring are constant time operations whatever the
+ * number of scheduled time outs. Advancing the wheel only visits the slots of
+ * the elapsed ticks. This class isn't thread safe and is meant to be used by a
+ * single controller thread.
+ * 
+ * @author Jerome Louvel
+ * @param <T>
+ *            The type of elements scheduled.
+ */
+public class TimingWheel<T> {
+
+    /**
+     * A time out scheduled in the wheel.
+     * 
+     * @param <T>
+     *            The type of element scheduled.
+     */
+    public static final class Timeout<T> {
+
+        /** Indicates if the time out was cancelled. */
+        private boolean cancelled;
+
+        /** The deadline tick. */
+        private final long deadlineTick;
+
+        /** The scheduled element. */
+        private final T element;
+
+        /**
+         * Constructor.
+         * 
+         * @param element
+         *            The scheduled element.
+         * @param deadlineTick
+         *            The deadline tick.
+         */
+        private Timeout(T element, long deadlineTick) {
+            this.cancelled = false;
+            this.deadlineTick = deadlineTick;
+            this.element = element;
+        }
+
+        /**
+         * Cancels the time out. It will be silently discarded when its slot is
+         * visited.
+         */
+        public void cancel() {
+            this.cancelled = true;
+        }
+
+        /**
+         * Returns the scheduled element.
+         * 
+         * @return The scheduled element.
+         */
+        public T getElement() {
+            return element;
+        }
+
+        /**
+         * Indicates if the time out was cancelled.
+         * 
+         * @return True if the time out was cancelled.
+         */
+        public boolean isCancelled() {
+            return cancelled;
+        }
+    }
+
+    /** The last tick processed. */
+    private long currentTick;
+
+    /** The mask selecting a slot from a tick. */
+    private final int mask;
+
+    /** The number of time outs scheduled, including the cancelled ones. */
+    private int size;
+
+    /** The slots of the wheel. */
+    private final List<List<Timeout<T>>> slots;
+
+    /** The duration of a tick in milliseconds. */
+    private final long tickMs;
+
+    /**
+     * Constructor.
+     * 
+     * @param tickMs
+     *            The duration of a tick in milliseconds.
+     * @param slotCount
+     *            The minimum number of slots, rounded to a power of two.
+     * @param now
+     *            The current time in milliseconds.
+     */
+    public TimingWheel(long tickMs, int slotCount, long now) {
+        int count = 1;
+
+        while (count < slotCount) {
+            count <<= 1;
+        }
+
+        this.mask = count - 1;
+        this.slots = new ArrayList<List<Timeout<T>>>(count);
+
+        for (int i = 0; i < count; i++) {
+            this.slots.add(new ArrayList<Timeout<T>>());
+        }
+
+        this.tickMs = Math.max(1, tickMs);
+        this.currentTick = now / this.tickMs;
+        this.size = 0;
+    }
+
+    /**
+     * Advances the wheel up to the given time and collects the elements whose
+     * time out expired. Cancelled time outs are discarded.
+     * 
+     * @param now
+     *            The current time in milliseconds.
+     * @param expired
+     *            The list collecting the elements whose time out expired.
+     * @return The number of elements collected.
+     */
+    public int advance(long now, List<T> expired) {
+        int result = 0;
+        long targetTick = now / this.tickMs;
+
+        // Never visit the same slot twice during a single advance
+        long ticks = Math.min(targetTick - this.currentTick, this.mask + 1);
+
+        for (long i = 1; i <= ticks; i++) {
+            List<Timeout<T>> slot = this.slots
+                    .get((int) ((this.currentTick + i) & this.mask));
+
+            for (Iterator<Timeout<T>> iter = slot.iterator(); iter.hasNext();) {
+                Timeout<T> timeout = iter.next();
+
+                if (timeout.isCancelled()) {
+                    iter.remove();
+                    this.size--;
+                } else if (timeout.deadlineTick <= targetTick) {
+                    iter.remove();
+                    this.size--;
+                    expired.add(timeout.getElement());
+                    result++;
+                }
+            }
+        }
+
+        if (targetTick > this.currentTick) {
+            this.currentTick = targetTick;
+        }
+
+        return result;
+    }
+
+    /**
+     * Removes all the scheduled time outs.
+     */
+    public void clear() {
+        for (List<Timeout<T>> slot : this.slots) {
+            slot.clear();
+        }
+
+        this.size = 0;
+    }
+
+    /**
+     * Returns the delay in milliseconds until the next tick, from the given
+     * time.
+     * 
+     * @param now
+     *            The current time in milliseconds.
+     * @return The delay until the next tick.
+     */
+    public long getDelayToNextTick(long now) {
+        return ((now / this.tickMs) + 1) * this.tickMs - now;
+    }
+
+    /**
+     * Returns the duration of a tick in milliseconds.
+     * 
+     * @return The duration of a tick in milliseconds.
+     */
+    public long getTickMs() {
+        return tickMs;
+    }
+
+    /**
+     * Schedules an element to time out at the given deadline. The deadline is
+     * rounded up to the next tick, so the element never expires before it.
+     * 
+     * @param element
+     *            The element to schedule.
+     * @param deadline
+     *            The deadline in milliseconds.
+     * @return The scheduled time out, which can be cancelled.
+     */
+    public Timeout<T> schedule(T element, long deadline) {
+        long deadlineTick = (deadline + this.tickMs - 1) / this.tickMs;
+
+        if (deadlineTick <= this.currentTick) {
+            deadlineTick = this.currentTick + 1;
+        }
+
+        Timeout<T> result = new Timeout<T>(element, deadlineTick);
+        this.slots.get((int) (deadlineTick & this.mask)).add(result);
+        this.size++;
+        return result;
+    }
+
+    /**
+     * Returns the number of time outs scheduled, including the cancelled ones
+     * not yet discarded.
+     * 
+     * @return The number of time outs scheduled.
+     */
+    public int size() {
+        return size;
+    }
+
+}
@@ -585,7 +585,10 @@ public abstract class Representation extends RepresentationInfo {
     // [ifndef gwt] method
     /**
      * Sets a listener for NIO read events. If the listener is null, it clear
-     * any existing listener.
+     * any existing listener. If some content was already buffered by the
+     * connector, for example while reading the message headers, the listener
+     * is immediately notified by the calling thread as no further IO event
+     * would be selected for it.
      * 
      * @param readListener
      *            The listener for NIO read events.
@@ -601,6 +604,22 @@ public abstract class Representation extends RepresentationInfo {
             }
 
             sr.setListener(readListener);
+
+            if (readListener != null) {
+                java.nio.channels.ReadableByteChannel channel = getChannel();
+
+                if (channel instanceof org.restlet.engine.io.BufferedSelectionChannel<?>) {
+                    org.restlet.engine.io.Buffer buffer = ((org.restlet.engine.io.BufferedSelectionChannel<?>) channel)
+                            .getBuffer();
+
+                    // Lock the buffer first like the connector does
+                    synchronized (buffer.getLock()) {
+                        if (!buffer.isEmpty()) {
+                            readListener.onSelected();
+                        }
+                    }
+                }
+            }
         } catch (IOException ioe) {
             Context.getCurrentLogger().log(Level.WARNING,
                     "Unable to register the listener", ioe);
@@ -33,6 +33,7 @@
 
 package org.restlet.resource;
 
+import java.io.File;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
@@ -79,6 +80,14 @@ import org.restlet.representation.Variant;
  * idea</a>, using a different and faster implementation contributed by Rob
  * Heittman.<br>
  * <br>
+ * Static files can be served compressed without CPU cost per request. When the
+ * "servingPrecompressed" property is turned on, a sibling file with a ".br" or
+ * ".gz" extension (for example "app.js.gz" for "app.js") is served instead of
+ * the original file to clients accepting the matching encoding. When a
+ * "compressionCache" directory is set, GZIP variants of local files are also
+ * written there the first time they are requested and rewritten when the
+ * original file is modified.<br>
+ * <br>
  * Concurrency note: instances of this class or its subclasses can be invoked by
  * several threads at the same time and therefore must be thread-safe. You
  * should be especially careful when storing state in member variables.
@@ -92,6 +101,9 @@ public class Directory extends Finder {
     /** The reference comparator to sort index pages. */
     private volatile Comparator<Reference> comparator;
 
+    /** The directory caching the compressed variants of files, or null. */
+    private volatile File compressionCache;
+
     /**
      * Indicates if the sub-directories are deeply accessible (true by default).
      */
@@ -118,6 +130,9 @@ public class Directory extends Finder {
     /** The absolute root reference (file, clap URI). */
     private volatile Reference rootRef;
 
+    /** Indicates if pre-compressed sibling files are served. */
+    private volatile boolean servingPrecompressed;
+
     /**
      * Constructor.
      * 
@@ -143,11 +158,13 @@ public class Directory extends Finder {
         }
 
         this.comparator = new AlphaNumericComparator();
+        this.compressionCache = null;
         this.deeplyAccessible = true;
         this.indexName = "index";
         this.listingAllowed = false;
         this.modifiable = false;
         this.negotiatingContent = true;
+        this.servingPrecompressed = false;
         setTargetClass(DirectoryServerResource.class);
     }
 
@@ -184,6 +201,18 @@ public class Directory extends Finder {
         return this.comparator;
     }
 
+    /**
+     * Returns the local directory where the GZIP variants of files are cached,
+     * or null if the cache is disabled (default). Only files accessed via the
+     * FILE connector and accepted by the application's encoder service are
+     * cached.
+     * 
+     * @return The directory caching the compressed variants of files, or null.
+     */
+    public File getCompressionCache() {
+        return this.compressionCache;
+    }
+
     /**
      * Returns the index name, without extensions. Returns "index" by default.
      * 
@@ -287,6 +316,17 @@ public class Directory extends Finder {
         return this.negotiatingContent;
     }
 
+    /**
+     * Indicates if pre-compressed sibling files, such as "app.js.gz" or
+     * "app.js.br" for "app.js", are served to clients accepting their
+     * encoding. Default value is false.
+     * 
+     * @return True if pre-compressed sibling files are served.
+     */
+    public boolean isServingPrecompressed() {
+        return this.servingPrecompressed;
+    }
+
     /**
      * Sets the reference comparator based on classic alphabetical order.
      * 
@@ -320,6 +360,17 @@ public class Directory extends Finder {
         this.comparator = comparator;
     }
 
+    /**
+     * Sets the local directory where the GZIP variants of files are cached.
+     * 
+     * @param compressionCache
+     *            The directory caching the compressed variants of files, or
+     *            null to disable the cache.
+     */
+    public void setCompressionCache(File compressionCache) {
+        this.compressionCache = compressionCache;
+    }
+
     /**
      * Indicates if the sub-directories are deeply accessible (true by default).
      * 
@@ -373,6 +424,17 @@ public class Directory extends Finder {
         this.negotiatingContent = negotiatingContent;
     }
 
+    /**
+     * Indicates if pre-compressed sibling files are served to clients accepting
+     * their encoding.
+     * 
+     * @param servingPrecompressed
+     *            True if pre-compressed sibling files are served.
+     */
+    public void setServingPrecompressed(boolean servingPrecompressed) {
+        this.servingPrecompressed = servingPrecompressed;
+    }
+
     /**
      * Sets the root URI from which the relative resource URIs will be lookep
      * up.
@@ -34,6 +34,8 @@
 package org.restlet.resource;
 
 import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Modifier;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -101,6 +103,12 @@ public class Finder extends Restlet {
         return result;
     }
 
+    /**
+     * The cached default constructor of the last server resource class
+     * created.
+     */
+    private volatile Constructor<? extends ServerResource> constructor;
+
     /** Target {@link ServerResource} subclass. */
     private volatile Class<? extends ServerResource> targetClass;
 
@@ -119,6 +127,7 @@ public class Finder extends Restlet {
      */
     public Finder(Context context) {
         super(context);
+        this.constructor = null;
         this.targetClass = null;
     }
 
@@ -132,6 +141,7 @@ public class Finder extends Restlet {
      */
     public Finder(Context context, Class<? extends ServerResource> targetClass) {
         super(context);
+        this.constructor = null;
         this.targetClass = targetClass;
     }
 
@@ -153,8 +163,25 @@ public class Finder extends Restlet {
 
         if (targetClass != null) {
             try {
-                // Invoke the default constructor
-                result = targetClass.newInstance();
+                Constructor<? extends ServerResource> constructor = getConstructor(
+                        targetClass);
+
+                if (constructor != null) {
+                    // Invoke the cached default constructor
+                    result = constructor.newInstance();
+                } else {
+                    // Invoke the default constructor
+                    result = targetClass.newInstance();
+                }
+            } catch (InvocationTargetException ite) {
+                if (ite.getCause() instanceof Error) {
+                    throw (Error) ite.getCause();
+                }
+
+                getLogger()
+                        .log(Level.WARNING,
+                                "Exception while instantiating the target server resource.",
+                                ite.getCause());
             } catch (Exception e) {
                 getLogger()
                         .log(Level.WARNING,
@@ -203,6 +230,43 @@ public class Finder extends Restlet {
         return create(request, response);
     }
 
+    /**
+     * Returns the public default constructor of a public and concrete server
+     * resource class, with access checks suppressed. The constructor is cached
+     * to avoid looking it up and checking its access on each call.
+     * 
+     * @param targetClass
+     *            The server resource class.
+     * @return The default constructor or null if it isn't available.
+     */
+    private Constructor<? extends ServerResource> getConstructor(
+            Class<? extends ServerResource> targetClass) {
+        Constructor<? extends ServerResource> result = this.constructor;
+
+        if ((result == null) || (result.getDeclaringClass() != targetClass)) {
+            int modifiers = targetClass.getModifiers();
+
+            if (Modifier.isAbstract(modifiers)
+                    || !Modifier.isPublic(modifiers)) {
+                // Let Class#newInstance() report the error as before
+                result = null;
+            } else {
+                try {
+                    result = targetClass.getConstructor();
+                    result.setAccessible(true);
+                    this.constructor = result;
+                } catch (NoSuchMethodException nsme) {
+                    result = null;
+                } catch (RuntimeException re) {
+                    // Denied by a security manager or a module not opened
+                    result = null;
+                }
+            }
+        }
+
+        return result;
+    }
+
     /**
      * Returns the target resource class which must be either a subclass of
      * {@link ServerResource}.
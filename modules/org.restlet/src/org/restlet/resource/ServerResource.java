@@ -63,6 +63,7 @@ import org.restlet.representation.RepresentationInfo;
 import org.restlet.representation.Variant;
 import org.restlet.routing.Filter;
 import org.restlet.routing.Router;
+import org.restlet.util.ReadableListener;
 import org.restlet.util.Series;
 
 /**
@@ -1260,6 +1261,32 @@ public abstract class ServerResource extends UniformResource {
         return result;
     }
 
+    /**
+     * Asynchronously reads the request entity with the given listener instead
+     * of blocking the current thread. The listener is notified of new content
+     * by the connector's IO thread, as it arrives. Automatic committing of the
+     * response is disabled so that the calling thread can return immediately
+     * and the response be committed later on, typically by invoking
+     * {@link #commit()} from the {@link ReadableListener#onEnd()} callback.<br>
+     * <br>
+     * If the request entity isn't selectable, for example with connectors
+     * that don't support non-blocking IO, it is entirely read by the calling
+     * thread before returning.
+     * 
+     * @param listener
+     *            The listener notified of the request entity content.
+     */
+    public void readRequestEntity(ReadableListener listener) {
+        Representation entity = getRequestEntity();
+        setAutoCommitting(false);
+
+        if ((entity != null) && entity.isSelectable()) {
+            entity.setReadListener(listener);
+        } else {
+            listener.onSelected();
+        }
+    }
+
     /**
      * Permanently redirects the client to a target URI. The client is expected
      * to reuse the same method for the new request.
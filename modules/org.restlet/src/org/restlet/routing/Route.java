@@ -33,6 +33,8 @@
 
 package org.restlet.routing;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 import org.restlet.Request;
 import org.restlet.Response;
 import org.restlet.Restlet;
@@ -51,9 +53,15 @@ import org.restlet.Restlet;
  */
 public abstract class Route extends Filter {
 
+    /** The number of calls being handled by the next Restlet. */
+    private final AtomicInteger outstandingCount;
+
     /** The parent router. */
     private volatile Router router;
 
+    /** The relative weight of the route. */
+    private volatile int weight;
+
     /**
      * Constructor behaving as a simple extractor filter.
      * 
@@ -75,7 +83,34 @@ public abstract class Route extends Filter {
     public Route(Router router, Restlet next) {
         super((router != null) ? router.getContext() : (next != null) ? next
                 .getContext() : null, next);
+        this.outstandingCount = new AtomicInteger();
         this.router = router;
+        this.weight = 1;
+    }
+
+    /**
+     * Handles the call by distributing it to the next Restlet, while counting
+     * the outstanding calls.
+     */
+    @Override
+    protected int doHandle(Request request, Response response) {
+        this.outstandingCount.incrementAndGet();
+
+        try {
+            return super.doHandle(request, response);
+        } finally {
+            this.outstandingCount.decrementAndGet();
+        }
+    }
+
+    /**
+     * Returns the number of calls currently being handled by the next Restlet.
+     * 
+     * @return The number of calls currently being handled.
+     * @see Router#MODE_LEAST_OUTSTANDING_MATCH
+     */
+    public int getOutstandingCount() {
+        return this.outstandingCount.get();
     }
 
     /**
@@ -87,6 +122,17 @@ public abstract class Route extends Filter {
         return this.router;
     }
 
+    /**
+     * Returns the relative weight of the route, used by the weighted routing
+     * mode. By default, it returns 1.
+     * 
+     * @return The relative weight of the route.
+     * @see Router#MODE_WEIGHTED_MATCH
+     */
+    public int getWeight() {
+        return this.weight;
+    }
+
     /**
      * Returns the score for a given call (between 0 and 1.0).
      * 
@@ -108,4 +154,16 @@ public abstract class Route extends Filter {
         this.router = router;
     }
 
+    /**
+     * Sets the relative weight of the route, used by the weighted routing mode.
+     * A route with a null weight is never selected in this mode.
+     * 
+     * @param weight
+     *            The relative weight of the route.
+     * @see Router#MODE_WEIGHTED_MATCH
+     */
+    public void setWeight(int weight) {
+        this.weight = weight;
+    }
+
 }
@@ -59,6 +59,8 @@ import org.restlet.util.RouteList;
  * <li>Last match</li>
  * <li>Random match</li>
  * <li>Round robin</li>
+ * <li>Weighted random match</li>
+ * <li>Least outstanding calls</li>
  * <li>Custom</li>
  * </ul>
  * <br>
@@ -68,6 +70,10 @@ import org.restlet.util.RouteList;
  * patterns. Finally, you can modify the list of routes while handling incoming
  * calls as the delegation code is ensured to be thread-safe.<br>
  * <br>
+ * When many routes are attached, the best and first match modes can avoid
+ * scoring all of them by indexing the routes on the literal path segments of
+ * their URI template, see {@link RouteList#setIndexing(boolean)}.<br>
+ * <br>
  * Concurrency note: instances of this class or its subclasses can be invoked by
  * several threads at the same time and therefore must be thread-safe. You
  * should be especially careful when storing state in member variables.
@@ -110,6 +116,16 @@ public class Router extends Restlet {
      */
     public static final int MODE_LAST_MATCH = 3;
 
+    /**
+     * Each call is routed to the route with the least outstanding calls, among
+     * those reaching the required score. Routes with the same number of
+     * outstanding calls are selected in a round robin mode, while slow routes
+     * naturally accumulate outstanding calls and are skipped. See
+     * {@link RouteList#getLeastOutstanding(Request, Response, float)} method
+     * for implementation details.
+     */
+    public static final int MODE_LEAST_OUTSTANDING_MATCH = 8;
+
     /**
      * Each call is routed to the next route target if the required score is
      * reached. The next route is relative to the previous call routed (round
@@ -133,6 +149,16 @@ public class Router extends Restlet {
      */
     public static final int MODE_RANDOM_MATCH = 5;
 
+    /**
+     * Each call will be randomly routed to one of the routes that reached the
+     * required score, with a probability proportional to the route weight. See
+     * {@link RouteList#getWeighted(Request, Response, float)} method for
+     * implementation details.
+     * 
+     * @see Route#setWeight(int)
+     */
+    public static final int MODE_WEIGHTED_MATCH = 7;
+
     /** The default matching mode to use when selecting routes based on URIs. */
     private volatile int defaultMatchingMode;
 
@@ -565,6 +591,16 @@ public class Router extends Restlet {
                             getRequiredScore());
                     break;
 
+                case MODE_WEIGHTED_MATCH:
+                    result = getRoutes().getWeighted(request, response,
+                            getRequiredScore());
+                    break;
+
+                case MODE_LEAST_OUTSTANDING_MATCH:
+                    result = getRoutes().getLeastOutstanding(request,
+                            response, getRequiredScore());
+                    break;
+
                 case MODE_CUSTOM:
                     result = getCustom(request, response);
                     break;
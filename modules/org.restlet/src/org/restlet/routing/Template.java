@@ -38,6 +38,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -58,6 +59,11 @@ import org.restlet.util.Resolver;
  * Note that the variable descriptors can be changed before the first parsing or
  * matching call. After that point, changes won't be taken into account.<br>
  * <br>
+ * Patterns made of literal characters and of distinct variables separated by
+ * literals that can't be mistaken for variable characters are matched by a
+ * simple scanner instead of a Regex. Other patterns are compiled into a Regex,
+ * with the same results.<br>
+ * <br>
  * Format and parsing methods are specially available to deal with requests and
  * response. See {@link #format(Request, Response)} and
  * {@link #parse(String, Request)}.
@@ -75,6 +81,87 @@ public class Template {
     /** Mode where characters at the beginning must match the template. */
     public static final int MODE_STARTS_WITH = 1;
 
+    /**
+     * Compiled pattern matched without Regex. Each variable is greedily
+     * scanned, which is equivalent to the Regex matching as the following
+     * literal can't start with a variable character.
+     */
+    private static final class Scanner {
+
+        /** The literals preceding each variable, plus the trailing one. */
+        private final String[] literals;
+
+        /** The variable names. */
+        private final String[] names;
+
+        /** The variable descriptors. */
+        private final Variable[] variables;
+
+        /**
+         * Constructor.
+         * 
+         * @param literals
+         *            The literals preceding each variable, plus the trailing
+         *            one.
+         * @param names
+         *            The variable names.
+         * @param variables
+         *            The variable descriptors.
+         */
+        public Scanner(List<String> literals, List<String> names,
+                List<Variable> variables) {
+            this.literals = literals.toArray(new String[literals.size()]);
+            this.names = names.toArray(new String[names.size()]);
+            this.variables = variables.toArray(new Variable[variables.size()]);
+        }
+
+        /**
+         * Scans a formatted string.
+         * 
+         * @param formattedString
+         *            The formatted string to scan.
+         * @param matchingMode
+         *            The matching mode.
+         * @param bounds
+         *            The optional array updated with the start and end indexes
+         *            of each variable value.
+         * @return The number of matched characters or -1 if the match failed.
+         */
+        public int scan(String formattedString, int matchingMode, int[] bounds) {
+            int index = 0;
+
+            for (int i = 0; i <= this.names.length; i++) {
+                if (!formattedString.startsWith(this.literals[i], index)) {
+                    return -1;
+                }
+
+                index += this.literals[i].length();
+
+                if (i < this.names.length) {
+                    int end = scanVariable(this.variables[i].getType(),
+                            formattedString, index);
+
+                    if ((end == index) && this.variables[i].isRequired()) {
+                        return -1;
+                    }
+
+                    if (bounds != null) {
+                        bounds[2 * i] = index;
+                        bounds[2 * i + 1] = end;
+                    }
+
+                    index = end;
+                }
+            }
+
+            if (matchingMode == MODE_EQUALS) {
+                return (index == formattedString.length()) ? index : -1;
+            }
+
+            return (matchingMode == MODE_STARTS_WITH) ? index : -1;
+        }
+    }
+
     /**
      * Appends to a pattern a repeating group of a given content based on a
      * class of characters.
@@ -184,6 +271,10 @@ public class Template {
                     + QUERY_PARAM_DELIMS + "\\:\\@]|(?:" + PCT_ENCODED + ")";
             final String QUERY_PARAM = QUERY_PARAM_CHAR + "|\\/|\\?";
 
+            // Expression of UUID strings
+            final String UUID = "[" + HEXA + "]{8}\\-[" + HEXA + "]{4}\\-["
+                    + HEXA + "]{4}\\-[" + HEXA + "]{4}\\-[" + HEXA + "]{12}";
+
             final StringBuilder coreRegex = new StringBuilder();
 
             switch (variable.getType()) {
@@ -205,6 +296,15 @@ public class Template {
             case Variable.TYPE_URI_UNRESERVED:
                 appendClass(coreRegex, URI_UNRESERVED, variable.isRequired());
                 break;
+            case Variable.TYPE_UUID:
+                coreRegex.append("((?:").append(UUID).append(')');
+
+                if (!variable.isRequired()) {
+                    coreRegex.append('?');
+                }
+
+                coreRegex.append(')');
+                break;
             case Variable.TYPE_WORD:
                 appendClass(coreRegex, WORD, variable.isRequired());
                 break;
@@ -240,6 +340,188 @@ public class Template {
         return result;
     }
 
+    /**
+     * Returns the length of the variable token starting at a given index, made
+     * of a single character or of a percent-encoded character.
+     * 
+     * @param type
+     *            The variable type.
+     * @param string
+     *            The string to scan.
+     * @param index
+     *            The index of the token.
+     * @return The length of the token or 0 if none starts at this index.
+     */
+    private static int getTokenLength(int type, String string, int index) {
+        char next = string.charAt(index);
+
+        if (isVariableCharacter(type, next)) {
+            return 1;
+        } else if ((next == '%') && isEncodable(type)
+                && (index + 2 < string.length())
+                && isHexadecimal(string.charAt(index + 1))
+                && isHexadecimal(string.charAt(index + 2))) {
+            return 3;
+        }
+
+        return 0;
+    }
+
+    /**
+     * Indicates if the variables of the given type accept percent-encoded
+     * characters.
+     * 
+     * @param type
+     *            The variable type.
+     * @return True if the variables accept percent-encoded characters.
+     */
+    private static boolean isEncodable(int type) {
+        switch (type) {
+        case Variable.TYPE_URI_ALL:
+        case Variable.TYPE_URI_FRAGMENT:
+        case Variable.TYPE_URI_PATH:
+        case Variable.TYPE_URI_QUERY:
+        case Variable.TYPE_URI_QUERY_PARAM:
+        case Variable.TYPE_URI_SEGMENT:
+            return true;
+        default:
+            return false;
+        }
+    }
+
+    /**
+     * Indicates if the given character is an hexadecimal digit.
+     * 
+     * @param character
+     *            The character to test.
+     * @return True if the given character is an hexadecimal digit.
+     */
+    private static boolean isHexadecimal(char character) {
+        return ((character >= '0') && (character <= '9'))
+                || ((character >= 'a') && (character <= 'f'))
+                || ((character >= 'A') && (character <= 'F'));
+    }
+
+    /**
+     * Indicates if the variables of the given type can be scanned without
+     * Regex.
+     * 
+     * @param type
+     *            The variable type.
+     * @return True if the variables of the given type can be scanned.
+     */
+    private static boolean isScannable(int type) {
+        switch (type) {
+        case Variable.TYPE_ALL:
+        case Variable.TYPE_ALPHA:
+        case Variable.TYPE_ALPHA_DIGIT:
+        case Variable.TYPE_DIGIT:
+        case Variable.TYPE_URI_ALL:
+        case Variable.TYPE_URI_FRAGMENT:
+        case Variable.TYPE_URI_PATH:
+        case Variable.TYPE_URI_QUERY:
+        case Variable.TYPE_URI_QUERY_PARAM:
+        case Variable.TYPE_URI_SEGMENT:
+        case Variable.TYPE_URI_UNRESERVED:
+        case Variable.TYPE_UUID:
+        case Variable.TYPE_WORD:
+            return true;
+        default:
+            return false;
+        }
+    }
+
+    /**
+     * Indicates if a character can be part of a variable of the given type,
+     * mirroring the character classes of {@link #getVariableRegex(Variable)}.
+     * 
+     * @param type
+     *            The variable type.
+     * @param character
+     *            The character to test.
+     * @return True if the character can be part of the variable.
+     */
+    private static boolean isVariableCharacter(int type, char character) {
+        boolean alpha = ((character >= 'a') && (character <= 'z'))
+                || ((character >= 'A') && (character <= 'Z'));
+        boolean digit = (character >= '0') && (character <= '9');
+        boolean pchar = Reference.isUnreserved(character)
+                || Reference.isSubDelimiter(character) || (character == ':')
+                || (character == '@');
+
+        switch (type) {
+        case Variable.TYPE_ALL:
+            return (character != '\n') && (character != '\r')
+                    && (character != '\u0085') && (character != '\u2028')
+                    && (character != '\u2029');
+        case Variable.TYPE_ALPHA:
+            return alpha;
+        case Variable.TYPE_ALPHA_DIGIT:
+            return alpha || digit;
+        case Variable.TYPE_DIGIT:
+            return digit;
+        case Variable.TYPE_URI_ALL:
+            return Reference.isUnreserved(character)
+                    || Reference.isReserved(character);
+        case Variable.TYPE_URI_FRAGMENT:
+        case Variable.TYPE_URI_QUERY:
+            return pchar || (character == '/') || (character == '?');
+        case Variable.TYPE_URI_PATH:
+            return pchar || (character == '/');
+        case Variable.TYPE_URI_QUERY_PARAM:
+            return (pchar && (character != '&') && (character != '='))
+                    || (character == '/') || (character == '?');
+        case Variable.TYPE_URI_SEGMENT:
+            return pchar;
+        case Variable.TYPE_URI_UNRESERVED:
+            return Reference.isUnreserved(character);
+        case Variable.TYPE_WORD:
+            return alpha || digit || (character == '_');
+        default:
+            return false;
+        }
+    }
+
+    /**
+     * Scans the value of a variable starting at a given index.
+     * 
+     * @param type
+     *            The variable type.
+     * @param string
+     *            The string to scan.
+     * @param index
+     *            The start index of the value.
+     * @return The end index of the value.
+     */
+    private static int scanVariable(int type, String string, int index) {
+        int result = index;
+
+        if (type == Variable.TYPE_UUID) {
+            if (string.length() - index >= 36) {
+                boolean valid = true;
+
+                for (int i = 0; valid && (i < 36); i++) {
+                    char next = string.charAt(index + i);
+                    valid = ((i == 8) || (i == 13) || (i == 18) || (i == 23)) ? (next == '-')
+                            : isHexadecimal(next);
+                }
+
+                if (valid) {
+                    result = index + 36;
+                }
+            }
+        } else {
+            int length;
+
+            while ((result < string.length())
+                    && ((length = getTokenLength(type, string, result)) > 0)) {
+                result += length;
+            }
+        }
+
+        return result;
+    }
+
     /** The default variable to use when no matching variable descriptor exists. */
     private volatile Variable defaultVariable;
 
@@ -261,6 +543,18 @@ public class Template {
     /** The sequence of Regex variable names as found in the pattern string. */
     private volatile List<String> regexVariables;
 
+    /** The internal scanner or null if a Regex is required. */
+    private volatile Scanner scanner;
+
+    /** Indicates if the pattern was compiled into a scanner, if possible. */
+    private volatile boolean scannerCompiled;
+
+    /**
+     * True if the parsed values of digit and UUID variables are converted into
+     * {@link Long} and {@link java.util.UUID} instances.
+     */
+    private volatile boolean typedVariables;
+
     /** The map of variables associated to the route's template. */
     private final Map<String, Variable> variables;
 
@@ -341,7 +635,97 @@ public class Template {
         this.matchingMode = matchingMode;
         this.variables = new ConcurrentHashMap<String, Variable>();
         this.regexPattern = null;
+        this.scanner = null;
+        this.scannerCompiled = false;
         this.encodingVariables = encodingVariables;
+        this.typedVariables = false;
+    }
+
+    /**
+     * Compiles the pattern into a scanner if it only contains literals and
+     * distinct scannable variables, each followed by a literal that doesn't
+     * start with a variable character, or ending the pattern.
+     * 
+     * @return The scanner or null if a Regex is required.
+     */
+    private Scanner createScanner() {
+        String pattern = getPattern();
+
+        if (pattern == null) {
+            return null;
+        }
+
+        List<String> literals = new ArrayList<String>();
+        List<String> names = new ArrayList<String>();
+        List<Variable> variables = new ArrayList<Variable>();
+        StringBuilder literal = new StringBuilder();
+        StringBuilder varBuffer = null;
+
+        for (int i = 0; i < pattern.length(); i++) {
+            char next = pattern.charAt(i);
+
+            if (varBuffer != null) {
+                if (Reference.isUnreserved(next)) {
+                    varBuffer.append(next);
+                } else if ((next == '}') && (varBuffer.length() > 0)
+                        && !names.contains(varBuffer.toString())) {
+                    String name = varBuffer.toString();
+                    Variable var = getVariables().get(name);
+
+                    if (var == null) {
+                        var = getDefaultVariable();
+                    }
+
+                    if (var.isFixed()
+                            || !isScannable(var.getType())
+                            || ((var.getType() == Variable.TYPE_UUID) && !var
+                                    .isRequired())) {
+                        return null;
+                    }
+
+                    literals.add(literal.toString());
+                    names.add(name);
+                    variables.add(var);
+                    literal = new StringBuilder();
+                    varBuffer = null;
+                } else {
+                    // Invalid or repeated variables are left to the Regex
+                    return null;
+                }
+            } else if (next == '{') {
+                varBuffer = new StringBuilder();
+            } else if ((next == '}') || (next == '+')) {
+                // The Regex ignores the former and doesn't quote the latter
+                return null;
+            } else {
+                literal.append(next);
+            }
+        }
+
+        if (varBuffer != null) {
+            return null;
+        }
+
+        literals.add(literal.toString());
+
+        // Check that each variable value can be greedily scanned
+        for (int i = 0; i < variables.size(); i++) {
+            int type = variables.get(i).getType();
+            String following = literals.get(i + 1);
+
+            if (type == Variable.TYPE_UUID) {
+                // Fixed length
+            } else if (following.length() == 0) {
+                if (i + 1 < variables.size()) {
+                    return null;
+                }
+            } else if (getTokenLength(type, following, 0) > 0
+                    || ((following.charAt(0) == '%') && isEncodable(type))) {
+                return null;
+            }
+        }
+
+        return new Scanner(literals, names, variables);
     }
 
     /**
@@ -597,6 +981,66 @@ public class Template {
         return rv;
     }
 
+    /**
+     * Returns the internal scanner, compiling it on first call.
+     * 
+     * @return The internal scanner or null if a Regex is required.
+     */
+    private Scanner getScanner() {
+        if (!this.scannerCompiled) {
+            synchronized (this) {
+                if (!this.scannerCompiled) {
+                    this.scanner = createScanner();
+                    this.scannerCompiled = true;
+                }
+            }
+        }
+
+        return this.scanner;
+    }
+
+    /**
+     * Returns the parsed value of a variable, converted into a {@link Long} or
+     * {@link java.util.UUID} instance for digit and UUID variables if
+     * {@link #isTypedVariables()} returns true.
+     * 
+     * @param name
+     *            The variable name.
+     * @param value
+     *            The raw value extracted from the formatted string.
+     * @return The parsed value.
+     */
+    private Object getValue(String name, String value) {
+        Object result = value;
+        Variable var = getVariables().get(name);
+
+        if ((value != null) && (var != null) && var.isDecodingOnParse()
+                && ((value.indexOf('%') != -1) || (value.indexOf('+') != -1))) {
+            value = Reference.decode(value);
+            result = value;
+        }
+
+        if (isTypedVariables() && (value != null) && (value.length() > 0)) {
+            if (var == null) {
+                var = getDefaultVariable();
+            }
+
+            try {
+                if (var.getType() == Variable.TYPE_DIGIT) {
+                    result = Long.valueOf(value);
+                    // [ifndef gwt]
+                } else if (var.getType() == Variable.TYPE_UUID) {
+                    result = java.util.UUID.fromString(value);
+                    // [enddef]
+                }
+            } catch (IllegalArgumentException iae) {
+                // Keep the string value, for example if it overflows
+            }
+        }
+
+        return result;
+    }
+
     /**
      * Returns the list of variable names in the template.
      * 
@@ -672,6 +1116,18 @@ public class Template {
         return this.encodingVariables;
     }
 
+    /**
+     * Indicates if the parsed values of digit and UUID variables are converted
+     * into {@link Long} and {@link java.util.UUID} instances instead of being
+     * stored as strings. By default, it returns false.
+     * 
+     * @return True if the parsed values of digit and UUID variables are
+     *         converted.
+     */
+    public boolean isTypedVariables() {
+        return this.typedVariables;
+    }
+
     /**
      * Indicates if the current pattern matches the given formatted string.
      * 
@@ -683,7 +1139,10 @@ public class Template {
         int result = -1;
 
         try {
-            if (formattedString != null) {
+            if ((formattedString != null) && (getScanner() != null)) {
+                result = getScanner().scan(formattedString, getMatchingMode(),
+                        null);
+            } else if (formattedString != null) {
                 final Matcher matcher = getRegexPattern().matcher(
                         formattedString);
 
@@ -741,7 +1200,20 @@ public class Template {
             boolean loggable) {
         int result = -1;
 
-        if (formattedString != null) {
+        Scanner scanner = (formattedString == null) ? null : getScanner();
+
+        if (scanner != null) {
+            int[] bounds = new int[2 * scanner.names.length];
+            result = scanner.scan(formattedString, getMatchingMode(), bounds);
+
+            if (result != -1) {
+                for (int i = 0; i < scanner.names.length; i++) {
+                    putValue(scanner.names[i], formattedString.substring(
+                            bounds[2 * i], bounds[2 * i + 1]), variables,
+                            loggable);
+                }
+            }
+        } else if (formattedString != null) {
             try {
                 Matcher matcher = getRegexPattern().matcher(formattedString);
                 boolean matched = ((getMatchingMode() == MODE_EQUALS) && matcher
@@ -754,26 +1226,9 @@ public class Template {
                     result = matcher.end();
 
                     // Update the attributes with the variables value
-                    String attributeName = null;
-                    String attributeValue = null;
-
                     for (int i = 0; i < getRegexVariables().size(); i++) {
-                        attributeName = getRegexVariables().get(i);
-                        attributeValue = matcher.group(i + 1);
-                        Variable var = getVariables().get(attributeName);
-
-                        if ((var != null) && var.isDecodingOnParse()) {
-                            attributeValue = Reference.decode(attributeValue);
-                        }
-
-                        if (loggable) {
-                            getLogger().fine(
-                                    "Template variable \"" + attributeName
-                                            + "\" matched with value \""
-                                            + attributeValue + "\"");
-                        }
-
-                        variables.put(attributeName, attributeValue);
+                        putValue(getRegexVariables().get(i),
+                                matcher.group(i + 1), variables, loggable);
                     }
                 }
             } catch (StackOverflowError soe) {
@@ -805,6 +1260,32 @@ public class Template {
                 request.isLoggable());
     }
 
+    /**
+     * Updates the map of variables with a parsed value.
+     * 
+     * @param name
+     *            The variable name.
+     * @param value
+     *            The raw value extracted from the formatted string.
+     * @param variables
+     *            The map of variables to update.
+     * @param loggable
+     *            True if the parsing should be logged.
+     */
+    private void putValue(String name, String value,
+            Map<String, Object> variables, boolean loggable) {
+        Object parsedValue = getValue(name, value);
+
+        if (loggable && getLogger().isLoggable(Level.FINE)) {
+            getLogger().fine(
+                    "Template variable \"" + name
+                            + "\" matched with value \"" + parsedValue
+                            + "\"");
+        }
+
+        variables.put(name, parsedValue);
+    }
+
     /**
      * Quotes special characters that could be taken for special Regex
      * characters.
@@ -901,6 +1382,21 @@ public class Template {
     public void setPattern(String pattern) {
         this.pattern = pattern;
         this.regexPattern = null;
+        this.scannerCompiled = false;
+        this.scanner = null;
+    }
+
+    /**
+     * Indicates if the parsed values of digit and UUID variables are converted
+     * into {@link Long} and {@link java.util.UUID} instances instead of being
+     * stored as strings.
+     * 
+     * @param typedVariables
+     *            True if the parsed values of digit and UUID variables are
+     *            converted.
+     */
+    public void setTypedVariables(boolean typedVariables) {
+        this.typedVariables = typedVariables;
     }
 
     /**
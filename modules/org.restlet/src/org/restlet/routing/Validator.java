@@ -33,7 +33,11 @@
 
 package org.restlet.routing;
 
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.regex.Pattern;
 
@@ -45,7 +49,11 @@ import org.restlet.data.Status;
 
 /**
  * Filter validating attributes from a call. Validation is verified based on
- * regex pattern matching.<br>
+ * regex pattern matching, compiled once when the validation is registered, or
+ * on simpler checks not requiring any regex such as numeric ranges, length
+ * limits or enumerations of allowed values. All the registered validations are
+ * checked in one pass, and all the failures are reported in the status
+ * description.<br>
  * <br>
  * Concurrency note: instances of this class or its subclasses can be invoked by
  * several threads at the same time and therefore must be thread-safe. You
@@ -57,15 +65,18 @@ import org.restlet.data.Status;
 public class Validator extends Filter {
 
     /** Internal class holding validation information. */
-    private static final class ValidateInfo {
+    private static class ValidateInfo {
         /** Name of the attribute to look for. */
-        protected String attribute;
+        protected final String attribute;
 
         /** Format of the attribute value, using Regex pattern syntax. */
-        protected String format;
+        protected final String format;
+
+        /** The compiled format of the attribute value. */
+        protected final Pattern pattern;
 
         /** Indicates if the attribute presence is required. */
-        protected boolean required;
+        protected final boolean required;
 
         /**
          * Constructor.
@@ -81,6 +92,196 @@ public class Validator extends Filter {
             this.attribute = attribute;
             this.required = required;
             this.format = format;
+            this.pattern = (format == null) ? null : Pattern.compile(format);
+        }
+
+        /**
+         * Returns the description of the expected format.
+         * 
+         * @return The description of the expected format.
+         */
+        public String getDescription() {
+            return this.format + " (Java Regex)";
+        }
+
+        /**
+         * Indicates if the format of the value is checked.
+         * 
+         * @return True if the format of the value is checked.
+         */
+        public boolean isChecking() {
+            return this.pattern != null;
+        }
+
+        /**
+         * Indicates if a value is valid.
+         * 
+         * @param value
+         *            The value to check.
+         * @return True if the value is valid.
+         */
+        public boolean isValid(Object value) {
+            return this.pattern.matcher(value.toString()).matches();
+        }
+    }
+
+    /** Validation of the length of an attribute value. */
+    private static final class LengthInfo extends ValidateInfo {
+        /** The maximum length. */
+        private final int maxLength;
+
+        /** The minimum length. */
+        private final int minLength;
+
+        /**
+         * Constructor.
+         * 
+         * @param attribute
+         *            Name of the attribute to look for.
+         * @param required
+         *            Indicates if the attribute presence is required.
+         * @param minLength
+         *            The minimum length.
+         * @param maxLength
+         *            The maximum length.
+         */
+        public LengthInfo(String attribute, boolean required, int minLength,
+                int maxLength) {
+            super(attribute, required, null);
+            this.minLength = minLength;
+            this.maxLength = maxLength;
+        }
+
+        @Override
+        public String getDescription() {
+            return "between " + this.minLength + " and " + this.maxLength
+                    + " characters";
+        }
+
+        @Override
+        public boolean isChecking() {
+            return true;
+        }
+
+        @Override
+        public boolean isValid(Object value) {
+            int length = value.toString().length();
+            return (length >= this.minLength) && (length <= this.maxLength);
+        }
+    }
+
+    /** Validation of the numeric range of an attribute value. */
+    private static final class RangeInfo extends ValidateInfo {
+        /** The maximum value. */
+        private final long maximum;
+
+        /** The minimum value. */
+        private final long minimum;
+
+        /**
+         * Constructor.
+         * 
+         * @param attribute
+         *            Name of the attribute to look for.
+         * @param required
+         *            Indicates if the attribute presence is required.
+         * @param minimum
+         *            The minimum value.
+         * @param maximum
+         *            The maximum value.
+         */
+        public RangeInfo(String attribute, boolean required, long minimum,
+                long maximum) {
+            super(attribute, required, null);
+            this.minimum = minimum;
+            this.maximum = maximum;
+        }
+
+        @Override
+        public String getDescription() {
+            return "an integer between " + this.minimum + " and "
+                    + this.maximum;
+        }
+
+        @Override
+        public boolean isChecking() {
+            return true;
+        }
+
+        @Override
+        public boolean isValid(Object value) {
+            boolean result = false;
+
+            if ((value instanceof Long) || (value instanceof Integer)
+                    || (value instanceof Short) || (value instanceof Byte)) {
+                long number = ((Number) value).longValue();
+                result = (number >= this.minimum) && (number <= this.maximum);
+            } else {
+                String string = value.toString();
+                int length = string.length();
+                char first = (length > 1) ? string.charAt(0) : '0';
+                boolean negative = (first == '-');
+                int start = (negative || (first == '+')) ? 1 : 0;
+                long number = 0;
+                result = (length > start);
+
+                // Accumulate negatively like Long#parseLong(String), in order
+                // to reach Long.MIN_VALUE, and stop before an overflow
+                for (int i = start; result && (i < length); i++) {
+                    int digit = string.charAt(i) - '0';
+                    result = (digit >= 0) && (digit <= 9)
+                            && (number >= (Long.MIN_VALUE + digit) / 10);
+                    number = (number * 10) - digit;
+                }
+
+                if (result && !negative) {
+                    result = (number != Long.MIN_VALUE);
+                    number = -number;
+                }
+
+                if (result) {
+                    result = (number >= this.minimum)
+                            && (number <= this.maximum);
+                }
+            }
+
+            return result;
+        }
+    }
+
+    /** Validation of an attribute value against a set of allowed values. */
+    private static final class ValuesInfo extends ValidateInfo {
+        /** The allowed values. */
+        private final Set<String> values;
+
+        /**
+         * Constructor.
+         * 
+         * @param attribute
+         *            Name of the attribute to look for.
+         * @param required
+         *            Indicates if the attribute presence is required.
+         * @param values
+         *            The allowed values.
+         */
+        public ValuesInfo(String attribute, boolean required, String... values) {
+            super(attribute, required, null);
+            this.values = new HashSet<String>(Arrays.asList(values));
+        }
+
+        @Override
+        public String getDescription() {
+            return "one of " + this.values;
+        }
+
+        @Override
+        public boolean isChecking() {
+            return true;
+        }
+
+        @Override
+        public boolean isValid(Object value) {
+            return this.values.contains(value.toString());
         }
     }
 
@@ -132,32 +333,41 @@ public class Validator extends Filter {
     @Override
     protected int beforeHandle(Request request, Response response) {
         if (this.validations != null) {
+            Map<String, Object> attributes = request.getAttributes();
+            StringBuilder failures = null;
+            String failure;
+
             for (ValidateInfo validate : getValidations()) {
-                if (validate.required
-                        && !request.getAttributes().containsKey(
-                                validate.attribute)) {
-                    response.setStatus(
-                            Status.CLIENT_ERROR_BAD_REQUEST,
-                            "Unable to find the \""
-                                    + validate.attribute
-                                    + "\" attribute in the request. Please check your request.");
-                } else if (validate.format != null) {
-                    Object value = request.getAttributes().get(
-                            validate.attribute);
-
-                    if ((value != null)
-                            && !Pattern.matches(validate.format,
-                                    value.toString())) {
-                        response.setStatus(
-                                Status.CLIENT_ERROR_BAD_REQUEST,
-                                "Unable to validate the value of the \""
-                                        + validate.attribute
-                                        + "\" attribute. The expected format is: "
-                                        + validate.format
-                                        + " (Java Regex). Please check your request.");
+                Object value = attributes.get(validate.attribute);
+                failure = null;
+
+                if ((value == null) && validate.required
+                        && !attributes.containsKey(validate.attribute)) {
+                    failure = "Unable to find the \""
+                            + validate.attribute
+                            + "\" attribute in the request. Please check your request.";
+                } else if ((value != null) && validate.isChecking()
+                        && !validate.isValid(value)) {
+                    failure = "Unable to validate the value of the \""
+                            + validate.attribute
+                            + "\" attribute. The expected format is: "
+                            + validate.getDescription()
+                            + ". Please check your request.";
+                }
+
+                if (failure != null) {
+                    if (failures == null) {
+                        failures = new StringBuilder(failure);
+                    } else {
+                        failures.append(' ').append(failure);
                     }
                 }
             }
+
+            if (failures != null) {
+                response.setStatus(Status.CLIENT_ERROR_BAD_REQUEST,
+                        failures.toString());
+            }
         }
 
         return CONTINUE;
@@ -212,6 +422,26 @@ public class Validator extends Filter {
         getValidations().add(new ValidateInfo(attribute, false, format));
     }
 
+    /**
+     * Checks the request attributes for presence and length, without regex. If
+     * the check fails, then a response status CLIENT_ERROR_BAD_REQUEST is
+     * returned with the proper status description.
+     * 
+     * @param attribute
+     *            Name of the attribute to look for.
+     * @param required
+     *            Indicates if the attribute presence is required.
+     * @param minLength
+     *            The minimum length of the attribute value.
+     * @param maxLength
+     *            The maximum length of the attribute value.
+     */
+    public void validateLength(String attribute, boolean required,
+            int minLength, int maxLength) {
+        getValidations().add(
+                new LengthInfo(attribute, required, minLength, maxLength));
+    }
+
     /**
      * Checks the request attributes for presence only. If the check fails, then
      * a response status CLIENT_ERROR_BAD_REQUEST is returned with the proper
@@ -223,4 +453,45 @@ public class Validator extends Filter {
     public void validatePresence(String attribute) {
         getValidations().add(new ValidateInfo(attribute, true, null));
     }
+
+    /**
+     * Checks the request attributes for presence and numeric range, without
+     * regex. The value must be an integer, either as a string or as a number
+     * parsed by a template with typed variables. If the check fails, then a
+     * response status CLIENT_ERROR_BAD_REQUEST is returned with the proper
+     * status description.
+     * 
+     * @param attribute
+     *            Name of the attribute to look for.
+     * @param required
+     *            Indicates if the attribute presence is required.
+     * @param minimum
+     *            The minimum value of the attribute.
+     * @param maximum
+     *            The maximum value of the attribute.
+     * @see Template#setTypedVariables(boolean)
+     */
+    public void validateRange(String attribute, boolean required,
+            long minimum, long maximum) {
+        getValidations().add(
+                new RangeInfo(attribute, required, minimum, maximum));
+    }
+
+    /**
+     * Checks the request attributes for presence and value, which must be one
+     * of the allowed values, without regex. If the check fails, then a
+     * response status CLIENT_ERROR_BAD_REQUEST is returned with the proper
+     * status description.
+     * 
+     * @param attribute
+     *            Name of the attribute to look for.
+     * @param required
+     *            Indicates if the attribute presence is required.
+     * @param values
+     *            The allowed values of the attribute.
+     */
+    public void validateValues(String attribute, boolean required,
+            String... values) {
+        getValidations().add(new ValuesInfo(attribute, required, values));
+    }
 }
@@ -88,6 +88,12 @@ public final class Variable {
     /** Matches unreserved URI characters. */
     public static final int TYPE_URI_UNRESERVED = 15;
 
+    /**
+     * Matches UUID strings made of 32 hexadecimal digits separated by hyphens,
+     * such as "123e4567-e89b-12d3-a456-426655440000".
+     */
+    public static final int TYPE_UUID = 17;
+
     /** Matches all alphabetical and digital characters plus the underscore. */
     public static final int TYPE_WORD = 16;
 
@@ -0,0 +1,137 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+
+package org.restlet.service;
+
+import org.restlet.Context;
+import org.restlet.engine.application.CacheFilter;
+import org.restlet.routing.Filter;
+
+/**
+ * Application service caching in memory the responses to GET requests, as a
+ * shared HTTP cache would do. Only successful responses with an explicit
+ * freshness lifetime, given by the "s-maxage" or "max-age" cache directives or
+ * by the entity expiration date, are stored. Responses marked with the
+ * "no-store", "private" or "no-cache" directives or setting cookies are never
+ * stored. The variant dimensions of each response are used to select the
+ * cached response matching the preferences of later requests.<br>
+ * <br>
+ * Fresh cached responses are directly returned without invoking the
+ * application's resources, and conditional requests are answered with a
+ * "304 Not modified" status when possible. The least recently used responses
+ * are evicted when the total size of the cached entities exceeds a byte
+ * budget. Successful requests with unsafe methods invalidate the responses
+ * cached for the same resource.
+ * 
+ * @author Jerome Louvel
+ */
+public class CacheService extends Service {
+
+    /** The default maximum size of a single cached entity. */
+    public static final long DEFAULT_MAX_ENTRY_SIZE = 1024 * 1024;
+
+    /** The default maximum total size of the cached entities. */
+    public static final long DEFAULT_MAX_SIZE = 16 * 1024 * 1024;
+
+    /** The maximum size of a single cached entity. */
+    private volatile long maxEntrySize;
+
+    /** The maximum total size of the cached entities. */
+    private volatile long maxSize;
+
+    /**
+     * Constructor.
+     */
+    public CacheService() {
+        this(true);
+    }
+
+    /**
+     * Constructor.
+     * 
+     * @param enabled
+     *            True if the service has been enabled.
+     */
+    public CacheService(boolean enabled) {
+        super(enabled);
+        this.maxEntrySize = DEFAULT_MAX_ENTRY_SIZE;
+        this.maxSize = DEFAULT_MAX_SIZE;
+    }
+
+    @Override
+    public Filter createInboundFilter(Context context) {
+        return new CacheFilter(context, this);
+    }
+
+    /**
+     * Returns the maximum size of a single cached entity. Larger entities are
+     * never cached. Defaults to {@link #DEFAULT_MAX_ENTRY_SIZE}.
+     * 
+     * @return The maximum size of a single cached entity.
+     */
+    public long getMaxEntrySize() {
+        return maxEntrySize;
+    }
+
+    /**
+     * Returns the maximum total size of the cached entities. Defaults to
+     * {@link #DEFAULT_MAX_SIZE}.
+     * 
+     * @return The maximum total size of the cached entities.
+     */
+    public long getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Sets the maximum size of a single cached entity.
+     * 
+     * @param maxEntrySize
+     *            The maximum size of a single cached entity.
+     */
+    public void setMaxEntrySize(long maxEntrySize) {
+        this.maxEntrySize = maxEntrySize;
+    }
+
+    /**
+     * Sets the maximum total size of the cached entities.
+     * 
+     * @param maxSize
+     *            The maximum total size of the cached entities.
+     */
+    public void setMaxSize(long maxSize) {
+        this.maxSize = maxSize;
+    }
+
+}
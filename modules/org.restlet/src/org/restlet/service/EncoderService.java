@@ -37,6 +37,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
+import java.util.zip.Deflater;
 
 import org.restlet.Context;
 import org.restlet.data.Encoding;
@@ -93,6 +94,11 @@ public class EncoderService extends Service {
      */
     private volatile List<MediaType> acceptedMediaTypes;
 
+    /**
+     * The compression level.
+     */
+    private volatile int compressionLevel;
+
     /**
      * The media types that should be ignored.
      */
@@ -118,6 +124,7 @@ public class EncoderService extends Service {
      */
     public EncoderService(boolean enabled) {
         super(enabled);
+        this.compressionLevel = Deflater.DEFAULT_COMPRESSION;
         this.mininumSize = DEFAULT_MINIMUM_SIZE;
         this.acceptedMediaTypes = getDefaultAcceptedMediaTypes();
         this.ignoredMediaTypes = getDefaultIgnoredMediaTypes();
@@ -201,6 +208,18 @@ public class EncoderService extends Service {
         return this.acceptedMediaTypes;
     }
 
+    /**
+     * Returns the compression level used by the GZIP, DEFLATE and ZIP
+     * encodings, from 0 (no compression) to 9 (best compression). By default,
+     * it is {@link Deflater#DEFAULT_COMPRESSION}, letting the underlying
+     * library balance speed and ratio.
+     * 
+     * @return The compression level.
+     */
+    public int getCompressionLevel() {
+        return this.compressionLevel;
+    }
+
     /**
      * Returns the media types that should be ignored.
      * 
@@ -221,6 +240,23 @@ public class EncoderService extends Service {
         return this.mininumSize;
     }
 
+    /**
+     * Sets the compression level used by the GZIP, DEFLATE and ZIP encodings.
+     * 
+     * @param compressionLevel
+     *            The compression level, from 0 (no compression) to 9 (best
+     *            compression) or {@link Deflater#DEFAULT_COMPRESSION}.
+     */
+    public void setCompressionLevel(int compressionLevel) {
+        if ((compressionLevel < Deflater.DEFAULT_COMPRESSION)
+                || (compressionLevel > Deflater.BEST_COMPRESSION)) {
+            throw new IllegalArgumentException("Invalid compression level: "
+                    + compressionLevel);
+        }
+
+        this.compressionLevel = compressionLevel;
+    }
+
     /**
      * Sets the minimum size a representation must have before compression is
      * done.
@@ -55,6 +55,12 @@ public abstract class ReadableListener implements SelectionListener {
     /** The byte channel to read from when selected. */
     private final ReadableByteChannel byteChannel;
 
+    /** Indicates if the end of the source has been reached. */
+    private boolean endReached;
+
+    /** The selection registration of the source, if selectable. */
+    private final SelectionRegistration registration;
+
     /**
      * Default constructor. Uses a byte buffer of {@link IoUtils#BUFFER_SIZE}
      * length.
@@ -80,6 +86,9 @@ public abstract class ReadableListener implements SelectionListener {
             throws IOException {
         this.byteBuffer = ByteBuffer.allocate(bufferSize);
         this.byteChannel = source.getChannel();
+        this.endReached = false;
+        this.registration = source.isSelectable() ? source.getRegistration()
+                : null;
     }
 
     /**
@@ -111,20 +120,34 @@ public abstract class ReadableListener implements SelectionListener {
     /**
      * Callback invoked when new content is available. It reads the available
      * bytes from the source channel into an internal buffer then calls
-     * {@link #onContent(ByteBuffer)}.
+     * {@link #onContent(ByteBuffer)}, until no more bytes are immediately
+     * available. This drains the bytes already buffered by the connector in a
+     * single notification. When the end is reached, the listener is
+     * unregistered from the source and {@link #onEnd()} is called.
      */
     public final void onSelected() {
         try {
             synchronized (this.byteBuffer) {
-                this.byteBuffer.clear();
-                int result = this.byteChannel.read(this.byteBuffer);
+                int result = 0;
+                boolean content = false;
 
-                if (result > 0) {
+                while (!this.endReached && (result = read()) > 0) {
+                    content = true;
                     this.byteBuffer.flip();
                     onContent(this.byteBuffer);
-                } else if (result == -1) {
+                }
+
+                if (result == -1) {
+                    this.endReached = true;
+
+                    if (this.registration != null) {
+                        // Stop listening at this point
+                        this.registration.setNoInterest();
+                        this.registration.setListener(null);
+                    }
+
                     onEnd();
-                } else {
+                } else if (!content && !this.endReached) {
                     Context.getCurrentLogger().fine(
                             "NIO selection detected with no content available");
                 }
@@ -133,4 +156,16 @@ public abstract class ReadableListener implements SelectionListener {
             onError(ioe);
         }
     }
+
+    /**
+     * Reads the next available bytes from the source channel into the cleared
+     * internal buffer.
+     * 
+     * @return The number of bytes read or -1 if the end was reached.
+     * @throws IOException
+     */
+    private int read() throws IOException {
+        this.byteBuffer.clear();
+        return this.byteChannel.read(this.byteBuffer);
+    }
 }
@@ -33,15 +33,22 @@
 
 package org.restlet.util;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.restlet.Request;
 import org.restlet.Response;
 import org.restlet.Restlet;
 import org.restlet.routing.Route;
+import org.restlet.routing.TemplateRoute;
 
 /**
  * Modifiable list of routes with some helper methods. Note that this class
@@ -50,22 +57,158 @@ import org.restlet.routing.Route;
  * {@link List}, in particular all the helper methods in {@link Collections}.<br>
  * <br>
  * Note that structural changes to this list are thread-safe, using an
- * underlying {@link CopyOnWriteArrayList}.
+ * underlying {@link CopyOnWriteArrayList}.<br>
+ * <br>
+ * When indexing is enabled, the routes are also organized in a trie keyed on
+ * the literal path segments starting their URI template, maintained as routes
+ * are added or removed. The {@link #getBest(Request, Response, float)} and
+ * {@link #getFirst(Request, Response, float)} methods then only score the
+ * routes whose literal prefix matches the remaining part of the resource
+ * reference, giving the same results as a full scan. Note that the URI
+ * patterns of the indexed routes must not be changed after their addition.
  * 
  * @author Jerome Louvel
  * @see java.util.Collections
  * @see java.util.List
  */
 public final class RouteList extends WrapperList<Route> {
-    /** The index of the last route used in the round robin mode. */
-    private volatile int lastIndex;
+
+    /**
+     * Indexed route.
+     */
+    private static class IndexEntry {
+
+        /** The route. */
+        private final Route route;
+
+        /** The insertion order of the route. */
+        private final long sequence;
+
+        /**
+         * Constructor.
+         * 
+         * @param route
+         *            The route.
+         * @param sequence
+         *            The insertion order of the route.
+         */
+        public IndexEntry(Route route, long sequence) {
+            this.route = route;
+            this.sequence = sequence;
+        }
+    }
+
+    /**
+     * Node of the routing trie, holding the routes whose literal prefix ends
+     * with the path segments leading to it.
+     */
+    private static class IndexNode {
+
+        /** The child nodes, keyed by path segment. */
+        private final Map<String, IndexNode> children = new ConcurrentHashMap<String, IndexNode>();
+
+        /** The routes ending at this node. */
+        private final List<IndexEntry> entries = new CopyOnWriteArrayList<IndexEntry>();
+
+    }
+
+    /** The random generator of each thread. */
+    private static final ThreadLocal<Random> RANDOM = new ThreadLocal<Random>() {
+        @Override
+        protected Random initialValue() {
+            return new Random();
+        }
+    };
+
+    /** Orders the indexed routes like the list. */
+    private static final Comparator<IndexEntry> SEQUENCE_COMPARATOR = new Comparator<IndexEntry>() {
+        public int compare(IndexEntry entry1, IndexEntry entry2) {
+            return (entry1.sequence < entry2.sequence) ? -1
+                    : ((entry1.sequence == entry2.sequence) ? 0 : 1);
+        }
+    };
+
+    /**
+     * Returns the first route match for a given call, starting at a given
+     * index and looping around the routes.
+     * 
+     * @param routes
+     *            The routes to score.
+     * @param start
+     *            The index of the first route to score.
+     * @param request
+     *            The request to score.
+     * @param response
+     *            The response to score.
+     * @param requiredScore
+     *            The minimum score required to have a match.
+     * @return The index of the first route match or -1.
+     */
+    private static int getFrom(Route[] routes, int start, Request request,
+            Response response, float requiredScore) {
+        for (int i = 0; i < routes.length; i++) {
+            int index = (start + i) % routes.length;
+
+            if (routes[index].score(request, response) >= requiredScore) {
+                return index;
+            }
+        }
+
+        // No match found
+        return -1;
+    }
+
+    /**
+     * Returns the literal path segments that any reference matched by the
+     * route must start with. Routes that aren't plain template routes can't be
+     * indexed and have no segment.
+     * 
+     * @param route
+     *            The route.
+     * @return The literal path segments.
+     */
+    private static List<String> getSegments(Route route) {
+        List<String> result = new ArrayList<String>();
+
+        if ((route != null) && (route.getClass() == TemplateRoute.class)) {
+            TemplateRoute templateRoute = (TemplateRoute) route;
+            String pattern = (templateRoute.getTemplate() == null) ? null
+                    : templateRoute.getTemplate().getPattern();
+
+            if (pattern != null) {
+                int start = 0;
+
+                for (int i = 0; i < pattern.length(); i++) {
+                    char next = pattern.charAt(i);
+
+                    if ((next == '{') || (next == '}')) {
+                        break;
+                    } else if (next == '/') {
+                        result.add(pattern.substring(start, i));
+                        start = i + 1;
+                    }
+                }
+            }
+        }
+
+        return result;
+    }
+
+    /** The routing trie or null if indexing is disabled. */
+    private volatile IndexNode index;
+
+    /** The index of the last route selected in a round robin mode. */
+    private final AtomicInteger cursor;
+
+    /** The insertion order of the next indexed route. */
+    private long sequence;
 
     /**
      * Constructor.
      */
     public RouteList() {
         super(new CopyOnWriteArrayList<Route>());
-        this.lastIndex = -1;
+        this.cursor = new AtomicInteger(-1);
     }
 
     /**
@@ -76,7 +219,66 @@ public final class RouteList extends WrapperList<Route> {
      */
     public RouteList(List<Route> delegate) {
         super(new CopyOnWriteArrayList<Route>(delegate));
-        this.lastIndex = -1;
+        this.cursor = new AtomicInteger(-1);
+    }
+
+    @Override
+    public synchronized boolean add(Route route) {
+        boolean result = super.add(route);
+
+        if (this.index != null) {
+            index(this.index, route);
+        }
+
+        return result;
+    }
+
+    @Override
+    public synchronized void add(int index, Route route) {
+        super.add(index, route);
+        reindex();
+    }
+
+    @Override
+    public synchronized boolean addAll(Collection<? extends Route> routes) {
+        boolean result = super.addAll(routes);
+
+        if (this.index != null) {
+            for (Route route : routes) {
+                index(this.index, route);
+            }
+        }
+
+        return result;
+    }
+
+    @Override
+    public synchronized boolean addAll(int index,
+            Collection<? extends Route> routes) {
+        boolean result = super.addAll(index, routes);
+        reindex();
+        return result;
+    }
+
+    @Override
+    public synchronized void clear() {
+        super.clear();
+        reindex();
+    }
+
+    /**
+     * Creates a routing trie indexing all the routes of the list.
+     * 
+     * @return The root node of the trie.
+     */
+    private IndexNode createIndex() {
+        IndexNode result = new IndexNode();
+
+        for (Route route : this) {
+            index(result, route);
+        }
+
+        return result;
     }
 
     /**
@@ -95,7 +297,7 @@ public final class RouteList extends WrapperList<Route> {
         float bestScore = 0F;
         float score;
 
-        for (Route current : this) {
+        for (Route current : getCandidates(request)) {
             score = current.score(request, response);
 
             if ((score > bestScore) && (score >= requiredScore)) {
@@ -107,6 +309,48 @@ public final class RouteList extends WrapperList<Route> {
         return result;
     }
 
+    /**
+     * Returns the routes that could match a given call, in the list order. If
+     * indexing is disabled, the list itself is returned.
+     * 
+     * @param request
+     *            The request to score.
+     * @return The candidate routes.
+     */
+    private List<Route> getCandidates(Request request) {
+        IndexNode node = this.index;
+        String remainingPart = ((node == null) || (request == null) || (request
+                .getResourceRef() == null)) ? null : request.getResourceRef()
+                .getRemainingPart(false, true);
+
+        if (remainingPart == null) {
+            return this;
+        }
+
+        List<IndexEntry> entries = new ArrayList<IndexEntry>(node.entries);
+        int start = 0;
+
+        for (int i = remainingPart.indexOf('/'); (node != null) && (i != -1); i = remainingPart
+                .indexOf('/', start)) {
+            node = node.children.get(remainingPart.substring(start, i));
+
+            if (node != null) {
+                entries.addAll(node.entries);
+            }
+
+            start = i + 1;
+        }
+
+        Collections.sort(entries, SEQUENCE_COMPARATOR);
+        List<Route> result = new ArrayList<Route>(entries.size());
+
+        for (IndexEntry entry : entries) {
+            result.add(entry.route);
+        }
+
+        return result;
+    }
+
     /**
      * Returns the first route match for a given call.
      * 
@@ -120,7 +364,7 @@ public final class RouteList extends WrapperList<Route> {
      */
     public Route getFirst(Request request, Response response,
             float requiredScore) {
-        for (Route current : this) {
+        for (Route current : getCandidates(request)) {
             if (current.score(request, response) >= requiredScore) {
                 return current;
             }
@@ -141,12 +385,13 @@ public final class RouteList extends WrapperList<Route> {
      *            The minimum score required to have a match.
      * @return The last route match or null.
      */
-    public synchronized Route getLast(Request request, Response response,
+    public Route getLast(Request request, Response response,
             float requiredScore) {
-        for (int j = size() - 1; (j >= 0); j--) {
-            final Route route = get(j);
-            if (route.score(request, response) >= requiredScore) {
-                return route;
+        Route[] routes = toArray(new Route[0]);
+
+        for (int j = routes.length - 1; (j >= 0); j--) {
+            if (routes[j].score(request, response) >= requiredScore) {
+                return routes[j];
             }
         }
 
@@ -154,6 +399,52 @@ public final class RouteList extends WrapperList<Route> {
         return null;
     }
 
+    /**
+     * Returns the route match with the least outstanding calls for a given
+     * call. Routes with the same number of outstanding calls are selected in
+     * a round robin mode.
+     * 
+     * @param request
+     *            The request to score.
+     * @param response
+     *            The response to score.
+     * @param requiredScore
+     *            The minimum score required to have a match.
+     * @return The least busy route match or null.
+     * @see Route#getOutstandingCount()
+     */
+    public Route getLeastOutstanding(Request request, Response response,
+            float requiredScore) {
+        Route result = null;
+        Route[] routes = toArray(new Route[0]);
+
+        if (routes.length > 0) {
+            int start = nextIndex(routes.length);
+            int leastCount = Integer.MAX_VALUE;
+            int selected = -1;
+
+            for (int i = 0; (leastCount > 0) && (i < routes.length); i++) {
+                int index = (start + i) % routes.length;
+                Route route = routes[index];
+                int count = route.getOutstandingCount();
+
+                if ((count < leastCount)
+                        && (route.score(request, response) >= requiredScore)) {
+                    leastCount = count;
+                    selected = index;
+                }
+            }
+
+            if (selected != -1) {
+                // Ties are broken from the route following this one
+                this.cursor.set(selected);
+                result = routes[selected];
+            }
+        }
+
+        return result;
+    }
+
     /**
      * Returns a next route match in a round robin mode for a given call.
      * 
@@ -165,23 +456,23 @@ public final class RouteList extends WrapperList<Route> {
      *            The minimum score required to have a match.
      * @return A next route or null.
      */
-    public synchronized Route getNext(Request request, Response response,
+    public Route getNext(Request request, Response response,
             float requiredScore) {
-        if (!isEmpty()) {
-            for (final int initialIndex = this.lastIndex++; initialIndex != this.lastIndex; this.lastIndex++) {
-                if (this.lastIndex >= size()) {
-                    this.lastIndex = 0;
-                }
+        Route result = null;
+        Route[] routes = toArray(new Route[0]);
 
-                final Route route = get(this.lastIndex);
-                if (route.score(request, response) >= requiredScore) {
-                    return route;
-                }
+        if (routes.length > 0) {
+            int index = getFrom(routes, nextIndex(routes.length), request,
+                    response, requiredScore);
+
+            if (index != -1) {
+                // Resume after the selected route on the next call
+                this.cursor.set(index);
+                result = routes[index];
             }
         }
 
-        // No match found
-        return null;
+        return result;
     }
 
     /**
@@ -197,36 +488,128 @@ public final class RouteList extends WrapperList<Route> {
      *            The minimum score required to have a match.
      * @return A random route or null.
      */
-    public synchronized Route getRandom(Request request, Response response,
+    public Route getRandom(Request request, Response response,
             float requiredScore) {
-        int length = size();
+        Route[] routes = toArray(new Route[0]);
+        int index = (routes.length == 0) ? -1 : getFrom(routes, RANDOM.get()
+                .nextInt(routes.length), request, response, requiredScore);
+        return (index == -1) ? null : routes[index];
+    }
 
-        if (length > 0) {
-            int j = new Random().nextInt(length);
-            Route route = get(j);
+    /**
+     * Returns a random route match for a given call, each route being selected
+     * with a probability proportional to its weight.
+     * 
+     * @param request
+     *            The request to score.
+     * @param response
+     *            The response to score.
+     * @param requiredScore
+     *            The minimum score required to have a match.
+     * @return A random route or null.
+     * @see Route#getWeight()
+     */
+    public Route getWeighted(Request request, Response response,
+            float requiredScore) {
+        Route result = null;
+        Random random = RANDOM.get();
+        int totalWeight = 0;
 
-            if (route.score(request, response) >= requiredScore) {
-                return route;
-            }
+        for (Route route : this) {
+            int weight = route.getWeight();
 
-            boolean loopedAround = false;
+            if ((weight > 0)
+                    && (route.score(request, response) >= requiredScore)) {
+                totalWeight += weight;
 
-            do {
-                if ((j == length) && (loopedAround == false)) {
-                    j = 0;
-                    loopedAround = true;
+                if (random.nextInt(totalWeight) < weight) {
+                    result = route;
                 }
+            }
+        }
 
-                route = get(j++);
+        return result;
+    }
 
-                if (route.score(request, response) >= requiredScore) {
-                    return route;
-                }
-            } while ((j < length) || !loopedAround);
+    /**
+     * Adds a route to a routing trie.
+     * 
+     * @param root
+     *            The root node of the trie.
+     * @param route
+     *            The route to index.
+     */
+    private void index(IndexNode root, Route route) {
+        IndexNode node = root;
+
+        for (String segment : getSegments(route)) {
+            IndexNode child = node.children.get(segment);
+
+            if (child == null) {
+                child = new IndexNode();
+                node.children.put(segment, child);
+            }
+
+            node = child;
         }
 
-        // No match found
-        return null;
+        node.entries.add(new IndexEntry(route, this.sequence++));
+    }
+
+    /**
+     * Indicates if the routes are indexed in a trie keyed on the literal path
+     * segments of their URI template. By default, it returns false.
+     * 
+     * @return True if the routes are indexed.
+     */
+    public boolean isIndexing() {
+        return this.index != null;
+    }
+
+    /**
+     * Returns the index of the route following the last one selected in a
+     * round robin mode.
+     * 
+     * @param length
+     *            The number of routes.
+     * @return The index of the next route.
+     */
+    private int nextIndex(int length) {
+        return ((this.cursor.get() + 1) & Integer.MAX_VALUE) % length;
+    }
+
+    /**
+     * Rebuilds the routing trie, if indexing is enabled.
+     */
+    private void reindex() {
+        if (this.index != null) {
+            this.index = createIndex();
+        }
+    }
+
+    @Override
+    public synchronized Route remove(int index) {
+        Route result = super.remove(index);
+        unindex(result);
+        return result;
+    }
+
+    @Override
+    public synchronized boolean remove(Object route) {
+        boolean result = super.remove(route);
+
+        if (result && (route instanceof Route)) {
+            unindex((Route) route);
+        }
+
+        return result;
+    }
+
+    @Override
+    public synchronized boolean removeAll(Collection<?> routes) {
+        boolean result = super.removeAll(routes);
+        reindex();
+        return result;
     }
 
     /**
@@ -243,6 +626,36 @@ public final class RouteList extends WrapperList<Route> {
         }
     }
 
+    @Override
+    public synchronized boolean retainAll(Collection<?> routes) {
+        boolean result = super.retainAll(routes);
+        reindex();
+        return result;
+    }
+
+    @Override
+    public synchronized Route set(int index, Route route) {
+        Route result = super.set(index, route);
+        reindex();
+        return result;
+    }
+
+    /**
+     * Indicates if the routes should be indexed in a trie keyed on the literal
+     * path segments of their URI template, so that calls are only scored
+     * against the routes that could match them.
+     * 
+     * @param indexing
+     *            True if the routes should be indexed.
+     */
+    public synchronized void setIndexing(boolean indexing) {
+        if (indexing && (this.index == null)) {
+            this.index = createIndex();
+        } else if (!indexing) {
+            this.index = null;
+        }
+    }
+
     /**
      * Returns a view of the portion of this list between the specified
      * fromIndex, inclusive, and toIndex, exclusive.
@@ -257,4 +670,35 @@ public final class RouteList extends WrapperList<Route> {
     public RouteList subList(int fromIndex, int toIndex) {
         return new RouteList(getDelegate().subList(fromIndex, toIndex));
     }
+
+    /**
+     * Removes a route from the routing trie. If the route is still in the
+     * list, the trie is rebuilt to keep the other occurrences.
+     * 
+     * @param route
+     *            The route to unindex.
+     */
+    private void unindex(Route route) {
+        if (this.index != null) {
+            if (contains(route)) {
+                reindex();
+            } else {
+                IndexNode node = this.index;
+
+                for (String segment : getSegments(route)) {
+                    if (node != null) {
+                        node = node.children.get(segment);
+                    }
+                }
+
+                if (node != null) {
+                    for (IndexEntry entry : node.entries) {
+                        if (entry.route == route) {
+                            node.entries.remove(entry);
+                        }
+                    }
+                }
+            }
+        }
+    }
 }
@@ -116,6 +116,9 @@ public class SelectionRegistration {
     /** The active selection key. */
     private volatile SelectionKey selectionKey;
 
+    /** The listener notified of updates, or null. */
+    private volatile SelectionUpdateListener updateListener;
+
     /**
      * Constructor.
      * 
@@ -235,6 +238,15 @@ public class SelectionRegistration {
         return this.selectableChannel;
     }
 
+    /**
+     * Returns the listener notified of updates.
+     * 
+     * @return The listener notified of updates, or null.
+     */
+    public SelectionUpdateListener getUpdateListener() {
+        return updateListener;
+    }
+
     /**
      * Indicates if a canceling of the registration has been requested.
      * 
@@ -296,6 +308,19 @@ public class SelectionRegistration {
         }
     }
 
+    /**
+     * Called back when the interest operations, the listener or the canceling
+     * flag have been updated. By default, it notifies the listener provided by
+     * {@link #getUpdateListener()}.
+     */
+    protected void onUpdated() {
+        SelectionUpdateListener updateListener = getUpdateListener();
+
+        if (updateListener != null) {
+            updateListener.onUpdated(this);
+        }
+    }
+
     /**
      * Effectively registers the {@link #getSelectableChannel()} with the given
      * {@link Selector} for the {@link #getInterestOperations()} operations.
@@ -335,7 +360,10 @@ public class SelectionRegistration {
      *            True if a canceling request is made.
      */
     public void setCanceling(boolean canceling) {
-        this.canceling = canceling;
+        if (this.canceling != canceling) {
+            this.canceling = canceling;
+            onUpdated();
+        }
     }
 
     /**
@@ -355,6 +383,11 @@ public class SelectionRegistration {
         }
 
         setReadyOperations(0);
+
+        if (result) {
+            onUpdated();
+        }
+
         return result;
     }
 
@@ -365,7 +398,10 @@ public class SelectionRegistration {
      *            The selection listener that will be notified.
      */
     public void setListener(SelectionListener listener) {
-        this.listener = listener;
+        if (this.listener != listener) {
+            this.listener = listener;
+            onUpdated();
+        }
     }
 
     /**
@@ -392,6 +428,16 @@ public class SelectionRegistration {
         this.readyOperations = readyOperations;
     }
 
+    /**
+     * Sets the listener notified of updates.
+     * 
+     * @param updateListener
+     *            The listener notified of updates, or null.
+     */
+    public void setUpdateListener(SelectionUpdateListener updateListener) {
+        this.updateListener = updateListener;
+    }
+
     /**
      * Sets interest in IO read operations.
      */
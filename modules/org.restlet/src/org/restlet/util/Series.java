@@ -34,11 +34,14 @@
 package org.restlet.util;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.ListIterator;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Set;
 import java.util.logging.Level;
 
@@ -48,7 +51,11 @@ import org.restlet.Context;
  * Modifiable list of entries with many helper methods. Note that this class
  * uses the Parameter class as the template type. This allows you to use an
  * instance of this class as any other java.util.List, in particular all the
- * helper methods in java.util.Collections.
+ * helper methods in java.util.Collections.<br>
+ * <br>
+ * Large series look up their entries by name through an index. Entries
+ * renamed in place are only found under their new name once
+ * {@link #reindex()} has been called.
  * 
  * @author Jerome Louvel
  * @param <T>
@@ -63,6 +70,327 @@ public class Series<T extends NamedValue<String>> extends WrapperList<T> {
 	// public abstract class Series<T extends NamedValue<String>> extends WrapperList<T>
 	// {
 	// [enddef]
+	/**
+	 * List iterator invalidating the name index of the series when the list
+	 * is modified through it.
+	 */
+	private class IndexedIterator implements ListIterator<T> {
+
+		/** The wrapped iterator. */
+		private final ListIterator<T> iterator;
+
+		/**
+		 * Constructor.
+		 * 
+		 * @param iterator
+		 *            The wrapped iterator.
+		 */
+		private IndexedIterator(ListIterator<T> iterator) {
+			this.iterator = iterator;
+		}
+
+		public void add(T e) {
+			this.iterator.add(e);
+			onModified();
+		}
+
+		public boolean hasNext() {
+			return this.iterator.hasNext();
+		}
+
+		public boolean hasPrevious() {
+			return this.iterator.hasPrevious();
+		}
+
+		public T next() {
+			return this.iterator.next();
+		}
+
+		public int nextIndex() {
+			return this.iterator.nextIndex();
+		}
+
+		public T previous() {
+			return this.iterator.previous();
+		}
+
+		public int previousIndex() {
+			return this.iterator.previousIndex();
+		}
+
+		public void remove() {
+			this.iterator.remove();
+			onModified();
+		}
+
+		public void set(T e) {
+			this.iterator.set(e);
+			onModified();
+		}
+	}
+
+	/**
+	 * Iterator over the entries matching a name, in the list order. The name
+	 * index is used when available, otherwise the list is scanned. As entries
+	 * can be renamed in place without notifying the series, the name of each
+	 * indexed entry is checked again. Entries renamed into the looked up name
+	 * are only found once the series is re-indexed, see {@link #reindex()}.
+	 */
+	private class NameIterator implements Iterator<T> {
+
+		/** Indicates if the name comparison is case insensitive. */
+		private final boolean ignoreCase;
+
+		/** The name index or null. */
+		private final NameIndex index;
+
+		/** The list iterator used when the name index isn't used. */
+		private final Iterator<T> iterator;
+
+		/** The name to match. */
+		private final String name;
+
+		/** The next matching entry or null. */
+		private T next;
+
+		/** The position of the next indexed entry to test, or -1. */
+		private int position;
+
+		/**
+		 * Constructor.
+		 * 
+		 * @param name
+		 *            The name to match.
+		 * @param ignoreCase
+		 *            Indicates if the name comparison is case insensitive.
+		 */
+		private NameIterator(String name, boolean ignoreCase) {
+			this.ignoreCase = ignoreCase;
+			this.index = (name == null) ? null : getIndex();
+			this.iterator = (this.index == null) ? getDelegate().iterator()
+					: null;
+			this.name = name;
+			this.position = (this.index == null) ? -1 : this.index
+					.getFirst(name);
+			this.next = findNext();
+		}
+
+		/**
+		 * Finds the next matching entry.
+		 * 
+		 * @return The next matching entry or null.
+		 */
+		@SuppressWarnings("unchecked")
+		private T findNext() {
+			T result = null;
+
+			if (this.iterator == null) {
+				while ((result == null) && (this.position != -1)) {
+					T param = (T) this.index.getEntry(this.position);
+					this.position = this.index.getNext(this.position);
+
+					if (Series.this.equals(param.getName(), this.name,
+							this.ignoreCase)) {
+						result = param;
+					} else if (!this.name.equalsIgnoreCase(param.getName())) {
+						// Renamed since indexed, rebuild the index next time
+						reindex();
+					}
+				}
+			} else {
+				while ((result == null) && this.iterator.hasNext()) {
+					T param = this.iterator.next();
+
+					if (Series.this.equals(param.getName(), this.name,
+							this.ignoreCase)) {
+						result = param;
+					}
+				}
+			}
+
+			return result;
+		}
+
+		public boolean hasNext() {
+			return this.next != null;
+		}
+
+		public T next() {
+			if (this.next == null) {
+				throw new NoSuchElementException();
+			}
+
+			T result = this.next;
+			this.next = findNext();
+			return result;
+		}
+
+		public void remove() {
+			throw new UnsupportedOperationException();
+		}
+	}
+
+	/**
+	 * Open addressing hash index of the entries by name, ignoring the case.
+	 * The entries sharing the same name are chained in the list order. The
+	 * index is a snapshot of the list, valid as long as the list isn't
+	 * modified.
+	 */
+	private static final class NameIndex {
+
+		/**
+		 * Computes the hash of a name, consistently with
+		 * {@link String#equalsIgnoreCase(String)}.
+		 * 
+		 * @param name
+		 *            The name.
+		 * @return The hash.
+		 */
+		private static int hash(String name) {
+			int result = 0;
+
+			for (int i = 0; i < name.length(); i++) {
+				result = 31 * result
+						+ Character.toLowerCase(Character.toUpperCase(name
+								.charAt(i)));
+			}
+
+			return result ^ (result >>> 16);
+		}
+
+		/** The snapshot of the indexed entries. */
+		private final Object[] entries;
+
+		/** The number of list modifications when the index was built. */
+		private final int modifications;
+
+		/** The snapshot of the entry names. */
+		private final String[] names;
+
+		/**
+		 * The position of the next entry with the same name, or -1, for each
+		 * entry.
+		 */
+		private final int[] next;
+
+		/**
+		 * The hash table of the position of the first entry of each name,
+		 * plus one. Empty slots are set to 0.
+		 */
+		private final int[] slots;
+
+		/**
+		 * Constructor.
+		 * 
+		 * @param entries
+		 *            The entries to index.
+		 * @param modifications
+		 *            The number of list modifications.
+		 */
+		@SuppressWarnings("unchecked")
+		private NameIndex(Object[] entries, int modifications) {
+			this.entries = entries;
+			this.modifications = modifications;
+			this.names = new String[entries.length];
+			this.next = new int[entries.length];
+			int capacity = 16;
+
+			while (capacity < entries.length * 2) {
+				capacity <<= 1;
+			}
+
+			this.slots = new int[capacity];
+
+			// The last entry of each chain, indexed by the first one
+			int[] last = new int[entries.length];
+
+			for (int i = 0; i < entries.length; i++) {
+				String name = ((NamedValue<String>) entries[i]).getName();
+				this.names[i] = name;
+				this.next[i] = -1;
+
+				if (name != null) {
+					int slot = findSlot(name);
+
+					if (this.slots[slot] == 0) {
+						this.slots[slot] = i + 1;
+						last[i] = i;
+					} else {
+						int first = this.slots[slot] - 1;
+						this.next[last[first]] = i;
+						last[first] = i;
+					}
+				}
+			}
+		}
+
+		/**
+		 * Returns the slot holding a name, or the empty slot where it would
+		 * be inserted.
+		 * 
+		 * @param name
+		 *            The name to look up.
+		 * @return The slot index.
+		 */
+		private int findSlot(String name) {
+			int mask = this.slots.length - 1;
+			int result = hash(name) & mask;
+
+			while ((this.slots[result] != 0)
+					&& !name.equalsIgnoreCase(getName(this.slots[result] - 1))) {
+				result = (result + 1) & mask;
+			}
+
+			return result;
+		}
+
+		/**
+		 * Returns the entry at the given position.
+		 * 
+		 * @param position
+		 *            The entry position.
+		 * @return The entry.
+		 */
+		private Object getEntry(int position) {
+			return this.entries[position];
+		}
+
+		/**
+		 * Returns the position of the first entry with the given name,
+		 * ignoring the case.
+		 * 
+		 * @param name
+		 *            The name to look up.
+		 * @return The entry position or -1.
+		 */
+		private int getFirst(String name) {
+			return this.slots[findSlot(name)] - 1;
+		}
+
+		/**
+		 * Returns the name of the entry at the given position, when the index
+		 * was built.
+		 * 
+		 * @param position
+		 *            The entry position.
+		 * @return The entry name.
+		 */
+		private String getName(int position) {
+			return this.names[position];
+		}
+
+		/**
+		 * Returns the position of the next entry with the same name.
+		 * 
+		 * @param position
+		 *            The current entry position.
+		 * @return The next entry position or -1.
+		 */
+		private int getNext(int position) {
+			return this.next[position];
+		}
+	}
+
 	/**
 	 * A marker for empty values to differentiate from non existing values
 	 * (null).
@@ -85,15 +413,31 @@ public class Series<T extends NamedValue<String>> extends WrapperList<T> {
 				java.util.Collections.unmodifiableList(series.getDelegate()));
 	}
 
+	/** The minimum size of the series to look up its entries with an index. */
+	private static final int INDEX_THRESHOLD = 8;
+
 	/** The entry class. */
 	private final Class<T> entryClass;
 
+	/**
+	 * Indicates if the entries can be indexed by name. Series wrapping an
+	 * external list can be modified behind their back and aren't indexed.
+	 */
+	private volatile boolean indexable;
+
+	/** The name index lazily built by the lookups, or null. */
+	private volatile NameIndex index;
+
+	/** The number of modifications of the list, invalidating the index. */
+	private volatile int modifications;
+
 	/**
 	 * Constructor.
 	 */
 	public Series(Class<T> entryClass) {
 		super();
 		this.entryClass = entryClass;
+		this.indexable = true;
 	}
 
 	/**
@@ -105,6 +449,7 @@ public class Series<T extends NamedValue<String>> extends WrapperList<T> {
 	public Series(Class<T> entryClass, int initialCapacity) {
 		super(initialCapacity);
 		this.entryClass = entryClass;
+		this.indexable = true;
 	}
 
 	/**
@@ -116,6 +461,20 @@ public class Series<T extends NamedValue<String>> extends WrapperList<T> {
 	public Series(Class<T> entryClass, List<T> delegate) {
 		super(delegate);
 		this.entryClass = entryClass;
+		this.indexable = false;
+	}
+
+	@Override
+	public boolean add(T element) {
+		boolean result = super.add(element);
+		onModified();
+		return result;
+	}
+
+	@Override
+	public void add(int index, T element) {
+		super.add(index, element);
+		onModified();
 	}
 
 	/**
@@ -131,6 +490,26 @@ public class Series<T extends NamedValue<String>> extends WrapperList<T> {
 		return add(createEntry(name, value));
 	}
 
+	@Override
+	public boolean addAll(Collection<? extends T> elements) {
+		boolean result = super.addAll(elements);
+		onModified();
+		return result;
+	}
+
+	@Override
+	public boolean addAll(int index, Collection<? extends T> elements) {
+		boolean result = super.addAll(index, elements);
+		onModified();
+		return result;
+	}
+
+	@Override
+	public void clear() {
+		super.clear();
+		onModified();
+	}
+
 	/**
 	 * Copies the parameters whose name is a key in the given map.<br>
 	 * If a matching parameter is found, its value is put in the map.<br>
@@ -288,13 +667,8 @@ public class Series<T extends NamedValue<String>> extends WrapperList<T> {
 	 * @return The first parameter found with the given name.
 	 */
 	public T getFirst(String name, boolean ignoreCase) {
-		for (T param : this) {
-			if (equals(param.getName(), name, ignoreCase)) {
-				return param;
-			}
-		}
-
-		return null;
+		Iterator<T> iter = new NameIterator(name, ignoreCase);
+		return iter.hasNext() ? iter.next() : null;
 	}
 
 	/**
@@ -361,6 +735,28 @@ public class Series<T extends NamedValue<String>> extends WrapperList<T> {
 		return getFirstValue(name, false, defaultValue);
 	}
 
+	/**
+	 * Returns the name index, building it if needed. Only series large enough
+	 * and not wrapping an external list are indexed.
+	 * 
+	 * @return The name index or null.
+	 */
+	private NameIndex getIndex() {
+		NameIndex result = null;
+
+		if (this.indexable && (size() >= INDEX_THRESHOLD)) {
+			int modifications = this.modifications;
+			result = this.index;
+
+			if ((result == null) || (result.modifications != modifications)) {
+				result = new NameIndex(toArray(), modifications);
+				this.index = result;
+			}
+		}
+
+		return result;
+	}
+
 	/**
 	 * Returns the set of parameter names (case sensitive).
 	 * 
@@ -406,20 +802,20 @@ public class Series<T extends NamedValue<String>> extends WrapperList<T> {
 		String result = null;
 		StringBuilder sb = null;
 
-		for (final T param : this) {
-			if ((ignoreCase && param.getName().equalsIgnoreCase(name))
-					|| param.getName().equals(name)) {
-				if (sb == null) {
-					if (result == null) {
-						result = param.getValue();
-					} else {
-						sb = new StringBuilder();
-						sb.append(result).append(separator)
-								.append(param.getValue());
-					}
+		for (Iterator<T> iter = new NameIterator(name, ignoreCase); iter
+				.hasNext();) {
+			T param = iter.next();
+
+			if (sb == null) {
+				if (result == null) {
+					result = param.getValue();
 				} else {
-					sb.append(separator).append(param.getValue());
+					sb = new StringBuilder();
+					sb.append(result).append(separator)
+							.append(param.getValue());
 				}
+			} else {
+				sb.append(separator).append(param.getValue());
 			}
 		}
 
@@ -522,6 +918,76 @@ public class Series<T extends NamedValue<String>> extends WrapperList<T> {
 		return result;
 	}
 
+	@Override
+	public Iterator<T> iterator() {
+		return listIterator();
+	}
+
+	@Override
+	public ListIterator<T> listIterator() {
+		return new IndexedIterator(super.listIterator());
+	}
+
+	@Override
+	public ListIterator<T> listIterator(int index) {
+		return new IndexedIterator(super.listIterator(index));
+	}
+
+	/**
+	 * Indicates if an entry with the given name may be in the list. Only the
+	 * name index gives an exact answer, otherwise true is returned and the
+	 * caller scans the list once.
+	 * 
+	 * @param name
+	 *            The name to look up.
+	 * @param ignoreCase
+	 *            Indicates if the name comparison is case insensitive.
+	 * @return False if no entry has the given name.
+	 */
+	private boolean mayContain(String name, boolean ignoreCase) {
+		return (getIndex() == null)
+				|| new NameIterator(name, ignoreCase).hasNext();
+	}
+
+	/**
+	 * Invalidates the name index after a modification of the list.
+	 */
+	private void onModified() {
+		this.modifications++;
+	}
+
+	/**
+	 * Rebuilds the name index of large series on the next lookup by name. The
+	 * series isn't notified when one of its entries is renamed in place, for
+	 * example with {@link org.restlet.data.Parameter#setName(String)}, so this
+	 * method must be called before looking up such entries by their new
+	 * name. Modifying the list has the same effect.
+	 */
+	public void reindex() {
+		this.index = null;
+	}
+
+	@Override
+	public T remove(int index) {
+		T result = super.remove(index);
+		onModified();
+		return result;
+	}
+
+	@Override
+	public boolean remove(Object element) {
+		boolean result = super.remove(element);
+		onModified();
+		return result;
+	}
+
+	@Override
+	public boolean removeAll(Collection<?> elements) {
+		boolean result = super.removeAll(elements);
+		onModified();
+		return result;
+	}
+
 	/**
 	 * Removes all the parameters with a given name.
 	 * 
@@ -546,12 +1012,15 @@ public class Series<T extends NamedValue<String>> extends WrapperList<T> {
 		boolean changed = false;
 		NamedValue<String> param = null;
 
-		for (Iterator<T> iter = iterator(); iter.hasNext();) {
-			param = iter.next();
+		// Only scan the list when a matching entry may exist
+		if (mayContain(name, ignoreCase)) {
+			for (Iterator<T> iter = iterator(); iter.hasNext();) {
+				param = iter.next();
 
-			if (equals(param.getName(), name, ignoreCase)) {
-				iter.remove();
-				changed = true;
+				if (equals(param.getName(), name, ignoreCase)) {
+					iter.remove();
+					changed = true;
+				}
 			}
 		}
 
@@ -584,17 +1053,35 @@ public class Series<T extends NamedValue<String>> extends WrapperList<T> {
 		boolean changed = false;
 		NamedValue<String> param = null;
 
-		for (final Iterator<T> iter = iterator(); iter.hasNext() && !changed;) {
-			param = iter.next();
-			if (equals(param.getName(), name, ignoreCase)) {
-				iter.remove();
-				changed = true;
+		// Only scan the list when a matching entry may exist
+		if (mayContain(name, ignoreCase)) {
+			for (final Iterator<T> iter = iterator(); iter.hasNext()
+					&& !changed;) {
+				param = iter.next();
+				if (equals(param.getName(), name, ignoreCase)) {
+					iter.remove();
+					changed = true;
+				}
 			}
 		}
 
 		return changed;
 	}
 
+	@Override
+	public boolean retainAll(Collection<?> elements) {
+		boolean result = super.retainAll(elements);
+		onModified();
+		return result;
+	}
+
+	@Override
+	public T set(int index, T element) {
+		T result = super.set(index, element);
+		onModified();
+		return result;
+	}
+
 	/**
 	 * Replaces the value of the first parameter with the given name and removes
 	 * all other parameters with the same name. The name matching is case
@@ -627,18 +1114,21 @@ public class Series<T extends NamedValue<String>> extends WrapperList<T> {
 		T param = null;
 		boolean found = false;
 
-		for (final Iterator<T> iter = iterator(); iter.hasNext();) {
-			param = iter.next();
+		// Only scan the list when a matching entry may exist
+		if (mayContain(name, ignoreCase)) {
+			for (final Iterator<T> iter = iterator(); iter.hasNext();) {
+				param = iter.next();
 
-			if (equals(param.getName(), name, ignoreCase)) {
-				if (found) {
-					// Remove other entries with the same name
-					iter.remove();
-				} else {
-					// Change the value of the first matching entry
-					found = true;
-					param.setValue(value);
-					result = param;
+				if (equals(param.getName(), name, ignoreCase)) {
+					if (found) {
+						// Remove other entries with the same name
+						iter.remove();
+					} else {
+						// Change the value of the first matching entry
+						found = true;
+						param.setValue(value);
+						result = param;
+					}
 				}
 			}
 		}
@@ -662,6 +1152,10 @@ public class Series<T extends NamedValue<String>> extends WrapperList<T> {
 	 */
 	@Override
 	public Series<T> subList(int fromIndex, int toIndex) {
+		// The view could modify the list behind the back of the index
+		this.indexable = false;
+		this.index = null;
+
 		// [ifndef gwt] instruction
 		return new Series<T>(this.entryClass, getDelegate().subList(fromIndex,
 				toIndex));
@@ -697,10 +1191,9 @@ public class Series<T extends NamedValue<String>> extends WrapperList<T> {
 		// [ifdef gwt] instruction uncomment
 		// Series<T> result = createSeries(null);
 
-		for (T param : this) {
-			if (equals(param.getName(), name, ignoreCase)) {
-				result.add(param);
-			}
+		for (Iterator<T> iter = new NameIterator(name, ignoreCase); iter
+				.hasNext();) {
+			result.add(iter.next());
 		}
 
 		return result;